@@ -25,6 +25,7 @@ import java.util.Arrays;
 import java.util.List;
 import org.apache.iotdb.db.metadata.MManager;
 import org.apache.iotdb.db.service.TSServiceImpl;
+import org.apache.iotdb.db.writelog.node.WalDurability;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -83,6 +84,18 @@ public class IoTDBConfig {
    */
   private int walBufferSize = 16 * 1024 * 1024;
 
+  /**
+   * If true, the inserting threads only serialize write ahead logs into a double buffer of the
+   * log node, and a thread pool shared by all log nodes writes and forces them in batches (group
+   * commit).
+   */
+  private boolean enableWalGroupCommit = false;
+
+  /**
+   * How durable a write ahead log is when the insertion returns if group commit is enabled.
+   */
+  private WalDurability walDurability = WalDurability.BATCH;
+
   /**
    * system base dir, stores all system metadata and wal
    */
@@ -124,6 +137,19 @@ public class IoTDBConfig {
    */
   private int mergeConcurrentThreads = Runtime.getRuntime().availableProcessors();
 
+  /**
+   * The interval (in seconds) at which unsequence files are merged into sequence files in the
+   * background. When the value <= 0, the background merge is disabled and merges can only be
+   * triggered by the "merge" command.
+   */
+  private long mergeIntervalSec = 3600;
+
+  /**
+   * The maximum speed (in MB/s) at which all merge tasks together may write merged data. When the
+   * value <= 0, merges are not throttled.
+   */
+  private int mergeThroughputMbPerSec = 0;
+
   /**
    * The amount of data that is read every time when IoTDB merges data.
    */
@@ -134,6 +160,63 @@ public class IoTDBConfig {
    */
   private int concurrentFlushThread = Runtime.getRuntime().availableProcessors();
 
+  /**
+   * How many series of a memtable can be sorted and encoded at the same time while it is flushed.
+   * When <= 0, use CPU core number.
+   */
+  private int flushEncodingParallelism = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * How many storage groups, and how many sealed TsFiles, are recovered concurrently at startup.
+   * When <= 0, use CPU core number.
+   */
+  private int recoveryThreadNum = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * How many threads execute the sub tasks of all queries. When <= 0, use CPU core number.
+   */
+  private int concurrentQueryThread = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * The maximum number of sub tasks a single query runs at the same time in the query pool. When
+   * <= 1, each query is executed by its own thread only.
+   */
+  private int maxQueryParallelism = 8;
+
+  /**
+   * The number of points that a query without value filter reads ahead for each series. When <=
+   * 0, no point is read ahead.
+   */
+  private int queryPrefetchSize = 1024;
+
+  /**
+   * Whether sealed TsFiles are read through memory-mapped files, so that their chunks are read
+   * without being copied onto the heap.
+   */
+  private boolean enableMmapRead = false;
+
+  /**
+   * The proportion of the memory for read used to cache the TsFileMetaData of TsFiles.
+   */
+  private double tsFileMetaDataCacheProportion = 0.05;
+
+  /**
+   * The proportion of the memory for read used to cache the TsDeviceMetadata of TsFiles.
+   */
+  private double deviceMetaDataCacheProportion = 0.1;
+
+  /**
+   * The proportion of the memory for read used to cache the chunks of sealed TsFiles. The cache is
+   * shared by all queries, 0 disables it.
+   */
+  private double chunkCacheProportion = 0.2;
+
+  /**
+   * The proportion of the memory for read used to cache the last point of each queried time
+   * series, so that the latest point can be answered without reading the TsFiles. 0 disables it.
+   */
+  private double lastValueCacheProportion = 0.05;
+
   private ZoneId zoneID = ZoneId.systemDefault();
 
   /**
@@ -170,6 +253,13 @@ public class IoTDBConfig {
    */
   private int mManagerCacheSize = 400000;
 
+  /**
+   * When the metadata log has this many entries, a binary snapshot of the metadata is taken and
+   * the log is truncated, so that the startup only replays the log written after the snapshot.
+   * Non-positive values disable the snapshot, which the sync sender requires.
+   */
+  private int mlogSnapshotThreshold = 0;
+
   /**
    * Is this IoTDB instance a receiver of sync or not.
    */
@@ -219,6 +309,12 @@ public class IoTDBConfig {
    */
   private boolean chunkBufferPoolEnable = false;
 
+  /**
+   * The proportion of the memory for write that the idle arrays of the PrimitiveArrayPool may
+   * occupy, the arrays released beyond it are left to the GC.
+   */
+  private double primitiveArrayPoolProportion = 0.1;
+
   public IoTDBConfig() {
     // empty constructor
   }
@@ -371,6 +467,22 @@ public class IoTDBConfig {
     this.mergeConcurrentThreads = mergeConcurrentThreads;
   }
 
+  public long getMergeIntervalSec() {
+    return mergeIntervalSec;
+  }
+
+  void setMergeIntervalSec(long mergeIntervalSec) {
+    this.mergeIntervalSec = mergeIntervalSec;
+  }
+
+  public int getMergeThroughputMbPerSec() {
+    return mergeThroughputMbPerSec;
+  }
+
+  void setMergeThroughputMbPerSec(int mergeThroughputMbPerSec) {
+    this.mergeThroughputMbPerSec = mergeThroughputMbPerSec;
+  }
+
   public int getFetchSize() {
     return fetchSize;
   }
@@ -395,6 +507,86 @@ public class IoTDBConfig {
     this.concurrentFlushThread = concurrentFlushThread;
   }
 
+  public int getFlushEncodingParallelism() {
+    return flushEncodingParallelism;
+  }
+
+  void setFlushEncodingParallelism(int flushEncodingParallelism) {
+    this.flushEncodingParallelism = flushEncodingParallelism;
+  }
+
+  public int getRecoveryThreadNum() {
+    return recoveryThreadNum;
+  }
+
+  void setRecoveryThreadNum(int recoveryThreadNum) {
+    this.recoveryThreadNum = recoveryThreadNum;
+  }
+
+  public int getConcurrentQueryThread() {
+    return concurrentQueryThread;
+  }
+
+  void setConcurrentQueryThread(int concurrentQueryThread) {
+    this.concurrentQueryThread = concurrentQueryThread;
+  }
+
+  public int getMaxQueryParallelism() {
+    return maxQueryParallelism;
+  }
+
+  public void setMaxQueryParallelism(int maxQueryParallelism) {
+    this.maxQueryParallelism = maxQueryParallelism;
+  }
+
+  public int getQueryPrefetchSize() {
+    return queryPrefetchSize;
+  }
+
+  public void setQueryPrefetchSize(int queryPrefetchSize) {
+    this.queryPrefetchSize = queryPrefetchSize;
+  }
+
+  public boolean isEnableMmapRead() {
+    return enableMmapRead;
+  }
+
+  public void setEnableMmapRead(boolean enableMmapRead) {
+    this.enableMmapRead = enableMmapRead;
+  }
+
+  public double getTsFileMetaDataCacheProportion() {
+    return tsFileMetaDataCacheProportion;
+  }
+
+  public void setTsFileMetaDataCacheProportion(double tsFileMetaDataCacheProportion) {
+    this.tsFileMetaDataCacheProportion = tsFileMetaDataCacheProportion;
+  }
+
+  public double getDeviceMetaDataCacheProportion() {
+    return deviceMetaDataCacheProportion;
+  }
+
+  public void setDeviceMetaDataCacheProportion(double deviceMetaDataCacheProportion) {
+    this.deviceMetaDataCacheProportion = deviceMetaDataCacheProportion;
+  }
+
+  public double getChunkCacheProportion() {
+    return chunkCacheProportion;
+  }
+
+  public void setChunkCacheProportion(double chunkCacheProportion) {
+    this.chunkCacheProportion = chunkCacheProportion;
+  }
+
+  public double getLastValueCacheProportion() {
+    return lastValueCacheProportion;
+  }
+
+  public void setLastValueCacheProportion(double lastValueCacheProportion) {
+    this.lastValueCacheProportion = lastValueCacheProportion;
+  }
+
   void setZoneID(ZoneId zoneID) {
     this.zoneID = zoneID;
   }
@@ -447,6 +639,14 @@ public class IoTDBConfig {
     this.mManagerCacheSize = mManagerCacheSize;
   }
 
+  public int getMlogSnapshotThreshold() {
+    return mlogSnapshotThreshold;
+  }
+
+  public void setMlogSnapshotThreshold(int mlogSnapshotThreshold) {
+    this.mlogSnapshotThreshold = mlogSnapshotThreshold;
+  }
+
   public boolean isSyncEnable() {
     return isSyncEnable;
   }
@@ -527,6 +727,22 @@ public class IoTDBConfig {
     this.walBufferSize = walBufferSize;
   }
 
+  public boolean isEnableWalGroupCommit() {
+    return enableWalGroupCommit;
+  }
+
+  public void setEnableWalGroupCommit(boolean enableWalGroupCommit) {
+    this.enableWalGroupCommit = enableWalGroupCommit;
+  }
+
+  public WalDurability getWalDurability() {
+    return walDurability;
+  }
+
+  public void setWalDurability(WalDurability walDurability) {
+    this.walDurability = walDurability;
+  }
+
   public boolean isChunkBufferPoolEnable() {
     return chunkBufferPoolEnable;
   }
@@ -535,6 +751,14 @@ public class IoTDBConfig {
     this.chunkBufferPoolEnable = chunkBufferPoolEnable;
   }
 
+  public double getPrimitiveArrayPoolProportion() {
+    return primitiveArrayPoolProportion;
+  }
+
+  public void setPrimitiveArrayPoolProportion(double primitiveArrayPoolProportion) {
+    this.primitiveArrayPoolProportion = primitiveArrayPoolProportion;
+  }
+
   public boolean isEnableParameterAdapter() {
     return enableParameterAdapter;
   }
@@ -26,6 +26,7 @@ import java.io.InputStream;
 import java.time.ZoneId;
 import java.util.Properties;
 import org.apache.iotdb.db.utils.FilePathUtils;
+import org.apache.iotdb.db.writelog.node.WalDurability;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -155,6 +156,13 @@ public class IoTDBDescriptor {
         conf.setWalBufferSize(walBufferSize);
       }
 
+      conf.setEnableWalGroupCommit(Boolean.parseBoolean(
+          properties.getProperty("enable_wal_group_commit",
+              Boolean.toString(conf.isEnableWalGroupCommit()))));
+
+      conf.setWalDurability(WalDurability.valueOf(properties
+          .getProperty("wal_durability", conf.getWalDurability().name()).trim().toUpperCase()));
+
       conf.setMultiDirStrategyClassName(properties.getProperty("multi_dir_strategy",
           conf.getMultiDirStrategyClassName()));
 
@@ -166,6 +174,13 @@ public class IoTDBDescriptor {
         conf.setMergeConcurrentThreads(Runtime.getRuntime().availableProcessors());
       }
 
+      conf.setMergeIntervalSec(Long.parseLong(properties.getProperty("merge_interval_sec",
+          Long.toString(conf.getMergeIntervalSec())).trim()));
+
+      conf.setMergeThroughputMbPerSec(Integer.parseInt(properties
+          .getProperty("merge_throughput_mb_per_sec",
+              Integer.toString(conf.getMergeThroughputMbPerSec())).trim()));
+
       conf.setFetchSize(Integer.parseInt(properties.getProperty("fetch_size",
           Integer.toString(conf.getFetchSize()))));
 
@@ -204,10 +219,66 @@ public class IoTDBDescriptor {
         conf.setConcurrentFlushThread(Runtime.getRuntime().availableProcessors());
       }
 
+      conf.setFlushEncodingParallelism(Integer
+          .parseInt(properties.getProperty("flush_encoding_parallelism",
+              Integer.toString(conf.getFlushEncodingParallelism())).trim()));
+
+      if (conf.getFlushEncodingParallelism() <= 0) {
+        conf.setFlushEncodingParallelism(Runtime.getRuntime().availableProcessors());
+      }
+
+      conf.setRecoveryThreadNum(Integer
+          .parseInt(properties.getProperty("recovery_thread_num",
+              Integer.toString(conf.getRecoveryThreadNum())).trim()));
+
+      if (conf.getRecoveryThreadNum() <= 0) {
+        conf.setRecoveryThreadNum(Runtime.getRuntime().availableProcessors());
+      }
+
+      conf.setConcurrentQueryThread(Integer
+          .parseInt(properties.getProperty("concurrent_query_thread",
+              Integer.toString(conf.getConcurrentQueryThread())).trim()));
+
+      if (conf.getConcurrentQueryThread() <= 0) {
+        conf.setConcurrentQueryThread(Runtime.getRuntime().availableProcessors());
+      }
+
+      conf.setMaxQueryParallelism(Integer
+          .parseInt(properties.getProperty("max_query_parallelism",
+              Integer.toString(conf.getMaxQueryParallelism())).trim()));
+
+      conf.setQueryPrefetchSize(Integer
+          .parseInt(properties.getProperty("query_prefetch_size",
+              Integer.toString(conf.getQueryPrefetchSize())).trim()));
+
+      conf.setEnableMmapRead(Boolean
+          .parseBoolean(properties.getProperty("enable_mmap_read",
+              Boolean.toString(conf.isEnableMmapRead())).trim()));
+
+      conf.setTsFileMetaDataCacheProportion(Double
+          .parseDouble(properties.getProperty("tsfile_metadata_cache_proportion",
+              Double.toString(conf.getTsFileMetaDataCacheProportion())).trim()));
+
+      conf.setDeviceMetaDataCacheProportion(Double
+          .parseDouble(properties.getProperty("device_metadata_cache_proportion",
+              Double.toString(conf.getDeviceMetaDataCacheProportion())).trim()));
+
+      conf.setChunkCacheProportion(Double
+          .parseDouble(properties.getProperty("chunk_cache_proportion",
+              Double.toString(conf.getChunkCacheProportion())).trim()));
+
+      conf.setLastValueCacheProportion(Double
+          .parseDouble(properties.getProperty("last_value_cache_proportion",
+              Double.toString(conf.getLastValueCacheProportion())).trim()));
+
       conf.setmManagerCacheSize(Integer
           .parseInt(properties.getProperty("schema_manager_cache_size",
               Integer.toString(conf.getmManagerCacheSize())).trim()));
 
+      conf.setMlogSnapshotThreshold(Integer
+          .parseInt(properties.getProperty("mlog_snapshot_threshold",
+              Integer.toString(conf.getMlogSnapshotThreshold())).trim()));
+
       conf.setLanguageVersion(properties.getProperty("language_version",
           conf.getLanguageVersion()).trim());
 
@@ -215,6 +286,9 @@ public class IoTDBDescriptor {
         conf.setChunkBufferPoolEnable(Boolean
             .parseBoolean(properties.getProperty("chunk_buffer_pool_enable")));
       }
+      conf.setPrimitiveArrayPoolProportion(Double
+          .parseDouble(properties.getProperty("primitive_array_pool_proportion",
+              Double.toString(conf.getPrimitiveArrayPoolProportion())).trim()));
       String tmpTimeZone = properties.getProperty("time_zone", conf.getZoneID().toString());
       conf.setZoneID(ZoneId.of(tmpTimeZone.trim()));
       logger.info("Time zone has been set to {}", conf.getZoneID());
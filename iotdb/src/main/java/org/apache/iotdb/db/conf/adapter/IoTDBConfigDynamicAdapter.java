@@ -202,6 +202,16 @@ public class IoTDBConfigDynamicAdapter implements IDynamicAdapter {
         * PrimitiveArrayPool.ARRAY_SIZE * Long.BYTES * 2;
   }
 
+  /**
+   * Whether the primitive arrays in use take more memory than the memtables are given, i.e. m * Nm
+   * in the equation. The memtable size only counts the points, while the memtables take the arrays
+   * ARRAY_SIZE points at a time, so the arrays may exceed it when many series have few points.
+   */
+  public boolean isArrayMemoryExceeded() {
+    return PrimitiveArrayPool.getInstance().getAllocatedBytes()
+        > CONFIG.getMaxMemtableNumber() * CONFIG.getMemtableSizeThreshold();
+  }
+
   /**
    * TODO: Currently IoTDB only supports to add a storage group.
    */
@@ -21,10 +21,18 @@ package org.apache.iotdb.db.engine;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import org.apache.commons.io.FileUtils;
+import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.concurrent.ThreadName;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
@@ -36,6 +44,7 @@ import org.apache.iotdb.db.exception.ProcessorException;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.StorageEngineFailureException;
 import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.service.IService;
@@ -81,18 +90,39 @@ public class StorageEngine implements IService {
     }
 
     /**
-     * recover all storage group processors.
+     * recover all storage group processors concurrently.
      */
+    long startTime = System.currentTimeMillis();
+    ExecutorService recoverPool = IoTDBThreadPoolFactory
+        .newFixedThreadPool(config.getRecoveryThreadNum(),
+            ThreadName.RECOVER_STORAGE_GROUP.getName());
+    ExecutorService fileRecoverPool = IoTDBThreadPoolFactory
+        .newFixedThreadPool(config.getRecoveryThreadNum(), ThreadName.RECOVER_TSFILE.getName());
     try {
       List<String> storageGroups = MManager.getInstance().getAllStorageGroupNames();
+      Map<String, Future<StorageGroupProcessor>> recoverTasks = new LinkedHashMap<>();
       for (String storageGroup : storageGroups) {
-        StorageGroupProcessor processor = new StorageGroupProcessor(systemDir, storageGroup);
-        logger.info("Storage Group Processor {} is recovered successfully", storageGroup);
-        processorMap.put(storageGroup, processor);
+        recoverTasks.put(storageGroup, recoverPool
+            .submit(new StorageGroupRecoverTask(systemDir, storageGroup, fileRecoverPool)));
       }
-    } catch (ProcessorException | MetadataErrorException e) {
+      for (Entry<String, Future<StorageGroupProcessor>> recoverTask : recoverTasks.entrySet()) {
+        processorMap.put(recoverTask.getKey(), recoverTask.getValue().get());
+        logger.info("Storage Group Processor {} is recovered successfully", recoverTask.getKey());
+      }
+      logger.info("{} storage groups are recovered in {}ms", storageGroups.size(),
+          System.currentTimeMillis() - startTime);
+    } catch (MetadataErrorException e) {
       logger.error("init a storage group processor failed. ", e);
       throw new StorageEngineFailureException(e);
+    } catch (ExecutionException e) {
+      logger.error("init a storage group processor failed. ", e.getCause());
+      throw new StorageEngineFailureException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new StorageEngineFailureException(e);
+    } finally {
+      recoverPool.shutdownNow();
+      fileRecoverPool.shutdownNow();
     }
   }
 
@@ -115,7 +145,7 @@ public class StorageEngine implements IService {
   private StorageGroupProcessor getProcessor(String path) throws StorageEngineException {
     String storageGroupName = "";
     try {
-      storageGroupName = MManager.getInstance().getStorageGroupNameByPath(path);
+      storageGroupName = MManager.getInstance().getStorageGroupNameByDevice(path);
       StorageGroupProcessor processor;
       processor = processorMap.get(storageGroupName);
       if (processor == null) {
@@ -168,6 +198,27 @@ public class StorageEngine implements IService {
     return storageGroupProcessor.insert(insertPlan);
   }
 
+  /**
+   * execute a BatchInsertPlan on a storage group.
+   *
+   * @param batchInsertPlan physical plan of batch insertion
+   * @return true if and only if all rows of this batch are inserted
+   */
+  public boolean insertBatch(BatchInsertPlan batchInsertPlan) throws StorageEngineException {
+
+    StorageGroupProcessor storageGroupProcessor;
+    try {
+      storageGroupProcessor = getProcessor(batchInsertPlan.getDeviceId());
+    } catch (Exception e) {
+      logger.warn("get StorageGroupProcessor of device {} failed, because {}",
+          batchInsertPlan.getDeviceId(),
+          e.getMessage(), e);
+      throw new StorageEngineException(e);
+    }
+
+    return storageGroupProcessor.insertBatch(batchInsertPlan);
+  }
+
   /**
    * only for unit test
    */
@@ -217,8 +268,7 @@ public class StorageEngine implements IService {
    * @return a token for the query.
    */
   public int beginQuery(String deviceId) throws StorageEngineException {
-    // TODO implement it when developing the merge function
-    return -1;
+    return getProcessor(deviceId).beginQuery();
   }
 
   /**
@@ -226,7 +276,7 @@ public class StorageEngine implements IService {
    * using it, the TsFile can be deleted safely.
    */
   public void endQuery(String deviceId, int token) throws StorageEngineException {
-    // TODO  implement it when developing the merge function
+    getProcessor(deviceId).endQuery(token);
   }
 
   /**
@@ -238,7 +288,9 @@ public class StorageEngine implements IService {
     String deviceId = seriesExpression.getSeriesPath().getDevice();
     String measurementId = seriesExpression.getSeriesPath().getMeasurement();
     StorageGroupProcessor storageGroupProcessor = getProcessor(deviceId);
-    return storageGroupProcessor.query(deviceId, measurementId, context);
+    // the filter of the expression selects the files by their time ranges
+    return storageGroupProcessor
+        .query(deviceId, measurementId, context, seriesExpression.getFilter());
   }
 
   /**
@@ -270,12 +322,19 @@ public class StorageEngine implements IService {
   }
 
   /**
-   * merge all storage groups.
+   * merge all storage groups. The merges run in background, storage groups whose last merge has
+   * not ended are skipped.
    *
    * @throws StorageEngineException StorageEngineException
    */
   public void mergeAll() throws StorageEngineException {
-    // TODO
+    if (config.isReadOnly()) {
+      throw new StorageEngineException("Current system mode is read only, does not support merge");
+    }
+    logger.info("Start merging all storage groups");
+    for (StorageGroupProcessor processor : processorMap.values()) {
+      processor.merge();
+    }
   }
 
   /**
@@ -321,4 +380,26 @@ public class StorageEngine implements IService {
     return true;
   }
 
+  /**
+   * recovers a storage group in the recover pool. It must not use StorageEngine, whose
+   * initialization waits for this task, otherwise the thread would wait for the initialization.
+   */
+  private static class StorageGroupRecoverTask implements Callable<StorageGroupProcessor> {
+
+    private final String systemDir;
+    private final String storageGroup;
+    private final ExecutorService fileRecoverPool;
+
+    private StorageGroupRecoverTask(String systemDir, String storageGroup,
+        ExecutorService fileRecoverPool) {
+      this.systemDir = systemDir;
+      this.storageGroup = storageGroup;
+      this.fileRecoverPool = fileRecoverPool;
+    }
+
+    @Override
+    public StorageGroupProcessor call() throws ProcessorException {
+      return new StorageGroupProcessor(systemDir, storageGroup, fileRecoverPool);
+    }
+  }
 }
@@ -0,0 +1,159 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+
+/**
+ * This class is used to cache the raw <code>Chunk</code>s of sealed tsfiles in IoTDB, so that the
+ * hot chunks are not read again by every query. It is shared by all queries and bounded by the
+ * size of the cached chunks. The deletions of a chunk are not part of the cached value, they are
+ * applied to the returned copy from the ChunkMetaData of each query. A chunk read from a mapped
+ * file is copied onto the heap before it is cached, as the file is unmapped when its reader is
+ * closed while the chunk may still be cached.
+ */
+public class ChunkCache {
+
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  /**
+   * the estimated memory cost (in byte) of a cached Chunk except its data, including the key, the
+   * ChunkHeader and the ByteBuffer.
+   */
+  private static final long CHUNK_OVERHEAD = 256;
+
+  /**
+   * key: the file path + the offset of the chunk header.
+   */
+  private WeightedLruCache<ChunkKey, Chunk> cache;
+
+  private ChunkCache() {
+    long capacity = (long) (config.getAllocateMemoryForRead()
+        * config.getChunkCacheProportion());
+    cache = new WeightedLruCache<>("Chunk", capacity,
+        (key, chunk) -> CHUNK_OVERHEAD + 2L * key.filePath.length()
+            + 2L * chunk.getHeader().getMeasurementID().length() + chunk.getData().capacity());
+  }
+
+  public static ChunkCache getInstance() {
+    return ChunkCacheHolder.INSTANCE;
+  }
+
+  /**
+   * get the chunk of the ChunkMetaData in the file of the reader, reading it by the reader if it
+   * is not cached. The returned chunk does not share its position with the cached one. THREAD
+   * SAFE.
+   */
+  public Chunk get(ChunkMetaData chunkMetaData, TsFileSequenceReader reader) throws IOException {
+    if (cache.getCapacity() == 0) {
+      Chunk chunk = reader.readMemChunk(chunkMetaData);
+      chunk.setDeletedAt(chunkMetaData.getDeletedAt());
+      return chunk;
+    }
+    ChunkKey key = new ChunkKey(reader.getFileName(), chunkMetaData.getOffsetOfChunkHeader());
+    Chunk chunk = cache.get(key, k -> copyOnHeap(reader.readMemChunk(chunkMetaData)));
+    Chunk chunkRet = new Chunk(chunk.getHeader(), chunk.getData().duplicate());
+    chunkRet.setDeletedAt(chunkMetaData.getDeletedAt());
+    return chunkRet;
+  }
+
+  private static Chunk copyOnHeap(Chunk chunk) {
+    ByteBuffer data = chunk.getData();
+    if (!data.isDirect()) {
+      return chunk;
+    }
+    ByteBuffer copy = ByteBuffer.allocate(data.remaining());
+    copy.put(data.duplicate());
+    copy.flip();
+    return new Chunk(chunk.getHeader(), copy);
+  }
+
+  /**
+   * remove the chunks of the file, called when the file is deleted or modified.
+   */
+  public void remove(String filePath) {
+    cache.removeIf(key -> key.filePath.equals(filePath));
+  }
+
+  /**
+   * remove the chunks of the files with a single scan of the cache.
+   */
+  public void remove(Collection<String> filePaths) {
+    if (filePaths.isEmpty()) {
+      return;
+    }
+    Set<String> paths = new HashSet<>(filePaths);
+    cache.removeIf(key -> paths.contains(key.filePath));
+  }
+
+  public void clear() {
+    cache.clear();
+  }
+
+  WeightedLruCache<ChunkKey, Chunk> getCache() {
+    return cache;
+  }
+
+  static class ChunkKey {
+
+    private final String filePath;
+    private final long offset;
+
+    ChunkKey(String filePath, long offset) {
+      this.filePath = filePath;
+      this.offset = offset;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      ChunkKey chunkKey = (ChunkKey) o;
+      return offset == chunkKey.offset && filePath.equals(chunkKey.filePath);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * filePath.hashCode() + Long.hashCode(offset);
+    }
+  }
+
+  /*
+   * Singleton pattern
+   */
+  private static class ChunkCacheHolder {
+
+    private ChunkCacheHolder() {}
+
+    private static final ChunkCache INSTANCE = new ChunkCache();
+  }
+}
@@ -0,0 +1,118 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.db.conf.IoTDBConstant;
+import org.apache.iotdb.db.exception.StartupException;
+import org.apache.iotdb.db.service.IService;
+import org.apache.iotdb.db.service.JMXService;
+import org.apache.iotdb.db.service.ServiceType;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ChunkCacheMonitor exposes the hit ratio, the evictions and the resident size of
+ * {@link ChunkCache} through JMX.
+ */
+public class ChunkCacheMonitor implements ChunkCacheMonitorMBean, IService {
+
+  private static final Logger logger = LoggerFactory.getLogger(ChunkCacheMonitor.class);
+
+  private static final ChunkCacheMonitor INSTANCE = new ChunkCacheMonitor();
+
+  private final String mbeanName = String
+      .format("%s:%s=%s", IoTDBConstant.IOTDB_PACKAGE, IoTDBConstant.JMX_TYPE,
+          getID().getJmxName());
+
+  private ChunkCacheMonitor() {
+  }
+
+  public static ChunkCacheMonitor getInstance() {
+    return INSTANCE;
+  }
+
+  private WeightedLruCache<ChunkCache.ChunkKey, Chunk> cache() {
+    return ChunkCache.getInstance().getCache();
+  }
+
+  @Override
+  public double getHitRatio() {
+    return cache().getHitRatio();
+  }
+
+  @Override
+  public long getHitCount() {
+    return cache().getHitCount();
+  }
+
+  @Override
+  public long getMissCount() {
+    return cache().getMissCount();
+  }
+
+  @Override
+  public long getEvictionCount() {
+    return cache().getEvictionCount();
+  }
+
+  @Override
+  public long getResidentBytes() {
+    return cache().getUsedWeight();
+  }
+
+  @Override
+  public long getCapacityBytes() {
+    return cache().getCapacity();
+  }
+
+  @Override
+  public int getEntryCount() {
+    return cache().size();
+  }
+
+  @Override
+  public void clear() {
+    ChunkCache.getInstance().clear();
+  }
+
+  @Override
+  public void start() throws StartupException {
+    try {
+      JMXService.registerMBean(this, mbeanName);
+    } catch (Exception e) {
+      String errorMessage = String
+          .format("Failed to start %s because of %s", this.getID().getName(),
+              e.getMessage());
+      throw new StartupException(errorMessage, e);
+    }
+    logger.info("Chunk cache monitor started, capacity of Chunk cache: {}B",
+        cache().getCapacity());
+  }
+
+  @Override
+  public void stop() {
+    JMXService.deregisterMBean(mbeanName);
+  }
+
+  @Override
+  public ServiceType getID() {
+    return ServiceType.CHUNK_CACHE_MONITOR_SERVICE;
+  }
+}
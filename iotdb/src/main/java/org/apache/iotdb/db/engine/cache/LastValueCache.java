@@ -0,0 +1,360 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
+import org.apache.iotdb.db.query.reader.IAggregateReader;
+import org.apache.iotdb.db.query.reader.resourceRelated.SeqResourceIterateReader;
+import org.apache.iotdb.db.query.reader.seriesRelated.SeriesReaderWithoutValueFilter;
+import org.apache.iotdb.db.utils.TimeValuePair;
+import org.apache.iotdb.db.utils.TsPrimitiveType;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+/**
+ * This class caches the last point of each queried time series, so that the latest point of a
+ * series is answered without reading its newest chunk and all its unsequence data again. The last
+ * point of a series is loaded when the series is first queried and then kept up to date by the
+ * insertions into the series. A deletion removes the cached point of the series, which is loaded
+ * again by the next query. Flushes and merges do not change the points of a series, so they leave
+ * the cache as it is. The cache is bounded by the estimated size of the cached points, and the
+ * least recently used points are evicted.
+ */
+public class LastValueCache {
+
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  /**
+   * the estimated memory cost (in byte) of a cached point except the strings of its key, including
+   * the key, the point and its value. The content of a TEXT value is not weighed.
+   */
+  private static final long POINT_OVERHEAD = 192;
+
+  private WeightedLruCache<SeriesKey, LastPoint> cache;
+
+  private LastValueCache() {
+    long capacity = (long) (config.getAllocateMemoryForRead()
+        * config.getLastValueCacheProportion());
+    cache = new WeightedLruCache<>("LastValue", capacity,
+        (key, point) -> POINT_OVERHEAD + 2L * key.deviceId.length()
+            + 2L * key.measurementId.length());
+  }
+
+  public static LastValueCache getInstance() {
+    return LastValueCacheHolder.INSTANCE;
+  }
+
+  /**
+   * get the last point of a series, loading it from the TsFiles of the series if it is not cached.
+   * The returned pair is a copy and may be modified by the caller. THREAD SAFE.
+   *
+   * @return the last point of the series, or null if the series has no data
+   */
+  public TimeValuePair get(Path seriesPath, QueryContext context)
+      throws StorageEngineException, IOException {
+    if (cache.getCapacity() == 0) {
+      return load(seriesPath, context);
+    }
+    LastPoint point = cache.get(new SeriesKey(seriesPath.getDevice(), seriesPath.getMeasurement()),
+        k -> new LastPoint());
+    // the point is registered before the TsFiles are read, so the insertions during the loading
+    // are either read by the loading or applied to the point
+    point.loadIfAbsent(() -> load(seriesPath, context));
+    return point.get();
+  }
+
+  /**
+   * apply an inserted row to the cached points of its series. Should be called after the row is
+   * inserted into the memtable.
+   */
+  public void update(InsertPlan insertPlan) {
+    if (cache.size() == 0) {
+      return;
+    }
+    String[] measurements = insertPlan.getMeasurements();
+    for (int i = 0; i < measurements.length; i++) {
+      LastPoint point = cache.getIfPresent(new SeriesKey(insertPlan.getDeviceId(),
+          measurements[i]));
+      if (point != null) {
+        point.update(insertPlan.getTime(),
+            parseValue(insertPlan.getDataTypes()[i], insertPlan.getValues()[i]));
+      }
+    }
+  }
+
+  /**
+   * apply the rows [start, end) of an inserted batch to the cached points of their series. Should
+   * be called after the rows are inserted into the memtable.
+   */
+  public void update(BatchInsertPlan batchInsertPlan, int start, int end) {
+    if (cache.size() == 0 || start >= end) {
+      return;
+    }
+    // the latest row wins if several rows have the max time, as it does in the memtable
+    long[] times = batchInsertPlan.getTimes();
+    int lastRow = start;
+    for (int i = start + 1; i < end; i++) {
+      if (times[i] >= times[lastRow]) {
+        lastRow = i;
+      }
+    }
+    String[] measurements = batchInsertPlan.getMeasurements();
+    for (int i = 0; i < measurements.length; i++) {
+      LastPoint point = cache.getIfPresent(new SeriesKey(batchInsertPlan.getDeviceId(),
+          measurements[i]));
+      if (point != null) {
+        point.update(times[lastRow], getValue(batchInsertPlan.getDataTypes()[i],
+            batchInsertPlan.getColumns()[i], lastRow));
+      }
+    }
+  }
+
+  /**
+   * remove the cached point of a series, e.g., when some data of the series is deleted.
+   */
+  public void remove(String deviceId, String measurementId) {
+    cache.remove(new SeriesKey(deviceId, measurementId));
+  }
+
+  /**
+   * remove the cached points of all devices in a storage group.
+   */
+  public void removeStorageGroup(String storageGroupName) {
+    String prefix = storageGroupName + ".";
+    cache.removeIf(
+        key -> key.deviceId.equals(storageGroupName) || key.deviceId.startsWith(prefix));
+  }
+
+  public void clear() {
+    cache.clear();
+  }
+
+  WeightedLruCache<SeriesKey, LastPoint> getCache() {
+    return cache;
+  }
+
+  /**
+   * read the last point of a series from its TsFiles. The newest sequence chunk gives a lower bound
+   * of the last time, then the series is read from the bound on, merging the unsequence data and
+   * applying the deletions.
+   */
+  private TimeValuePair load(Path seriesPath, QueryContext context)
+      throws StorageEngineException, IOException {
+    Long lowerBound = null;
+    QueryDataSource queryDataSource = QueryResourceManager.getInstance()
+        .getQueryDataSource(seriesPath, context);
+    IAggregateReader seqReader = new SeqResourceIterateReader(seriesPath,
+        new ArrayList<>(queryDataSource.getSeqResources()), null, context, true);
+    while (true) {
+      ChunkMetaData chunkMetaData = seqReader.nextChunkMetaData();
+      if (chunkMetaData != null) {
+        lowerBound = chunkMetaData.getEndTime();
+        break;
+      }
+      if (!seqReader.hasNext()) {
+        break;
+      }
+      BatchData batchData = seqReader.nextBatch();
+      if (batchData.hasNext()) {
+        lowerBound = batchData.currentTime();
+        break;
+      }
+    }
+    seqReader.close();
+
+    TimeValuePair lastPoint = null;
+    if (lowerBound != null) {
+      lastPoint = readLast(seriesPath, TimeFilter.gtEq(lowerBound), context);
+    }
+    if (lastPoint == null) {
+      // no bound, or the bound given by the chunk statistics is deleted
+      lastPoint = readLast(seriesPath, null, context);
+    }
+    return lastPoint;
+  }
+
+  private TimeValuePair readLast(Path seriesPath, TimeFilter.TimeGtEq filter,
+      QueryContext context) throws StorageEngineException, IOException {
+    SeriesReaderWithoutValueFilter reader = new SeriesReaderWithoutValueFilter(seriesPath, filter,
+        context);
+    TimeValuePair lastPoint = null;
+    while (reader.hasNext()) {
+      lastPoint = reader.next();
+    }
+    reader.close();
+    return lastPoint;
+  }
+
+  private static TsPrimitiveType parseValue(TSDataType dataType, String value) {
+    switch (dataType) {
+      case BOOLEAN:
+        return new TsPrimitiveType.TsBoolean(Boolean.parseBoolean(value));
+      case INT32:
+        return new TsPrimitiveType.TsInt(Integer.parseInt(value));
+      case INT64:
+        return new TsPrimitiveType.TsLong(Long.parseLong(value));
+      case FLOAT:
+        return new TsPrimitiveType.TsFloat(Float.parseFloat(value));
+      case DOUBLE:
+        return new TsPrimitiveType.TsDouble(Double.parseDouble(value));
+      case TEXT:
+        return new TsPrimitiveType.TsBinary(Binary.valueOf(value));
+      default:
+        throw new UnSupportedDataTypeException("Unsupported data type:" + dataType);
+    }
+  }
+
+  private static TsPrimitiveType getValue(TSDataType dataType, Object column, int row) {
+    switch (dataType) {
+      case BOOLEAN:
+        return new TsPrimitiveType.TsBoolean(((boolean[]) column)[row]);
+      case INT32:
+        return new TsPrimitiveType.TsInt(((int[]) column)[row]);
+      case INT64:
+        return new TsPrimitiveType.TsLong(((long[]) column)[row]);
+      case FLOAT:
+        return new TsPrimitiveType.TsFloat(((float[]) column)[row]);
+      case DOUBLE:
+        return new TsPrimitiveType.TsDouble(((double[]) column)[row]);
+      case TEXT:
+        return new TsPrimitiveType.TsBinary(((Binary[]) column)[row]);
+      default:
+        throw new UnSupportedDataTypeException("Unsupported data type:" + dataType);
+    }
+  }
+
+  static class SeriesKey {
+
+    private final String deviceId;
+    private final String measurementId;
+
+    SeriesKey(String deviceId, String measurementId) {
+      this.deviceId = deviceId;
+      this.measurementId = measurementId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      SeriesKey seriesKey = (SeriesKey) o;
+      return deviceId.equals(seriesKey.deviceId) && measurementId.equals(seriesKey.measurementId);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * deviceId.hashCode() + measurementId.hashCode();
+    }
+  }
+
+  /**
+   * the last point of a series, which is not loaded until the TsFiles of the series are read.
+   */
+  static class LastPoint {
+
+    private long time = Long.MIN_VALUE;
+    /**
+     * null if no point of the series is known.
+     */
+    private TsPrimitiveType value;
+    private volatile boolean loaded = false;
+    /**
+     * held while the point is loaded, so that concurrent misses read the TsFiles once. The
+     * insertions only take the monitor of the point, so they are not blocked by the loading.
+     */
+    private final Object loadLock = new Object();
+
+    boolean isLoaded() {
+      return loaded;
+    }
+
+    /**
+     * load the point by the loader unless it is loaded, or wait for the loading by another thread.
+     */
+    void loadIfAbsent(PointLoader loader) throws StorageEngineException, IOException {
+      if (loaded) {
+        return;
+      }
+      synchronized (loadLock) {
+        if (!loaded) {
+          load(loader.load());
+        }
+      }
+    }
+
+    /**
+     * an inserted point replaces the cached one at the same time, as it does in the memtable.
+     */
+    synchronized void update(long time, TsPrimitiveType value) {
+      if (time >= this.time) {
+        this.time = time;
+        this.value = value;
+      }
+    }
+
+    /**
+     * a loaded point does not replace the one inserted at the same time during the loading.
+     */
+    synchronized void load(TimeValuePair lastPoint) {
+      if (lastPoint != null && (value == null || lastPoint.getTimestamp() > time)) {
+        this.time = lastPoint.getTimestamp();
+        this.value = lastPoint.getValue();
+      }
+      loaded = true;
+    }
+
+    synchronized TimeValuePair get() {
+      return value == null ? null : new TimeValuePair(time, value);
+    }
+  }
+
+  @FunctionalInterface
+  interface PointLoader {
+
+    TimeValuePair load() throws StorageEngineException, IOException;
+  }
+
+  /*
+   * Singleton pattern
+   */
+  private static class LastValueCacheHolder {
+
+    private LastValueCacheHolder() {}
+
+    private static final LastValueCache INSTANCE = new LastValueCache();
+  }
+}
@@ -0,0 +1,124 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.db.conf.IoTDBConstant;
+import org.apache.iotdb.db.exception.StartupException;
+import org.apache.iotdb.db.service.IService;
+import org.apache.iotdb.db.service.JMXService;
+import org.apache.iotdb.db.service.ServiceType;
+import org.apache.iotdb.tsfile.file.metadata.TsDeviceMetadata;
+import org.apache.iotdb.tsfile.file.metadata.TsFileMetaData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * MetadataCacheMonitor exposes the hit ratio, the evictions and the resident size of
+ * {@link TsFileMetaDataCache} and {@link DeviceMetaDataCache} through JMX.
+ */
+public class MetadataCacheMonitor implements MetadataCacheMonitorMBean, IService {
+
+  private static final Logger logger = LoggerFactory.getLogger(MetadataCacheMonitor.class);
+
+  private static final MetadataCacheMonitor INSTANCE = new MetadataCacheMonitor();
+
+  private final String mbeanName = String
+      .format("%s:%s=%s", IoTDBConstant.IOTDB_PACKAGE, IoTDBConstant.JMX_TYPE,
+          getID().getJmxName());
+
+  private MetadataCacheMonitor() {
+  }
+
+  public static MetadataCacheMonitor getInstance() {
+    return INSTANCE;
+  }
+
+  private WeightedLruCache<String, TsFileMetaData> fileCache() {
+    return TsFileMetaDataCache.getInstance().getCache();
+  }
+
+  private WeightedLruCache<String, TsDeviceMetadata> deviceCache() {
+    return DeviceMetaDataCache.getInstance().getCache();
+  }
+
+  @Override
+  public double getTsFileMetaDataHitRatio() {
+    return fileCache().getHitRatio();
+  }
+
+  @Override
+  public long getTsFileMetaDataEvictionCount() {
+    return fileCache().getEvictionCount();
+  }
+
+  @Override
+  public long getTsFileMetaDataResidentBytes() {
+    return fileCache().getUsedWeight();
+  }
+
+  @Override
+  public int getTsFileMetaDataEntryCount() {
+    return fileCache().size();
+  }
+
+  @Override
+  public double getDeviceMetaDataHitRatio() {
+    return deviceCache().getHitRatio();
+  }
+
+  @Override
+  public long getDeviceMetaDataEvictionCount() {
+    return deviceCache().getEvictionCount();
+  }
+
+  @Override
+  public long getDeviceMetaDataResidentBytes() {
+    return deviceCache().getUsedWeight();
+  }
+
+  @Override
+  public int getDeviceMetaDataEntryCount() {
+    return deviceCache().size();
+  }
+
+  @Override
+  public void start() throws StartupException {
+    try {
+      JMXService.registerMBean(this, mbeanName);
+    } catch (Exception e) {
+      String errorMessage = String
+          .format("Failed to start %s because of %s", this.getID().getName(),
+              e.getMessage());
+      throw new StartupException(errorMessage, e);
+    }
+    logger.info("Metadata cache monitor started, capacity of TsFileMetaData cache: {}B, "
+            + "capacity of TsDeviceMetadata cache: {}B", fileCache().getCapacity(),
+        deviceCache().getCapacity());
+  }
+
+  @Override
+  public void stop() {
+    JMXService.deregisterMBean(mbeanName);
+  }
+
+  @Override
+  public ServiceType getID() {
+    return ServiceType.METADATA_CACHE_MONITOR_SERVICE;
+  }
+}
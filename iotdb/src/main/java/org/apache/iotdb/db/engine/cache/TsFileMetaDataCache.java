@@ -19,27 +19,28 @@
 package org.apache.iotdb.db.engine.cache;
 
 import java.io.IOException;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.tsfile.file.metadata.TsFileMetaData;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
- * This class is used to cache <code>TsFileMetaData</code> of tsfile in IoTDB.
+ * This class is used to cache <code>TsFileMetaData</code> of tsfile in IoTDB. The size of the
+ * cache is bounded by the estimated size of the cached metadata.
  */
 public class TsFileMetaDataCache {
 
-  private static final Logger logger = LoggerFactory.getLogger(TsFileMetaDataCache.class);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
   /**
    * key: The file seriesPath of tsfile.
    */
-  private ConcurrentHashMap<String, TsFileMetaData> cache;
-  private AtomicLong cacheHintNum = new AtomicLong();
-  private AtomicLong cacheRequestNum = new AtomicLong();
+  private WeightedLruCache<String, TsFileMetaData> cache;
 
   private TsFileMetaDataCache() {
-    cache = new ConcurrentHashMap<>();
+    long capacity = (long) (config.getAllocateMemoryForRead()
+        * config.getTsFileMetaDataCacheProportion());
+    cache = new WeightedLruCache<>("TsFileMetaData", capacity,
+        (path, fileMetaData) -> TsFileMetadataUtils.estimateSize(fileMetaData));
   }
 
   public static TsFileMetaDataCache getInstance() {
@@ -47,35 +48,12 @@ public class TsFileMetaDataCache {
   }
 
   /**
-   * get the TsFileMetaData for the given path.
+   * get the TsFileMetaData for the given path. THREAD SAFE.
    *
    * @param path -given path
    */
   public TsFileMetaData get(String path) throws IOException {
-
-    Object internPath = path.intern();
-    synchronized (internPath) {
-      cacheRequestNum.incrementAndGet();
-      if (!cache.containsKey(path)) {
-        // read value from tsfile
-        TsFileMetaData fileMetaData = TsFileMetadataUtils.getTsFileMetaData(path);
-        cache.put(path, fileMetaData);
-        if (logger.isDebugEnabled()) {
-          logger.debug("Cache didn't hint: the number of requests for cache is {}",
-              cacheRequestNum.get());
-        }
-        return cache.get(path);
-      } else {
-        cacheHintNum.incrementAndGet();
-        if (logger.isDebugEnabled()) {
-          logger.debug(
-              "Cache hint: the number of requests for cache is {}, the number of hints for cache "
-                  + "is {}",
-              cacheRequestNum.get(), cacheHintNum.get());
-        }
-        return cache.get(path);
-      }
-    }
+    return cache.get(path, TsFileMetadataUtils::getTsFileMetaData);
   }
 
   public void remove(String path) {
@@ -86,6 +64,10 @@ public class TsFileMetaDataCache {
     cache.clear();
   }
 
+  WeightedLruCache<String, TsFileMetaData> getCache() {
+    return cache;
+  }
+
   /*
    * Singleton pattern
    */
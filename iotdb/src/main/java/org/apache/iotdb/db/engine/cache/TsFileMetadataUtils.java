@@ -20,8 +20,13 @@ package org.apache.iotdb.db.engine.cache;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Map;
+import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetaData;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.file.metadata.TsDeviceMetadata;
+import org.apache.iotdb.tsfile.file.metadata.TsDigest;
 import org.apache.iotdb.tsfile.file.metadata.TsFileMetaData;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 
 /**
@@ -30,6 +35,20 @@ import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
  */
 public class TsFileMetadataUtils {
 
+  /**
+   * rough heap costs (in byte) of the objects making up the metadata, with a 64-bit JVM and
+   * compressed oops.
+   */
+  private static final long OBJECT_HEADER = 16;
+  private static final long REFERENCE = 4;
+  private static final long MAP_ENTRY = 32;
+  private static final long BYTE_BUFFER = 48;
+  private static final long DEVICE_INDEX = OBJECT_HEADER + 3 * Long.BYTES + Integer.BYTES;
+  private static final long MEASUREMENT_SCHEMA = 3 * OBJECT_HEADER + 6 * REFERENCE;
+  private static final long CHUNK_GROUP = OBJECT_HEADER + 3 * Long.BYTES + Integer.BYTES
+      + 2 * REFERENCE + OBJECT_HEADER + Integer.BYTES + REFERENCE;
+  private static final long CHUNK = OBJECT_HEADER + 6 * Long.BYTES + 3 * REFERENCE + REFERENCE;
+
   private TsFileMetadataUtils(){
 
   }
@@ -69,4 +88,60 @@ public class TsFileMetadataUtils {
       }
     }
   }
+
+  /**
+   * estimate the heap size (in byte) of a TsFileMetaData.
+   */
+  public static long estimateSize(TsFileMetaData fileMetaData) {
+    long size = OBJECT_HEADER + Integer.BYTES + 3 * REFERENCE
+        + estimateSize(fileMetaData.getCreatedBy());
+    size += 2 * OBJECT_HEADER;
+    for (String device : fileMetaData.getDeviceMap().keySet()) {
+      size += MAP_ENTRY + estimateSize(device) + DEVICE_INDEX;
+    }
+    for (Map.Entry<String, MeasurementSchema> entry : fileMetaData.getMeasurementSchema()
+        .entrySet()) {
+      // the measurement id of the schema shares the same string with the key
+      size += MAP_ENTRY + estimateSize(entry.getKey()) + MEASUREMENT_SCHEMA;
+      for (Map.Entry<String, String> prop : entry.getValue().getProps().entrySet()) {
+        size += MAP_ENTRY + estimateSize(prop.getKey()) + estimateSize(prop.getValue());
+      }
+    }
+    return size;
+  }
+
+  /**
+   * estimate the heap size (in byte) of a TsDeviceMetadata.
+   */
+  public static long estimateSize(TsDeviceMetadata deviceMetadata) {
+    long size = OBJECT_HEADER + Integer.BYTES + 2 * Long.BYTES + REFERENCE + OBJECT_HEADER;
+    for (ChunkGroupMetaData chunkGroupMetaData : deviceMetadata.getChunkGroupMetaDataList()) {
+      size += REFERENCE + CHUNK_GROUP + estimateSize(chunkGroupMetaData.getDeviceID());
+      for (ChunkMetaData chunkMetaData : chunkGroupMetaData.getChunkMetaDataList()) {
+        size += REFERENCE + CHUNK + estimateSize(chunkMetaData.getMeasurementUid())
+            + estimateSize(chunkMetaData.getDigest());
+      }
+    }
+    return size;
+  }
+
+  private static long estimateSize(TsDigest digest) {
+    if (digest == null) {
+      return 0;
+    }
+    long size = OBJECT_HEADER + 2 * Integer.BYTES + REFERENCE;
+    Map<String, ByteBuffer> statistics = digest.getStatistics();
+    if (statistics != null) {
+      size += OBJECT_HEADER;
+      for (Map.Entry<String, ByteBuffer> entry : statistics.entrySet()) {
+        size += MAP_ENTRY + estimateSize(entry.getKey()) + BYTE_BUFFER
+            + (entry.getValue() == null ? 0 : OBJECT_HEADER + entry.getValue().capacity());
+      }
+    }
+    return size;
+  }
+
+  private static long estimateSize(String string) {
+    return string == null ? 0 : 2 * OBJECT_HEADER + Integer.BYTES + 2L * string.length();
+  }
 }
@@ -0,0 +1,485 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * A cache bounded by the estimated byte weight of its entries. The eviction policy is a segmented
+ * LRU: a new entry is put into the probation segment and is promoted into the protected segment
+ * when it is hit again, so that a scan over many files only evicts entries that were used once.
+ * The protected segment takes at most {@link #PROTECTED_RATIO} of the capacity, its least
+ * recently used entries are demoted back into the probation segment, and victims are always taken
+ * from the probation segment first.
+ *
+ * <p>The keys are spread over several stripes, each of which keeps its own segments under its own
+ * lock. A hit only reads a ConcurrentHashMap and records the access into a lossy buffer of the
+ * stripe, which is replayed into the segments by whichever thread next takes the lock of the
+ * stripe, so hits never block each other. The recency order is therefore an approximation: an
+ * access may be applied late, or dropped when the buffer is full.
+ *
+ * <p>Concurrent misses on the same key are coalesced: only the first thread calls the loader and
+ * the others wait for its result. Loading is done outside the locks of the cache so misses on
+ * different keys do not block each other or the hits. A null value is returned to the caller but
+ * never cached. THREAD SAFE.
+ */
+public class WeightedLruCache<K, V> {
+
+  static final double PROTECTED_RATIO = 0.8;
+
+  private static final int DEFAULT_STRIPE_NUM = 16;
+  private static final int READ_BUFFER_SIZE = 64;
+
+  private final String name;
+  private final long capacity;
+  private final Weigher<K, V> weigher;
+
+  private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+  private final Stripe[] stripes;
+  private final AtomicLong usedWeight = new AtomicLong();
+
+  /**
+   * the loads in progress, an entry is put into the cache only if its load is still registered
+   * here, so a key removed during its load is not resurrected by a stale value.
+   */
+  private final Map<K, FutureTask<V>> loadings = new ConcurrentHashMap<>();
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+
+  /**
+   * @param name used in logs and metrics
+   * @param capacity the maximum total weight (in byte) of the cached entries
+   * @param weigher estimates the memory cost (in byte) of an entry
+   */
+  public WeightedLruCache(String name, long capacity, Weigher<K, V> weigher) {
+    this(name, capacity, weigher, DEFAULT_STRIPE_NUM);
+  }
+
+  /**
+   * @param stripeNum the number of stripes, a power of 2
+   */
+  @SuppressWarnings("unchecked")
+  WeightedLruCache(String name, long capacity, Weigher<K, V> weigher, int stripeNum) {
+    if (stripeNum <= 0 || Integer.bitCount(stripeNum) != 1) {
+      throw new IllegalArgumentException("The number of stripes must be a power of 2: "
+          + stripeNum);
+    }
+    this.name = name;
+    this.capacity = Math.max(capacity, 0);
+    this.weigher = weigher;
+    this.stripes = new WeightedLruCache.Stripe[stripeNum];
+    long protectedCapacity = (long) (this.capacity * PROTECTED_RATIO / stripeNum);
+    for (int i = 0; i < stripeNum; i++) {
+      stripes[i] = new Stripe(i, protectedCapacity);
+    }
+  }
+
+  /**
+   * get the value of the key, loading it by the loader if it is not cached.
+   */
+  public V get(K key, Loader<K, V> loader) throws IOException {
+    V value = getIfPresent(key);
+    if (value != null) {
+      hitCount.increment();
+      return value;
+    }
+    missCount.increment();
+
+    // the value may have been put by a load that finished between the lookup and the
+    // registration of this load, so the cache is checked again before calling the loader
+    FutureTask<V> task = new FutureTask<>(() -> {
+      V cached = getIfPresent(key);
+      return cached != null ? cached : loader.load(key);
+    });
+    FutureTask<V> existing = loadings.putIfAbsent(key, task);
+    if (existing != null) {
+      return waitFor(existing);
+    }
+    try {
+      task.run();
+      value = waitFor(task);
+      if (value != null) {
+        put(key, value, task);
+      }
+      return value;
+    } finally {
+      loadings.remove(key, task);
+    }
+  }
+
+  private V waitFor(FutureTask<V> task) throws IOException {
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(String.format("Interrupted while loading %s", name), e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  /**
+   * @return the cached value of the key or null, a found entry is counted as being used but the
+   * hit is not recorded in the metrics.
+   */
+  public V getIfPresent(K key) {
+    Node<K, V> node = data.get(key);
+    if (node == null) {
+      return null;
+    }
+    stripeOf(key).recordAccess(node);
+    return node.value;
+  }
+
+  private Stripe stripeOf(K key) {
+    int hash = key.hashCode();
+    // spread the higher bits as ConcurrentHashMap does
+    hash ^= hash >>> 16;
+    return stripes[hash & (stripes.length - 1)];
+  }
+
+  private void put(K key, V value, FutureTask<V> task) {
+    long weight = weigher.weigh(key, value);
+    if (weight > capacity) {
+      return;
+    }
+    Stripe stripe = stripeOf(key);
+    Node<K, V> node = new Node<>(key, value, weight);
+    stripe.lock.lock();
+    try {
+      // the key is removed by remove() or clear() during the loading
+      if (loadings.get(key) != task || data.containsKey(key)) {
+        return;
+      }
+      stripe.drainReadBuffer();
+      data.put(key, node);
+      stripe.probation.put(key, node);
+      usedWeight.addAndGet(weight);
+      stripe.evict(stripe.probation, node);
+    } finally {
+      stripe.lock.unlock();
+    }
+    if (usedWeight.get() > capacity) {
+      evictOtherStripes(stripe, node);
+    }
+  }
+
+  /**
+   * evict from the other stripes when the probation segment of the stripe of the new entry has
+   * nothing else to evict. The probation segments of all stripes are tried before any protected
+   * segment, and only one lock is held at a time so stripes never wait for each other.
+   */
+  private void evictOtherStripes(Stripe current, Node<K, V> newNode) {
+    evictFromOthers(current, true, newNode);
+    evictFrom(current, false, newNode);
+    evictFromOthers(current, false, newNode);
+    if (usedWeight.get() > capacity) {
+      current.lock.lock();
+      try {
+        if (current.unlink(newNode)) {
+          evictionCount.increment();
+        }
+      } finally {
+        current.lock.unlock();
+      }
+    }
+  }
+
+  private void evictFromOthers(Stripe current, boolean isProbation, Node<K, V> newNode) {
+    // start from the next stripe so that the victims are spread over the stripes
+    for (int i = 1; i < stripes.length; i++) {
+      evictFrom(stripes[(current.index + i) & (stripes.length - 1)], isProbation, newNode);
+    }
+  }
+
+  private void evictFrom(Stripe stripe, boolean isProbation, Node<K, V> newNode) {
+    if (usedWeight.get() <= capacity) {
+      return;
+    }
+    stripe.lock.lock();
+    try {
+      stripe.evict(isProbation ? stripe.probation : stripe.protectedSegment, newNode);
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  public void remove(K key) {
+    Stripe stripe = stripeOf(key);
+    stripe.lock.lock();
+    try {
+      loadings.remove(key);
+      Node<K, V> node = data.get(key);
+      if (node != null) {
+        stripe.unlink(node);
+      }
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  /**
+   * remove the entries and the loads in progress whose keys match the filter. All the cached keys
+   * are scanned, so this is meant for infrequent invalidations such as the deletion of a file.
+   */
+  public void removeIf(Predicate<? super K> filter) {
+    for (K key : loadings.keySet()) {
+      if (filter.test(key)) {
+        remove(key);
+      }
+    }
+    for (K key : data.keySet()) {
+      if (filter.test(key)) {
+        remove(key);
+      }
+    }
+  }
+
+  public void clear() {
+    for (Stripe stripe : stripes) {
+      stripe.lock.lock();
+    }
+    try {
+      loadings.clear();
+      for (Stripe stripe : stripes) {
+        stripe.clear();
+      }
+      data.clear();
+      usedWeight.set(0);
+    } finally {
+      for (Stripe stripe : stripes) {
+        stripe.lock.unlock();
+      }
+    }
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public long getCapacity() {
+    return capacity;
+  }
+
+  public long getUsedWeight() {
+    return usedWeight.get();
+  }
+
+  public int size() {
+    return data.size();
+  }
+
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  public long getEvictionCount() {
+    return evictionCount.sum();
+  }
+
+  /**
+   * @return hits / requests, or 0 if there is no request yet.
+   */
+  public double getHitRatio() {
+    long hits = hitCount.sum();
+    long requests = hits + missCount.sum();
+    return requests == 0 ? 0 : (double) hits / requests;
+  }
+
+  /**
+   * The segments of the keys falling into one stripe. Except for the read buffer, all fields are
+   * guarded by the lock.
+   */
+  private class Stripe {
+
+    private final int index;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long protectedCapacity;
+
+    /**
+     * the probation segment is in insertion order and the protected segment is in access order.
+     */
+    private final LinkedHashMap<K, Node<K, V>> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<K, Node<K, V>> protectedSegment =
+        new LinkedHashMap<>(16, 0.75f, true);
+    private long protectedWeight;
+
+    /**
+     * the nodes hit recently and not yet applied to the segments. An access is dropped if its
+     * slot is taken, which only loses some recency information.
+     */
+    private final AtomicReferenceArray<Node<K, V>> readBuffer =
+        new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong readCount = new AtomicLong();
+
+    private Stripe(int index, long protectedCapacity) {
+      this.index = index;
+      this.protectedCapacity = protectedCapacity;
+    }
+
+    private void recordAccess(Node<K, V> node) {
+      int index = (int) (readCount.getAndIncrement() & (READ_BUFFER_SIZE - 1));
+      readBuffer.lazySet(index, node);
+      // the buffer is full, apply the accesses unless another thread is holding the lock
+      if (index == READ_BUFFER_SIZE - 1 && lock.tryLock()) {
+        try {
+          drainReadBuffer();
+        } finally {
+          lock.unlock();
+        }
+      }
+    }
+
+    private void drainReadBuffer() {
+      for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+        Node<K, V> node = readBuffer.getAndSet(i, null);
+        if (node != null) {
+          onAccess(node);
+        }
+      }
+    }
+
+    private void onAccess(Node<K, V> node) {
+      if (protectedSegment.get(node.key) == node) {
+        // moved to the most recently used end by the access order
+        return;
+      }
+      if (probation.get(node.key) != node) {
+        // removed or evicted after the access
+        return;
+      }
+      // promoted by the second use
+      probation.remove(node.key);
+      protectedSegment.put(node.key, node);
+      protectedWeight += node.weight;
+      demote();
+    }
+
+    private void demote() {
+      Iterator<Map.Entry<K, Node<K, V>>> iterator = protectedSegment.entrySet().iterator();
+      while (protectedWeight > protectedCapacity && iterator.hasNext()) {
+        Node<K, V> eldest = iterator.next().getValue();
+        iterator.remove();
+        protectedWeight -= eldest.weight;
+        probation.put(eldest.key, eldest);
+      }
+    }
+
+    /**
+     * evict the least recently used entries of the segment until the used weight of the cache is
+     * within the capacity. The new node is kept.
+     */
+    private void evict(LinkedHashMap<K, Node<K, V>> segment, Node<K, V> newNode) {
+      Iterator<Map.Entry<K, Node<K, V>>> iterator = segment.entrySet().iterator();
+      while (usedWeight.get() > capacity && iterator.hasNext()) {
+        Node<K, V> eldest = iterator.next().getValue();
+        if (eldest == newNode) {
+          continue;
+        }
+        iterator.remove();
+        if (segment == protectedSegment) {
+          protectedWeight -= eldest.weight;
+        }
+        data.remove(eldest.key, eldest);
+        usedWeight.addAndGet(-eldest.weight);
+        evictionCount.increment();
+      }
+    }
+
+    /**
+     * @return true if the node was in the stripe.
+     */
+    private boolean unlink(Node<K, V> node) {
+      if (!probation.remove(node.key, node)) {
+        if (!protectedSegment.remove(node.key, node)) {
+          return false;
+        }
+        protectedWeight -= node.weight;
+      }
+      data.remove(node.key, node);
+      usedWeight.addAndGet(-node.weight);
+      return true;
+    }
+
+    private void clear() {
+      probation.clear();
+      protectedSegment.clear();
+      protectedWeight = 0;
+      for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+        readBuffer.set(i, null);
+      }
+    }
+  }
+
+  private static class Node<K, V> {
+
+    private final K key;
+    private final V value;
+    private final long weight;
+
+    private Node(K key, V value, long weight) {
+      this.key = key;
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+
+  @FunctionalInterface
+  public interface Loader<K, V> {
+
+    /**
+     * @return the value of the key, null if there is no such value.
+     */
+    V load(K key) throws IOException;
+  }
+
+  @FunctionalInterface
+  public interface Weigher<K, V> {
+
+    /**
+     * @return the estimated memory cost (in byte) of the entry.
+     */
+    long weigh(K key, V value);
+  }
+}
@@ -68,7 +68,9 @@ public class ChunkBufferPool {
       int waitCount = 1;
       while (true) {
         if (!availableChunkBuffer.isEmpty()) {
-          return availableChunkBuffer.pop();
+          ChunkBuffer chunkBuffer = availableChunkBuffer.pop();
+          chunkBuffer.reInit(schema);
+          return chunkBuffer;
         }
         try {
           availableChunkBuffer.wait(WAIT_TIME);
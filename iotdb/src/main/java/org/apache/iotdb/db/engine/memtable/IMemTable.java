@@ -21,6 +21,7 @@ package org.apache.iotdb.db.engine.memtable;
 import java.util.Map;
 import org.apache.iotdb.db.engine.modification.Deletion;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
+import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 
@@ -53,6 +54,11 @@ public interface IMemTable {
 
   void insert(InsertPlan insertPlan);
 
+  /**
+   * insert the rows [start, end) of a BatchInsertPlan column by column.
+   */
+  void insertBatch(BatchInsertPlan batchInsertPlan, int start, int end);
+
   ReadOnlyMemChunk query(String deviceId, String measurement, TSDataType dataType,
       Map<String, String> props);
 
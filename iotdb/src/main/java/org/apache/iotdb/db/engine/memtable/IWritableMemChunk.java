@@ -40,6 +40,13 @@ public interface IWritableMemChunk extends TimeValuePairSorter {
 
   void write(long insertTime, Object insertValue);
 
+  /**
+   * write the rows [start, end) of a column in bulk.
+   *
+   * @param valueList a primitive array of the data type of this chunk
+   */
+  void write(long[] times, Object valueList, int start, int end);
+
   long count();
 
   TSDataType getType();
@@ -57,6 +64,12 @@ public interface IWritableMemChunk extends TimeValuePairSorter {
    */
   default TVList getSortedTVList(){return null;}
 
+  /**
+   * served for query requests: a sorted view of the current points, which shares the arrays of
+   * the chunk instead of copying them.
+   */
+  TVList getSnapshot();
+
   default TVList getTVList(){return null;}
 
   default long getMinTime() {
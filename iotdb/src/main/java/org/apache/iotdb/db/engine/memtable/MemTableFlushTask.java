@@ -15,49 +15,67 @@
 package org.apache.iotdb.db.engine.memtable;
 
 import java.io.IOException;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.pool.FlushSubTaskPoolManager;
 import org.apache.iotdb.db.exception.FlushRunTimeException;
 import org.apache.iotdb.db.utils.datastructure.TVList;
 import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
-import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
-import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.write.chunk.ChunkBuffer;
 import org.apache.iotdb.tsfile.write.chunk.ChunkWriterImpl;
-import org.apache.iotdb.tsfile.write.chunk.IChunkWriter;
 import org.apache.iotdb.tsfile.write.schema.FileSchema;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.apache.iotdb.tsfile.write.writer.RestorableTsFileIOWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Flush a memtable into a TsFile. The series of the memtable are sorted and encoded in parallel by
+ * the FlushSubTaskPoolManager workers, while a single io task writes the encoded chunks into the
+ * file in the order of the memtable, so that the chunks of a device form one chunk group.
+ *
+ * <p>The io task takes the chunk groups and the futures of the encoded chunks from a blocking
+ * queue. At most {@code flush_encoding_parallelism} series are being encoded or waiting for the
+ * io task at the same time, which also bounds the memory held by the encoded chunks.
+ */
 public class MemTableFlushTask {
 
   private static final Logger logger = LoggerFactory.getLogger(MemTableFlushTask.class);
   private static final int PAGE_SIZE_THRESHOLD = TSFileConfig.pageSizeInByte;
   private static final FlushSubTaskPoolManager subTaskPoolManager = FlushSubTaskPoolManager
       .getInstance();
-  private Future ioTaskFuture;
+  /**
+   * how long the flushing thread waits for an encoding slot before checking whether the io task
+   * has failed.
+   */
+  private static final long IO_CHECK_INTERVAL_MS = 100;
+
+  private Future<?> ioTaskFuture;
   private RestorableTsFileIOWriter writer;
 
-  private ConcurrentLinkedQueue ioTaskQueue = new ConcurrentLinkedQueue();
-  private ConcurrentLinkedQueue encodingTaskQueue = new ConcurrentLinkedQueue();
+  private final BlockingQueue<Object> ioTaskQueue = new LinkedBlockingQueue<>();
+  private final Semaphore encodingSlots = new Semaphore(
+      IoTDBDescriptor.getInstance().getConfig().getFlushEncodingParallelism());
   private String storageGroup;
 
   private IMemTable memTable;
   private FileSchema fileSchema;
 
-  private volatile boolean noMoreEncodingTask = false;
-  private volatile boolean noMoreIOTask = false;
+  private final AtomicLong sortTime = new AtomicLong();
+  private final AtomicLong encodingTime = new AtomicLong();
 
   public MemTableFlushTask(IMemTable memTable, FileSchema fileSchema, RestorableTsFileIOWriter writer, String storageGroup) {
     this.memTable = memTable;
     this.fileSchema = fileSchema;
     this.writer = writer;
     this.storageGroup = storageGroup;
-    subTaskPoolManager.submit(encodingTask);
     this.ioTaskFuture = subTaskPoolManager.submit(ioTask);
     logger.debug("flush task of Storage group {} memtable {} is created ",
         storageGroup, memTable.getVersion());
@@ -69,161 +87,119 @@ public class MemTableFlushTask {
    */
   public void syncFlushMemTable() throws ExecutionException, InterruptedException {
     long start = System.currentTimeMillis();
-    long sortTime = 0;
-    for (String deviceId : memTable.getMemTableMap().keySet()) {
-      encodingTaskQueue.add(new StartFlushGroupIOTask(deviceId));
-      for (String measurementId : memTable.getMemTableMap().get(deviceId).keySet()) {
-        long startTime = System.currentTimeMillis();
-        IWritableMemChunk series = memTable.getMemTableMap().get(deviceId).get(measurementId);
-        MeasurementSchema desc = fileSchema.getMeasurementSchema(measurementId);
-        TVList tvList = series.getSortedTVList();
-        sortTime += System.currentTimeMillis() - startTime;
-        encodingTaskQueue.add(new Pair<>(tvList, desc));
+    try {
+      for (Map.Entry<String, Map<String, IWritableMemChunk>> deviceEntry : memTable
+          .getMemTableMap().entrySet()) {
+        ioTaskQueue.put(new StartFlushGroupIOTask(deviceEntry.getKey()));
+        for (Map.Entry<String, IWritableMemChunk> seriesEntry : deviceEntry.getValue()
+            .entrySet()) {
+          MeasurementSchema desc = fileSchema.getMeasurementSchema(seriesEntry.getKey());
+          acquireEncodingSlot();
+          IWritableMemChunk series = seriesEntry.getValue();
+          ioTaskQueue.put(subTaskPoolManager.submit(() -> encodeSeries(series, desc)));
+        }
+        ioTaskQueue.put(new EndChunkGroupIoTask(memTable.getVersion()));
       }
-      encodingTaskQueue.add(new EndChunkGroupIoTask(memTable.getVersion()));
+    } finally {
+      // let the io task exit even if the flush is interrupted
+      ioTaskQueue.put(EndFlushIoTask.INSTANCE);
     }
-    noMoreEncodingTask = true;
-    logger.debug(
-        "Storage group {} memtable {}, flushing into disk: data sort time cost {} ms.",
-        storageGroup, memTable.getVersion(), sortTime);
 
     ioTaskFuture.get();
 
+    logger.debug(
+        "Storage group {} memtable {}, flushing into disk: data sort time cost {} ms, encoding "
+            + "time cost {} ms (summed over the encoding threads).",
+        storageGroup, memTable.getVersion(), sortTime.get(), encodingTime.get());
     logger.info(
         "Storage group {} memtable {} flushing a memtable has finished! Time consumption: {}ms",
         storageGroup, memTable, System.currentTimeMillis() - start);
   }
 
-
-  private Runnable encodingTask = new Runnable() {
-    private void writeOneSeries(TVList tvPairs, IChunkWriter seriesWriterImpl,
-        TSDataType dataType){
-      for (int i = 0; i < tvPairs.size(); i++) {
-        long time = tvPairs.getTime(i);
-
-        // skip duplicated data
-        if ((i+1 < tvPairs.size() && (time == tvPairs.getTime(i+1)))) {
-          continue;
-        }
-
-        switch (dataType) {
-          case BOOLEAN:
-            seriesWriterImpl.write(time, tvPairs.getBoolean(i));
-            break;
-          case INT32:
-            seriesWriterImpl.write(time, tvPairs.getInt(i));
-            break;
-          case INT64:
-            seriesWriterImpl.write(time, tvPairs.getLong(i));
-            break;
-          case FLOAT:
-            seriesWriterImpl.write(time, tvPairs.getFloat(i));
-            break;
-          case DOUBLE:
-            seriesWriterImpl.write(time, tvPairs.getDouble(i));
-            break;
-          case TEXT:
-            seriesWriterImpl.write(time, tvPairs.getBinary(i));
-            break;
-          default:
-            logger.error("Storage group {} does not support data type: {}", storageGroup,
-                dataType);
-            break;
-        }
+  /**
+   * wait until fewer than flush_encoding_parallelism series are in flight. If the io task fails,
+   * the slots are never released, so its failure is checked while waiting.
+   */
+  private void acquireEncodingSlot() throws InterruptedException, ExecutionException {
+    while (!encodingSlots.tryAcquire(IO_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+      if (ioTaskFuture.isDone()) {
+        ioTaskFuture.get();
+        throw new ExecutionException(new FlushRunTimeException(
+            new IOException("The io task exited before all series are flushed")));
       }
     }
+  }
 
-    @Override
-    public void run() {
-      long memSerializeTime = 0;
-      boolean noMoreMessages = false;
-      logger.debug("Storage group {} memtable {}, starts to encoding data.", storageGroup,
-          memTable.getVersion());
-      while (true) {
-        if (noMoreEncodingTask) {
-          noMoreMessages = true;
-        }
-        Object task = encodingTaskQueue.poll();
-        if (task == null) {
-          if (noMoreMessages) {
-            break;
-          }
-          try {
-            Thread.sleep(10);
-          } catch (InterruptedException e) {
-            logger.error("Storage group {} memtable {}, encoding task is interrupted.",
-                storageGroup, memTable.getVersion(), e);
-            Thread.currentThread().interrupt();
-          }
+  private ChunkWriterImpl encodeSeries(IWritableMemChunk series, MeasurementSchema desc) {
+    long startTime = System.currentTimeMillis();
+    TVList tvList = series.getSortedTVList();
+    long sortEndTime = System.currentTimeMillis();
+    sortTime.addAndGet(sortEndTime - startTime);
+
+    ChunkBuffer chunkBuffer = ChunkBufferPool.getInstance().getEmptyChunkBuffer(this, desc);
+    ChunkWriterImpl seriesWriter = new ChunkWriterImpl(desc, chunkBuffer, PAGE_SIZE_THRESHOLD);
+    // the sorted points are encoded slice by slice and duplicated timestamps are skipped
+    tvList.writeTo(seriesWriter);
+    encodingTime.addAndGet(System.currentTimeMillis() - sortEndTime);
+    return seriesWriter;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Runnable ioTask = () -> {
+    long ioTime = 0;
+    logger.debug("Storage group {} memtable {}, start io.", storageGroup, memTable.getVersion());
+    while (true) {
+      Object ioMessage;
+      try {
+        ioMessage = ioTaskQueue.take();
+      } catch (InterruptedException e) {
+        logger.error("Storage group {} memtable {}, io task is interrupted.", storageGroup,
+            memTable.getVersion(), e);
+        Thread.currentThread().interrupt();
+        throw new FlushRunTimeException(e);
+      }
+      if (ioMessage == EndFlushIoTask.INSTANCE) {
+        break;
+      }
+      long starTime = System.currentTimeMillis();
+      try {
+        if (ioMessage instanceof StartFlushGroupIOTask) {
+          writer.startChunkGroup(((StartFlushGroupIOTask) ioMessage).deviceId);
+        } else if (ioMessage instanceof Future) {
+          ChunkWriterImpl chunkWriter = waitForEncoding((Future<ChunkWriterImpl>) ioMessage);
+          starTime = System.currentTimeMillis();
+          chunkWriter.writeToFileWriter(MemTableFlushTask.this.writer);
+          ChunkBufferPool.getInstance().putBack(chunkWriter.getChunkBuffer());
+          encodingSlots.release();
         } else {
-          if (task instanceof StartFlushGroupIOTask) {
-            ioTaskQueue.add(task);
-          } else if (task instanceof EndChunkGroupIoTask) {
-            ioTaskQueue.add(task);
-          } else {
-            long starTime = System.currentTimeMillis();
-            Pair<TVList, MeasurementSchema> encodingMessage = (Pair<TVList, MeasurementSchema>) task;
-            ChunkBuffer chunkBuffer = ChunkBufferPool.getInstance()
-                .getEmptyChunkBuffer(this, encodingMessage.right);
-            IChunkWriter seriesWriter = new ChunkWriterImpl(encodingMessage.right, chunkBuffer,
-                PAGE_SIZE_THRESHOLD);
-            writeOneSeries(encodingMessage.left, seriesWriter, encodingMessage.right.getType());
-            ioTaskQueue.add(seriesWriter);
-            memSerializeTime += System.currentTimeMillis() - starTime;
-          }
+          EndChunkGroupIoTask endGroupTask = (EndChunkGroupIoTask) ioMessage;
+          writer.endChunkGroup(endGroupTask.version);
         }
+      } catch (IOException e) {
+        logger.error("Storage group {} memtable {}, io task meets error.", storageGroup,
+            memTable.getVersion(), e);
+        throw new FlushRunTimeException(e);
       }
-      noMoreIOTask = true;
-      logger.debug("Storage group {}, flushing memtable {} into disk: Encoding data cost "
-              + "{} ms.",
-          storageGroup, memTable.getVersion(), memSerializeTime);
+      ioTime += System.currentTimeMillis() - starTime;
     }
+    logger.debug("flushing a memtable {} in storage group {}, io cost {}ms", memTable.getVersion(),
+        storageGroup, ioTime);
   };
 
-  private Runnable ioTask = () -> {
-      long ioTime = 0;
-      boolean returnWhenNoTask = false;
-      logger.debug("Storage group {} memtable {}, start io.", storageGroup, memTable.getVersion());
-      while (true) {
-        if (noMoreIOTask) {
-          returnWhenNoTask = true;
-        }
-        Object ioMessage = ioTaskQueue.poll();
-        if (ioMessage == null) {
-          if (returnWhenNoTask) {
-            break;
-          }
-          try {
-            Thread.sleep(10);
-          } catch (InterruptedException e) {
-            logger.error("Storage group {} memtable, io task is interrupted.", storageGroup
-                , memTable.getVersion(), e);
-            Thread.currentThread().interrupt();
-          }
-        } else {
-          long starTime = System.currentTimeMillis();
-          try {
-            if (ioMessage instanceof StartFlushGroupIOTask) {
-              writer.startChunkGroup(((StartFlushGroupIOTask) ioMessage).deviceId);
-            } else if (ioMessage instanceof IChunkWriter) {
-              ChunkWriterImpl chunkWriter = (ChunkWriterImpl) ioMessage;
-              chunkWriter.writeToFileWriter(MemTableFlushTask.this.writer);
-              ChunkBufferPool.getInstance().putBack(chunkWriter.getChunkBuffer());
-            } else {
-              EndChunkGroupIoTask endGroupTask = (EndChunkGroupIoTask) ioMessage;
-              writer.endChunkGroup(endGroupTask.version);
-            }
-          } catch (IOException e) {
-            logger.error("Storage group {} memtable {}, io task meets error.", storageGroup,
-                memTable.getVersion(), e);
-            throw new FlushRunTimeException(e);
-          }
-          ioTime += System.currentTimeMillis() - starTime;
-        }
-      }
-      logger.debug("flushing a memtable {} in storage group {}, io cost {}ms", memTable.getVersion(),
-          storageGroup, ioTime);
-    };
+  private ChunkWriterImpl waitForEncoding(Future<ChunkWriterImpl> encodingFuture) {
+    try {
+      return encodingFuture.get();
+    } catch (InterruptedException e) {
+      logger.error("Storage group {} memtable {}, io task is interrupted.", storageGroup,
+          memTable.getVersion(), e);
+      Thread.currentThread().interrupt();
+      throw new FlushRunTimeException(e);
+    } catch (ExecutionException e) {
+      logger.error("Storage group {} memtable {}, encoding task meets error.", storageGroup,
+          memTable.getVersion(), e.getCause());
+      throw new FlushRunTimeException(e.getCause());
+    }
+  }
 
   static class EndChunkGroupIoTask {
     private long version;
@@ -241,4 +217,15 @@ public class MemTableFlushTask {
     }
   }
 
+  /**
+   * the last message of the io task.
+   */
+  static class EndFlushIoTask {
+
+    private static final EndFlushIoTask INSTANCE = new EndFlushIoTask();
+
+    private EndFlushIoTask() {
+    }
+  }
+
 }
@@ -47,7 +47,7 @@ public class WritableMemChunk implements IWritableMemChunk {
   }
 
   @Override
-  public void write(long insertTime, String insertValue) {
+  public synchronized void write(long insertTime, String insertValue) {
     switch (dataType) {
       case BOOLEAN:
         putBoolean(insertTime, Boolean.valueOf(insertValue));
@@ -74,7 +74,7 @@ public class WritableMemChunk implements IWritableMemChunk {
   }
 
   @Override
-  public void write(long insertTime, Object value) {
+  public synchronized void write(long insertTime, Object value) {
     switch (dataType) {
       case BOOLEAN:
         putBoolean(insertTime, (Boolean)value);
@@ -100,34 +100,61 @@ public class WritableMemChunk implements IWritableMemChunk {
     sortedList = null;
   }
 
+  @Override
+  public synchronized void write(long[] times, Object valueList, int start, int end) {
+    switch (dataType) {
+      case BOOLEAN:
+        list.putBooleans(times, (boolean[]) valueList, start, end);
+        break;
+      case INT32:
+        list.putInts(times, (int[]) valueList, start, end);
+        break;
+      case INT64:
+        list.putLongs(times, (long[]) valueList, start, end);
+        break;
+      case FLOAT:
+        list.putFloats(times, (float[]) valueList, start, end);
+        break;
+      case DOUBLE:
+        list.putDoubles(times, (double[]) valueList, start, end);
+        break;
+      case TEXT:
+        list.putBinaries(times, (Binary[]) valueList, start, end);
+        break;
+      default:
+        throw new UnSupportedDataTypeException("Unsupported data type:" + dataType);
+    }
+    sortedList = null;
+  }
+
 
   @Override
-  public void putLong(long t, long v) {
+  public synchronized void putLong(long t, long v) {
     list.putLong(t, v);
   }
 
   @Override
-  public void putInt(long t, int v) {
+  public synchronized void putInt(long t, int v) {
     list.putInt(t, v);
   }
 
   @Override
-  public void putFloat(long t, float v) {
+  public synchronized void putFloat(long t, float v) {
     list.putFloat(t, v);
   }
 
   @Override
-  public void putDouble(long t, double v) {
+  public synchronized void putDouble(long t, double v) {
     list.putDouble(t, v);
   }
 
   @Override
-  public void putBinary(long t, Binary v) {
+  public synchronized void putBinary(long t, Binary v) {
     list.putBinary(t, v);
   }
 
   @Override
-  public void putBoolean(long t, boolean v) {
+  public synchronized void putBoolean(long t, boolean v) {
     list.putBoolean(t, v);
   }
 
@@ -137,6 +164,11 @@ public class WritableMemChunk implements IWritableMemChunk {
     return list;
   }
 
+  @Override
+  public synchronized TVList getSnapshot() {
+    return list.snapshot();
+  }
+
   @Override
   public TVList getTVList() {
     return list;
@@ -208,7 +240,7 @@ public class WritableMemChunk implements IWritableMemChunk {
   }
 
   @Override
-  public void delete(long upperBound) {
+  public synchronized void delete(long upperBound) {
     list.delete(upperBound);
   }
 }
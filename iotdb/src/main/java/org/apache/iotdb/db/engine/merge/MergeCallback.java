@@ -0,0 +1,38 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge;
+
+import java.util.List;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+
+@FunctionalInterface
+public interface MergeCallback {
+
+  /**
+   * called when a MergeTask ends.
+   *
+   * @param seqFiles the merged sequence files
+   * @param unseqFiles the merged unsequence files
+   * @param newSeqFiles the sealed files that replace seqFiles, null if the merge failed
+   * @param mergeLogger the logger of the merge, whose end mark must be written by the callback
+   * after it makes the new files valid
+   */
+  void call(List<TsFileResource> seqFiles, List<TsFileResource> unseqFiles,
+      List<TsFileResource> newSeqFiles, MergeLogger mergeLogger);
+}
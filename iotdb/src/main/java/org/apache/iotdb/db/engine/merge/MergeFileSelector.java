@@ -0,0 +1,140 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+
+/**
+ * MergeFileSelector chooses the unsequence files to be merged and the sequence files they overlap.
+ * <br/>
+ *
+ * A data point (device, t) of an unsequence file belongs to the first sequence file that contains
+ * the device and whose end time of the device is not smaller than t, or to the last sequence file
+ * containing the device if there is no such file. All sequence files that some points of an
+ * unsequence file belong to must be sealed for the unsequence file to be merged.<br/>
+ *
+ * As data in a later unsequence file override those in an earlier one with the same timestamps,
+ * only a prefix of the unsequence file list is selected: the selection stops at the first
+ * unsequence file that cannot be merged now.
+ */
+public class MergeFileSelector {
+
+  private List<TsFileResource> seqFiles;
+  private List<TsFileResource> unseqFiles;
+
+  private List<TsFileResource> selectedSeqFiles = new ArrayList<>();
+  private List<TsFileResource> selectedUnseqFiles = new ArrayList<>();
+
+  /**
+   * @param seqFiles all sequence files of a storage group, ordered by their names
+   * @param unseqFiles all unsequence files of a storage group, ordered by their names
+   */
+  public MergeFileSelector(List<TsFileResource> seqFiles, List<TsFileResource> unseqFiles) {
+    this.seqFiles = seqFiles;
+    this.unseqFiles = unseqFiles;
+  }
+
+  /**
+   * @return true if at least one unsequence file is selected
+   */
+  public boolean select() {
+    Set<TsFileResource> overlappedSeqFiles = new HashSet<>();
+    for (TsFileResource unseqFile : unseqFiles) {
+      if (!unseqFile.isClosed()) {
+        break;
+      }
+      Set<TsFileResource> targets = selectOverlappedSeqFiles(unseqFile);
+      if (targets == null) {
+        break;
+      }
+      selectedUnseqFiles.add(unseqFile);
+      overlappedSeqFiles.addAll(targets);
+    }
+    // keep the order of the sequence files
+    for (TsFileResource seqFile : seqFiles) {
+      if (overlappedSeqFiles.contains(seqFile)) {
+        selectedSeqFiles.add(seqFile);
+      }
+    }
+    return !selectedUnseqFiles.isEmpty();
+  }
+
+  /**
+   * @return the sequence files that the data of unseqFile belong to, or null if some of them are
+   * not sealed
+   */
+  private Set<TsFileResource> selectOverlappedSeqFiles(TsFileResource unseqFile) {
+    Set<TsFileResource> targets = new HashSet<>();
+    for (Entry<String, Long> entry : unseqFile.getStartTimeMap().entrySet()) {
+      String deviceId = entry.getKey();
+      long unseqStartTime = entry.getValue();
+      Long unseqEndTime = unseqFile.getEndTimeMap().get(deviceId);
+      if (unseqEndTime == null) {
+        return null;
+      }
+
+      List<TsFileResource> seqFilesOfDevice = new ArrayList<>();
+      for (TsFileResource seqFile : seqFiles) {
+        if (seqFile.containsDevice(deviceId)) {
+          seqFilesOfDevice.add(seqFile);
+        }
+      }
+      if (seqFilesOfDevice.isEmpty()) {
+        // the data has nowhere to go
+        return null;
+      }
+
+      // the points in (previous end time, end time] belong to a sequence file
+      long lowerBound = Long.MIN_VALUE;
+      for (int i = 0; i < seqFilesOfDevice.size(); i++) {
+        TsFileResource seqFile = seqFilesOfDevice.get(i);
+        boolean isLast = i == seqFilesOfDevice.size() - 1;
+        Long seqEndTime = seqFile.getEndTimeMap().get(deviceId);
+        if (seqEndTime == null && !isLast) {
+          return null;
+        }
+        long upperBound = isLast ? Long.MAX_VALUE : seqEndTime;
+        if (unseqStartTime <= upperBound && unseqEndTime > lowerBound) {
+          if (!seqFile.isClosed()) {
+            return null;
+          }
+          targets.add(seqFile);
+        }
+        if (isLast || unseqEndTime <= upperBound) {
+          break;
+        }
+        lowerBound = upperBound;
+      }
+    }
+    return targets;
+  }
+
+  public List<TsFileResource> getSelectedSeqFiles() {
+    return selectedSeqFiles;
+  }
+
+  public List<TsFileResource> getSelectedUnseqFiles() {
+    return selectedUnseqFiles;
+  }
+}
@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge;
+
+import static org.apache.iotdb.tsfile.common.constant.TsFileConstant.TSFILE_SUFFIX;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+
+/**
+ * MergeLogger records the files involved in a merge in a text file under the system directory of
+ * the storage group, so that a merge interrupted by a crash can be either rolled back or completed
+ * by {@link MergeRecoverPerformer} when the storage group recovers. The log looks like:
+ * <pre>
+ * seq {path of a merged sequence file}
+ * ...
+ * unseq {path of a merged unsequence file}
+ * ...
+ * merge end
+ * </pre>
+ * The last line is written only after all merged files are completely written, which makes the
+ * new files take the place of the old ones.
+ */
+public class MergeLogger {
+
+  public static final String MERGE_LOG_NAME = "merge.log";
+  /**
+   * name of the modification file that keeps deletions issued during a merge.
+   */
+  public static final String MERGING_MODIFICATION_FILE_NAME = "merge.mods";
+  /**
+   * suffix of a merged file that is still being written.
+   */
+  public static final String MERGE_TEMP_SUFFIX = ".merge";
+
+  static final String STR_SEQ_FILE = "seq";
+  static final String STR_UNSEQ_FILE = "unseq";
+  static final String STR_MERGE_END = "merge end";
+
+  private File logFile;
+  private BufferedWriter logStream;
+
+  public MergeLogger(String storageGroupSysDir) throws IOException {
+    logFile = new File(storageGroupSysDir, MERGE_LOG_NAME);
+    logStream = new BufferedWriter(new FileWriter(logFile, false));
+  }
+
+  public void logFiles(List<TsFileResource> seqFiles, List<TsFileResource> unseqFiles)
+      throws IOException {
+    for (TsFileResource seqFile : seqFiles) {
+      logStream.write(STR_SEQ_FILE + " " + seqFile.getFile().getAbsolutePath());
+      logStream.newLine();
+    }
+    for (TsFileResource unseqFile : unseqFiles) {
+      logStream.write(STR_UNSEQ_FILE + " " + unseqFile.getFile().getAbsolutePath());
+      logStream.newLine();
+    }
+    logStream.flush();
+  }
+
+  public void logMergeEnd() throws IOException {
+    logStream.write(STR_MERGE_END);
+    logStream.newLine();
+    logStream.flush();
+  }
+
+  public void close() throws IOException {
+    logStream.close();
+  }
+
+  public File getLogFile() {
+    return logFile;
+  }
+
+  /**
+   * The merged file of "{systemTime}-{version}.tsfile" is named "{systemTime}-{version}-1.tsfile",
+   * and that of "{systemTime}-{version}-{mergeCnt}.tsfile" is named
+   * "{systemTime}-{version}-{mergeCnt + 1}.tsfile", so the merged file keeps the position of the
+   * old one in the sequence file list and never reuses the name of a file that may still be opened
+   * by queries.
+   */
+  public static File getMergedFile(File seqFile) {
+    String[] items = seqFile.getName().replace(TSFILE_SUFFIX, "").split("-");
+    int mergeCnt = items.length > 2 ? Integer.parseInt(items[2]) + 1 : 1;
+    return new File(seqFile.getParentFile(),
+        items[0] + "-" + items[1] + "-" + mergeCnt + TSFILE_SUFFIX);
+  }
+
+  public static File getMergeTempFile(File mergedFile) {
+    return new File(mergedFile.getPath() + MERGE_TEMP_SUFFIX);
+  }
+}
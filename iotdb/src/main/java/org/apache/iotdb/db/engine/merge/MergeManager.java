@@ -0,0 +1,255 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.concurrent.ThreadName;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.exception.StartupException;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.service.IService;
+import org.apache.iotdb.db.service.JMXService;
+import org.apache.iotdb.db.service.ServiceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * MergeManager runs the MergeTasks of all storage groups in a fixed thread pool, periodically
+ * triggers a merge of all storage groups, limits the speed at which merged data are written and
+ * collects the statistics of the finished merges.
+ */
+public class MergeManager implements IService, MergeManagerMBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(MergeManager.class);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private static final long BYTES_PER_MB = 1024L * 1024L;
+
+  private final String mbeanName = String
+      .format("%s:%s=%s", IoTDBConstant.IOTDB_PACKAGE, IoTDBConstant.JMX_TYPE,
+          getID().getJmxName());
+
+  private ExecutorService mergeTaskPool;
+  private ScheduledExecutorService mergeDaemon;
+
+  /**
+   * the earliest time (System.nanoTime()) at which the next written bytes of merge are allowed.
+   */
+  private long nextWriteAllowedTime = 0;
+
+  private AtomicLong finishedTaskNum = new AtomicLong();
+  private AtomicLong mergedSeqFileNum = new AtomicLong();
+  private AtomicLong mergedUnseqFileNum = new AtomicLong();
+  private AtomicLong mergedChunkNum = new AtomicLong();
+  private AtomicLong mergedPointNum = new AtomicLong();
+  private AtomicLong mergedByteNum = new AtomicLong();
+  private AtomicLong mergeTimeConsumption = new AtomicLong();
+  private volatile double lastMergeThroughput = 0;
+
+  private MergeManager() {
+  }
+
+  public static MergeManager getInstance() {
+    return InstanceHolder.INSTANCE;
+  }
+
+  /**
+   * submit a merge task.
+   *
+   * @return the future of the task, or null if the MergeManager is not running
+   */
+  public synchronized Future<Void> submit(MergeTask mergeTask) {
+    if (mergeTaskPool == null || mergeTaskPool.isShutdown()) {
+      logger.warn("Merge manager is not running, the merge task {} is rejected",
+          mergeTask.getTaskName());
+      return null;
+    }
+    return mergeTaskPool.submit(mergeTask);
+  }
+
+  /**
+   * Block the calling merge task until writing another 'bytes' bytes does not make the total
+   * write speed of all merge tasks exceed merge_throughput_mb_per_sec.
+   */
+  public void throttle(long bytes) throws InterruptedException {
+    int throughput = config.getMergeThroughputMbPerSec();
+    if (throughput <= 0 || bytes <= 0) {
+      return;
+    }
+    long cost = bytes * TimeUnit.SECONDS.toNanos(1) / (throughput * BYTES_PER_MB);
+    long waitTime;
+    synchronized (this) {
+      long now = System.nanoTime();
+      long writeTime = Math.max(now, nextWriteAllowedTime);
+      nextWriteAllowedTime = writeTime + cost;
+      waitTime = writeTime - now;
+    }
+    if (waitTime > 0) {
+      TimeUnit.NANOSECONDS.sleep(waitTime);
+    }
+  }
+
+  /**
+   * record the statistics of a finished merge task.
+   */
+  void onTaskFinished(int seqFileNum, int unseqFileNum, long chunkNum, long pointNum,
+      long byteNum, long timeConsumption) {
+    finishedTaskNum.incrementAndGet();
+    mergedSeqFileNum.addAndGet(seqFileNum);
+    mergedUnseqFileNum.addAndGet(unseqFileNum);
+    mergedChunkNum.addAndGet(chunkNum);
+    mergedPointNum.addAndGet(pointNum);
+    mergedByteNum.addAndGet(byteNum);
+    mergeTimeConsumption.addAndGet(timeConsumption);
+    lastMergeThroughput = calculateThroughput(byteNum, timeConsumption);
+  }
+
+  private static double calculateThroughput(long byteNum, long timeConsumption) {
+    if (timeConsumption <= 0) {
+      return 0;
+    }
+    return (double) byteNum / BYTES_PER_MB / timeConsumption * 1000;
+  }
+
+  private void mergeAll() {
+    try {
+      StorageEngine.getInstance().mergeAll();
+    } catch (StorageEngineException e) {
+      logger.error("Cannot trigger a timed merge", e);
+    }
+  }
+
+  @Override
+  public synchronized void start() throws StartupException {
+    if (mergeTaskPool != null && !mergeTaskPool.isShutdown()) {
+      return;
+    }
+    mergeTaskPool = IoTDBThreadPoolFactory.newFixedThreadPool(config.getMergeConcurrentThreads(),
+        ThreadName.MERGE_SERVICE.getName());
+    long mergeInterval = config.getMergeIntervalSec();
+    if (mergeInterval > 0) {
+      mergeDaemon = IoTDBThreadPoolFactory
+          .newSingleThreadScheduledExecutor(ThreadName.MERGE_DAEMON.getName());
+      mergeDaemon.scheduleWithFixedDelay(this::mergeAll, mergeInterval, mergeInterval,
+          TimeUnit.SECONDS);
+    }
+    try {
+      JMXService.registerMBean(this, mbeanName);
+    } catch (Exception e) {
+      String errorMessage = String
+          .format("Failed to start %s because of %s", this.getID().getName(),
+              e.getMessage());
+      throw new StartupException(errorMessage, e);
+    }
+    logger.info("Merge manager started with {} threads, timed merge interval {}s",
+        config.getMergeConcurrentThreads(), mergeInterval);
+  }
+
+  @Override
+  public synchronized void stop() {
+    if (mergeTaskPool == null) {
+      return;
+    }
+    if (mergeDaemon != null) {
+      mergeDaemon.shutdownNow();
+      mergeDaemon = null;
+    }
+    // running merges are interrupted and their half-written files are removed by the tasks, the
+    // source files are kept untouched
+    mergeTaskPool.shutdownNow();
+    try {
+      if (!mergeTaskPool.awaitTermination(60, TimeUnit.SECONDS)) {
+        logger.warn("Merge tasks do not exit in 60s");
+      }
+    } catch (InterruptedException e) {
+      logger.error("Interrupted while waiting for merge tasks to exit", e);
+      Thread.currentThread().interrupt();
+    }
+    mergeTaskPool = null;
+    JMXService.deregisterMBean(mbeanName);
+    logger.info("Merge manager stopped");
+  }
+
+  @Override
+  public ServiceType getID() {
+    return ServiceType.MERGE_SERVICE;
+  }
+
+  @Override
+  public synchronized int getRunningMergeTaskNum() {
+    return mergeTaskPool == null ? 0 : ((ThreadPoolExecutor) mergeTaskPool).getActiveCount();
+  }
+
+  @Override
+  public long getFinishedMergeTaskNum() {
+    return finishedTaskNum.get();
+  }
+
+  @Override
+  public long getMergedSeqFileNum() {
+    return mergedSeqFileNum.get();
+  }
+
+  @Override
+  public long getMergedUnseqFileNum() {
+    return mergedUnseqFileNum.get();
+  }
+
+  @Override
+  public long getMergedChunkNum() {
+    return mergedChunkNum.get();
+  }
+
+  @Override
+  public long getMergedPointNum() {
+    return mergedPointNum.get();
+  }
+
+  @Override
+  public long getMergedByteNum() {
+    return mergedByteNum.get();
+  }
+
+  @Override
+  public double getMergeThroughputMbPerSec() {
+    return calculateThroughput(mergedByteNum.get(), mergeTimeConsumption.get());
+  }
+
+  @Override
+  public double getLastMergeThroughputMbPerSec() {
+    return lastMergeThroughput;
+  }
+
+  private static class InstanceHolder {
+
+    private InstanceHolder() {
+      //allowed to do nothing
+    }
+
+    private static final MergeManager INSTANCE = new MergeManager();
+  }
+}
@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge;
+
+import static org.apache.iotdb.db.engine.merge.MergeLogger.MERGE_LOG_NAME;
+import static org.apache.iotdb.db.engine.merge.MergeLogger.MERGING_MODIFICATION_FILE_NAME;
+import static org.apache.iotdb.db.engine.merge.MergeLogger.STR_MERGE_END;
+import static org.apache.iotdb.db.engine.merge.MergeLogger.STR_SEQ_FILE;
+import static org.apache.iotdb.db.engine.merge.MergeLogger.STR_UNSEQ_FILE;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.db.engine.modification.ModificationFile;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * MergeRecoverPerformer finishes or rolls back a merge interrupted by a system crash according to
+ * the merge log written by {@link MergeLogger}. It must be called before the TsFiles of the storage
+ * group are loaded.
+ */
+public class MergeRecoverPerformer {
+
+  private static final Logger logger = LoggerFactory.getLogger(MergeRecoverPerformer.class);
+
+  private String storageGroupSysDir;
+
+  public MergeRecoverPerformer(String storageGroupSysDir) {
+    this.storageGroupSysDir = storageGroupSysDir;
+  }
+
+  public void recover() throws IOException {
+    File logFile = new File(storageGroupSysDir, MERGE_LOG_NAME);
+    if (logFile.exists()) {
+      List<File> seqFiles = new ArrayList<>();
+      List<File> unseqFiles = new ArrayList<>();
+      boolean mergeEnded = false;
+      try (BufferedReader reader = new BufferedReader(new FileReader(logFile))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          if (line.equals(STR_MERGE_END)) {
+            mergeEnded = true;
+          } else if (line.startsWith(STR_SEQ_FILE + " ")) {
+            seqFiles.add(new File(line.substring(STR_SEQ_FILE.length() + 1)));
+          } else if (line.startsWith(STR_UNSEQ_FILE + " ")) {
+            unseqFiles.add(new File(line.substring(STR_UNSEQ_FILE.length() + 1)));
+          }
+        }
+      }
+
+      if (mergeEnded) {
+        // the merged files are complete, remove the old files that they replace
+        logger.info("Completing the merge of {} seq files and {} unseq files in {}",
+            seqFiles.size(), unseqFiles.size(), storageGroupSysDir);
+        for (File file : seqFiles) {
+          deleteTsFile(file);
+        }
+        for (File file : unseqFiles) {
+          deleteTsFile(file);
+        }
+      } else {
+        // the merge is not finished, the old files are intact and the new ones are removed
+        logger.info("Rolling back the merge of {} seq files and {} unseq files in {}",
+            seqFiles.size(), unseqFiles.size(), storageGroupSysDir);
+        for (File file : seqFiles) {
+          File mergedFile;
+          try {
+            mergedFile = MergeLogger.getMergedFile(file);
+          } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            // a broken line at the tail of the log
+            continue;
+          }
+          deleteTsFile(mergedFile);
+          Files.deleteIfExists(MergeLogger.getMergeTempFile(mergedFile).toPath());
+        }
+      }
+      Files.delete(logFile.toPath());
+    }
+    Files.deleteIfExists(new File(storageGroupSysDir, MERGING_MODIFICATION_FILE_NAME).toPath());
+  }
+
+  /**
+   * delete a TsFile together with its resource file and modification file.
+   */
+  public static void deleteTsFile(File file) throws IOException {
+    Files.deleteIfExists(file.toPath());
+    Files.deleteIfExists(new File(file.getPath() + TsFileResource.RESOURCE_SUFFIX).toPath());
+    Files.deleteIfExists(new File(file.getPath() + ModificationFile.FILE_SUFFIX).toPath());
+  }
+}
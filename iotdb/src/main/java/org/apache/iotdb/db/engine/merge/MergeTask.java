@@ -0,0 +1,499 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import org.apache.iotdb.db.engine.modification.Modification;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.reader.IPointReader;
+import org.apache.iotdb.db.query.reader.chunkRelated.DiskChunkReader;
+import org.apache.iotdb.db.query.reader.universal.PriorityMergeReader;
+import org.apache.iotdb.db.utils.QueryUtils;
+import org.apache.iotdb.db.utils.TimeValuePair;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetaData;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.TsDeviceMetadata;
+import org.apache.iotdb.tsfile.file.metadata.TsFileMetaData;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
+import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReaderWithFilter;
+import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReaderWithoutFilter;
+import org.apache.iotdb.tsfile.write.chunk.ChunkBuffer;
+import org.apache.iotdb.tsfile.write.chunk.ChunkWriterImpl;
+import org.apache.iotdb.tsfile.write.schema.FileSchema;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * MergeTask rewrites some sequence files together with the unsequence files overlapping them
+ * (chosen by {@link MergeFileSelector}) into new sequence files, one new file for each old
+ * sequence file. <br/>
+ *
+ * The merge goes device by device and chunk by chunk: the unsequence points of a series that
+ * belong to a sequence chunk are merged into that chunk, points of unsequence files overriding
+ * those of sequence files with the same timestamps. A sequence chunk that overlaps no unsequence
+ * point and is not touched by any deletion is copied as a whole without decoding. Deletions in the
+ * .mods files of the old files are applied while reading, so the new files start with no
+ * modification. <br/>
+ *
+ * The new files are written as temporary files and renamed when they are complete, then the
+ * {@link MergeCallback} is called to make them take the place of the old files.
+ */
+public class MergeTask implements Callable<Void> {
+
+  private static final Logger logger = LoggerFactory.getLogger(MergeTask.class);
+
+  private List<TsFileResource> seqFiles;
+  private List<TsFileResource> unseqFiles;
+  private FileSchema fileSchema;
+  private String storageGroupSysDir;
+  private MergeCallback callback;
+  private String taskName;
+
+  /**
+   * caches the modifications of the old files.
+   */
+  private QueryContext mergeContext = new QueryContext();
+  private Map<TsFileResource, TsFileSequenceReader> fileReaderCache = new HashMap<>();
+  private Map<TsFileResource, TsFileMetaData> fileMetaDataCache = new HashMap<>();
+
+  /**
+   * old sequence file -> writer of its new file.
+   */
+  private Map<TsFileResource, TsFileIOWriter> newFileWriters = new HashMap<>();
+  /**
+   * old sequence file -> resource of its new file.
+   */
+  private Map<TsFileResource, TsFileResource> newFileResources = new HashMap<>();
+
+  private TsFileIOWriter currentWriter;
+  private TsFileResource currentResource;
+  private String currentDevice;
+  private boolean chunkGroupStarted;
+
+  private long mergedChunkNum = 0;
+  private long mergedPointNum = 0;
+  private long mergedByteNum = 0;
+
+  public MergeTask(List<TsFileResource> seqFiles, List<TsFileResource> unseqFiles,
+      FileSchema fileSchema, String storageGroupSysDir, MergeCallback callback, String taskName) {
+    this.seqFiles = seqFiles;
+    this.unseqFiles = unseqFiles;
+    this.fileSchema = fileSchema;
+    this.storageGroupSysDir = storageGroupSysDir;
+    this.callback = callback;
+    this.taskName = taskName;
+  }
+
+  @Override
+  public Void call() throws Exception {
+    long startTime = System.currentTimeMillis();
+    logger.info("{} starts to merge {} seq files and {} unseq files", taskName, seqFiles.size(),
+        unseqFiles.size());
+    MergeLogger mergeLogger = new MergeLogger(storageGroupSysDir);
+    List<TsFileResource> newSeqFiles = null;
+    try {
+      mergeLogger.logFiles(seqFiles, unseqFiles);
+      newSeqFiles = doMerge();
+    } catch (InterruptedException e) {
+      logger.warn("{} is interrupted, the merged files are discarded", taskName);
+      cleanUpNewFiles();
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      logger.error("{} failed, the merged files are discarded", taskName, e);
+      cleanUpNewFiles();
+    } finally {
+      closeFileReaders();
+    }
+
+    if (newSeqFiles != null) {
+      long timeConsumption = System.currentTimeMillis() - startTime;
+      MergeManager.getInstance().onTaskFinished(seqFiles.size(), unseqFiles.size(),
+          mergedChunkNum, mergedPointNum, mergedByteNum, timeConsumption);
+      logger.info("{} ends after {}ms, {} chunks, {} points and {} bytes are written", taskName,
+          timeConsumption, mergedChunkNum, mergedPointNum, mergedByteNum);
+    }
+    callback.call(seqFiles, unseqFiles, newSeqFiles, mergeLogger);
+    return null;
+  }
+
+  private List<TsFileResource> doMerge() throws IOException, InterruptedException {
+    for (TsFileResource seqFile : seqFiles) {
+      File newFile = MergeLogger.getMergedFile(seqFile.getFile());
+      newFileWriters.put(seqFile, new TsFileIOWriter(MergeLogger.getMergeTempFile(newFile)));
+      newFileResources.put(seqFile, new TsFileResource(newFile, new HashMap<>(), new HashMap<>()));
+    }
+
+    Set<String> devices = new TreeSet<>();
+    for (TsFileResource seqFile : seqFiles) {
+      devices.addAll(seqFile.getStartTimeMap().keySet());
+    }
+    for (String device : devices) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      mergeDevice(device);
+    }
+
+    List<TsFileResource> newSeqFiles = new ArrayList<>();
+    for (TsFileResource seqFile : seqFiles) {
+      TsFileIOWriter writer = newFileWriters.get(seqFile);
+      TsFileResource newResource = newFileResources.get(seqFile);
+      File tempFile = MergeLogger.getMergeTempFile(newResource.getFile());
+      if (newResource.getStartTimeMap().isEmpty()) {
+        // all data in the file are deleted
+        writer.close();
+        Files.delete(tempFile.toPath());
+        continue;
+      }
+      writer.endFile(fileSchema);
+      if (!tempFile.renameTo(newResource.getFile())) {
+        throw new IOException(String.format("Cannot rename %s to %s", tempFile,
+            newResource.getFile()));
+      }
+      newResource.serialize();
+      newSeqFiles.add(newResource);
+    }
+    return newSeqFiles;
+  }
+
+  private void mergeDevice(String device) throws IOException, InterruptedException {
+    Map<TsFileResource, Map<String, List<ChunkMetaData>>> unseqChunkMetadata = new HashMap<>();
+    Set<String> unseqMeasurements = new TreeSet<>();
+    for (TsFileResource unseqFile : unseqFiles) {
+      if (unseqFile.containsDevice(device)) {
+        Map<String, List<ChunkMetaData>> chunkMetadata = loadChunkMetadata(unseqFile, device);
+        unseqChunkMetadata.put(unseqFile, chunkMetadata);
+        unseqMeasurements.addAll(chunkMetadata.keySet());
+      }
+    }
+
+    List<TsFileResource> seqFilesOfDevice = new ArrayList<>();
+    for (TsFileResource seqFile : seqFiles) {
+      if (seqFile.containsDevice(device)) {
+        seqFilesOfDevice.add(seqFile);
+      }
+    }
+
+    // the unsequence points in (lowerBound, upperBound] are merged into a sequence file
+    long lowerBound = Long.MIN_VALUE;
+    for (int i = 0; i < seqFilesOfDevice.size(); i++) {
+      TsFileResource seqFile = seqFilesOfDevice.get(i);
+      long upperBound = i == seqFilesOfDevice.size() - 1 ? Long.MAX_VALUE
+          : seqFile.getEndTimeMap().get(device);
+
+      Map<String, List<ChunkMetaData>> seqChunkMetadata = loadChunkMetadata(seqFile, device);
+      Set<String> measurements = new TreeSet<>(seqChunkMetadata.keySet());
+      measurements.addAll(unseqMeasurements);
+
+      currentWriter = newFileWriters.get(seqFile);
+      currentResource = newFileResources.get(seqFile);
+      currentDevice = device;
+      chunkGroupStarted = false;
+      long version = 0;
+      for (List<ChunkMetaData> chunkMetaDataList : seqChunkMetadata.values()) {
+        for (ChunkMetaData chunkMetaData : chunkMetaDataList) {
+          version = Math.max(version, chunkMetaData.getVersion());
+        }
+      }
+      for (Map<String, List<ChunkMetaData>> chunkMetadata : unseqChunkMetadata.values()) {
+        for (List<ChunkMetaData> chunkMetaDataList : chunkMetadata.values()) {
+          for (ChunkMetaData chunkMetaData : chunkMetaDataList) {
+            version = Math.max(version, chunkMetaData.getVersion());
+          }
+        }
+      }
+
+      for (String measurement : measurements) {
+        mergeSeries(seqFile, measurement,
+            seqChunkMetadata.getOrDefault(measurement, new ArrayList<>()), unseqChunkMetadata,
+            lowerBound, upperBound);
+      }
+      if (chunkGroupStarted) {
+        currentWriter.endChunkGroup(version);
+      }
+      lowerBound = upperBound;
+    }
+  }
+
+  private void mergeSeries(TsFileResource seqFile, String measurement,
+      List<ChunkMetaData> seqChunkMetadata,
+      Map<TsFileResource, Map<String, List<ChunkMetaData>>> unseqChunkMetadata, long lowerBound,
+      long upperBound) throws IOException, InterruptedException {
+    List<ChunkHeader> unseqChunkHeaders = new ArrayList<>();
+    IPointReader unseqReader = createUnseqReader(measurement, unseqChunkMetadata, lowerBound,
+        upperBound, unseqChunkHeaders);
+    try {
+      if (seqChunkMetadata.isEmpty()) {
+        if (unseqReader.hasNext()) {
+          writeMergedChunk(null, unseqReader, upperBound,
+              getMeasurementSchema(measurement, unseqChunkHeaders.get(0)));
+        }
+        return;
+      }
+
+      TsFileSequenceReader seqFileReader = getFileReader(seqFile);
+      for (int i = 0; i < seqChunkMetadata.size(); i++) {
+        ChunkMetaData chunkMetaData = seqChunkMetadata.get(i);
+        // unsequence points before the end of the next chunk are merged into the next chunk
+        long chunkUpperBound = i == seqChunkMetadata.size() - 1 ? upperBound
+            : chunkMetaData.getEndTime();
+        boolean overlapped = unseqReader.hasNext()
+            && unseqReader.current().getTimestamp() <= chunkUpperBound;
+        Chunk chunk = seqFileReader.readMemChunk(chunkMetaData);
+        if (!overlapped && chunkMetaData.getDeletedAt() < chunkMetaData.getStartTime()) {
+          copyChunk(chunk, chunkMetaData);
+        } else {
+          chunk.setDeletedAt(chunkMetaData.getDeletedAt());
+          IPointReader seqReader = new DiskChunkReader(new ChunkReaderWithoutFilter(chunk));
+          writeMergedChunk(seqReader, unseqReader, chunkUpperBound,
+              getMeasurementSchema(measurement, chunk.getHeader()));
+        }
+      }
+    } finally {
+      unseqReader.close();
+    }
+  }
+
+  private IPointReader createUnseqReader(String measurement,
+      Map<TsFileResource, Map<String, List<ChunkMetaData>>> unseqChunkMetadata, long lowerBound,
+      long upperBound, List<ChunkHeader> chunkHeaders) throws IOException {
+    PriorityMergeReader unseqReader = new PriorityMergeReader();
+    Filter timeFilter = FilterFactory.and(TimeFilter.gt(lowerBound), TimeFilter.ltEq(upperBound));
+    // data in later unsequence files and chunks have higher priority
+    int priority = 1;
+    for (TsFileResource unseqFile : unseqFiles) {
+      Map<String, List<ChunkMetaData>> chunkMetadataOfFile = unseqChunkMetadata.get(unseqFile);
+      if (chunkMetadataOfFile == null || !chunkMetadataOfFile.containsKey(measurement)) {
+        continue;
+      }
+      for (ChunkMetaData chunkMetaData : chunkMetadataOfFile.get(measurement)) {
+        if (chunkMetaData.getEndTime() > lowerBound
+            && chunkMetaData.getStartTime() <= upperBound) {
+          Chunk chunk = getFileReader(unseqFile).readMemChunk(chunkMetaData);
+          chunk.setDeletedAt(chunkMetaData.getDeletedAt());
+          chunkHeaders.add(chunk.getHeader());
+          unseqReader.addReaderWithPriority(
+              new DiskChunkReader(new ChunkReaderWithFilter(chunk, timeFilter)), priority);
+        }
+        priority++;
+      }
+    }
+    return unseqReader;
+  }
+
+  /**
+   * merge the points of seqReader and the points of unseqReader not larger than upperBound into
+   * one chunk. seqReader may be null if there is no sequence data.
+   */
+  private void writeMergedChunk(IPointReader seqReader, IPointReader unseqReader, long upperBound,
+      MeasurementSchema schema) throws IOException, InterruptedException {
+    ChunkWriterImpl chunkWriter = new ChunkWriterImpl(schema, new ChunkBuffer(schema),
+        TSFileConfig.pageSizeInByte);
+    long pointNum = 0;
+    while (true) {
+      boolean hasSeq = seqReader != null && seqReader.hasNext();
+      boolean hasUnseq = unseqReader.hasNext()
+          && unseqReader.current().getTimestamp() <= upperBound;
+      TimeValuePair timeValuePair;
+      if (hasSeq && hasUnseq) {
+        long seqTime = seqReader.current().getTimestamp();
+        long unseqTime = unseqReader.current().getTimestamp();
+        if (unseqTime == seqTime) {
+          // the unsequence point overrides the sequence one
+          seqReader.next();
+        }
+        timeValuePair = unseqTime <= seqTime ? unseqReader.next() : seqReader.next();
+      } else if (hasSeq) {
+        timeValuePair = seqReader.next();
+      } else if (hasUnseq) {
+        timeValuePair = unseqReader.next();
+      } else {
+        break;
+      }
+      writeTimeValuePair(chunkWriter, schema, timeValuePair);
+      currentResource.updateStartTime(currentDevice, timeValuePair.getTimestamp());
+      currentResource.updateEndTime(currentDevice, timeValuePair.getTimestamp());
+      pointNum++;
+    }
+    if (pointNum == 0) {
+      return;
+    }
+    startChunkGroupIfNecessary();
+    long startPos = currentWriter.getPos();
+    chunkWriter.writeToFileWriter(currentWriter);
+    onChunkWritten(pointNum, currentWriter.getPos() - startPos);
+  }
+
+  private void copyChunk(Chunk chunk, ChunkMetaData chunkMetaData)
+      throws IOException, InterruptedException {
+    startChunkGroupIfNecessary();
+    long startPos = currentWriter.getPos();
+    currentWriter.writeChunk(chunk, chunkMetaData);
+    currentResource.updateStartTime(currentDevice, chunkMetaData.getStartTime());
+    currentResource.updateEndTime(currentDevice, chunkMetaData.getEndTime());
+    onChunkWritten(chunkMetaData.getNumOfPoints(), currentWriter.getPos() - startPos);
+  }
+
+  private void startChunkGroupIfNecessary() throws IOException {
+    if (!chunkGroupStarted) {
+      currentWriter.startChunkGroup(currentDevice);
+      chunkGroupStarted = true;
+    }
+  }
+
+  private void onChunkWritten(long pointNum, long byteNum) throws InterruptedException {
+    mergedChunkNum++;
+    mergedPointNum += pointNum;
+    mergedByteNum += byteNum;
+    MergeManager.getInstance().throttle(byteNum);
+  }
+
+  private void writeTimeValuePair(ChunkWriterImpl chunkWriter, MeasurementSchema schema,
+      TimeValuePair timeValuePair) {
+    long time = timeValuePair.getTimestamp();
+    switch (schema.getType()) {
+      case BOOLEAN:
+        chunkWriter.write(time, timeValuePair.getValue().getBoolean());
+        break;
+      case INT32:
+        chunkWriter.write(time, timeValuePair.getValue().getInt());
+        break;
+      case INT64:
+        chunkWriter.write(time, timeValuePair.getValue().getLong());
+        break;
+      case FLOAT:
+        chunkWriter.write(time, timeValuePair.getValue().getFloat());
+        break;
+      case DOUBLE:
+        chunkWriter.write(time, timeValuePair.getValue().getDouble());
+        break;
+      case TEXT:
+        chunkWriter.write(time, timeValuePair.getValue().getBinary());
+        break;
+      default:
+        throw new UnsupportedOperationException("Unknown data type " + schema.getType());
+    }
+  }
+
+  /**
+   * use the registered schema of the measurement, or the schema of the chunk being merged if the
+   * measurement is not registered or the chunk has a different data type.
+   */
+  private MeasurementSchema getMeasurementSchema(String measurement, ChunkHeader chunkHeader) {
+    MeasurementSchema schema = fileSchema.getMeasurementSchema(measurement);
+    if (schema == null || schema.getType() != chunkHeader.getDataType()) {
+      schema = new MeasurementSchema(measurement, chunkHeader.getDataType(),
+          chunkHeader.getEncodingType(), chunkHeader.getCompressionType());
+    }
+    return schema;
+  }
+
+  /**
+   * @return measurement -> chunk metadata of the device in the file, modifications are applied
+   * and completely deleted chunks are removed
+   */
+  private Map<String, List<ChunkMetaData>> loadChunkMetadata(TsFileResource tsFileResource,
+      String device) throws IOException {
+    Map<String, List<ChunkMetaData>> chunkMetadataMap = new HashMap<>();
+    TsFileSequenceReader reader = getFileReader(tsFileResource);
+    TsFileMetaData fileMetaData = fileMetaDataCache.get(tsFileResource);
+    if (fileMetaData == null) {
+      fileMetaData = reader.readFileMetadata();
+      fileMetaDataCache.put(tsFileResource, fileMetaData);
+    }
+    if (!fileMetaData.containsDevice(device)) {
+      return chunkMetadataMap;
+    }
+    TsDeviceMetadata deviceMetadata = reader
+        .readTsDeviceMetaData(fileMetaData.getDeviceMetadataIndex(device));
+    for (ChunkGroupMetaData chunkGroupMetaData : deviceMetadata.getChunkGroupMetaDataList()) {
+      for (ChunkMetaData chunkMetaData : chunkGroupMetaData.getChunkMetaDataList()) {
+        chunkMetaData.setVersion(chunkGroupMetaData.getVersion());
+        chunkMetadataMap.computeIfAbsent(chunkMetaData.getMeasurementUid(), k -> new ArrayList<>())
+            .add(chunkMetaData);
+      }
+    }
+    for (Entry<String, List<ChunkMetaData>> entry : chunkMetadataMap.entrySet()) {
+      List<Modification> modifications = mergeContext.getPathModifications(
+          tsFileResource.getModFile(), new Path(device, entry.getKey()).getFullPath());
+      QueryUtils.modifyChunkMetaData(entry.getValue(), modifications);
+    }
+    chunkMetadataMap.values().removeIf(List::isEmpty);
+    return chunkMetadataMap;
+  }
+
+  private TsFileSequenceReader getFileReader(TsFileResource tsFileResource) throws IOException {
+    TsFileSequenceReader reader = fileReaderCache.get(tsFileResource);
+    if (reader == null) {
+      reader = new TsFileSequenceReader(tsFileResource.getFile().getPath());
+      fileReaderCache.put(tsFileResource, reader);
+    }
+    return reader;
+  }
+
+  private void closeFileReaders() {
+    for (TsFileSequenceReader reader : fileReaderCache.values()) {
+      try {
+        reader.close();
+      } catch (IOException e) {
+        logger.error("{} cannot close file reader {}", taskName, reader.getFileName(), e);
+      }
+    }
+    fileReaderCache.clear();
+  }
+
+  private void cleanUpNewFiles() {
+    for (Entry<TsFileResource, TsFileIOWriter> entry : newFileWriters.entrySet()) {
+      File newFile = newFileResources.get(entry.getKey()).getFile();
+      try {
+        if (entry.getValue().canWrite()) {
+          entry.getValue().close();
+        }
+        Files.deleteIfExists(MergeLogger.getMergeTempFile(newFile).toPath());
+        MergeRecoverPerformer.deleteTsFile(newFile);
+      } catch (IOException e) {
+        logger.error("{} cannot remove merged file {}", taskName, newFile, e);
+      }
+    }
+  }
+
+  public String getTaskName() {
+    return taskName;
+  }
+}
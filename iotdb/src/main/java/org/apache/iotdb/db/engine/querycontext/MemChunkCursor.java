@@ -0,0 +1,186 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.querycontext;
+
+import java.util.List;
+import org.apache.iotdb.db.utils.MathUtils;
+import org.apache.iotdb.db.utils.TimeValuePair;
+import org.apache.iotdb.db.utils.TsPrimitiveType.TsBinary;
+import org.apache.iotdb.db.utils.TsPrimitiveType.TsBoolean;
+import org.apache.iotdb.db.utils.TsPrimitiveType.TsDouble;
+import org.apache.iotdb.db.utils.TsPrimitiveType.TsFloat;
+import org.apache.iotdb.db.utils.TsPrimitiveType.TsInt;
+import org.apache.iotdb.db.utils.TsPrimitiveType.TsLong;
+import org.apache.iotdb.db.utils.datastructure.TVList;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+
+/**
+ * A cursor over the distinct points of a {@link ReadOnlyMemChunk} in ascending time order. The
+ * points are read from the sorted memtable snapshots in place, so no object is created unless
+ * the caller asks for a boxed value or a {@link TimeValuePair}.
+ * <p>
+ * Of the points with the same timestamp, the last written one in the newest snapshot is read, and
+ * the points before the time offset of a snapshot are skipped as deleted.
+ * <p>
+ * Usage: call {@link #hasNext()} to position the cursor, read the current point, then call {@link
+ * #next()} to move past it.
+ */
+public class MemChunkCursor {
+
+  private final TSDataType dataType;
+  private final int floatPrecision;
+
+  private final TVList[] lists;
+  /**
+   * the index of the next unread point in each list.
+   */
+  private final int[] indexes;
+  /**
+   * the list of the current point, or -1 if the cursor is not positioned.
+   */
+  private int current = -1;
+
+  MemChunkCursor(TSDataType dataType, List<TVList> lists, int floatPrecision) {
+    this.dataType = dataType;
+    this.floatPrecision = floatPrecision;
+    this.lists = lists.toArray(new TVList[0]);
+    this.indexes = new int[this.lists.length];
+  }
+
+  public boolean hasNext() {
+    if (current >= 0) {
+      return true;
+    }
+    long minTime = Long.MAX_VALUE;
+    for (int i = 0; i < lists.length; i++) {
+      TVList list = lists[i];
+      int size = list.size();
+      int index = indexes[i];
+      // skip the deleted points and the points overwritten later in the same list
+      while (index < size && (list.getTime(index) < list.getTimeOffset()
+          || (index + 1 < size && list.getTime(index) == list.getTime(index + 1)))) {
+        index++;
+      }
+      indexes[i] = index;
+      // a later list overwrites the points of the earlier ones at the same time
+      if (index < size && list.getTime(index) <= minTime) {
+        minTime = list.getTime(index);
+        current = i;
+      }
+    }
+    return current >= 0;
+  }
+
+  /**
+   * move past the current point.
+   */
+  public void next() {
+    long time = currentTime();
+    // the earlier lists may have a point at the same time, which is overwritten by the current one
+    for (int i = 0; i <= current; i++) {
+      if (indexes[i] < lists[i].size() && lists[i].getTime(indexes[i]) == time) {
+        indexes[i]++;
+      }
+    }
+    current = -1;
+  }
+
+  public long currentTime() {
+    return lists[current].getTime(indexes[current]);
+  }
+
+  public Object currentValue() {
+    TVList list = lists[current];
+    int index = indexes[current];
+    switch (dataType) {
+      case BOOLEAN:
+        return list.getBoolean(index);
+      case INT32:
+        return list.getInt(index);
+      case INT64:
+        return list.getLong(index);
+      case FLOAT:
+        return MathUtils.roundWithGivenPrecision(list.getFloat(index), floatPrecision);
+      case DOUBLE:
+        return MathUtils.roundWithGivenPrecision(list.getDouble(index), floatPrecision);
+      case TEXT:
+        return list.getBinary(index);
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    }
+  }
+
+  public TimeValuePair currentTimeValuePair() {
+    TVList list = lists[current];
+    int index = indexes[current];
+    long time = list.getTime(index);
+    switch (dataType) {
+      case BOOLEAN:
+        return new TimeValuePair(time, new TsBoolean(list.getBoolean(index)));
+      case INT32:
+        return new TimeValuePair(time, new TsInt(list.getInt(index)));
+      case INT64:
+        return new TimeValuePair(time, new TsLong(list.getLong(index)));
+      case FLOAT:
+        return new TimeValuePair(time, new TsFloat(
+            MathUtils.roundWithGivenPrecision(list.getFloat(index), floatPrecision)));
+      case DOUBLE:
+        return new TimeValuePair(time, new TsDouble(
+            MathUtils.roundWithGivenPrecision(list.getDouble(index), floatPrecision)));
+      case TEXT:
+        return new TimeValuePair(time, new TsBinary(list.getBinary(index)));
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    }
+  }
+
+  /**
+   * append the current point to the batch data with primitive values.
+   */
+  public void putCurrentTo(BatchData batchData) {
+    TVList list = lists[current];
+    int index = indexes[current];
+    batchData.putTime(list.getTime(index));
+    switch (dataType) {
+      case BOOLEAN:
+        batchData.putBoolean(list.getBoolean(index));
+        break;
+      case INT32:
+        batchData.putInt(list.getInt(index));
+        break;
+      case INT64:
+        batchData.putLong(list.getLong(index));
+        break;
+      case FLOAT:
+        batchData.putFloat(MathUtils.roundWithGivenPrecision(list.getFloat(index), floatPrecision));
+        break;
+      case DOUBLE:
+        batchData.putDouble(
+            MathUtils.roundWithGivenPrecision(list.getDouble(index), floatPrecision));
+        break;
+      case TEXT:
+        batchData.putBinary(list.getBinary(index));
+        break;
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    }
+  }
+}
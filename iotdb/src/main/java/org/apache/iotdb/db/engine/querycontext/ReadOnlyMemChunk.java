@@ -18,93 +18,108 @@
  */
 package org.apache.iotdb.db.engine.querycontext;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import org.apache.iotdb.db.engine.memtable.MemSeriesLazyMerger;
+import java.util.NoSuchElementException;
 import org.apache.iotdb.db.engine.memtable.TimeValuePairSorter;
-import org.apache.iotdb.db.utils.MathUtils;
 import org.apache.iotdb.db.utils.TimeValuePair;
-import org.apache.iotdb.db.utils.TsPrimitiveType.TsDouble;
-import org.apache.iotdb.db.utils.TsPrimitiveType.TsFloat;
+import org.apache.iotdb.db.utils.datastructure.TVList;
 import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
 import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 
+/**
+ * The in-memory data of a series for a query. It holds sorted snapshots of the series in one or
+ * more memtables, which share the primitive arrays of the memtables, and the points are read from
+ * the arrays through a {@link MemChunkCursor} without being copied.
+ */
 //TODO: merge ReadOnlyMemChunk and WritableMemChunk and IWritableMemChunk
 public class ReadOnlyMemChunk implements TimeValuePairSorter {
 
-  private boolean initialized;
-
   private TSDataType dataType;
-  private TimeValuePairSorter memSeries;
-  private List<TimeValuePair> sortedTimeValuePairList;
 
-  Map<String, String> props;
+  /**
+   * the snapshots of the memtables, from the oldest one to the newest one.
+   */
+  private List<TVList> snapshots;
+
   private int floatPrecision = TSFileConfig.floatPrecision;
 
   /**
-   * init by TSDataType and TimeValuePairSorter.
+   * init by TSDataType and the snapshot of a memtable.
    */
-  public ReadOnlyMemChunk(TSDataType dataType, TimeValuePairSorter memSeries, Map<String, String> props) {
+  public ReadOnlyMemChunk(TSDataType dataType, TVList snapshot, Map<String, String> props) {
     this.dataType = dataType;
-    this.memSeries = memSeries;
-    this.initialized = false;
-    this.props = props;
+    this.snapshots = Collections.singletonList(snapshot);
     if (props.containsKey(Encoder.MAX_POINT_NUMBER)) {
       this.floatPrecision = Integer.parseInt(props.get(Encoder.MAX_POINT_NUMBER));
     }
   }
 
-  private void checkInitialized() {
-    if (!initialized) {
-      init();
-    }
-  }
-
-  private void init() {
-    sortedTimeValuePairList = memSeries.getSortedTimeValuePairList();
-    if (!(memSeries instanceof MemSeriesLazyMerger)) {
-      switch (dataType) {
-        case FLOAT:
-          sortedTimeValuePairList.replaceAll(x -> new TimeValuePair(x.getTimestamp(),
-              new TsFloat(
-                  MathUtils.roundWithGivenPrecision(x.getValue().getFloat(), floatPrecision))));
-          break;
-        case DOUBLE:
-          sortedTimeValuePairList.replaceAll(x -> new TimeValuePair(x.getTimestamp(),
-              new TsDouble(
-                  MathUtils.roundWithGivenPrecision(x.getValue().getDouble(), floatPrecision))));
-          break;
-        default:
-          break;
-      }
+  /**
+   * merge the chunks of the same series in several memtables. For the points with the same
+   * timestamp, the one in the later chunk is read.
+   *
+   * @param memChunks the chunks ordered from the oldest memtable to the newest one
+   */
+  public ReadOnlyMemChunk(TSDataType dataType, List<ReadOnlyMemChunk> memChunks) {
+    this.dataType = dataType;
+    this.snapshots = new ArrayList<>();
+    for (ReadOnlyMemChunk memChunk : memChunks) {
+      snapshots.addAll(memChunk.snapshots);
+      // all chunks belong to the same series, so they have the same precision
+      floatPrecision = memChunk.floatPrecision;
     }
-    //putBack memory
-    memSeries = null;
-    initialized = true;
   }
 
   public TSDataType getDataType() {
     return dataType;
   }
 
+  /**
+   * @return a new cursor at the first point of this chunk
+   */
+  public MemChunkCursor getCursor() {
+    return new MemChunkCursor(dataType, snapshots, floatPrecision);
+  }
+
+  /**
+   * notice, this method creates a TimeValuePair for each point, so readers should use {@link
+   * #getCursor()} instead.
+   */
   @Override
   public List<TimeValuePair> getSortedTimeValuePairList() {
-    checkInitialized();
+    List<TimeValuePair> sortedTimeValuePairList = new ArrayList<>();
+    getIterator().forEachRemaining(sortedTimeValuePairList::add);
     return Collections.unmodifiableList(sortedTimeValuePairList);
   }
 
   @Override
   public Iterator<TimeValuePair> getIterator() {
-    checkInitialized();
-    return sortedTimeValuePairList.iterator();
+    MemChunkCursor cursor = getCursor();
+    return new Iterator<TimeValuePair>() {
+      @Override
+      public boolean hasNext() {
+        return cursor.hasNext();
+      }
+
+      @Override
+      public TimeValuePair next() {
+        if (!cursor.hasNext()) {
+          throw new NoSuchElementException();
+        }
+        TimeValuePair timeValuePair = cursor.currentTimeValuePair();
+        cursor.next();
+        return timeValuePair;
+      }
+    };
   }
 
   @Override
   public boolean isEmpty() {
-    checkInitialized();
-    return sortedTimeValuePairList.isEmpty();
+    return !getCursor().hasNext();
   }
 }
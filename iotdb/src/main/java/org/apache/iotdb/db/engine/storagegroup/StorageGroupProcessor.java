@@ -22,21 +22,39 @@ import static org.apache.iotdb.tsfile.common.constant.TsFileConstant.TSFILE_SUFF
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.commons.io.FileUtils;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.directories.DirectoryManager;
-import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.cache.ChunkCache;
+import org.apache.iotdb.db.engine.cache.LastValueCache;
+import org.apache.iotdb.db.engine.merge.MergeFileSelector;
+import org.apache.iotdb.db.engine.merge.MergeLogger;
+import org.apache.iotdb.db.engine.merge.MergeManager;
+import org.apache.iotdb.db.engine.merge.MergeRecoverPerformer;
+import org.apache.iotdb.db.engine.merge.MergeTask;
 import org.apache.iotdb.db.engine.modification.Deletion;
+import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
@@ -47,9 +65,11 @@ import org.apache.iotdb.db.exception.ProcessorException;
 import org.apache.iotdb.db.exception.StorageGroupProcessorException;
 import org.apache.iotdb.db.exception.TsFileProcessorException;
 import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.DeletePlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.FileReaderManager;
 import org.apache.iotdb.db.utils.CopyOnReadLinkedList;
 import org.apache.iotdb.db.writelog.recover.TsFileRecoverPerformer;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
@@ -57,6 +77,7 @@ import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.write.schema.FileSchema;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
@@ -81,7 +102,11 @@ import org.slf4j.LoggerFactory;
  * method will be called as a callback.<br/>
  *
  * When a TsFileProcessor is closed, the closeUnsealedTsFileProcessor() method will be called as a
- * callback.
+ * callback.<br/>
+ *
+ * Sealed unsequence files are merged into the sequence files they overlap by merge(), the new
+ * sequence files replace the old files in mergeEndAction(), and the old files are deleted when no
+ * query started before the replacement is running.
  */
 public class StorageGroupProcessor {
 
@@ -90,9 +115,17 @@ public class StorageGroupProcessor {
    * a read write lock for guaranteeing concurrent safety when accessing all fields in this class
    * (i.e., fileSchema, (un)sequenceFileList, work(un)SequenceTsFileProcessor,
    * closing(Un)SequenceTsFileProcessor, latestTimeForEachDevice, and
-   * latestFlushedTimeForEachDevice)
+   * latestFlushedTimeForEachDevice). Inserts only take its read lock together with the lock of
+   * their device in deviceLocks, so that inserts of different devices run concurrently; the write
+   * lock is taken to create, flush or close a working TsFileProcessor.
    */
   private final ReadWriteLock insertLock = new ReentrantReadWriteLock();
+  /**
+   * striped locks that serialize the inserts of the same device, so that the latest time of a
+   * device is updated atomically and its logs are written in the same order as its memtable.
+   */
+  private static final int DEVICE_LOCK_NUM = 64;
+  private final Lock[] deviceLocks = new Lock[DEVICE_LOCK_NUM];
   /**
    *
    */
@@ -107,10 +140,12 @@ public class StorageGroupProcessor {
   private FileSchema fileSchema;
   // includes sealed and unsealed sequence TsFiles
   private List<TsFileResource> sequenceFileList = new ArrayList<>();
+  private TsFileTimeIndex sequenceFileIndex = new TsFileTimeIndex(true);
   private TsFileProcessor workSequenceTsFileProcessor = null;
   private CopyOnReadLinkedList<TsFileProcessor> closingSequenceTsFileProcessor = new CopyOnReadLinkedList<>();
   // includes sealed and unsealed unSequence TsFiles
   private List<TsFileResource> unSequenceFileList = new ArrayList<>();
+  private TsFileTimeIndex unSequenceFileIndex = new TsFileTimeIndex(false);
   private TsFileProcessor workUnSequenceTsFileProcessor = null;
   private CopyOnReadLinkedList<TsFileProcessor> closingUnSequenceTsFileProcessor = new CopyOnReadLinkedList<>();
   /**
@@ -118,15 +153,16 @@ public class StorageGroupProcessor {
    * changes upon timestamps of each device, and is used to update latestFlushedTimeForEachDevice
    * when a flush is issued.
    */
-  private Map<String, Long> latestTimeForEachDevice = new HashMap<>();
+  private Map<String, Long> latestTimeForEachDevice = new ConcurrentHashMap<>();
   /**
    * device -> largest timestamp of the latest memtable to be submitted to asyncTryToFlush
    * latestFlushedTimeForEachDevice determines whether a data point should be put into a sequential
    * file or an unsequential file. Data of some device with timestamp less than or equals to the
    * device's latestFlushedTime should go into an unsequential file.
    */
-  private Map<String, Long> latestFlushedTimeForEachDevice = new HashMap<>();
+  private Map<String, Long> latestFlushedTimeForEachDevice = new ConcurrentHashMap<>();
   private String storageGroupName;
+  private String storageGroupSysDir;
   /**
    * versionController assigns a version for each MemTable and deletion/update such that after they
    * are persisted, the order of insertions, deletions and updates can be re-determined.
@@ -135,10 +171,8 @@ public class StorageGroupProcessor {
 
   /**
    * mergeDeleteLock is to be used in the merge process. Concurrent deletion and merge may result in
-   * losing some deletion in the merged new file, so a lock is necessary. TODO reconsidering this
-   * when implementing the merge process.
+   * losing some deletion in the merged new file, so a lock is necessary.
    */
-  @SuppressWarnings("unused") // to be used in merge
   private ReentrantLock mergeDeleteLock = new ReentrantLock();
 
   /**
@@ -147,10 +181,42 @@ public class StorageGroupProcessor {
    */
   private ModificationFile mergingModification;
 
+  /**
+   * true from the submission of a merge task until the files replaced by it are deleted. At most
+   * one merge runs in a storage group at a time.
+   */
+  private volatile boolean isMerging = false;
+
+  /**
+   * query tokens are assigned increasingly, and a token is kept here until its query ends.
+   */
+  private AtomicInteger queryTokenGenerator = new AtomicInteger();
+  private ConcurrentSkipListSet<Integer> runningQueryTokens = new ConcurrentSkipListSet<>();
+
+  /**
+   * the old files replaced by the last merge, which are deleted when all queries with tokens not
+   * larger than mergedFilesQueryBarrier end.
+   */
+  private List<TsFileResource> mergedFilesToBeDeleted;
+  private int mergedFilesQueryBarrier;
+  private MergeLogger mergedFilesLogger;
+
 
   public StorageGroupProcessor(String systemInfoDir, String storageGroupName)
       throws ProcessorException {
+    this(systemInfoDir, storageGroupName, null);
+  }
+
+  /**
+   * @param recoverPool the pool in which the resources of sealed TsFiles are loaded concurrently,
+   * or null to load them in the current thread
+   */
+  public StorageGroupProcessor(String systemInfoDir, String storageGroupName,
+      ExecutorService recoverPool) throws ProcessorException {
     this.storageGroupName = storageGroupName;
+    for (int i = 0; i < DEVICE_LOCK_NUM; i++) {
+      deviceLocks[i] = new ReentrantLock();
+    }
 
     // construct the file schema
     this.fileSchema = constructFileSchema(storageGroupName);
@@ -166,28 +232,60 @@ public class StorageGroupProcessor {
       }
 
       versionController = new SimpleFileVersionController(storageGroupSysDir.getPath());
+      this.storageGroupSysDir = storageGroupSysDir.getPath();
     } catch (IOException e) {
       throw new StorageGroupProcessorException(e);
     }
 
-    recover();
+    recover(recoverPool);
   }
 
-  private void recover() throws ProcessorException {
+  private void recover(ExecutorService recoverPool) throws ProcessorException {
     logger.info("recover Storage Group  {}", storageGroupName);
+    long startTime = System.currentTimeMillis();
 
-    // collect TsFiles from sequential data directory
-    List<File> tsFiles = getAllFiles(DirectoryManager.getInstance().getAllSequenceFileFolders());
-    recoverSeqFiles(tsFiles);
-
-    // collect TsFiles from unsequential data directory
-    tsFiles = getAllFiles(DirectoryManager.getInstance().getAllUnSequenceFileFolders());
-    recoverUnseqFiles(tsFiles);
+    // finish or roll back the merge interrupted last time before the TsFiles are collected
+    try {
+      new MergeRecoverPerformer(storageGroupSysDir).recover();
+    } catch (IOException e) {
+      throw new StorageGroupProcessorException(e);
+    }
+    long mergeRecoveredTime = System.currentTimeMillis();
+
+    // collect TsFiles from sequential and unsequential data directory
+    List<TsFileRecoverPerformer> unsealedFiles = new ArrayList<>();
+    List<Future<Void>> loadTasks = new ArrayList<>();
+    collectFiles(getAllFiles(DirectoryManager.getInstance().getAllSequenceFileFolders()),
+        sequenceFileList, false, unsealedFiles, loadTasks, recoverPool);
+    collectFiles(getAllFiles(DirectoryManager.getInstance().getAllUnSequenceFileFolders()),
+        unSequenceFileList, true, unsealedFiles, loadTasks, recoverPool);
+    int sealedFileNum = loadTasks.size();
+
+    // the resources of sealed files are being loaded while the other files redo their logs
+    for (TsFileRecoverPerformer recoverPerformer : unsealedFiles) {
+      recoverPerformer.recover();
+    }
+    long unsealedRecoveredTime = System.currentTimeMillis();
+    for (Future<Void> loadTask : loadTasks) {
+      waitForLoading(loadTask);
+    }
+    long sealedLoadedTime = System.currentTimeMillis();
 
+    for (TsFileResource resource : sequenceFileList) {
+      sequenceFileIndex.add(resource);
+    }
+    for (TsFileResource resource : unSequenceFileList) {
+      unSequenceFileIndex.add(resource);
+    }
     for (TsFileResource resource : sequenceFileList) {
       latestTimeForEachDevice.putAll(resource.getEndTimeMap());
       latestFlushedTimeForEachDevice.putAll(resource.getEndTimeMap());
     }
+    logger.info("Storage group {} is recovered in {}ms: merge recovery took {}ms, {} unsealed "
+            + "files were recovered in {}ms, the resources of {} sealed files were loaded in {}ms",
+        storageGroupName, System.currentTimeMillis() - startTime, mergeRecoveredTime - startTime,
+        unsealedFiles.size(), unsealedRecoveredTime - mergeRecoveredTime, sealedFileNum,
+        sealedLoadedTime - mergeRecoveredTime);
   }
 
   private List<File> getAllFiles(List<String> folders) {
@@ -203,26 +301,48 @@ public class StorageGroupProcessor {
     return tsFiles;
   }
 
-  private void recoverSeqFiles(List<File> tsFiles) throws ProcessorException {
+  /**
+   * add the resources of the TsFiles into the file list in the order of their versions, submit
+   * the loading of the sealed files and collect the recover performers of the others.
+   */
+  private void collectFiles(List<File> tsFiles, List<TsFileResource> fileList,
+      boolean acceptUnseq, List<TsFileRecoverPerformer> unsealedFiles, List<Future<Void>> loadTasks,
+      ExecutorService recoverPool) {
     tsFiles.sort(this::compareFileName);
     for (File tsFile : tsFiles) {
       TsFileResource tsFileResource = new TsFileResource(tsFile);
-      sequenceFileList.add(tsFileResource);
-      TsFileRecoverPerformer recoverPerformer = new TsFileRecoverPerformer(storageGroupName + "-"
-          , fileSchema, versionController, tsFileResource, false);
-      recoverPerformer.recover();
+      fileList.add(tsFileResource);
+      TsFileRecoverPerformer recoverPerformer = new TsFileRecoverPerformer(storageGroupName + "-",
+          fileSchema, versionController, tsFileResource, acceptUnseq);
+      if (!recoverPerformer.isSealed()) {
+        unsealedFiles.add(recoverPerformer);
+        continue;
+      }
+      Callable<Void> loadTask = () -> {
+        recoverPerformer.recover();
+        return null;
+      };
+      if (recoverPool != null) {
+        loadTasks.add(recoverPool.submit(loadTask));
+      } else {
+        FutureTask<Void> futureTask = new FutureTask<>(loadTask);
+        futureTask.run();
+        loadTasks.add(futureTask);
+      }
     }
   }
 
-  private void recoverUnseqFiles(List<File> tsFiles) throws ProcessorException {
-    tsFiles.sort(this::compareFileName);
-    for (File tsFile : tsFiles) {
-      TsFileResource tsFileResource = new TsFileResource(tsFile);
-      unSequenceFileList.add(tsFileResource);
-      TsFileRecoverPerformer recoverPerformer = new TsFileRecoverPerformer(storageGroupName + "-",
-          fileSchema,
-          versionController, tsFileResource, true);
-      recoverPerformer.recover();
+  private void waitForLoading(Future<Void> loadTask) throws ProcessorException {
+    try {
+      loadTask.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new StorageGroupProcessorException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof ProcessorException) {
+        throw (ProcessorException) e.getCause();
+      }
+      throw new StorageGroupProcessorException(e.getCause());
     }
   }
 
@@ -265,71 +385,215 @@ public class StorageGroupProcessor {
   }
 
   public boolean insert(InsertPlan insertPlan) {
+    String deviceId = insertPlan.getDeviceId();
+    while (true) {
+      TsFileProcessor tsFileProcessor;
+      boolean sequence;
+      boolean result = false;
+      Lock deviceLock = getDeviceLock(deviceId);
+      insertLock.readLock().lock();
+      deviceLock.lock();
+      try {
+        // init map
+        latestTimeForEachDevice.putIfAbsent(deviceId, Long.MIN_VALUE);
+        latestFlushedTimeForEachDevice.putIfAbsent(deviceId, Long.MIN_VALUE);
+
+        // insert to sequence or unSequence file
+        sequence = insertPlan.getTime() > latestFlushedTimeForEachDevice.get(deviceId);
+        tsFileProcessor = getWorkTsFileProcessor(sequence);
+        if (tsFileProcessor != null) {
+          result = insertToTsFileProcessor(tsFileProcessor, insertPlan);
+        }
+      } finally {
+        deviceLock.unlock();
+        insertLock.readLock().unlock();
+      }
+
+      if (tsFileProcessor == null) {
+        // the flushed time may change before the processor is created, so decide again
+        if (!createWorkTsFileProcessor(sequence)) {
+          return false;
+        }
+        continue;
+      }
+      checkMemTableSize(tsFileProcessor, sequence);
+      return result;
+    }
+  }
+
+  /**
+   * Insert a batch of rows of one device. The rows newer than the latest flushed time of the
+   * device go to the working sequence file and the others go to the working unsequence file;
+   * each run of consecutive rows of the same kind is written in bulk as one WAL record.
+   *
+   * @return true if and only if all rows are inserted
+   */
+  public boolean insertBatch(BatchInsertPlan batchInsertPlan) {
+    String deviceId = batchInsertPlan.getDeviceId();
+    long[] times = batchInsertPlan.getTimes();
+    boolean result = true;
+    int start = 0;
+    while (start < batchInsertPlan.getRowCount()) {
+      TsFileProcessor tsFileProcessor;
+      boolean sequence;
+      int end;
+      Lock deviceLock = getDeviceLock(deviceId);
+      insertLock.readLock().lock();
+      deviceLock.lock();
+      try {
+        // init map
+        latestTimeForEachDevice.putIfAbsent(deviceId, Long.MIN_VALUE);
+        latestFlushedTimeForEachDevice.putIfAbsent(deviceId, Long.MIN_VALUE);
+
+        // the latest flushed time may be changed by a flush triggered by the last run
+        long lastFlushedTime = latestFlushedTimeForEachDevice.get(deviceId);
+        sequence = times[start] > lastFlushedTime;
+        end = start + 1;
+        while (end < batchInsertPlan.getRowCount()
+            && (times[end] > lastFlushedTime) == sequence) {
+          end++;
+        }
+        tsFileProcessor = getWorkTsFileProcessor(sequence);
+        if (tsFileProcessor != null) {
+          result = insertBatchToTsFileProcessor(tsFileProcessor, batchInsertPlan, start, end)
+              && result;
+        }
+      } finally {
+        deviceLock.unlock();
+        insertLock.readLock().unlock();
+      }
+
+      if (tsFileProcessor == null) {
+        // the flushed time may change before the processor is created, so split the run again
+        if (!createWorkTsFileProcessor(sequence)) {
+          return false;
+        }
+        continue;
+      }
+      checkMemTableSize(tsFileProcessor, sequence);
+      start = end;
+    }
+    return result;
+  }
+
+  /**
+   * should be called under the read lock of insertLock and the lock of the device
+   */
+  private boolean insertBatchToTsFileProcessor(TsFileProcessor tsFileProcessor,
+      BatchInsertPlan batchInsertPlan, int start, int end) {
+    boolean result = tsFileProcessor.insertBatch(batchInsertPlan, start, end);
+    if (!result) {
+      return false;
+    }
+    LastValueCache.getInstance().update(batchInsertPlan, start, end);
+
+    // try to update the latest time of the device of this batch
+    long maxTime = batchInsertPlan.getMaxTime(start, end);
+    if (latestTimeForEachDevice.get(batchInsertPlan.getDeviceId()) < maxTime) {
+      latestTimeForEachDevice.put(batchInsertPlan.getDeviceId(), maxTime);
+    }
+    return true;
+  }
+
+  /**
+   * should be called under the read lock of insertLock and the lock of the device
+   */
+  private boolean insertToTsFileProcessor(TsFileProcessor tsFileProcessor,
+      InsertPlan insertPlan) {
+    // insert TsFileProcessor
+    boolean result = tsFileProcessor.insert(insertPlan);
+    if (!result) {
+      return false;
+    }
+    LastValueCache.getInstance().update(insertPlan);
+
+    // try to update the latest time of the device of this tsRecord
+    if (latestTimeForEachDevice.get(insertPlan.getDeviceId()) < insertPlan.getTime()) {
+      latestTimeForEachDevice.put(insertPlan.getDeviceId(), insertPlan.getTime());
+    }
+    return true;
+  }
+
+  private Lock getDeviceLock(String deviceId) {
+    return deviceLocks[Math.floorMod(deviceId.hashCode(), DEVICE_LOCK_NUM)];
+  }
+
+  private TsFileProcessor getWorkTsFileProcessor(boolean sequence) {
+    return sequence ? workSequenceTsFileProcessor : workUnSequenceTsFileProcessor;
+  }
+
+  /**
+   * create the working TsFileProcessor of the given kind under the write lock if it is absent.
+   *
+   * @return false if the processor cannot be created
+   */
+  private boolean createWorkTsFileProcessor(boolean sequence) {
     writeLock();
     try {
-      // init map
-      latestTimeForEachDevice.putIfAbsent(insertPlan.getDeviceId(), Long.MIN_VALUE);
-      latestFlushedTimeForEachDevice.putIfAbsent(insertPlan.getDeviceId(), Long.MIN_VALUE);
-
-      // insert to sequence or unSequence file
-      return insertToTsFileProcessor(insertPlan,
-          insertPlan.getTime() > latestFlushedTimeForEachDevice.get(insertPlan.getDeviceId()));
+      return getOrCreateTsFileProcessor(sequence) != null;
     } catch (IOException e) {
-      logger.error("insert tsRecord to unsealed data file failed, because {}", e.getMessage(), e);
+      logger.error("create a TsFileProcessor failed, because {}", e.getMessage(), e);
       return false;
     } finally {
       writeUnlock();
     }
   }
 
-  private boolean insertToTsFileProcessor(InsertPlan insertPlan, boolean sequence)
-      throws IOException {
-    TsFileProcessor tsFileProcessor;
-    boolean result;
-
+  /**
+   * @return the working TsFileProcessor of the given kind, which is created if absent, or null
+   * if the disk space is insufficient
+   */
+  private TsFileProcessor getOrCreateTsFileProcessor(boolean sequence) throws IOException {
     try {
       if (sequence) {
         if (workSequenceTsFileProcessor == null) {
           // create a new TsfileProcessor
           workSequenceTsFileProcessor = createTsFileProcessor(true);
           sequenceFileList.add(workSequenceTsFileProcessor.getTsFileResource());
+          sequenceFileIndex.add(workSequenceTsFileProcessor.getTsFileResource());
         }
-        tsFileProcessor = workSequenceTsFileProcessor;
+        return workSequenceTsFileProcessor;
       } else {
         if (workUnSequenceTsFileProcessor == null) {
           // create a new TsfileProcessor
           workUnSequenceTsFileProcessor = createTsFileProcessor(false);
           unSequenceFileList.add(workUnSequenceTsFileProcessor.getTsFileResource());
+          unSequenceFileIndex.add(workUnSequenceTsFileProcessor.getTsFileResource());
         }
-        tsFileProcessor = workUnSequenceTsFileProcessor;
+        return workUnSequenceTsFileProcessor;
       }
     } catch (DiskSpaceInsufficientException e) {
       logger.error("disk space is insufficient when creating TsFile processor, change system mode to read-only", e);
       IoTDBDescriptor.getInstance().getConfig().setReadOnly(true);
-      return false;
+      return null;
     }
+  }
 
-    // insert TsFileProcessor
-    result = tsFileProcessor.insert(insertPlan);
-
-    // try to update the latest time of the device of this tsRecord
-    if (result && latestTimeForEachDevice.get(insertPlan.getDeviceId()) < insertPlan.getTime()) {
-      latestTimeForEachDevice.put(insertPlan.getDeviceId(), insertPlan.getTime());
+  /**
+   * check the memtable size of a processor after an insert and may flush its work memtable or
+   * close it under the write lock, unless another insert has already done so.
+   */
+  private void checkMemTableSize(TsFileProcessor tsFileProcessor, boolean sequence) {
+    if (!tsFileProcessor.shouldFlush()) {
+      return;
     }
-
-    // check memtable size and may asyncTryToFlush the work memtable
-    if (tsFileProcessor.shouldFlush()) {
-      logger.info("The memtable size {} reaches the threshold, async flush it to tsfile: {}",
-          tsFileProcessor.getWorkMemTableMemory(),
-          tsFileProcessor.getTsFileResource().getFile().getAbsolutePath());
-
-      if (tsFileProcessor.shouldClose()) {
-        moveOneWorkProcessorToClosingList(sequence);
-      } else {
-        tsFileProcessor.asyncFlush();
+    writeLock();
+    try {
+      // check memtable size and may asyncTryToFlush the work memtable
+      if (tsFileProcessor == getWorkTsFileProcessor(sequence) && tsFileProcessor.shouldFlush()) {
+        logger.info("The memtable size {} reaches the threshold, async flush it to tsfile: {}",
+            tsFileProcessor.getWorkMemTableMemory(),
+            tsFileProcessor.getTsFileResource().getFile().getAbsolutePath());
+
+        if (tsFileProcessor.shouldClose()) {
+          moveOneWorkProcessorToClosingList(sequence);
+        } else {
+          tsFileProcessor.asyncFlush();
+        }
       }
+    } finally {
+      writeUnlock();
     }
-    return result;
   }
 
   private TsFileProcessor createTsFileProcessor(boolean sequence)
@@ -358,7 +622,7 @@ public class StorageGroupProcessor {
   }
 
   /**
-   * only called by insert(), thread-safety should be ensured by caller
+   * only called under the write lock of insertLock, thread-safety should be ensured by caller
    */
   private void moveOneWorkProcessorToClosingList(boolean sequence) {
     //for sequence tsfile, we update the endTimeMap only when the file is prepared to be closed.
@@ -379,13 +643,20 @@ public class StorageGroupProcessor {
     waitForAllCurrentTsFileProcessorsClosed();
     writeLock();
     try {
+      List<String> deletedFiles = new ArrayList<>();
       for (TsFileResource tsFileResource : unSequenceFileList) {
         tsFileResource.close();
+        deletedFiles.add(tsFileResource.getFile().getPath());
       }
       for (TsFileResource tsFileResource : sequenceFileList) {
         tsFileResource.close();
+        deletedFiles.add(tsFileResource.getFile().getPath());
       }
-      List<String> folder = DirectoryManager.getInstance().getAllSequenceFileFolders();
+      ChunkCache.getInstance().remove(deletedFiles);
+      LastValueCache.getInstance().removeStorageGroup(storageGroupName);
+      // a copy, as the list of the DirectoryManager is also read by the recovery
+      List<String> folder = new ArrayList<>(
+          DirectoryManager.getInstance().getAllSequenceFileFolders());
       folder.addAll(DirectoryManager.getInstance().getAllUnSequenceFileFolders());
       for (String tsfilePath : folder) {
         File storageGroupFolder = new File(tsfilePath, storageGroupName);
@@ -401,6 +672,8 @@ public class StorageGroupProcessor {
       this.workUnSequenceTsFileProcessor = null;
       this.sequenceFileList.clear();
       this.unSequenceFileList.clear();
+      this.sequenceFileIndex.rebuild(sequenceFileList);
+      this.unSequenceFileIndex.rebuild(unSequenceFileList);
       this.latestFlushedTimeForEachDevice.clear();
       this.latestTimeForEachDevice.clear();
     } catch (IOException e) {
@@ -446,12 +719,21 @@ public class StorageGroupProcessor {
 
   // TODO need a read lock, please consider the concurrency with flush manager threads.
   public QueryDataSource query(String deviceId, String measurementId, QueryContext context) {
+    return query(deviceId, measurementId, context, null);
+  }
+
+  /**
+   * @param timeFilter the filter of the query, by whose time bounds the files are selected. Null
+   * to select all files containing the device.
+   */
+  public QueryDataSource query(String deviceId, String measurementId, QueryContext context,
+      Filter timeFilter) {
     insertLock.readLock().lock();
     try {
-      List<TsFileResource> seqResources = getFileReSourceListForQuery(sequenceFileList,
-          deviceId, measurementId, context);
-      List<TsFileResource> unseqResources = getFileReSourceListForQuery(unSequenceFileList,
-          deviceId, measurementId, context);
+      List<TsFileResource> seqResources = getFileReSourceListForQuery(sequenceFileIndex,
+          deviceId, measurementId, context, timeFilter);
+      List<TsFileResource> unseqResources = getFileReSourceListForQuery(unSequenceFileIndex,
+          deviceId, measurementId, context, timeFilter);
       return new QueryDataSource(new Path(deviceId, measurementId), seqResources, unseqResources);
     } finally {
       insertLock.readLock().unlock();
@@ -468,40 +750,35 @@ public class StorageGroupProcessor {
 
 
   /**
-   * @param tsFileResources includes sealed and unsealed tsfile resources
+   * @param fileIndex the index of the sealed and unsealed tsfile resources
    * @return fill unsealed tsfile resources with memory data and ChunkMetadataList of data in disk
    */
-  private List<TsFileResource> getFileReSourceListForQuery(List<TsFileResource> tsFileResources,
-      String deviceId, String measurementId, QueryContext context) {
+  private List<TsFileResource> getFileReSourceListForQuery(TsFileTimeIndex fileIndex,
+      String deviceId, String measurementId, QueryContext context, Filter timeFilter) {
 
     MeasurementSchema mSchema = fileSchema.getMeasurementSchema(measurementId);
     TSDataType dataType = mSchema.getType();
 
     List<TsFileResource> tsfileResourcesForQuery = new ArrayList<>();
-    for (TsFileResource tsFileResource : tsFileResources) {
-      // TODO: try filtering files if the query contains time filter
-      if (!tsFileResource.containsDevice(deviceId)) {
-        continue;
-      }
-      if (!tsFileResource.getStartTimeMap().isEmpty()) {
-        closeQueryLock.readLock().lock();
-        try {
-          if (tsFileResource.isClosed()) {
-            tsfileResourcesForQuery.add(tsFileResource);
-          } else {
-            // left: in-memory data, right: meta of disk data
-            Pair<ReadOnlyMemChunk, List<ChunkMetaData>> pair;
-            pair = tsFileResource
-                .getUnsealedFileProcessor()
-                .query(deviceId, measurementId, dataType, mSchema.getProps(), context);
-            tsfileResourcesForQuery
-                .add(new TsFileResource(tsFileResource.getFile(),
-                    tsFileResource.getStartTimeMap(),
-                    tsFileResource.getEndTimeMap(), pair.left, pair.right));
-          }
-        } finally {
-          closeQueryLock.readLock().unlock();
+    // only the files containing the device within the time range of the filter are selected
+    for (TsFileResource tsFileResource : fileIndex.select(deviceId, timeFilter)) {
+      closeQueryLock.readLock().lock();
+      try {
+        if (tsFileResource.isClosed()) {
+          tsfileResourcesForQuery.add(tsFileResource);
+        } else {
+          // left: in-memory data, right: meta of disk data
+          Pair<ReadOnlyMemChunk, List<ChunkMetaData>> pair;
+          pair = tsFileResource
+              .getUnsealedFileProcessor()
+              .query(deviceId, measurementId, dataType, mSchema.getProps(), context);
+          tsfileResourcesForQuery
+              .add(new TsFileResource(tsFileResource.getFile(),
+                  tsFileResource.getStartTimeMap(),
+                  tsFileResource.getEndTimeMap(), pair.left, pair.right));
         }
+      } finally {
+        closeQueryLock.readLock().unlock();
       }
     }
     return tsfileResourcesForQuery;
@@ -522,6 +799,8 @@ public class StorageGroupProcessor {
 
     // record files which are updated so that we can roll back them in case of exception
     List<ModificationFile> updatedModFiles = new ArrayList<>();
+    // the paths of the tsfiles whose cached chunks are invalidated by the deletion
+    List<String> updatedTsFiles = new ArrayList<>();
 
     try {
       Long lastUpdateTime = latestTimeForEachDevice.get(deviceId);
@@ -545,14 +824,21 @@ public class StorageGroupProcessor {
 
       Path fullPath = new Path(deviceId, measurementId);
       Deletion deletion = new Deletion(fullPath, versionController.nextVersion(), timestamp);
-      if (mergingModification != null) {
-        //TODO check me when implementing the merge process.
-        mergingModification.write(deletion);
-        updatedModFiles.add(mergingModification);
-      }
+      mergeDeleteLock.lock();
+      try {
+        if (mergingModification != null) {
+          mergingModification.write(deletion);
+          updatedModFiles.add(mergingModification);
+        }
 
-      deleteDataInFiles(sequenceFileList, deletion, updatedModFiles);
-      deleteDataInFiles(unSequenceFileList, deletion, updatedModFiles);
+        deleteDataInFiles(sequenceFileList, deletion, updatedModFiles, updatedTsFiles);
+        deleteDataInFiles(unSequenceFileList, deletion, updatedModFiles, updatedTsFiles);
+      } finally {
+        mergeDeleteLock.unlock();
+      }
+      ChunkCache.getInstance().remove(updatedTsFiles);
+      // the cached last point may be deleted, so it is loaded again by the next query
+      LastValueCache.getInstance().remove(deviceId, measurementId);
 
     } catch (Exception e) {
       // roll back
@@ -567,7 +853,7 @@ public class StorageGroupProcessor {
 
 
   private void deleteDataInFiles(List<TsFileResource> tsFileResourceList, Deletion deletion,
-      List<ModificationFile> updatedModFiles)
+      List<ModificationFile> updatedModFiles, List<String> updatedTsFiles)
       throws IOException {
     String deviceId = deletion.getDevice();
     for (TsFileResource tsFileResource : tsFileResourceList) {
@@ -587,6 +873,7 @@ public class StorageGroupProcessor {
 
       // add a record in case of rollback
       updatedModFiles.add(tsFileResource.getModFile());
+      updatedTsFiles.add(tsFileResource.getFile().getPath());
     }
   }
 
@@ -618,14 +905,21 @@ public class StorageGroupProcessor {
   // TODO please consider concurrency with query and insert method.
   public void closeUnsealedTsFileProcessor(
       TsFileProcessor tsFileProcessor) throws TsFileProcessorException {
+    //closingSequenceTsFileProcessor is a thread safety class.
+    boolean sequence = closingSequenceTsFileProcessor.contains(tsFileProcessor);
     closeQueryLock.writeLock().lock();
     try {
       tsFileProcessor.close();
+      // the time ranges of the file are fixed now
+      if (sequence) {
+        sequenceFileIndex.onClosed(tsFileProcessor.getTsFileResource());
+      } else {
+        unSequenceFileIndex.onClosed(tsFileProcessor.getTsFileResource());
+      }
     } finally {
       closeQueryLock.writeLock().unlock();
     }
-    //closingSequenceTsFileProcessor is a thread safety class.
-    if (closingSequenceTsFileProcessor.contains(tsFileProcessor)) {
+    if (sequence) {
       closingSequenceTsFileProcessor.remove(tsFileProcessor);
     } else {
       closingUnSequenceTsFileProcessor.remove(tsFileProcessor);
@@ -637,6 +931,226 @@ public class StorageGroupProcessor {
   }
 
 
+  /**
+   * Select the sealed unsequence files that can be merged now together with the sequence files
+   * they overlap, and submit a merge task of them to the MergeManager.
+   *
+   * @return true if a merge task is submitted
+   */
+  public boolean merge() {
+    writeLock();
+    try {
+      if (isMerging) {
+        logger.info("The last merge of storage group {} has not ended, skip this merge",
+            storageGroupName);
+        return false;
+      }
+      MergeFileSelector fileSelector = new MergeFileSelector(sequenceFileList, unSequenceFileList);
+      if (!fileSelector.select()) {
+        logger.info("No unsequence file of storage group {} can be merged now", storageGroupName);
+        return false;
+      }
+      mergingModification = new ModificationFile(
+          new File(storageGroupSysDir, MergeLogger.MERGING_MODIFICATION_FILE_NAME).getPath());
+      MergeTask mergeTask = new MergeTask(new ArrayList<>(fileSelector.getSelectedSeqFiles()),
+          new ArrayList<>(fileSelector.getSelectedUnseqFiles()),
+          new FileSchema(fileSchema.getAllMeasurementSchema()), storageGroupSysDir,
+          this::mergeEndAction, storageGroupName + "-" + System.currentTimeMillis());
+      isMerging = true;
+      if (MergeManager.getInstance().submit(mergeTask) == null) {
+        isMerging = false;
+        mergingModification = null;
+        return false;
+      }
+      logger.info("A merge task of {} seq files and {} unseq files is submitted in {}",
+          fileSelector.getSelectedSeqFiles().size(), fileSelector.getSelectedUnseqFiles().size(),
+          storageGroupName);
+      return true;
+    } finally {
+      writeUnlock();
+    }
+  }
+
+  /**
+   * Replace the merged files with the new sequence files atomically: deletions issued during the
+   * merge are copied into the new files, the merge log is marked as ended and the file lists are
+   * updated, all under the insertLock, the mergeDeleteLock and the closeQueryLock so that neither
+   * a deletion nor a query observes a half-replaced storage group. The old files are deleted when
+   * the queries that may still read them end.
+   */
+  private void mergeEndAction(List<TsFileResource> seqFiles, List<TsFileResource> unseqFiles,
+      List<TsFileResource> newSeqFiles, MergeLogger mergeLogger) {
+    if (newSeqFiles == null) {
+      logger.info("The merge of storage group {} is aborted", storageGroupName);
+      writeLock();
+      try {
+        cleanMergeLogAndModification(mergeLogger);
+        isMerging = false;
+      } finally {
+        writeUnlock();
+      }
+      return;
+    }
+
+    writeLock();
+    mergeDeleteLock.lock();
+    closeQueryLock.writeLock().lock();
+    try {
+      if (!sequenceFileList.containsAll(seqFiles) || !unSequenceFileList.containsAll(unseqFiles)) {
+        // the files are removed (e.g., the storage group is deleted) during the merge
+        logger.info("The merged files of storage group {} no longer exist, discard the merge",
+            storageGroupName);
+        deleteNewFiles(newSeqFiles);
+        cleanMergeLogAndModification(mergeLogger);
+        isMerging = false;
+        return;
+      }
+
+      try {
+        Collection<Modification> modifications = mergingModification.getModifications();
+        for (TsFileResource newSeqFile : newSeqFiles) {
+          for (Modification modification : modifications) {
+            if (newSeqFile.containsDevice(modification.getDevice())) {
+              newSeqFile.getModFile().write(modification);
+            }
+          }
+        }
+        mergeLogger.logMergeEnd();
+      } catch (IOException e) {
+        logger.error("Cannot end the merge of storage group {}, discard the merge",
+            storageGroupName, e);
+        deleteNewFiles(newSeqFiles);
+        cleanMergeLogAndModification(mergeLogger);
+        isMerging = false;
+        return;
+      }
+
+      Map<String, TsFileResource> newFileMap = new HashMap<>();
+      for (TsFileResource newSeqFile : newSeqFiles) {
+        newFileMap.put(newSeqFile.getFile().getPath(), newSeqFile);
+      }
+      List<TsFileResource> newSequenceFileList = new ArrayList<>();
+      for (TsFileResource seqFile : sequenceFileList) {
+        if (!seqFiles.contains(seqFile)) {
+          newSequenceFileList.add(seqFile);
+          continue;
+        }
+        // the file may have no new file if all its data are deleted
+        TsFileResource newSeqFile = newFileMap
+            .get(MergeLogger.getMergedFile(seqFile.getFile()).getPath());
+        if (newSeqFile != null) {
+          newSequenceFileList.add(newSeqFile);
+        }
+      }
+      sequenceFileList.clear();
+      sequenceFileList.addAll(newSequenceFileList);
+      unSequenceFileList.removeAll(unseqFiles);
+      sequenceFileIndex.rebuild(sequenceFileList);
+      unSequenceFileIndex.rebuild(unSequenceFileList);
+
+      try {
+        mergingModification.close();
+        Files.deleteIfExists(Paths.get(mergingModification.getFilePath()));
+      } catch (IOException e) {
+        logger.error("Cannot remove the merging modification file of storage group {}",
+            storageGroupName, e);
+      }
+      mergingModification = null;
+
+      mergedFilesToBeDeleted = new ArrayList<>(seqFiles);
+      mergedFilesToBeDeleted.addAll(unseqFiles);
+      mergedFilesLogger = mergeLogger;
+      mergedFilesQueryBarrier = queryTokenGenerator.get();
+    } finally {
+      closeQueryLock.writeLock().unlock();
+      mergeDeleteLock.unlock();
+      writeUnlock();
+    }
+    logger.info("{} seq files and {} unseq files are replaced by {} new seq files in {}",
+        seqFiles.size(), unseqFiles.size(), newSeqFiles.size(), storageGroupName);
+    deleteMergedFilesIfPossible();
+  }
+
+  private void deleteNewFiles(List<TsFileResource> newSeqFiles) {
+    for (TsFileResource newSeqFile : newSeqFiles) {
+      try {
+        newSeqFile.close();
+        MergeRecoverPerformer.deleteTsFile(newSeqFile.getFile());
+      } catch (IOException e) {
+        logger.error("Cannot delete merged file {}", newSeqFile.getFile(), e);
+      }
+    }
+  }
+
+  private void cleanMergeLogAndModification(MergeLogger mergeLogger) {
+    try {
+      mergeLogger.close();
+      Files.deleteIfExists(mergeLogger.getLogFile().toPath());
+      if (mergingModification != null) {
+        mergingModification.close();
+        Files.deleteIfExists(Paths.get(mergingModification.getFilePath()));
+      }
+    } catch (IOException e) {
+      logger.error("Cannot clean the merge log of storage group {}", storageGroupName, e);
+    }
+    mergingModification = null;
+  }
+
+  /**
+   * delete the files replaced by the last merge if no query that may read them is running.
+   */
+  private synchronized void deleteMergedFilesIfPossible() {
+    if (mergedFilesToBeDeleted == null || (!runningQueryTokens.isEmpty()
+        && runningQueryTokens.first() <= mergedFilesQueryBarrier)) {
+      return;
+    }
+    for (TsFileResource mergedFile : mergedFilesToBeDeleted) {
+      try {
+        mergedFile.close();
+        FileReaderManager.getInstance().closeFileAndRemoveReader(mergedFile.getFile().getPath());
+        ChunkCache.getInstance().remove(mergedFile.getFile().getPath());
+        MergeRecoverPerformer.deleteTsFile(mergedFile.getFile());
+      } catch (IOException e) {
+        logger.error("Cannot delete merged file {}", mergedFile.getFile(), e);
+      }
+    }
+    try {
+      mergedFilesLogger.close();
+      Files.deleteIfExists(mergedFilesLogger.getLogFile().toPath());
+    } catch (IOException e) {
+      logger.error("Cannot delete the merge log of storage group {}", storageGroupName, e);
+    }
+    logger.info("{} merged files of storage group {} are deleted", mergedFilesToBeDeleted.size(),
+        storageGroupName);
+    mergedFilesToBeDeleted = null;
+    mergedFilesLogger = null;
+    isMerging = false;
+  }
+
+  /**
+   * begin a query on this storage group. The files replaced by a merge during the query are kept
+   * until the query ends.
+   *
+   * @return a token of the query
+   */
+  public int beginQuery() {
+    int token = queryTokenGenerator.incrementAndGet();
+    runningQueryTokens.add(token);
+    return token;
+  }
+
+  /**
+   * end a query begun by beginQuery().
+   */
+  public void endQuery(int token) {
+    runningQueryTokens.remove(token);
+    deleteMergedFilesIfPossible();
+  }
+
+  public boolean isMerging() {
+    return isMerging;
+  }
+
   public TsFileProcessor getWorkSequenceTsFileProcessor() {
     return workSequenceTsFileProcessor;
   }
@@ -20,7 +20,7 @@ package org.apache.iotdb.db.engine.storagegroup;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentLinkedDeque;
@@ -30,10 +30,10 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Supplier;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.conf.adapter.IoTDBConfigDynamicAdapter;
 import org.apache.iotdb.db.conf.adapter.CompressionRatio;
 import org.apache.iotdb.db.engine.StorageEngine;
 import org.apache.iotdb.db.engine.memtable.IMemTable;
-import org.apache.iotdb.db.engine.memtable.MemSeriesLazyMerger;
 import org.apache.iotdb.db.engine.memtable.MemTableFlushTask;
 import org.apache.iotdb.db.engine.memtable.NotifyFlushMemTable;
 import org.apache.iotdb.db.engine.modification.Deletion;
@@ -44,6 +44,7 @@ import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor.CloseTsFile
 import org.apache.iotdb.db.engine.version.VersionController;
 import org.apache.iotdb.db.exception.TsFileProcessorException;
 import org.apache.iotdb.db.qp.constant.DatetimeUtils;
+import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.rescon.MemTablePool;
@@ -83,7 +84,13 @@ public class TsFileProcessor {
    */
   private volatile boolean shouldClose;
 
-  private IMemTable workMemTable;
+  /**
+   * inserts of different devices may run concurrently under the read lock of the storage group,
+   * while the memtable is only switched under its write lock.
+   */
+  private volatile IMemTable workMemTable;
+
+  private final Object workMemTableApplyLock = new Object();
 
   /**
    * sync this object in query() and asyncTryToFlush()
@@ -103,7 +110,11 @@ public class TsFileProcessor {
    */
   private Supplier updateLatestFlushTimeCallback;
 
-  private WriteLogNode logNode;
+  /**
+   * created on the first use, as the WAL may be disabled. It is used by both the inserting and the
+   * flushing threads.
+   */
+  private volatile WriteLogNode logNode;
 
   private boolean sequence;
 
@@ -133,14 +144,10 @@ public class TsFileProcessor {
    */
   public boolean insert(InsertPlan insertPlan) {
 
-    if (workMemTable == null) {
-      // TODO change the impl of getAvailableMemTable to non-blocking
-      workMemTable = MemTablePool.getInstance().getAvailableMemTable(this);
-
-      // no empty memtable, return failure
-      if (workMemTable == null) {
-        return false;
-      }
+    IMemTable memTable = getOrApplyWorkMemTable();
+    // no empty memtable, return failure
+    if (memTable == null) {
+      return false;
     }
 
     if (IoTDBDescriptor.getInstance().getConfig().isEnableWal()) {
@@ -160,11 +167,66 @@ public class TsFileProcessor {
     }
 
     // insert insertPlan to the work memtable
-    workMemTable.insert(insertPlan);
+    memTable.insert(insertPlan);
+
+    return true;
+  }
+
+  /**
+   * insert the rows [start, end) of a BatchInsertPlan, which are logged as one WAL record.
+   *
+   * @return false if there is no available memtable or the WAL cannot be written
+   */
+  public boolean insertBatch(BatchInsertPlan batchInsertPlan, int start, int end) {
+
+    IMemTable memTable = getOrApplyWorkMemTable();
+    // no empty memtable, return failure
+    if (memTable == null) {
+      return false;
+    }
+
+    if (IoTDBDescriptor.getInstance().getConfig().isEnableWal()) {
+      try {
+        getLogNode().write(batchInsertPlan, start, end);
+      } catch (IOException e) {
+        logger.error("write WAL failed", e);
+        return false;
+      }
+    }
+
+    tsFileResource.updateStartTime(batchInsertPlan.getDeviceId(),
+        batchInsertPlan.getMinTime(start, end));
+    //for sequence tsfile, we update the endTime only when the file is prepared to be closed.
+    //for unsequence tsfile, we have to update the endTime for each insertion.
+    if (!sequence) {
+      tsFileResource.updateEndTime(batchInsertPlan.getDeviceId(),
+          batchInsertPlan.getMaxTime(start, end));
+    }
+
+    memTable.insertBatch(batchInsertPlan, start, end);
 
     return true;
   }
 
+  /**
+   * @return the work memtable, which is applied from the MemTablePool by the first of the
+   * concurrent inserts if absent, or null if no memtable is available
+   */
+  private IMemTable getOrApplyWorkMemTable() {
+    IMemTable memTable = workMemTable;
+    if (memTable == null) {
+      synchronized (workMemTableApplyLock) {
+        memTable = workMemTable;
+        if (memTable == null) {
+          // TODO change the impl of getAvailableMemTable to non-blocking
+          memTable = MemTablePool.getInstance().getAvailableMemTable(this);
+          workMemTable = memTable;
+        }
+      }
+    }
+    return memTable;
+  }
+
   /**
    * Delete data which belongs to the timeseries `deviceId.measurementId` and the timestamp of which
    * <= 'timestamp' in the deletion. <br/>
@@ -192,9 +254,19 @@ public class TsFileProcessor {
   }
 
 
+  /**
+   * a memtable is flushed once it reaches the memtable size threshold, or half of it if the
+   * primitive arrays in use exceed the memory of all the memtables.
+   */
   boolean shouldFlush() {
-    return workMemTable != null && workMemTable.memSize() > IoTDBDescriptor.getInstance()
-        .getConfig().getMemtableSizeThreshold();
+    IMemTable memTable = workMemTable;
+    if (memTable == null) {
+      return false;
+    }
+    long memSize = memTable.memSize();
+    long threshold = IoTDBDescriptor.getInstance().getConfig().getMemtableSizeThreshold();
+    return memSize > threshold || (memSize > threshold / 2
+        && IoTDBConfigDynamicAdapter.getInstance().isArrayMemoryExceeded());
   }
 
 
@@ -437,8 +509,10 @@ public class TsFileProcessor {
   private void endFile() throws IOException, TsFileProcessorException {
     long closeStartTime = System.currentTimeMillis();
 
-    tsFileResource.serialize();
     writer.endFile(fileSchema);
+    // the .resource file is written after the file is ended, so a TsFile with a .resource file
+    // and without WAL is complete and its recovery can be skipped
+    tsFileResource.serialize();
 
     // remove this processor from Closing list in StorageGroupProcessor,
     // mark the TsFileResource closed, no need writer anymore
@@ -463,11 +537,18 @@ public class TsFileProcessor {
   }
 
   WriteLogNode getLogNode() {
-    if (logNode == null) {
-      logNode = MultiFileLogNodeManager.getInstance()
-          .getNode(storageGroupName + "-" + tsFileResource.getFile().getName());
+    WriteLogNode node = logNode;
+    if (node == null) {
+      synchronized (this) {
+        node = logNode;
+        if (node == null) {
+          node = MultiFileLogNodeManager.getInstance()
+              .getNode(storageGroupName + "-" + tsFileResource.getFile().getName());
+          logNode = node;
+        }
+      }
     }
-    return logNode;
+    return node;
   }
 
   public void close() throws TsFileProcessorException {
@@ -502,7 +583,7 @@ public class TsFileProcessor {
 
   /**
    * get the chunk(s) in the memtable (one from work memtable and the other ones in flushing
-   * memtables and then compact them into one TimeValuePairSorter). Then get the related
+   * memtables and then merge them into one ReadOnlyMemChunk). Then get the related
    * ChunkMetadata of data on disk.
    *
    * @param deviceId device id
@@ -514,7 +595,7 @@ public class TsFileProcessor {
       String measurementId, TSDataType dataType, Map<String, String> props, QueryContext context) {
     flushQueryLock.readLock().lock();
     try {
-      MemSeriesLazyMerger memSeriesLazyMerger = new MemSeriesLazyMerger();
+      List<ReadOnlyMemChunk> memChunks = new ArrayList<>();
       for (IMemTable flushingMemTable : flushingMemTables) {
         if (flushingMemTable.isSignalMemTable()) {
           continue;
@@ -522,19 +603,17 @@ public class TsFileProcessor {
         ReadOnlyMemChunk memChunk = flushingMemTable
             .query(deviceId, measurementId, dataType, props);
         if (memChunk != null) {
-          memSeriesLazyMerger.addMemSeries(memChunk);
+          memChunks.add(memChunk);
         }
       }
       if (workMemTable != null) {
         ReadOnlyMemChunk memChunk = workMemTable.query(deviceId, measurementId, dataType, props);
         if (memChunk != null) {
-          memSeriesLazyMerger.addMemSeries(memChunk);
+          memChunks.add(memChunk);
         }
       }
-      // memSeriesLazyMerger has handled the props,
-      // so we do not need to handle it again in the following readOnlyMemChunk
-      ReadOnlyMemChunk timeValuePairSorter = new ReadOnlyMemChunk(dataType, memSeriesLazyMerger,
-          Collections.emptyMap());
+      // the chunks only reference the arrays of the memtables, which are merged while being read
+      ReadOnlyMemChunk timeValuePairSorter = new ReadOnlyMemChunk(dataType, memChunks);
 
       ModificationFile modificationFile = tsFileResource.getModFile();
       List<Modification> modifications = context.getPathModifications(modificationFile,
@@ -0,0 +1,258 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+
+/**
+ * An index of the TsFileResources in the sequence or the unsequence file list of a storage group
+ * by device and time, so that a query only visits the files containing its device within its time
+ * range instead of scanning the whole list.
+ * <p>
+ * The time ranges of closed files never change, so each closed file is put into the lists of the
+ * devices it contains. For sequence files, the ranges of a device never overlap, so these lists
+ * are sorted by time and searched by binary search. The few unclosed files, whose devices and time
+ * ranges change with insertions, are checked one by one. The selected files keep their order in
+ * the file list.
+ * <p>
+ * The index is updated by the storage group when a file is added to the file list, when a file is
+ * closed and when the file list is replaced.
+ */
+class TsFileTimeIndex {
+
+  private static final Comparator<IndexEntry> ORDER_COMPARATOR = Comparator
+      .comparingLong(e -> e.order);
+
+  private final boolean sequence;
+
+  /**
+   * device -> the closed files containing the device, sorted by the start time of the device for
+   * sequence files or by the order in the file list for unsequence files.
+   */
+  private final Map<String, List<IndexEntry>> deviceEntries = new HashMap<>();
+  /**
+   * the unclosed files in the order of the file list.
+   */
+  private final List<IndexEntry> unclosedEntries = new ArrayList<>();
+  /**
+   * the order of the next file appended to the file list.
+   */
+  private long nextOrder = 0;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  TsFileTimeIndex(boolean sequence) {
+    this.sequence = sequence;
+  }
+
+  /**
+   * index a file which is appended to the file list.
+   */
+  void add(TsFileResource resource) {
+    lock.writeLock().lock();
+    try {
+      addEntry(new IndexEntry(resource, nextOrder++));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * move a file from the unclosed files into the device lists once its time ranges are fixed.
+   */
+  void onClosed(TsFileResource resource) {
+    lock.writeLock().lock();
+    try {
+      Iterator<IndexEntry> iterator = unclosedEntries.iterator();
+      while (iterator.hasNext()) {
+        IndexEntry entry = iterator.next();
+        if (entry.resource == resource) {
+          iterator.remove();
+          addClosedEntry(entry);
+          return;
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * rebuild the index after the file list is replaced, e.g., by a merge.
+   */
+  void rebuild(List<TsFileResource> resources) {
+    lock.writeLock().lock();
+    try {
+      deviceEntries.clear();
+      unclosedEntries.clear();
+      nextOrder = 0;
+      for (TsFileResource resource : resources) {
+        addEntry(new IndexEntry(resource, nextOrder++));
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * @param timeFilter the filter of the query, or null to select all files of the device. Files are
+   * selected by the time bounds of the filter, so value filters do not prune any file.
+   * @return the files that contain the device and may have data satisfying the filter, in the
+   * order of the file list
+   */
+  List<TsFileResource> select(String deviceId, Filter timeFilter) {
+    long lowerBound = TimeFilter.getLowerBound(timeFilter);
+    long upperBound = TimeFilter.getUpperBound(timeFilter);
+    List<IndexEntry> selected = new ArrayList<>();
+    lock.readLock().lock();
+    try {
+      List<IndexEntry> entries = deviceEntries.get(deviceId);
+      if (entries != null) {
+        // the ranges of sequence files do not overlap, so the ones before the lower bound are
+        // skipped by binary search and the scan stops at the first one after the upper bound
+        int start = sequence ? firstEndingAfter(entries, deviceId, lowerBound) : 0;
+        for (int i = start; i < entries.size(); i++) {
+          IndexEntry entry = entries.get(i);
+          long startTime = entry.resource.getStartTimeMap().get(deviceId);
+          if (sequence && startTime > upperBound) {
+            break;
+          }
+          if (satisfy(timeFilter, startTime, getEndTime(entry.resource, deviceId))) {
+            selected.add(entry);
+          }
+        }
+      }
+      for (IndexEntry entry : unclosedEntries) {
+        Long startTime = entry.resource.getStartTimeMap().get(deviceId);
+        if (startTime != null && satisfy(timeFilter, startTime,
+            getEndTime(entry.resource, deviceId))) {
+          selected.add(entry);
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    selected.sort(ORDER_COMPARATOR);
+    List<TsFileResource> resources = new ArrayList<>(selected.size());
+    for (IndexEntry entry : selected) {
+      resources.add(entry.resource);
+    }
+    return resources;
+  }
+
+  private boolean satisfy(Filter timeFilter, long startTime, long endTime) {
+    return timeFilter == null || timeFilter.satisfyStartEndTime(startTime, endTime);
+  }
+
+  private void addEntry(IndexEntry entry) {
+    if (entry.resource.isClosed()) {
+      addClosedEntry(entry);
+    } else {
+      unclosedEntries.add(entry);
+    }
+  }
+
+  private void addClosedEntry(IndexEntry entry) {
+    for (Entry<String, Long> startTime : entry.resource.getStartTimeMap().entrySet()) {
+      List<IndexEntry> entries = deviceEntries
+          .computeIfAbsent(startTime.getKey(), k -> new ArrayList<>());
+      int pos = sequence ? firstStartingAfter(entries, startTime.getKey(), startTime.getValue())
+          : firstOrderAfter(entries, entry.order);
+      entries.add(pos, entry);
+    }
+  }
+
+  /**
+   * @return the index of the first sequence file whose end time of the device is not smaller than
+   * the given time
+   */
+  private int firstEndingAfter(List<IndexEntry> entries, String deviceId, long time) {
+    int low = 0;
+    int high = entries.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (getEndTime(entries.get(mid).resource, deviceId) < time) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @return the index of the first file whose start time of the device is larger than the given
+   * time
+   */
+  private int firstStartingAfter(List<IndexEntry> entries, String deviceId, long time) {
+    int low = 0;
+    int high = entries.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (entries.get(mid).resource.getStartTimeMap().get(deviceId) <= time) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private int firstOrderAfter(List<IndexEntry> entries, long order) {
+    int low = 0;
+    int high = entries.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (entries.get(mid).order <= order) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * the end time of an unclosed sequence file is unknown until it is closed
+   */
+  private static long getEndTime(TsFileResource resource, String deviceId) {
+    return resource.getEndTimeMap().getOrDefault(deviceId, Long.MAX_VALUE);
+  }
+
+  private static class IndexEntry {
+
+    private final TsFileResource resource;
+    private final long order;
+
+    IndexEntry(TsFileResource resource, long order) {
+      this.resource = resource;
+      this.order = order;
+    }
+  }
+}
@@ -0,0 +1,50 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata;
+
+/**
+ * The resolved schema of a device, which is cached by MManager so that an insertion resolves its
+ * device by one lookup, without the lock of MManager or splitting the path. A DeviceSchema is
+ * dropped from the cache when a time series is deleted or a storage group is set, so it should be
+ * got from MManager for each insertion or batch rather than kept.
+ */
+public class DeviceSchema {
+
+  private final String deviceId;
+  private final String storageGroupName;
+  private final MNode node;
+
+  DeviceSchema(String deviceId, String storageGroupName, MNode node) {
+    this.deviceId = deviceId;
+    this.storageGroupName = storageGroupName;
+    this.node = node;
+  }
+
+  public String getDeviceId() {
+    return deviceId;
+  }
+
+  public String getStorageGroupName() {
+    return storageGroupName;
+  }
+
+  public MNode getNode() {
+    return node;
+  }
+}
@@ -18,7 +18,11 @@
  */
 package org.apache.iotdb.db.metadata;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -32,6 +36,7 @@ import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 
 /**
@@ -50,6 +55,90 @@ public class MGraph implements Serializable {
     ptreeMap = new HashMap<>();
   }
 
+  private MGraph(MTree mtree) {
+    this.mtree = mtree;
+    ptreeMap = new HashMap<>();
+  }
+
+  /**
+   * serialize the {@code MTree} and all the {@code PTree}s into a compact binary form.
+   */
+  void serializeTo(OutputStream outputStream) throws IOException {
+    mtree.getRoot().serializeTo(outputStream);
+    ReadWriteIOUtils.write(ptreeMap.size(), outputStream);
+    for (PTree ptree : ptreeMap.values()) {
+      ptree.getRoot().serializeTo(outputStream);
+    }
+  }
+
+  /**
+   * deserialize a {@code MGraph} written by {@link #serializeTo(OutputStream)}.
+   */
+  static MGraph deserializeFrom(InputStream inputStream) throws IOException {
+    MGraph mgraph = new MGraph(new MTree(MNode.deserializeFrom(inputStream, null)));
+    int ptreeNum = ReadWriteIOUtils.readInt(inputStream);
+    for (int i = 0; i < ptreeNum; i++) {
+      PNode root = PNode.deserializeFrom(inputStream, null);
+      mgraph.ptreeMap.put(root.getName(), new PTree(root.getName(), root, mgraph.mtree));
+    }
+    return mgraph;
+  }
+
+  /**
+   * write the metadata log entries that recreate this {@code MGraph}, one per line, in the format
+   * read by {@code MManager}.
+   */
+  void writeLogTo(Writer writer) throws IOException {
+    MNode root = mtree.getRoot();
+    writeLogTo(root, root.getName(), writer);
+    for (PTree ptree : ptreeMap.values()) {
+      writeLogLine(writer, MetadataOperationType.ADD_A_PTREE, ptree.getRoot().getName());
+      writeLogTo(ptree.getRoot(), ptree.getRoot().getName(), writer);
+    }
+  }
+
+  private void writeLogTo(MNode node, String path, Writer writer) throws IOException {
+    // a storage group is set before the timeseries under it are added
+    if (node.isStorageLevel()) {
+      writeLogLine(writer, MetadataOperationType.SET_STORAGE_LEVEL_TO_MTREE, path);
+    }
+    if (node.isLeaf()) {
+      MeasurementSchema schema = node.getSchema();
+      StringBuilder builder = new StringBuilder(String.format("%s,%s,%s,%s", path,
+          schema.getType().serialize(), schema.getEncodingType().serialize(),
+          schema.getCompressor().serialize()));
+      if (schema.getProps() != null) {
+        for (Map.Entry<String, String> entry : schema.getProps().entrySet()) {
+          builder.append(String.format(",%s=%s", entry.getKey(), entry.getValue()));
+        }
+      }
+      writeLogLine(writer, MetadataOperationType.ADD_PATH_TO_MTREE, builder.toString());
+      return;
+    }
+    for (MNode child : node.getChildren().values()) {
+      writeLogTo(child, path + "." + child.getName(), writer);
+    }
+  }
+
+  private void writeLogTo(PNode node, String path, Writer writer) throws IOException {
+    if (node.isLeaf()) {
+      writeLogLine(writer, MetadataOperationType.ADD_A_PATH_TO_PTREE, path);
+      for (String mTreePath : node.getLinkedMTreePathMap().keySet()) {
+        writeLogLine(writer, MetadataOperationType.LINK_MNODE_TO_PTREE, path + "," + mTreePath);
+      }
+      return;
+    }
+    for (PNode child : node.getChildren().values()) {
+      writeLogTo(child, path + "." + child.getName(), writer);
+    }
+  }
+
+  private static void writeLogLine(Writer writer, String operationType, String args)
+      throws IOException {
+    writer.write(operationType + "," + args);
+    writer.write(System.lineSeparator());
+  }
+
   /**
    * Add a {@code PTree} to current {@code MGraph}.
    */
@@ -18,12 +18,19 @@
  */
 package org.apache.iotdb.db.metadata;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -32,6 +39,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.adapter.IoTDBConfigDynamicAdapter;
 import org.apache.iotdb.db.engine.StorageEngine;
@@ -46,6 +54,7 @@ import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,18 +69,34 @@ public class MManager {
   private static final Logger logger = LoggerFactory.getLogger(MManager.class);
   private static final String ROOT_NAME = MetadataConstant.ROOT;
   private static final String TIME_SERIES_TREE_HEADER = "===  Timeseries Tree  ===\n\n";
+  private static final String TMP_SUFFIX = ".tmp";
+  /**
+   * a snapshot is only taken when the log is at least this fraction of the size of the last
+   * snapshot, so that the snapshots written while the metadata grows stay linear in its size.
+   */
+  private static final double SNAPSHOT_LOG_SIZE_RATIO = 0.5;
 
   // the lock for read/insert
   private ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
   // the log file seriesPath
   private String logFilePath;
+  private String snapshotFilePath;
+  // the number of entries in the log file, which are not covered by the snapshot
+  private int logEntryNum;
+  // the size of the last snapshot in bytes
+  private long snapshotSize;
   private MGraph mgraph;
   private BufferedWriter logWriter;
   private boolean writeToLog;
   private String schemaDir;
 
   private RandomDeleteCache<String, PathCheckRet> checkAndGetDataTypeCache;
-  private RandomDeleteCache<String, MNode> mNodeCache;
+  /**
+   * deviceId -> resolved schema of the device. It is read without the lock, and it is only
+   * filled under the read lock and cleared under the write lock, so that an entry never outlives
+   * the metadata it was resolved from.
+   */
+  private RandomDeleteCache<String, DeviceSchema> deviceSchemaCache;
 
   private Map<String, Integer> seriesNumberInStorageGroups = new HashMap<>();
   private long maxSeriesNumberAmongStorageGroup;
@@ -91,6 +116,7 @@ public class MManager {
       }
     }
     logFilePath = schemaDir + File.separator + MetadataConstant.METADATA_LOG;
+    snapshotFilePath = schemaDir + File.separator + MetadataConstant.METADATA_SNAPSHOT;
     writeToLog = false;
 
     int cacheSize = IoTDBDescriptor.getInstance().getConfig().getmManagerCacheSize();
@@ -106,16 +132,18 @@ public class MManager {
       }
     };
 
-    mNodeCache = new RandomDeleteCache<String, MNode>(cacheSize) {
+    deviceSchemaCache = new RandomDeleteCache<String, DeviceSchema>(cacheSize) {
       @Override
-      public void beforeRemove(MNode object) {
+      public void beforeRemove(DeviceSchema object) {
         //allowed to do nothing
       }
 
       @Override
-      public MNode loadObjectByKey(String key) throws CacheException {
+      public DeviceSchema loadObjectByKey(String key) throws CacheException {
+        // called under the read lock
         try {
-          return getNodeByPathWithCheck(key);
+          MNode node = mgraph.getNodeByPathWithCheck(key);
+          return new DeviceSchema(key, mgraph.getStorageGroupNameByPath(key), node);
         } catch (PathErrorException e) {
           throw new CacheException(e);
         }
@@ -138,6 +166,7 @@ public class MManager {
     File logFile = new File(logFilePath);
 
     try {
+      writeToLog = false;
       initFromLog(logFile);
       seriesNumberInStorageGroups = mgraph.countSeriesNumberInEachStorageGroup();
       if (seriesNumberInStorageGroups.isEmpty()) {
@@ -153,25 +182,224 @@ public class MManager {
     } finally {
       lock.writeLock().unlock();
     }
+    if (needSnapshot()) {
+      try {
+        createSnapshot();
+      } catch (IOException e) {
+        logger.error("Cannot create the snapshot of metadata", e);
+      }
+    }
     initialized = true;
   }
 
 
   private void initFromLog(File logFile)
       throws IOException, PathErrorException, MetadataErrorException {
-    // init the metadata from the operation log
-    mgraph = new MGraph(ROOT_NAME);
+    // init the metadata from the latest snapshot and the operation log after it
+    long logOffset = initFromSnapshot(logFile);
+    logEntryNum = 0;
     if (logFile.exists()) {
-      try (FileReader fr = new FileReader(logFile);
-          BufferedReader br = new BufferedReader(fr)) {
+      try (FileInputStream fis = new FileInputStream(logFile)) {
+        fis.getChannel().position(logOffset);
+        BufferedReader br = new BufferedReader(new InputStreamReader(fis));
         String cmd;
         while ((cmd = br.readLine()) != null) {
           operation(cmd);
+          logEntryNum++;
         }
       }
     }
   }
 
+  /**
+   * load the MGraph from the snapshot if it exists.
+   *
+   * @return the length of the log file that has been covered by the snapshot, which is 0 unless
+   * the system crashed after writing the snapshot and before truncating the log
+   */
+  private long initFromSnapshot(File logFile)
+      throws IOException, PathErrorException, MetadataErrorException {
+    Files.deleteIfExists(new File(snapshotFilePath + TMP_SUFFIX).toPath());
+    File snapshotFile = new File(snapshotFilePath);
+    if (!snapshotFile.exists()) {
+      mgraph = new MGraph(ROOT_NAME);
+      snapshotSize = 0;
+      return 0;
+    }
+    snapshotSize = snapshotFile.length();
+    long logLength;
+    long logChecksum;
+    try (InputStream inputStream = new BufferedInputStream(new FileInputStream(snapshotFile))) {
+      logLength = ReadWriteIOUtils.readLong(inputStream);
+      logChecksum = ReadWriteIOUtils.readLong(inputStream);
+      mgraph = MGraph.deserializeFrom(inputStream);
+    }
+    // the storage groups and timeseries in the snapshot are not added one by one
+    Map<String, Integer> seriesNumbers = mgraph.countSeriesNumberInEachStorageGroup();
+    seriesNumberInStorageGroups = seriesNumbers;
+    try {
+      IoTDBConfigDynamicAdapter.getInstance().addOrDeleteStorageGroup(seriesNumbers.size());
+      IoTDBConfigDynamicAdapter.getInstance()
+          .addOrDeleteTimeSeries(seriesNumbers.values().stream().mapToInt(Integer::intValue).sum());
+    } catch (ConfigAdjusterException e) {
+      throw new MetadataErrorException(e);
+    }
+    return getCoveredLogLength(logFile, logLength, logChecksum);
+  }
+
+  /**
+   * @return the length of the log covered by a snapshot which records the given length and
+   * checksum, or 0 if the log has been truncated since the snapshot was written
+   */
+  private static long getCoveredLogLength(File logFile, long logLength, long logChecksum)
+      throws IOException {
+    if (logLength > 0 && logFile.length() >= logLength
+        && checksum(logFile, logLength) == logChecksum) {
+      return logLength;
+    }
+    return 0;
+  }
+
+  /**
+   * Write a metadata log that recreates all the metadata in the given schema folder, for the
+   * processes that cannot load the metadata themselves and replay the log instead, e.g., the sync
+   * sender. It is a copy of the log unless the log has been truncated by a snapshot, in which case
+   * the entries recreating the snapshot come first, followed by the log after the snapshot, so
+   * the deletions since the snapshot are still replayed.
+   *
+   * @param schemaDir the folder of the metadata log and snapshot
+   * @param targetFile the file to write the log to, which is overwritten
+   */
+  public static void exportLog(File schemaDir, File targetFile) throws IOException {
+    File logFile = new File(schemaDir, MetadataConstant.METADATA_LOG);
+    File snapshotFile = new File(schemaDir, MetadataConstant.METADATA_SNAPSHOT);
+    long lastModified;
+    do {
+      // the server may replace the snapshot and truncate the log meanwhile, then export again
+      lastModified = snapshotFile.lastModified();
+      try (BufferedWriter writer = new BufferedWriter(new FileWriter(targetFile))) {
+        long logOffset = 0;
+        if (snapshotFile.exists()) {
+          try (InputStream inputStream = new BufferedInputStream(
+              new FileInputStream(snapshotFile))) {
+            long logLength = ReadWriteIOUtils.readLong(inputStream);
+            long logChecksum = ReadWriteIOUtils.readLong(inputStream);
+            MGraph.deserializeFrom(inputStream).writeLogTo(writer);
+            logOffset = getCoveredLogLength(logFile, logLength, logChecksum);
+          }
+        }
+        if (logFile.exists()) {
+          try (FileInputStream fis = new FileInputStream(logFile)) {
+            fis.getChannel().position(logOffset);
+            BufferedReader br = new BufferedReader(new InputStreamReader(fis));
+            String cmd;
+            while ((cmd = br.readLine()) != null) {
+              writer.write(cmd);
+              writer.newLine();
+            }
+          }
+        }
+      }
+    } while (snapshotFile.lastModified() != lastModified);
+  }
+
+  /**
+   * write a binary snapshot of the metadata and truncate the log. The snapshot is written to a
+   * temporary file and then renamed, and it records the length and the checksum of the log it
+   * covers, so a crash at any point leaves either the old snapshot with the whole log or the new
+   * snapshot with a log whose covered part can be skipped.
+   */
+  public void createSnapshot() throws IOException {
+    lock.writeLock().lock();
+    try {
+      if (logWriter != null) {
+        logWriter.close();
+        logWriter = null;
+      }
+      File logFile = new File(logFilePath);
+      long logLength = logFile.exists() ? logFile.length() : 0;
+      long logChecksum = checksum(logFile, logLength);
+      File metadataDir = new File(schemaDir);
+      if (!metadataDir.exists() && !metadataDir.mkdirs()) {
+        throw new IOException(String.format("Cannot create schema folder %s", metadataDir));
+      }
+      File tmpFile = new File(snapshotFilePath + TMP_SUFFIX);
+      try (FileOutputStream fileOutputStream = new FileOutputStream(tmpFile);
+          BufferedOutputStream outputStream = new BufferedOutputStream(fileOutputStream)) {
+        ReadWriteIOUtils.write(logLength, outputStream);
+        ReadWriteIOUtils.write(logChecksum, outputStream);
+        mgraph.serializeTo(outputStream);
+        outputStream.flush();
+        fileOutputStream.getFD().sync();
+      }
+      snapshotSize = tmpFile.length();
+      Files.move(tmpFile.toPath(), new File(snapshotFilePath).toPath(),
+          StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      logEntryNum = 0;
+      Files.deleteIfExists(logFile.toPath());
+      logger.info("Metadata snapshot {} is created, {} bytes of log are truncated",
+          snapshotFilePath, logLength);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private static long checksum(File file, long length) throws IOException {
+    CRC32 crc32 = new CRC32();
+    if (length == 0) {
+      return crc32.getValue();
+    }
+    byte[] buffer = new byte[8192];
+    try (InputStream inputStream = new FileInputStream(file)) {
+      long remaining = length;
+      while (remaining > 0) {
+        int read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+        if (read < 0) {
+          break;
+        }
+        crc32.update(buffer, 0, read);
+        remaining -= read;
+      }
+    }
+    return crc32.getValue();
+  }
+
+  /**
+   * a snapshot is needed when the log has at least mlog_snapshot_threshold entries and it is large
+   * enough compared with the last snapshot, otherwise creating many series would serialize the
+   * whole MGraph again and again.
+   */
+  private boolean needSnapshot() {
+    int snapshotThreshold = IoTDBDescriptor.getInstance().getConfig().getMlogSnapshotThreshold();
+    return snapshotThreshold > 0 && logEntryNum >= snapshotThreshold
+        && new File(logFilePath).length() >= snapshotSize * SNAPSHOT_LOG_SIZE_RATIO;
+  }
+
+  /**
+   * must be called with the write lock held, after an entry is written to the log.
+   */
+  private void onLogEntryWritten() {
+    logEntryNum++;
+    if (needSnapshot()) {
+      try {
+        createSnapshot();
+      } catch (IOException e) {
+        // the log is still complete, try again after another round of entries
+        logEntryNum = 0;
+        logger.error("Cannot create the snapshot of metadata", e);
+      }
+    }
+  }
+
+  /**
+   * reload the metadata from the log and the snapshot as a restart does. TEST ONLY
+   */
+  void reload() {
+    clear();
+    initialized = false;
+    init();
+  }
+
   /**
    * function for clearing MGraph.
    */
@@ -180,9 +408,11 @@ public class MManager {
     try {
       this.mgraph = new MGraph(ROOT_NAME);
       this.checkAndGetDataTypeCache.clear();
-      this.mNodeCache.clear();
+      this.deviceSchemaCache.clear();
       this.seriesNumberInStorageGroups.clear();
       this.maxSeriesNumberAmongStorageGroup = 0;
+      this.logEntryNum = 0;
+      this.snapshotSize = 0;
       if (logWriter != null) {
         logWriter.close();
         logWriter = null;
@@ -369,6 +599,7 @@ public class MManager {
         }
         writer.newLine();
         writer.flush();
+        onLogEntryWritten();
       }
     } finally {
       lock.writeLock().unlock();
@@ -499,13 +730,14 @@ public class MManager {
     lock.writeLock().lock();
     try {
       checkAndGetDataTypeCache.clear();
-      mNodeCache.clear();
+      deviceSchemaCache.clear();
       String dataFileName = mgraph.deletePath(path);
       if (writeToLog) {
         BufferedWriter writer = getLogWriter();
         writer.write(MetadataOperationType.DELETE_PATH_FROM_MTREE + "," + path);
         writer.newLine();
         writer.flush();
+        onLogEntryWritten();
       }
       String storageGroup = getStorageGroupNameByPath(path);
       int size = seriesNumberInStorageGroups.get(storageGroup);
@@ -534,7 +766,7 @@ public class MManager {
     lock.writeLock().lock();
     try {
       checkAndGetDataTypeCache.clear();
-      mNodeCache.clear();
+      deviceSchemaCache.clear();
       IoTDBConfigDynamicAdapter.getInstance().addOrDeleteStorageGroup(1);
       mgraph.setStorageLevel(path);
       seriesNumberInStorageGroups.put(path, 0);
@@ -543,6 +775,7 @@ public class MManager {
         writer.write(MetadataOperationType.SET_STORAGE_LEVEL_TO_MTREE + "," + path);
         writer.newLine();
         writer.flush();
+        onLogEntryWritten();
       }
     } catch (IOException | ConfigAdjusterException e) {
       throw new MetadataErrorException(e);
@@ -585,6 +818,7 @@ public class MManager {
         writer.write(MetadataOperationType.ADD_A_PTREE + "," + ptreeRootName);
         writer.newLine();
         writer.flush();
+        onLogEntryWritten();
       }
     } finally {
       lock.writeLock().unlock();
@@ -605,6 +839,7 @@ public class MManager {
         writer.write(MetadataOperationType.ADD_A_PATH_TO_PTREE + "," + path);
         writer.newLine();
         writer.flush();
+        onLogEntryWritten();
       }
     } finally {
       lock.writeLock().unlock();
@@ -624,6 +859,7 @@ public class MManager {
         writer.write(MetadataOperationType.DELETE_PATH_FROM_PTREE + "," + path);
         writer.newLine();
         writer.flush();
+        onLogEntryWritten();
       }
     } finally {
       lock.writeLock().unlock();
@@ -643,6 +879,7 @@ public class MManager {
         writer.write(MetadataOperationType.LINK_MNODE_TO_PTREE + "," + path + "," + mpath);
         writer.newLine();
         writer.flush();
+        onLogEntryWritten();
       }
     } finally {
       lock.writeLock().unlock();
@@ -663,6 +900,7 @@ public class MManager {
         writer.write(MetadataOperationType.UNLINK_MNODE_FROM_PTREE + "," + path + "," + mpath);
         writer.newLine();
         writer.flush();
+        onLogEntryWritten();
       }
     } finally {
       lock.writeLock().unlock();
@@ -1016,9 +1254,23 @@ public class MManager {
    * function for getting node by deviceId from cache.
    */
   public MNode getNodeByDeviceIdFromCache(String deviceId) throws PathErrorException {
+    return getDeviceSchema(deviceId).getNode();
+  }
+
+  /**
+   * get the resolved schema of a device. Once the device is cached, this neither locks nor splits
+   * the path, so callers should resolve the device once for each insertion or batch.
+   *
+   * @throws PathErrorException if the device does not exist or is not in a storage group
+   */
+  public DeviceSchema getDeviceSchema(String deviceId) throws PathErrorException {
+    DeviceSchema deviceSchema = deviceSchemaCache.getIfPresent(deviceId);
+    if (deviceSchema != null) {
+      return deviceSchema;
+    }
     lock.readLock().lock();
     try {
-      return mNodeCache.get(deviceId);
+      return deviceSchemaCache.get(deviceId);
     } catch (CacheException e) {
       throw new PathErrorException(e);
     } finally {
@@ -1026,6 +1278,18 @@ public class MManager {
     }
   }
 
+  /**
+   * get the storage group of a device, without the lock if the device has been resolved by {@link
+   * #getDeviceSchema(String)}. Unlike that method, the device does not have to exist.
+   */
+  public String getStorageGroupNameByDevice(String deviceId) throws PathErrorException {
+    DeviceSchema deviceSchema = deviceSchemaCache.getIfPresent(deviceId);
+    if (deviceSchema != null) {
+      return deviceSchema.getStorageGroupName();
+    }
+    return getStorageGroupNameByPath(deviceId);
+  }
+
   /**
    * function for getting node by path with check.
    */
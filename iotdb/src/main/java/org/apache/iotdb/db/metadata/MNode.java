@@ -18,6 +18,9 @@
  */
 package org.apache.iotdb.db.metadata;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -25,6 +28,7 @@ import java.util.Map;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 
 /**
@@ -198,4 +202,62 @@ public class MNode implements Serializable {
     this.name = name;
   }
 
+  /**
+   * serialize this node and its descendants in pre-order.
+   */
+  public void serializeTo(OutputStream outputStream) throws IOException {
+    ReadWriteIOUtils.write(name, outputStream);
+    ReadWriteIOUtils.write(isLeaf, outputStream);
+    if (isLeaf) {
+      schema.serializeTo(outputStream);
+      return;
+    }
+    ReadWriteIOUtils.write(isStorageLevel, outputStream);
+    ReadWriteIOUtils.write(children.size(), outputStream);
+    for (MNode child : children.values()) {
+      child.serializeTo(outputStream);
+    }
+  }
+
+  /**
+   * deserialize a node and its descendants written by {@link #serializeTo(OutputStream)}. The
+   * data file names and the schema maps of the storage groups are rebuilt on the way, so the
+   * result is the same as adding the storage groups and the timeseries one by one.
+   */
+  public static MNode deserializeFrom(InputStream inputStream, MNode parent) throws IOException {
+    String name = ReadWriteIOUtils.readString(inputStream);
+    boolean isLeaf = ReadWriteIOUtils.readBool(inputStream);
+    MNode node = new MNode(name, parent, isLeaf);
+    node.dataFileName = parent == null ? null : parent.dataFileName;
+    if (isLeaf) {
+      node.schema = MeasurementSchema.deserializeFrom(inputStream);
+      MNode storageGroup = parent;
+      while (storageGroup != null && !storageGroup.isStorageLevel) {
+        storageGroup = storageGroup.parent;
+      }
+      if (storageGroup != null) {
+        storageGroup.schemaMap.putIfAbsent(name, node.schema);
+        storageGroup.numSchemaMap.merge(name, 1, Integer::sum);
+      }
+      return node;
+    }
+    if (ReadWriteIOUtils.readBool(inputStream)) {
+      node.setStorageLevel(true);
+      node.dataFileName = node.getFullPath();
+    }
+    int childrenSize = ReadWriteIOUtils.readInt(inputStream);
+    for (int i = 0; i < childrenSize; i++) {
+      MNode child = deserializeFrom(inputStream, node);
+      node.children.put(child.name, child);
+    }
+    return node;
+  }
+
+  private String getFullPath() {
+    StringBuilder builder = new StringBuilder(name);
+    for (MNode cur = parent; cur != null; cur = cur.parent) {
+      builder.insert(0, '.').insert(0, cur.name);
+    }
+    return builder.toString();
+  }
 }
@@ -18,10 +18,14 @@
  */
 package org.apache.iotdb.db.metadata;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import org.apache.iotdb.db.exception.PathErrorException;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 
 /**
  * PNode is the shorthand for "Property Node", which make up The {@code PTree}
@@ -124,4 +128,42 @@ public class PNode implements Serializable {
   public void setLinkedMTreePathMap(LinkedHashMap<String, Integer> linkedMTreePathMap) {
     this.linkedMTreePathMap = linkedMTreePathMap;
   }
+
+  /**
+   * serialize this node and its descendants in pre-order.
+   */
+  public void serializeTo(OutputStream outputStream) throws IOException {
+    ReadWriteIOUtils.write(name, outputStream);
+    ReadWriteIOUtils.write(isLeaf, outputStream);
+    if (isLeaf) {
+      ReadWriteIOUtils.write(linkedMTreePathMap.size(), outputStream);
+      for (String mTreePath : linkedMTreePathMap.keySet()) {
+        ReadWriteIOUtils.write(mTreePath, outputStream);
+      }
+    } else {
+      ReadWriteIOUtils.write(children.size(), outputStream);
+      for (PNode child : children.values()) {
+        child.serializeTo(outputStream);
+      }
+    }
+  }
+
+  /**
+   * deserialize a node and its descendants written by {@link #serializeTo(OutputStream)}.
+   */
+  public static PNode deserializeFrom(InputStream inputStream, PNode parent) throws IOException {
+    String name = ReadWriteIOUtils.readString(inputStream);
+    boolean isLeaf = ReadWriteIOUtils.readBool(inputStream);
+    PNode node = new PNode(name, parent, isLeaf);
+    int size = ReadWriteIOUtils.readInt(inputStream);
+    for (int i = 0; i < size; i++) {
+      if (isLeaf) {
+        node.linkedMTreePathMap.put(ReadWriteIOUtils.readString(inputStream), 1);
+      } else {
+        PNode child = deserializeFrom(inputStream, node);
+        node.children.put(child.name, child);
+      }
+    }
+    return node;
+  }
 }
@@ -46,6 +46,7 @@ import org.apache.iotdb.db.qp.logical.sys.AuthorOperator.AuthorType;
 import org.apache.iotdb.db.qp.logical.sys.MetadataOperator;
 import org.apache.iotdb.db.qp.logical.sys.PropertyOperator;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.DeletePlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.UpdatePlan;
@@ -91,6 +92,8 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
         return flag;
       case INSERT:
         return insert((InsertPlan)plan);
+      case BATCHINSERT:
+        return insertBatch((BatchInsertPlan) plan);
       case CREATE_ROLE:
       case DELETE_ROLE:
       case CREATE_USER:
@@ -234,6 +237,44 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
     }
   }
 
+  /**
+   * execute a batch insertion. The values are already typed, so the data type of each column is
+   * only checked against the schema instead of being parsed.
+   */
+  public boolean insertBatch(BatchInsertPlan batchInsertPlan) throws ProcessorException {
+
+    try {
+      String[] measurementList = batchInsertPlan.getMeasurements();
+      String deviceId = batchInsertPlan.getDeviceId();
+      MNode node = mManager.getNodeByDeviceIdFromCache(deviceId);
+      TSDataType[] dataTypes = batchInsertPlan.getDataTypes();
+
+      for (int i = 0; i < measurementList.length; i++) {
+        if (!node.hasChild(measurementList[i])) {
+          throw new ProcessorException(
+              String.format("Current deviceId[%s] does not contains measurement:%s",
+                  deviceId, measurementList[i]));
+        }
+        MNode measurementNode = node.getChild(measurementList[i]);
+        if (!measurementNode.isLeaf()) {
+          throw new ProcessorException(
+              String.format("Current Path is not leaf node. %s.%s", deviceId,
+                  measurementList[i]));
+        }
+        TSDataType schemaType = measurementNode.getSchema().getType();
+        if (schemaType != dataTypes[i]) {
+          throw new ProcessorException(
+              String.format("The data type of %s.%s is %s, but %s is given", deviceId,
+                  measurementList[i], schemaType, dataTypes[i]));
+        }
+      }
+      return storageEngine.insertBatch(batchInsertPlan);
+
+    } catch (PathErrorException | StorageEngineException e) {
+      throw new ProcessorException(e);
+    }
+  }
+
   @Override
   public List<String> getAllPaths(String originPath) throws MetadataErrorException {
     return MManager.getInstance().getPaths(originPath);
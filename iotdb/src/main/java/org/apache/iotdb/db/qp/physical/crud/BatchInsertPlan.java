@@ -0,0 +1,251 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.qp.physical.crud;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import org.apache.iotdb.db.qp.logical.Operator.OperatorType;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.utils.QueryDataSetUtils;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+/**
+ * BatchInsertPlan inserts a batch of rows of one device. The values are kept in columns of
+ * primitive arrays (int[], long[], float[], double[], boolean[] and Binary[] according to the
+ * data types), so they can be written into the memtable without parsing any string.
+ */
+public class BatchInsertPlan extends PhysicalPlan {
+
+  private String deviceId;
+  private String[] measurements;
+  private TSDataType[] dataTypes;
+
+  private long[] times;
+  private Object[] columns;
+  private int rowCount;
+
+  public BatchInsertPlan() {
+    super(false, OperatorType.BATCHINSERT);
+  }
+
+  public BatchInsertPlan(String deviceId, String[] measurements, TSDataType[] dataTypes,
+      long[] times, Object[] columns) {
+    super(false, OperatorType.BATCHINSERT);
+    this.deviceId = deviceId;
+    this.measurements = measurements;
+    this.dataTypes = dataTypes;
+    setTimesAndColumns(times, columns);
+  }
+
+  public void setTimesAndColumns(long[] times, Object[] columns) {
+    this.times = times;
+    this.columns = columns;
+    this.rowCount = times.length;
+  }
+
+  @Override
+  public List<Path> getPaths() {
+    List<Path> ret = new ArrayList<>();
+    for (String m : measurements) {
+      ret.add(new Path(deviceId, m));
+    }
+    return ret;
+  }
+
+  public String getDeviceId() {
+    return deviceId;
+  }
+
+  public void setDeviceId(String deviceId) {
+    this.deviceId = deviceId;
+  }
+
+  public String[] getMeasurements() {
+    return measurements;
+  }
+
+  public void setMeasurements(String[] measurements) {
+    this.measurements = measurements;
+  }
+
+  public TSDataType[] getDataTypes() {
+    return dataTypes;
+  }
+
+  public void setDataTypes(TSDataType[] dataTypes) {
+    this.dataTypes = dataTypes;
+  }
+
+  public long[] getTimes() {
+    return times;
+  }
+
+  public Object[] getColumns() {
+    return columns;
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  public long getMinTime(int start, int end) {
+    long minTime = Long.MAX_VALUE;
+    for (int i = start; i < end; i++) {
+      minTime = Math.min(minTime, times[i]);
+    }
+    return minTime;
+  }
+
+  public long getMaxTime(int start, int end) {
+    long maxTime = Long.MIN_VALUE;
+    for (int i = start; i < end; i++) {
+      maxTime = Math.max(maxTime, times[i]);
+    }
+    return maxTime;
+  }
+
+  @Override
+  public void serializeTo(ByteBuffer buffer) {
+    serializeTo(buffer, 0, rowCount);
+  }
+
+  /**
+   * serialize only the rows [start, end), which are deserialized as a plan of end - start rows.
+   */
+  public void serializeTo(ByteBuffer buffer, int start, int end) {
+    int type = PhysicalPlanType.BATCHINSERT.ordinal();
+    buffer.put((byte) type);
+
+    putString(buffer, deviceId);
+
+    buffer.putInt(measurements.length);
+    for (String m : measurements) {
+      putString(buffer, m);
+    }
+    for (TSDataType dataType : dataTypes) {
+      buffer.putShort(dataType.serialize());
+    }
+
+    buffer.putInt(end - start);
+    for (int i = start; i < end; i++) {
+      buffer.putLong(times[i]);
+    }
+    for (int i = 0; i < columns.length; i++) {
+      serializeColumn(dataTypes[i], columns[i], buffer, start, end);
+    }
+  }
+
+  private void serializeColumn(TSDataType dataType, Object column, ByteBuffer buffer, int start,
+      int end) {
+    switch (dataType) {
+      case INT32:
+        int[] intValues = (int[]) column;
+        for (int j = start; j < end; j++) {
+          buffer.putInt(intValues[j]);
+        }
+        break;
+      case INT64:
+        long[] longValues = (long[]) column;
+        for (int j = start; j < end; j++) {
+          buffer.putLong(longValues[j]);
+        }
+        break;
+      case FLOAT:
+        float[] floatValues = (float[]) column;
+        for (int j = start; j < end; j++) {
+          buffer.putFloat(floatValues[j]);
+        }
+        break;
+      case DOUBLE:
+        double[] doubleValues = (double[]) column;
+        for (int j = start; j < end; j++) {
+          buffer.putDouble(doubleValues[j]);
+        }
+        break;
+      case BOOLEAN:
+        boolean[] boolValues = (boolean[]) column;
+        for (int j = start; j < end; j++) {
+          buffer.put((byte) (boolValues[j] ? 1 : 0));
+        }
+        break;
+      case TEXT:
+        Binary[] binaryValues = (Binary[]) column;
+        for (int j = start; j < end; j++) {
+          buffer.putInt(binaryValues[j].getLength());
+          buffer.put(binaryValues[j].getValues());
+        }
+        break;
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Data type %s is not supported.", dataType));
+    }
+  }
+
+  @Override
+  public void deserializeFrom(ByteBuffer buffer) {
+    this.deviceId = readString(buffer);
+
+    int measurementSize = buffer.getInt();
+    this.measurements = new String[measurementSize];
+    for (int i = 0; i < measurementSize; i++) {
+      measurements[i] = readString(buffer);
+    }
+    this.dataTypes = new TSDataType[measurementSize];
+    for (int i = 0; i < measurementSize; i++) {
+      dataTypes[i] = TSDataType.deserialize(buffer.getShort());
+    }
+
+    int size = buffer.getInt();
+    long[] timeColumn = QueryDataSetUtils.readTimesFromBuffer(buffer, size);
+    Object[] valueColumns = QueryDataSetUtils.readValuesFromBuffer(buffer, dataTypes, size);
+    setTimesAndColumns(timeColumn, valueColumns);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    BatchInsertPlan that = (BatchInsertPlan) o;
+    return rowCount == that.rowCount && Objects.equals(deviceId, that.deviceId)
+        && Arrays.equals(measurements, that.measurements)
+        && Arrays.equals(dataTypes, that.dataTypes)
+        && Arrays.equals(times, that.times)
+        && Arrays.deepEquals(columns, that.columns);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(deviceId, rowCount);
+  }
+
+  @Override
+  public String toString() {
+    return "deviceId: " + deviceId + ", rowCount: " + rowCount;
+  }
+}
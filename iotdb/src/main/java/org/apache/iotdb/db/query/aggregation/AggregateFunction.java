@@ -24,7 +24,9 @@ import org.apache.iotdb.db.exception.ProcessorException;
 import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 
 public abstract class AggregateFunction {
@@ -56,6 +58,33 @@ public abstract class AggregateFunction {
   public abstract void calculateValueFromPageHeader(PageHeader pageHeader)
       throws ProcessorException;
 
+  /**
+   * <p>
+   * Calculate the aggregation using the digest in <code>ChunkMetaData</code>, so that the whole
+   * chunk is never read. The caller must make sure that every point of the chunk satisfies the
+   * query and is neither deleted nor overwritten by unsequence data.
+   * </p>
+   *
+   * @param chunkMetaData <code>ChunkMetaData</code> of a whole chunk
+   * @return false if the digest lacks statistics and nothing is calculated, true otherwise
+   */
+  public boolean calculateValueFromChunkMetaData(ChunkMetaData chunkMetaData)
+      throws IOException, ProcessorException {
+    long numOfPoints = chunkMetaData.getNumOfPoints();
+    if (numOfPoints <= 0 || numOfPoints > Integer.MAX_VALUE) {
+      return false;
+    }
+    Statistics<?> statistics = Statistics
+        .deserialize(chunkMetaData.getDigest(), chunkMetaData.getTsDataType());
+    if (statistics == null) {
+      return false;
+    }
+    // a chunk is aggregated just like one page that holds all of its points
+    calculateValueFromPageHeader(new PageHeader(0, 0, (int) numOfPoints, statistics,
+        chunkMetaData.getEndTime(), chunkMetaData.getStartTime()));
+    return true;
+  }
+
   /**
    * <p>
    * Could not calculate using <method>calculateValueFromPageHeader</method> directly. Calculate the
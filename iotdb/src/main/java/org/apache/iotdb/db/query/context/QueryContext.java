@@ -19,10 +19,13 @@
 
 package org.apache.iotdb.db.query.context;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
 
@@ -45,6 +48,15 @@ public class QueryContext {
 
   private long jobId;
 
+  /**
+   * Sub tasks of the query that run in the query pool at the same time share these permits, the
+   * thread of the query itself is the remaining one of max_query_parallelism.
+   */
+  private Semaphore subTaskPermits = new Semaphore(Math
+      .max(0, IoTDBDescriptor.getInstance().getConfig().getMaxQueryParallelism() - 1));
+
+  private volatile boolean cancelled = false;
+
   public QueryContext() {
   }
 
@@ -56,7 +68,8 @@ public class QueryContext {
    * Find the modifications of timeseries 'path' in 'modFile'. If they are not in the cache, read
    * them from 'modFile' and put then into the cache.
    */
-  public List<Modification> getPathModifications(ModificationFile modFile, String path) {
+  public synchronized List<Modification> getPathModifications(ModificationFile modFile,
+      String path) {
 
     Map<String, List<Modification>> fileModifications =
         filePathModCache.computeIfAbsent(modFile.getFilePath(), k -> new HashMap<>());
@@ -87,4 +100,38 @@ public class QueryContext {
     return jobId;
   }
 
+  /**
+   * Try to take a permit for running one more sub task in the query pool.
+   *
+   * @return false if the query has already run max_query_parallelism tasks at the same time
+   */
+  public boolean tryAcquireSubTask() {
+    return subTaskPermits.tryAcquire();
+  }
+
+  public void releaseSubTask() {
+    subTaskPermits.release();
+  }
+
+  /**
+   * Mark the query as cancelled. Its running sub tasks stop at their next check and the following
+   * reads of the query fail.
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * @throws IOException if the query has been cancelled
+   */
+  public void checkCancelled() throws IOException {
+    if (cancelled) {
+      throw new IOException(String.format("Query %d has been cancelled", jobId));
+    }
+  }
+
 }
@@ -19,6 +19,7 @@
 package org.apache.iotdb.db.query.control;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
@@ -30,6 +31,7 @@ import org.apache.iotdb.db.service.IService;
 import org.apache.iotdb.db.service.ServiceType;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.UnClosedTsFileReader;
+import org.apache.iotdb.tsfile.read.reader.MmapTsFileInput;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -90,14 +92,17 @@ public class FileReaderManager implements IService {
     long examinePeriod = IoTDBDescriptor.getInstance().getConfig().getCacheFileReaderClearPeriod();
 
     executorService.scheduleAtFixedRate(() -> {
-      synchronized (this) {
-        clearMap(closedFileReaderMap, closedReferenceMap);
-        clearMap(unclosedFileReaderMap, unclosedReferenceMap);
-      }
+      clearMap(closedFileReaderMap, closedReferenceMap);
+      clearMap(unclosedFileReaderMap, unclosedReferenceMap);
     }, 0, examinePeriod, TimeUnit.MILLISECONDS);
   }
 
-  private void clearMap(Map<String, TsFileSequenceReader> readerMap,
+  /**
+   * Close the readers no query refers to. This holds the same monitor as get() and the reference
+   * counting, so a reader can not be handed out or referenced between the check of its reference
+   * count and its closing, which would leave a query reading an unmapped file.
+   */
+  private synchronized void clearMap(Map<String, TsFileSequenceReader> readerMap,
       Map<String, AtomicInteger> refMap) {
     for (Map.Entry<String, TsFileSequenceReader> entry : readerMap.entrySet()) {
       TsFileSequenceReader reader = entry.getValue();
@@ -136,8 +141,16 @@ public class FileReaderManager implements IService {
         logger.warn("Query has opened {} files !", readerMap.size());
       }
 
-      TsFileSequenceReader tsFileReader = !isClosed ? new UnClosedTsFileReader(filePath)
-          : new TsFileSequenceReader(filePath);
+      TsFileSequenceReader tsFileReader;
+      if (!isClosed) {
+        tsFileReader = new UnClosedTsFileReader(filePath);
+      } else if (IoTDBDescriptor.getInstance().getConfig().isEnableMmapRead()) {
+        // a sealed file is never changed, so it can be mapped
+        tsFileReader = new TsFileSequenceReader(filePath,
+            new MmapTsFileInput(Paths.get(filePath)));
+      } else {
+        tsFileReader = new TsFileSequenceReader(filePath);
+      }
 
       readerMap.put(filePath, tsFileReader);
       return tsFileReader;
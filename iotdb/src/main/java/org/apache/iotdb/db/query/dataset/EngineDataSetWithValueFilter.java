@@ -19,6 +19,7 @@
 package org.apache.iotdb.db.query.dataset;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
 import org.apache.iotdb.db.query.timegenerator.EngineTimeGenerator;
@@ -30,11 +31,29 @@ import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
 
 public class EngineDataSetWithValueFilter extends QueryDataSet {
 
+  /**
+   * the max number of timestamps generated at a time, under which the values of each series are
+   * read as a column.
+   */
+  private static final int TIMESTAMP_BLOCK_SIZE = 1024;
+
   private EngineTimeGenerator timeGenerator;
   private List<IReaderByTimestamp> seriesReaderByTimestampList;
   private boolean hasCachedRowRecord;
   private RowRecord cachedRowRecord;
 
+  /**
+   * whether each series is in the filter, so that its values are got from the time generator.
+   */
+  private boolean[] isFilterSeries;
+  private long[] timestamps;
+  /**
+   * the values of each series under the timestamps.
+   */
+  private Object[][] values;
+  private int rowCount = 0;
+  private int rowIndex = 0;
+
   /**
    * constructor of EngineDataSetWithValueFilter.
    *
@@ -48,6 +67,10 @@ public class EngineDataSetWithValueFilter extends QueryDataSet {
     super(paths, dataTypes);
     this.timeGenerator = timeGenerator;
     this.seriesReaderByTimestampList = readers;
+    this.isFilterSeries = new boolean[paths.size()];
+    for (int i = 0; i < paths.size(); i++) {
+      isFilterSeries[i] = timeGenerator.hasLeafNode(paths.get(i));
+    }
   }
 
   @Override
@@ -73,13 +96,12 @@ public class EngineDataSetWithValueFilter extends QueryDataSet {
    * @return if there has next row record.
    */
   private boolean cacheRowRecord() throws IOException {
-    while (timeGenerator.hasNext()) {
+    while (rowIndex < rowCount || fetchBlock()) {
+      int row = rowIndex++;
       boolean hasField = false;
-      long timestamp = timeGenerator.next();
-      RowRecord rowRecord = new RowRecord(timestamp);
-      for (int i = 0; i < seriesReaderByTimestampList.size(); i++) {
-        IReaderByTimestamp reader = seriesReaderByTimestampList.get(i);
-        Object value = reader.getValueInTimestamp(timestamp);
+      RowRecord rowRecord = new RowRecord(timestamps[row]);
+      for (int i = 0; i < values.length; i++) {
+        Object value = values[i][row];
         if (value == null) {
           rowRecord.addField(new Field(null));
         } else {
@@ -96,6 +118,40 @@ public class EngineDataSetWithValueFilter extends QueryDataSet {
     return hasCachedRowRecord;
   }
 
+  /**
+   * generate the next block of timestamps and read the values of each series under them. The
+   * series in the filter reuse the values read by the time generator, and the readers only fill
+   * the rest.
+   *
+   * @return false if there are no more timestamps
+   */
+  private boolean fetchBlock() throws IOException {
+    if (timestamps == null) {
+      timestamps = new long[TIMESTAMP_BLOCK_SIZE];
+      values = new Object[seriesReaderByTimestampList.size()][TIMESTAMP_BLOCK_SIZE];
+    } else {
+      for (Object[] column : values) {
+        Arrays.fill(column, 0, rowCount, null);
+      }
+    }
+    rowIndex = 0;
+    rowCount = 0;
+    while (rowCount < TIMESTAMP_BLOCK_SIZE && timeGenerator.hasNext()) {
+      long timestamp = timeGenerator.next();
+      timestamps[rowCount] = timestamp;
+      for (int i = 0; i < values.length; i++) {
+        if (isFilterSeries[i]) {
+          values[i][rowCount] = timeGenerator.getValue(paths.get(i), timestamp);
+        }
+      }
+      rowCount++;
+    }
+    for (int i = 0; i < values.length; i++) {
+      seriesReaderByTimestampList.get(i).getValuesInTimestamps(timestamps, rowCount, values[i]);
+    }
+    return rowCount > 0;
+  }
+
   public EngineTimeGenerator getTimeGenerator() {
     return timeGenerator;
   }
@@ -35,6 +35,7 @@ import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.resourceRelated.SeqResourceIterateReader;
 import org.apache.iotdb.db.query.reader.resourceRelated.UnseqResourceMergeReader;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.read.common.Field;
 import org.apache.iotdb.tsfile.read.common.Path;
@@ -82,7 +83,7 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
     }
     for (Path path : selectedSeries) {
       QueryDataSource queryDataSource = QueryResourceManager.getInstance()
-          .getQueryDataSource(path, context);
+          .getQueryDataSource(path, context, timeFilter);
 
       // sequence reader for sealed tsfile, unsealed tsfile, memory
       IAggregateReader seqResourceIterateReader = new SeqResourceIterateReader(
@@ -147,7 +148,23 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
     }
 
     // continue checking sequence data
-    while (sequenceReader.hasNext()) {
+    while (true) {
+      ChunkMetaData chunkMetaData = sequenceReader.nextChunkMetaData();
+      if (chunkMetaData != null) {
+        // no point in the chunk with a timestamp less than endTime, keep it for next interval
+        if (chunkMetaData.getStartTime() >= endTime) {
+          break;
+        }
+        // cal using chunk meta data without reading the chunk
+        if (canUseChunkMetaData(chunkMetaData, unsequenceReader, function)) {
+          sequenceReader.skipChunkData();
+          continue;
+        }
+      }
+      if (!sequenceReader.hasNext()) {
+        break;
+      }
+
       PageHeader pageHeader = sequenceReader.nextPageHeader();
 
       // memory data
@@ -172,10 +189,10 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
           hasCachedSequenceDataList.set(idx, true);
           finishCheckSequenceData = calGroupByInBatchData(idx, function, unsequenceReader);
         }
+      }
 
-        if (finishCheckSequenceData) {
-          break;
-        }
+      if (finishCheckSequenceData) {
+        break;
       }
     }
     // cal using unsequence data
@@ -233,7 +250,22 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
     }
 
     // skip the points in sequenceReader data whose timestamp are less than startTime
-    while (sequenceReader.hasNext()) {
+    while (true) {
+      ChunkMetaData chunkMetaData = sequenceReader.nextChunkMetaData();
+      if (chunkMetaData != null) {
+        // timestamps of all points in the chunk are less than startTime
+        if (chunkMetaData.getEndTime() < startTime) {
+          sequenceReader.skipChunkData();
+          continue;
+        } else if (chunkMetaData.getStartTime() >= startTime) {
+          // the chunk is needn't to skip and is kept unread
+          return;
+        }
+      }
+      if (!sequenceReader.hasNext()) {
+        return;
+      }
+
       PageHeader pageHeader = sequenceReader.nextPageHeader();
       // memory data
       if (pageHeader == null) {
@@ -300,9 +332,30 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
     }
   }
 
+  /**
+   * determine whether the meta data of a chunk can be used to compute the result of current
+   * interval, and calculate it if it can.
+   *
+   * @return true if the chunk has been calculated and its data need not be read
+   */
+  private boolean canUseChunkMetaData(ChunkMetaData chunkMetaData,
+      IPointReader unSequenceReader, AggregateFunction function)
+      throws IOException, ProcessorException {
+    // the statistics still count the points that have been deleted.
+    if (chunkMetaData.getDeletedAt() >= chunkMetaData.getStartTime()) {
+      return false;
+    }
+    return canUseHeader(chunkMetaData.getStartTime(), chunkMetaData.getEndTime(),
+        unSequenceReader, function) && function.calculateValueFromChunkMetaData(chunkMetaData);
+  }
+
   private boolean canUseHeader(long minTime, long maxTime, IPointReader unSequenceReader,
       AggregateFunction function)
       throws IOException, ProcessorException {
+    // the points must all fall into current interval [startTime, endTime)
+    if (minTime < startTime || maxTime >= endTime) {
+      return false;
+    }
     if (timeFilter != null && !timeFilter.containStartEndTime(minTime, maxTime)) {
       return false;
     }
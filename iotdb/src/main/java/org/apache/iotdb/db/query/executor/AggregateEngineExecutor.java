@@ -22,7 +22,9 @@ package org.apache.iotdb.db.query.executor;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.cache.LastValueCache;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.exception.PathErrorException;
 import org.apache.iotdb.db.exception.ProcessorException;
@@ -37,6 +39,8 @@ import org.apache.iotdb.db.query.control.QueryResourceManager;
 import org.apache.iotdb.db.query.dataset.AggreResultDataPointReader;
 import org.apache.iotdb.db.query.dataset.EngineDataSetWithoutValueFilter;
 import org.apache.iotdb.db.query.factory.AggreFuncFactory;
+import org.apache.iotdb.db.query.fill.IFill.TimeValuePairPointReader;
+import org.apache.iotdb.db.query.pool.QueryTaskPoolManager;
 import org.apache.iotdb.db.query.reader.IAggregateReader;
 import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
@@ -44,7 +48,9 @@ import org.apache.iotdb.db.query.reader.resourceRelated.SeqResourceIterateReader
 import org.apache.iotdb.db.query.reader.resourceRelated.UnseqResourceMergeReader;
 import org.apache.iotdb.db.query.reader.seriesRelated.SeriesReaderByTimestamp;
 import org.apache.iotdb.db.query.timegenerator.EngineTimeGenerator;
+import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.read.common.Path;
@@ -82,10 +88,8 @@ public class AggregateEngineExecutor {
    */
   public QueryDataSet executeWithoutValueFilter(QueryContext context)
       throws StorageEngineException, IOException, PathErrorException, ProcessorException {
-    Filter timeFilter = null;
-    if (expression != null) {
-      timeFilter = ((GlobalTimeExpression) expression).getFilter();
-    }
+    Filter timeFilter =
+        expression == null ? null : ((GlobalTimeExpression) expression).getFilter();
     QueryResourceManager
         .getInstance().beginQueryOfGivenQueryPaths(context.getJobId(), selectedSeries);
 
@@ -100,8 +104,15 @@ public class AggregateEngineExecutor {
       function.init();
       aggregateFunctions.add(function);
 
+      if (calculateByLastPoint(function, selectedSeries.get(i), timeFilter, context)) {
+        // the series is aggregated without readers
+        readersOfSequenceData.add(null);
+        readersOfUnSequenceData.add(null);
+        continue;
+      }
+
       QueryDataSource queryDataSource = QueryResourceManager.getInstance()
-          .getQueryDataSource(selectedSeries.get(i), context);
+          .getQueryDataSource(selectedSeries.get(i), context, timeFilter);
 
       // sequence reader for sealed tsfile, unsealed tsfile, memory
       IAggregateReader seqResourceIterateReader;
@@ -120,16 +131,48 @@ public class AggregateEngineExecutor {
       readersOfSequenceData.add(seqResourceIterateReader);
       readersOfUnSequenceData.add(unseqResourceMergeReader);
     }
-    List<AggreResultData> aggreResultDataList = new ArrayList<>();
-    //TODO use multi-thread
+    // the series are aggregated independently in the query pool
+    List<Callable<AggreResultData>> tasks = new ArrayList<>();
     for (int i = 0; i < selectedSeries.size(); i++) {
-      AggreResultData aggreResultData = aggregateWithoutValueFilter(aggregateFunctions.get(i),
-          readersOfSequenceData.get(i), readersOfUnSequenceData.get(i), timeFilter);
-      aggreResultDataList.add(aggreResultData);
+      int index = i;
+      if (readersOfSequenceData.get(i) == null) {
+        tasks.add(aggregateFunctions.get(i)::getResult);
+        continue;
+      }
+      tasks.add(() -> aggregateWithoutValueFilter(aggregateFunctions.get(index),
+          readersOfSequenceData.get(index), readersOfUnSequenceData.get(index), timeFilter,
+          context));
     }
+    List<AggreResultData> aggreResultDataList = QueryTaskPoolManager.getInstance()
+        .invokeAll(context, tasks);
     return constructDataSet(aggreResultDataList);
   }
 
+  /**
+   * calculate the last or max_time of a series by its cached last point, which is the result if it
+   * satisfies the time filter.
+   *
+   * @return true if the result is calculated, false if the series should be read
+   */
+  private boolean calculateByLastPoint(AggregateFunction function, Path seriesPath,
+      Filter timeFilter, QueryContext context)
+      throws StorageEngineException, IOException, ProcessorException {
+    if (!(function instanceof MaxTimeAggrFunc || function instanceof LastAggrFunc)) {
+      return false;
+    }
+    TimeValuePair lastPoint = LastValueCache.getInstance().get(seriesPath, context);
+    if (lastPoint == null) {
+      // the series has no data
+      return true;
+    }
+    if (timeFilter != null && !timeFilter
+        .satisfy(lastPoint.getTimestamp(), lastPoint.getValue().getValue())) {
+      return false;
+    }
+    function.calculateValueFromUnsequenceReader(new TimeValuePairPointReader(lastPoint));
+    return true;
+  }
+
   /**
    * calculation aggregate result with only time filter or no filter for one series.
    *
@@ -137,17 +180,34 @@ public class AggregateEngineExecutor {
    * @param sequenceReader sequence data reader
    * @param unSequenceReader unsequence data reader
    * @param filter time filter or null
+   * @param context query context, checked between pages for cancellation
    * @return one series aggregate result data
    */
   private AggreResultData aggregateWithoutValueFilter(AggregateFunction function,
-      IAggregateReader sequenceReader, IPointReader unSequenceReader, Filter filter)
+      IAggregateReader sequenceReader, IPointReader unSequenceReader, Filter filter,
+      QueryContext context)
       throws IOException, ProcessorException {
     if (function instanceof MaxTimeAggrFunc || function instanceof LastAggrFunc) {
       return handleLastMaxTimeWithOutTimeGenerator(function, sequenceReader, unSequenceReader,
           filter);
     }
 
-    while (sequenceReader.hasNext()) {
+    while (true) {
+      context.checkCancelled();
+      // try to calculate a whole chunk by its meta data before the chunk is loaded
+      ChunkMetaData chunkMetaData = sequenceReader.nextChunkMetaData();
+      if (chunkMetaData != null
+          && canUseChunkMetaData(function, chunkMetaData, unSequenceReader, filter)) {
+        sequenceReader.skipChunkData();
+        if (function.isCalculatedAggregationResult()) {
+          return function.getResult();
+        }
+        continue;
+      }
+      if (!sequenceReader.hasNext()) {
+        break;
+      }
+
       PageHeader pageHeader = sequenceReader.nextPageHeader();
       // judge if overlap with unsequence data
       if (canUseHeader(function, pageHeader, unSequenceReader, filter)) {
@@ -198,6 +258,34 @@ public class AggregateEngineExecutor {
 
   }
 
+  /**
+   * determine whether the meta data of a chunk can be used to compute aggregation results, and
+   * calculate them if it can.
+   *
+   * @return true if the chunk has been calculated and its data need not be read
+   */
+  private boolean canUseChunkMetaData(AggregateFunction function, ChunkMetaData chunkMetaData,
+      IPointReader unSequenceReader, Filter filter)
+      throws IOException, ProcessorException {
+    long minTime = chunkMetaData.getStartTime();
+    long maxTime = chunkMetaData.getEndTime();
+
+    // the statistics still count the points that have been deleted.
+    if (chunkMetaData.getDeletedAt() >= minTime) {
+      return false;
+    }
+    if (filter != null && !filter.containStartEndTime(minTime, maxTime)) {
+      return false;
+    }
+
+    // cal unsequence data with timestamps before the chunk.
+    function.calculateValueFromUnsequenceReader(unSequenceReader, minTime);
+    if (unSequenceReader.hasNext() && unSequenceReader.current().getTimestamp() <= maxTime) {
+      return false;
+    }
+    return function.calculateValueFromChunkMetaData(chunkMetaData);
+  }
+
   /**
    * handle last and max_time aggregate function with only time filter or no filter.
    *
@@ -211,7 +299,23 @@ public class AggregateEngineExecutor {
       throws IOException, ProcessorException {
     long lastBatchTimeStamp = Long.MIN_VALUE;
     boolean isChunkEnd = false;
-    while (sequenceReader.hasNext()) {
+    while (true) {
+      ChunkMetaData chunkMetaData = sequenceReader.nextChunkMetaData();
+      if (chunkMetaData != null) {
+        if (lastBatchTimeStamp != Long.MIN_VALUE) {
+          // a new chunk begins, so the newest chunk is end.
+          break;
+        }
+        if (canUseChunkMetaData(function, chunkMetaData, unSequenceReader, timeFilter)) {
+          // the newest chunk is calculated without reading it.
+          sequenceReader.skipChunkData();
+          break;
+        }
+      }
+      if (!sequenceReader.hasNext()) {
+        break;
+      }
+
       PageHeader pageHeader = sequenceReader.nextPageHeader();
       // judge if overlap with unsequence data
       if (canUseHeader(function, pageHeader, unSequenceReader, timeFilter)) {
@@ -291,17 +395,11 @@ public class AggregateEngineExecutor {
       List<IReaderByTimestamp> readersOfSelectedSeries)
       throws IOException {
 
+    long[] timeArray = new long[aggregateFetchSize];
     while (timestampGenerator.hasNext()) {
 
       // generate timestamps for aggregate
-      long[] timeArray = new long[aggregateFetchSize];
-      int timeArrayLength = 0;
-      for (int cnt = 0; cnt < aggregateFetchSize; cnt++) {
-        if (!timestampGenerator.hasNext()) {
-          break;
-        }
-        timeArray[timeArrayLength++] = timestampGenerator.next();
-      }
+      int timeArrayLength = timestampGenerator.next(timeArray);
 
       // cal part of aggregate result
       for (int i = 0; i < readersOfSelectedSeries.size(); i++) {
@@ -21,6 +21,7 @@ package org.apache.iotdb.db.query.executor;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.exception.PathErrorException;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.metadata.MManager;
@@ -32,6 +33,7 @@ import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
 import org.apache.iotdb.db.query.reader.seriesRelated.SeriesReaderByTimestamp;
 import org.apache.iotdb.db.query.reader.seriesRelated.SeriesReaderWithoutValueFilter;
+import org.apache.iotdb.db.query.reader.universal.PrefetchPointReader;
 import org.apache.iotdb.db.query.timegenerator.EngineTimeGenerator;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.Path;
@@ -64,6 +66,7 @@ public class EngineExecutor {
       timeFilter = ((GlobalTimeExpression) queryExpression.getExpression()).getFilter();
     }
 
+    int prefetchSize = IoTDBDescriptor.getInstance().getConfig().getQueryPrefetchSize();
     List<IPointReader> readersOfSelectedSeries = new ArrayList<>();
     List<TSDataType> dataTypes = new ArrayList<>();
     for (Path path : queryExpression.getSelectedSeries()) {
@@ -75,6 +78,10 @@ public class EngineExecutor {
       }
 
       IPointReader reader = new SeriesReaderWithoutValueFilter(path, timeFilter, context);
+      if (prefetchSize > 0) {
+        // the series are read ahead in parallel in the query pool
+        reader = new PrefetchPointReader(reader, context, prefetchSize);
+      }
       readersOfSelectedSeries.add(reader);
     }
 
@@ -78,7 +78,10 @@ public abstract class IFill {
     return TimeFilter.gtEq(queryTime - beforeRange);
   }
 
-  class TimeValuePairPointReader implements IPointReader {
+  /**
+   * a reader of a single pair, which is empty if the pair is null.
+   */
+  public static class TimeValuePairPointReader implements IPointReader {
 
     private boolean isUsed;
     private TimeValuePair pair;
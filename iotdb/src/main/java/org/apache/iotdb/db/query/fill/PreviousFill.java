@@ -19,6 +19,7 @@
 package org.apache.iotdb.db.query.fill;
 
 import java.io.IOException;
+import org.apache.iotdb.db.engine.cache.LastValueCache;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.reader.IPointReader;
@@ -30,6 +31,13 @@ public class PreviousFill extends IFill {
 
   private long beforeRange;
 
+  /**
+   * the last point of the series if it is not after the query time, in which case it is the
+   * previous point and no data is read.
+   */
+  private TimeValuePair lastPoint;
+  private boolean isLastPointPrevious = false;
+
   public PreviousFill(TSDataType dataType, long queryTime, long beforeRange) {
     super(dataType, queryTime);
     this.beforeRange = beforeRange;
@@ -47,6 +55,11 @@ public class PreviousFill extends IFill {
   @Override
   public void constructReaders(Path path, QueryContext context)
       throws IOException, StorageEngineException {
+    lastPoint = LastValueCache.getInstance().get(path, context);
+    if (lastPoint == null || lastPoint.getTimestamp() <= queryTime) {
+      isLastPointPrevious = true;
+      return;
+    }
     super.constructReaders(path, context, beforeRange);
   }
 
@@ -57,13 +70,21 @@ public class PreviousFill extends IFill {
   @Override
   public IPointReader getFillResult() throws IOException {
     TimeValuePair beforePair = null;
-    TimeValuePair cachedPair = null;
-    while (allDataReader.hasNext()) {
-      cachedPair = allDataReader.next();
-      if (cachedPair.getTimestamp() <= queryTime) {
-        beforePair = cachedPair;
-      } else {
-        break;
+    if (isLastPointPrevious) {
+      // the fill time range is not set if beforeRange is -1
+      if (lastPoint != null && (beforeRange == -1
+          || lastPoint.getTimestamp() >= queryTime - beforeRange)) {
+        beforePair = lastPoint;
+      }
+    } else {
+      TimeValuePair cachedPair;
+      while (allDataReader.hasNext()) {
+        cachedPair = allDataReader.next();
+        if (cachedPair.getTimestamp() <= queryTime) {
+          beforePair = cachedPair;
+        } else {
+          break;
+        }
       }
     }
 
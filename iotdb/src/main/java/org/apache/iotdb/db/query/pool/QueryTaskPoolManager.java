@@ -0,0 +1,206 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.pool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.concurrent.ThreadName;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.service.IService;
+import org.apache.iotdb.db.service.ServiceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * QueryTaskPoolManager runs the sub tasks of all queries, e.g., the aggregations of different
+ * series or the read-ahead of a series, in a bounded thread pool shared by all queries. A single
+ * query uses at most max_query_parallelism threads at the same time, including its own thread.
+ * <p>
+ * When the pool is not started, all sub tasks run in the thread of the query.
+ */
+public class QueryTaskPoolManager implements IService {
+
+  private static final Logger logger = LoggerFactory.getLogger(QueryTaskPoolManager.class);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  private ExecutorService pool;
+
+  private QueryTaskPoolManager() {
+  }
+
+  public static QueryTaskPoolManager getInstance() {
+    return InstanceHolder.INSTANCE;
+  }
+
+  public synchronized boolean isRunning() {
+    return pool != null && !pool.isShutdown();
+  }
+
+  /**
+   * Submit a sub task of a query if the query has not used up its parallelism. The permit taken
+   * for the task is released when the task ends.
+   *
+   * @return the future of the task, or null if the task is not submitted and should be run by
+   * the caller
+   */
+  public synchronized <T> Future<T> trySubmit(QueryContext context, Callable<T> task) {
+    if (!isRunning() || !context.tryAcquireSubTask()) {
+      return null;
+    }
+    try {
+      return pool.submit(() -> {
+        try {
+          return task.call();
+        } finally {
+          context.releaseSubTask();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      context.releaseSubTask();
+      return null;
+    }
+  }
+
+  /**
+   * Run the tasks of a query in parallel and return their results in the order of the tasks. The
+   * calling thread runs tasks too, so all tasks are finished even if no thread in the pool is
+   * available. The remaining tasks are skipped once a task fails or the query is cancelled.
+   *
+   * @throws IOException if any task fails or the query is cancelled
+   */
+  @SuppressWarnings("unchecked")
+  public <T> List<T> invokeAll(QueryContext context, List<Callable<T>> tasks)
+      throws IOException {
+    Object[] results = new Object[tasks.size()];
+    AtomicInteger nextTaskIndex = new AtomicInteger();
+    Callable<Void> worker = () -> {
+      int index;
+      while ((index = nextTaskIndex.getAndIncrement()) < tasks.size()) {
+        context.checkCancelled();
+        results[index] = tasks.get(index).call();
+      }
+      return null;
+    };
+
+    List<Future<Void>> futures = new ArrayList<>();
+    for (int i = 1; i < tasks.size(); i++) {
+      Future<Void> future = trySubmit(context, worker);
+      if (future == null) {
+        break;
+      }
+      futures.add(future);
+    }
+
+    Exception failure = null;
+    try {
+      worker.call();
+    } catch (Exception e) {
+      failure = e;
+      // let the other workers stop at the next task
+      nextTaskIndex.set(tasks.size());
+    }
+    for (Future<Void> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        nextTaskIndex.set(tasks.size());
+        if (failure == null) {
+          failure = e;
+        }
+      } catch (ExecutionException e) {
+        nextTaskIndex.set(tasks.size());
+        if (failure == null) {
+          failure = e.getCause() instanceof Exception ? (Exception) e.getCause()
+              : new IOException(e.getCause());
+        }
+      }
+    }
+
+    if (failure instanceof IOException) {
+      throw (IOException) failure;
+    } else if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure != null) {
+      throw new IOException(failure);
+    }
+    return (List<T>) Arrays.asList(results);
+  }
+
+  @Override
+  public synchronized void start() {
+    if (isRunning()) {
+      return;
+    }
+    pool = IoTDBThreadPoolFactory.newFixedThreadPool(config.getConcurrentQueryThread(),
+        ThreadName.QUERY_SERVICE.getName());
+    logger.info("Query task pool started with {} threads, at most {} threads per query",
+        config.getConcurrentQueryThread(), config.getMaxQueryParallelism());
+  }
+
+  @Override
+  public synchronized void stop() {
+    if (pool == null) {
+      return;
+    }
+    // running sub tasks are not interrupted, as an interrupted read closes the shared file channel
+    pool.shutdown();
+    try {
+      if (!pool.awaitTermination(60, TimeUnit.SECONDS)) {
+        logger.warn("Query tasks do not exit in 60s");
+      }
+    } catch (InterruptedException e) {
+      logger.error("Interrupted while waiting for query tasks to exit", e);
+      Thread.currentThread().interrupt();
+    }
+    pool = null;
+    logger.info("Query task pool stopped");
+  }
+
+  @Override
+  public ServiceType getID() {
+    return ServiceType.QUERY_TASK_POOL_SERVICE;
+  }
+
+  public synchronized int getActiveCnt() {
+    return pool == null ? 0 : ((ThreadPoolExecutor) pool).getActiveCount();
+  }
+
+  private static class InstanceHolder {
+
+    private InstanceHolder() {
+      //allowed to do nothing
+    }
+
+    private static final QueryTaskPoolManager INSTANCE = new QueryTaskPoolManager();
+  }
+}
@@ -20,16 +20,31 @@ package org.apache.iotdb.db.query.reader;
 
 import java.io.IOException;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 
 public interface IAggregateReader extends IBatchReader {
 
   /**
    * Returns meta-information of batch data.
    * <p>
-   * Returns null if batch data comes from memory. Returns pageHeader if batch data comes from page
-   * data.
+   * Returns null if batch data comes from memory or from a page with deleted points. Returns
+   * pageHeader if batch data comes from page data.
    */
   PageHeader nextPageHeader() throws IOException;
 
   void skipPageData() throws IOException;
+
+  /**
+   * Returns meta-information of the next chunk without loading its data.
+   * <p>
+   * Returns null if the next batch data comes from memory, if a chunk has already been partly read
+   * or if there is no more data. Otherwise the chunk stays pending until it is either read by
+   * {@link #hasNext()} or skipped by {@link #skipChunkData()}.
+   */
+  ChunkMetaData nextChunkMetaData() throws IOException;
+
+  /**
+   * Skips the chunk returned by the last {@link #nextChunkMetaData()}.
+   */
+  void skipChunkData() throws IOException;
 }
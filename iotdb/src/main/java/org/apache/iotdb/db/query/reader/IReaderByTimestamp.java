@@ -36,5 +36,23 @@ public interface IReaderByTimestamp {
    */
   Object getValueInTimestamp(long timestamp) throws IOException;
 
+  /**
+   * Fills the values under the first <code>length</code> timestamps into <code>values</code>. A
+   * slot of <code>values</code> that is already non-null is kept and its timestamp is skipped, so
+   * that several readers can fill one column in turn. The slots without value under their
+   * timestamps are left null.
+   * <p>
+   * The same attention as <code>getValueInTimestamp</code> applies: the timestamps must be
+   * increasing and greater than the ones of the previous calls.
+   */
+  default void getValuesInTimestamps(long[] timestamps, int length, Object[] values)
+      throws IOException {
+    for (int i = 0; i < length; i++) {
+      if (values[i] == null) {
+        values[i] = getValueInTimestamp(timestamps[i]);
+      }
+    }
+  }
+
   boolean hasNext() throws IOException;
 }
@@ -18,13 +18,15 @@
  */
 package org.apache.iotdb.db.query.reader.chunkRelated;
 
-import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.apache.iotdb.db.engine.querycontext.MemChunkCursor;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
 import org.apache.iotdb.db.query.reader.IAggregateReader;
 import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.fileRelated.UnSealedTsFileIterateReader;
 import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
@@ -38,70 +40,71 @@ import org.apache.iotdb.tsfile.read.filter.basic.Filter;
  */
 public class MemChunkReader implements IPointReader, IAggregateReader {
 
-  private Iterator<TimeValuePair> timeValuePairIterator;
+  private MemChunkCursor cursor;
   private Filter filter;
-  private boolean hasCachedTimeValuePair;
+  /**
+   * whether the cursor is at a point satisfying the filter.
+   */
+  private boolean hasCachedPoint;
   private TimeValuePair cachedTimeValuePair;
 
   private TSDataType dataType;
 
   public MemChunkReader(ReadOnlyMemChunk readableChunk, Filter filter) {
-    timeValuePairIterator = readableChunk.getIterator();
+    cursor = readableChunk.getCursor();
     this.filter = filter;
     this.dataType = readableChunk.getDataType();
   }
 
   @Override
   public boolean hasNext() {
-    if (hasCachedTimeValuePair) {
+    if (hasCachedPoint) {
       return true;
     }
-    while (timeValuePairIterator.hasNext()) {
-      TimeValuePair timeValuePair = timeValuePairIterator.next();
-      if (filter == null || filter
-          .satisfy(timeValuePair.getTimestamp(), timeValuePair.getValue().getValue())) {
-        hasCachedTimeValuePair = true;
-        cachedTimeValuePair = timeValuePair;
+    while (cursor.hasNext()) {
+      if (filter == null || filter.satisfy(cursor.currentTime(), cursor.currentValue())) {
+        hasCachedPoint = true;
         break;
       }
+      cursor.next();
     }
-    return hasCachedTimeValuePair;
+    return hasCachedPoint;
   }
 
   @Override
   public TimeValuePair next() {
-    if (hasCachedTimeValuePair) {
-      hasCachedTimeValuePair = false;
-      return cachedTimeValuePair;
-    } else {
-      return timeValuePairIterator.next();
-    }
+    TimeValuePair timeValuePair = current();
+    moveNext();
+    return timeValuePair;
   }
 
   @Override
   public TimeValuePair current() {
-    if (!hasCachedTimeValuePair) {
-      cachedTimeValuePair = timeValuePairIterator.next();
-      hasCachedTimeValuePair = true;
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    if (cachedTimeValuePair == null) {
+      cachedTimeValuePair = cursor.currentTimeValuePair();
     }
     return cachedTimeValuePair;
   }
 
+  private void moveNext() {
+    cursor.next();
+    hasCachedPoint = false;
+    cachedTimeValuePair = null;
+  }
+
+  /**
+   * read all the remaining points into one batch, copying the values from the memtable arrays
+   * without boxing them when there is no filter.
+   */
   @Override
   public BatchData nextBatch() {
     BatchData batchData = new BatchData(dataType, true);
-    if (hasCachedTimeValuePair) {
-      hasCachedTimeValuePair = false;
-      batchData.putTime(cachedTimeValuePair.getTimestamp());
-      batchData.putAnObject(cachedTimeValuePair.getValue().getValue());
-    }
-    while (timeValuePairIterator.hasNext()) {
-      TimeValuePair timeValuePair = timeValuePairIterator.next();
-      if (filter == null || filter
-          .satisfy(timeValuePair.getTimestamp(), timeValuePair.getValue().getValue())) {
-        batchData.putTime(timeValuePair.getTimestamp());
-        batchData.putAnObject(timeValuePair.getValue().getValue());
-      }
+    while (hasNext()) {
+      cursor.putCurrentTo(batchData);
+      moveNext();
     }
     return batchData;
   }
@@ -120,4 +123,14 @@ public class MemChunkReader implements IPointReader, IAggregateReader {
   public void skipPageData() {
     nextBatch();
   }
-}
\ No newline at end of file
+
+  @Override
+  public ChunkMetaData nextChunkMetaData() {
+    return null;
+  }
+
+  @Override
+  public void skipChunkData() {
+    // Do nothing because memory data has no chunk meta data to skip
+  }
+}
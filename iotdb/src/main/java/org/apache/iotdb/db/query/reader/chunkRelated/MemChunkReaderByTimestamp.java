@@ -18,11 +18,10 @@
  */
 package org.apache.iotdb.db.query.reader.chunkRelated;
 
-import java.util.Iterator;
+import org.apache.iotdb.db.engine.querycontext.MemChunkCursor;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
 import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
 import org.apache.iotdb.db.query.reader.fileRelated.UnSealedTsFileReaderByTimestamp;
-import org.apache.iotdb.db.utils.TimeValuePair;
 
 /**
  * To read data in memory by timestamp, this class implements an interface {@link
@@ -33,45 +32,29 @@ import org.apache.iotdb.db.utils.TimeValuePair;
  */
 public class MemChunkReaderByTimestamp implements IReaderByTimestamp {
 
-  private Iterator<TimeValuePair> timeValuePairIterator;
-  private boolean hasCachedTimeValuePair;
-  private TimeValuePair cachedTimeValuePair;
+  private MemChunkCursor cursor;
 
   public MemChunkReaderByTimestamp(ReadOnlyMemChunk readableChunk) {
-    timeValuePairIterator = readableChunk.getIterator();
+    cursor = readableChunk.getCursor();
   }
 
   @Override
   public boolean hasNext() {
-    if (hasCachedTimeValuePair) {
-      return true;
-    }
-    return timeValuePairIterator.hasNext();
-  }
-
-  private TimeValuePair next() {
-    if (hasCachedTimeValuePair) {
-      hasCachedTimeValuePair = false;
-      return cachedTimeValuePair;
-    } else {
-      return timeValuePairIterator.next();
-    }
+    return cursor.hasNext();
   }
 
-  // TODO consider change timeValuePairIterator to List structure, and use binary search instead of
-  // sequential search
   @Override
   public Object getValueInTimestamp(long timestamp) {
-    while (hasNext()) {
-      TimeValuePair timeValuePair = next();
-      long time = timeValuePair.getTimestamp();
+    while (cursor.hasNext()) {
+      long time = cursor.currentTime();
       if (time == timestamp) {
-        return timeValuePair.getValue().getValue();
+        Object value = cursor.currentValue();
+        cursor.next();
+        return value;
       } else if (time > timestamp) {
-        hasCachedTimeValuePair = true;
-        cachedTimeValuePair = timeValuePair;
         break;
       }
+      cursor.next();
     }
     return null;
   }
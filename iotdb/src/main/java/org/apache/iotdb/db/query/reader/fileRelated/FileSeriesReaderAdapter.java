@@ -21,6 +21,7 @@ package org.apache.iotdb.db.query.reader.fileRelated;
 import java.io.IOException;
 import org.apache.iotdb.db.query.reader.IAggregateReader;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.read.reader.series.FileSeriesReader;
 
@@ -52,6 +53,16 @@ public class FileSeriesReaderAdapter implements IAggregateReader {
     fileSeriesReader.skipPageData();
   }
 
+  @Override
+  public ChunkMetaData nextChunkMetaData() throws IOException {
+    return fileSeriesReader.hasNextChunk() ? fileSeriesReader.nextChunkMetaData() : null;
+  }
+
+  @Override
+  public void skipChunkData() {
+    fileSeriesReader.skipChunkData();
+  }
+
   @Override
   public boolean hasNext() throws IOException {
     return fileSeriesReader.hasNextBatch();
@@ -71,8 +71,9 @@ public class SeriesReaderWithoutValueFilter implements IPointReader {
    */
   protected SeriesReaderWithoutValueFilter(Path seriesPath, Filter filter, QueryContext context,
       boolean pushdownUnseq) throws StorageEngineException, IOException {
+    // the files of the unsequence resources are pruned by the filter only if it is pushed down
     QueryDataSource queryDataSource = QueryResourceManager.getInstance()
-        .getQueryDataSource(seriesPath, context);
+        .getQueryDataSource(seriesPath, context, pushdownUnseq ? filter : null);
 
     // reader for sequence resources
     IBatchReader seqResourceIterateReader = new SeqResourceIterateReader(
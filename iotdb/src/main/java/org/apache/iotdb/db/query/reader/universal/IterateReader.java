@@ -21,6 +21,7 @@ package org.apache.iotdb.db.query.reader.universal;
 import java.io.IOException;
 import org.apache.iotdb.db.query.reader.IAggregateReader;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 
 /**
@@ -83,6 +84,39 @@ public abstract class IterateReader implements IAggregateReader {
     currentSeriesReader.skipPageData();
   }
 
+  /**
+   * Constructs the following readers if necessary but never loads chunk data, so that a whole chunk
+   * can still be skipped with {@link #skipChunkData()}.
+   */
+  @Override
+  public ChunkMetaData nextChunkMetaData() throws IOException {
+    if (curReaderInitialized) {
+      ChunkMetaData chunkMetaData = currentSeriesReader.nextChunkMetaData();
+      if (chunkMetaData != null || currentSeriesReader.hasNext()) {
+        return chunkMetaData;
+      }
+      curReaderInitialized = false;
+    }
+
+    while (nextSeriesReaderIndex < readerSize) {
+      boolean isConstructed = constructNextReader(nextSeriesReaderIndex++);
+      if (!isConstructed) {
+        continue;
+      }
+      ChunkMetaData chunkMetaData = currentSeriesReader.nextChunkMetaData();
+      if (chunkMetaData != null || currentSeriesReader.hasNext()) {
+        curReaderInitialized = true;
+        return chunkMetaData;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public void skipChunkData() throws IOException {
+    currentSeriesReader.skipChunkData();
+  }
+
   @Override
   public void close() {
     // file stream is managed in QueryResourceManager.
@@ -0,0 +1,141 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.reader.universal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.pool.QueryTaskPoolManager;
+import org.apache.iotdb.db.query.reader.IPointReader;
+import org.apache.iotdb.db.utils.TimeValuePair;
+
+/**
+ * This class wraps an {@link IPointReader} and reads the next batch of its points in the query pool
+ * while the current batch is consumed, so that the series of a query are read in parallel.
+ * <p>
+ * At most one batch is read ahead. If the query has used up its parallelism, the next batch is
+ * read by the calling thread when it is needed.
+ */
+public class PrefetchPointReader implements IPointReader {
+
+  private IPointReader reader;
+  private QueryContext context;
+  private int prefetchSize;
+
+  private List<TimeValuePair> batch = Collections.emptyList();
+  private int batchIndex = 0;
+  private Future<List<TimeValuePair>> prefetchFuture;
+  private boolean readerExhausted = false;
+
+  /**
+   * @param reader the wrapped reader, it must not be used by others afterwards
+   * @param prefetchSize the number of points in a batch
+   */
+  public PrefetchPointReader(IPointReader reader, QueryContext context, int prefetchSize) {
+    this.reader = reader;
+    this.context = context;
+    this.prefetchSize = prefetchSize;
+    prefetch();
+  }
+
+  @Override
+  public boolean hasNext() throws IOException {
+    if (batchIndex < batch.size()) {
+      return true;
+    }
+    if (prefetchFuture == null && readerExhausted) {
+      return false;
+    }
+    nextBatch();
+    return batchIndex < batch.size();
+  }
+
+  @Override
+  public TimeValuePair next() throws IOException {
+    if (!hasNext()) {
+      return null;
+    }
+    return batch.get(batchIndex++);
+  }
+
+  @Override
+  public TimeValuePair current() throws IOException {
+    if (!hasNext()) {
+      return null;
+    }
+    return batch.get(batchIndex);
+  }
+
+  private void nextBatch() throws IOException {
+    batch = prefetchFuture != null ? waitForPrefetch() : readBatch();
+    batchIndex = 0;
+    readerExhausted = batch.size() < prefetchSize;
+    if (!readerExhausted) {
+      prefetch();
+    }
+  }
+
+  private void prefetch() {
+    prefetchFuture = QueryTaskPoolManager.getInstance().trySubmit(context, this::readBatch);
+  }
+
+  private List<TimeValuePair> waitForPrefetch() throws IOException {
+    try {
+      return prefetchFuture.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while reading ahead", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    } finally {
+      prefetchFuture = null;
+    }
+  }
+
+  /**
+   * only one thread reads the wrapped reader at a time, either the query pool or the caller.
+   */
+  private List<TimeValuePair> readBatch() throws IOException {
+    context.checkCancelled();
+    List<TimeValuePair> points = new ArrayList<>(prefetchSize);
+    while (points.size() < prefetchSize && reader.hasNext()) {
+      points.add(reader.next());
+    }
+    return points;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (prefetchFuture != null) {
+      try {
+        waitForPrefetch();
+      } catch (IOException e) {
+        // the batch read ahead is discarded anyway
+      }
+    }
+    reader.close();
+  }
+}
@@ -50,6 +50,19 @@ public class PriorityMergeReaderByTimestamp implements IReaderByTimestamp {
     return value;
   }
 
+  /**
+   * The readers fill the column one by one from the highest priority, so each of them walks its
+   * data once for the whole block of timestamps, and the lower ones skip the timestamps with
+   * values.
+   */
+  @Override
+  public void getValuesInTimestamps(long[] timestamps, int length, Object[] values)
+      throws IOException {
+    for (int i = readerList.size() - 1; i >= 0; i--) {
+      readerList.get(i).getValuesInTimestamps(timestamps, length, values);
+    }
+  }
+
   /**
    * This is an empty method.
    * <p>
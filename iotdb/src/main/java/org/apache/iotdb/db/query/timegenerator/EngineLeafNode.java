@@ -21,7 +21,7 @@ package org.apache.iotdb.db.query.timegenerator;
 
 import java.io.IOException;
 import org.apache.iotdb.db.query.reader.IPointReader;
-import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.tsfile.read.query.timegenerator.node.Node;
 import org.apache.iotdb.tsfile.read.query.timegenerator.node.NodeType;
 
@@ -29,7 +29,11 @@ public class EngineLeafNode implements Node {
 
   private IPointReader reader;
 
-  private BatchData data = null;
+  /**
+   * the last pair returned by <code>next</code>, whose value can be reused by the selected series
+   * which is also in the filter.
+   */
+  private TimeValuePair cachedPair = null;
 
   public EngineLeafNode(IPointReader reader) {
     this.reader = reader;
@@ -42,15 +46,23 @@ public class EngineLeafNode implements Node {
 
   @Override
   public long next() throws IOException {
-    return reader.next().getTimestamp();
+    cachedPair = reader.next();
+    return cachedPair.getTimestamp();
+  }
+
+  /**
+   * check if the time of the last returned pair equals to the given time.
+   */
+  public boolean currentTimeIs(long time) {
+    return cachedPair != null && cachedPair.getTimestamp() == time;
   }
 
   /**
-   * check if current value is equals to input value.
+   * get the value of the last returned pair if its time equals to the given time, else null.
    */
   public Object currentValue(long time) {
-    if (data.currentTime() == time) {
-      return data.currentValue();
+    if (currentTimeIs(time)) {
+      return cachedPair.getValue().getValue();
     }
     return null;
   }
@@ -22,6 +22,10 @@ package org.apache.iotdb.db.query.timegenerator;
 import static org.apache.iotdb.tsfile.read.expression.ExpressionType.SERIES;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.reader.seriesRelated.SeriesReaderWithValueFilter;
@@ -33,9 +37,13 @@ import org.apache.iotdb.tsfile.read.query.timegenerator.node.Node;
 
 public class EngineNodeConstructor extends AbstractNodeConstructor {
 
+  /**
+   * the leaf nodes of each series in the constructed expression tree.
+   */
+  private Map<Path, List<EngineLeafNode>> leafCache = new HashMap<>();
+
   public EngineNodeConstructor() {
     // nothing to initialize
-    // TODO: make this a util class
   }
 
   /**
@@ -52,7 +60,10 @@ public class EngineNodeConstructor extends AbstractNodeConstructor {
       try {
         Filter filter = ((SingleSeriesExpression) expression).getFilter();
         Path path = ((SingleSeriesExpression) expression).getSeriesPath();
-        return new EngineLeafNode(new SeriesReaderWithValueFilter(path, filter, context));
+        EngineLeafNode leafNode = new EngineLeafNode(
+            new SeriesReaderWithValueFilter(path, filter, context));
+        leafCache.computeIfAbsent(path, k -> new ArrayList<>()).add(leafNode);
+        return leafNode;
       } catch (IOException e) {
         throw new StorageEngineException(e);
       }
@@ -61,4 +72,8 @@ public class EngineNodeConstructor extends AbstractNodeConstructor {
       return constructNotSeriesNode(expression, context);
     }
   }
+
+  public Map<Path, List<EngineLeafNode>> getLeafCache() {
+    return leafCache;
+  }
 }
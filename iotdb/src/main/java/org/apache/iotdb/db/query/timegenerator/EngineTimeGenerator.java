@@ -19,6 +19,8 @@
 package org.apache.iotdb.db.query.timegenerator;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.tsfile.read.common.Path;
@@ -34,6 +36,7 @@ public class EngineTimeGenerator implements TimeGenerator {
 
   private IExpression expression;
   private Node operatorNode;
+  private Map<Path, List<EngineLeafNode>> leafCache;
 
   /**
    * Constructor of EngineTimeGenerator.
@@ -47,6 +50,7 @@ public class EngineTimeGenerator implements TimeGenerator {
   private void initNode(QueryContext context) throws StorageEngineException {
     EngineNodeConstructor engineNodeConstructor = new EngineNodeConstructor();
     this.operatorNode = engineNodeConstructor.construct(expression, context);
+    this.leafCache = engineNodeConstructor.getLeafCache();
   }
 
   @Override
@@ -59,8 +63,46 @@ public class EngineTimeGenerator implements TimeGenerator {
     return operatorNode.next();
   }
 
+  /**
+   * generate the next timestamps into the given array.
+   *
+   * @return the number of generated timestamps, which is less than the length of the array only
+   * if there are no more timestamps
+   */
+  public int next(long[] timestamps) throws IOException {
+    int length = 0;
+    while (length < timestamps.length && operatorNode.hasNext()) {
+      timestamps[length++] = operatorNode.next();
+    }
+    return length;
+  }
+
+  /**
+   * whether the series is in the filter, so that its values at the generated timestamps may be got
+   * by <code>getValue</code>.
+   */
+  public boolean hasLeafNode(Path path) {
+    return leafCache.containsKey(path);
+  }
+
+  /**
+   * get the value of a series in the filter at the last generated timestamp without reading it
+   * again.
+   *
+   * @return the value, or null if the series is not in the filter or the value is not read by the
+   * filter, e.g., the series does not satisfy one side of an OR filter
+   */
   @Override
   public Object getValue(Path path, long time) {
+    List<EngineLeafNode> leafNodes = leafCache.get(path);
+    if (leafNodes == null) {
+      return null;
+    }
+    for (EngineLeafNode leafNode : leafNodes) {
+      if (leafNode.currentTimeIs(time)) {
+        return leafNode.currentValue(time);
+      }
+    }
     return null;
   }
 
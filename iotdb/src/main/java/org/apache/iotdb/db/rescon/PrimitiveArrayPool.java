@@ -20,30 +20,67 @@ package org.apache.iotdb.db.rescon;
 
 import java.util.ArrayDeque;
 import java.util.EnumMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.utils.Binary;
 
 /**
  * Manage all primitive data list in memory, including get and release operation.
+ *
+ * Each thread keeps a magazine of at most MAGAZINE_SIZE arrays for each data type, from which
+ * arrays are got and into which they are released without any lock. An empty magazine is refilled
+ * from, and a full one is half emptied into, the depot of the data type, which is locked on its
+ * own, so threads contend only once every MAGAZINE_SIZE / 2 arrays and only with the threads using
+ * the same data type. The idle arrays in the depots are bounded by primitive_array_pool_proportion
+ * of the memory for write, the arrays released beyond the bound are left to the GC so that the
+ * pool shrinks after an ingestion spike. The magazines are not counted: they are bounded by
+ * MAGAZINE_SIZE per thread and data type and are collected with their threads, e.g., when an RPC
+ * connection is closed.
+ *
+ * The bytes of the arrays in use, i.e. got and not released yet, are counted so that
+ * IoTDBConfigDynamicAdapter can tell when the memtables hold more arrays than their memory.
  */
 public class PrimitiveArrayPool {
 
+  private static final IoTDBConfig CONFIG = IoTDBDescriptor.getInstance().getConfig();
+
+  public static final int ARRAY_SIZE = 128;
+
   /**
-   * data type -> Array<PrimitiveArray>
+   * the max number of arrays of a data type a thread keeps.
    */
-  private static final EnumMap<TSDataType, ArrayDeque> primitiveArraysMap = new EnumMap<>(TSDataType.class);
+  static final int MAGAZINE_SIZE = 32;
 
-  public static final int ARRAY_SIZE = 128;
+  private static final TSDataType[] DATA_TYPES = {TSDataType.BOOLEAN, TSDataType.INT32,
+      TSDataType.INT64, TSDataType.FLOAT, TSDataType.DOUBLE, TSDataType.TEXT};
 
-  static {
-    primitiveArraysMap.put(TSDataType.BOOLEAN, new ArrayDeque());
-    primitiveArraysMap.put(TSDataType.INT32, new ArrayDeque());
-    primitiveArraysMap.put(TSDataType.INT64, new ArrayDeque());
-    primitiveArraysMap.put(TSDataType.FLOAT, new ArrayDeque());
-    primitiveArraysMap.put(TSDataType.DOUBLE, new ArrayDeque());
-    primitiveArraysMap.put(TSDataType.TEXT, new ArrayDeque());
-  }
+  /**
+   * data type -> the idle arrays shared by all threads
+   */
+  private final EnumMap<TSDataType, Depot> depots = new EnumMap<>(TSDataType.class);
+
+  /**
+   * data type -> the idle arrays of the current thread
+   */
+  private final ThreadLocal<EnumMap<TSDataType, Magazine>> magazines = ThreadLocal
+      .withInitial(() -> {
+        EnumMap<TSDataType, Magazine> map = new EnumMap<>(TSDataType.class);
+        for (TSDataType dataType : DATA_TYPES) {
+          map.put(dataType, new Magazine());
+        }
+        return map;
+      });
+
+  private final LongAdder allocatedBytes = new LongAdder();
+
+  /**
+   * the bytes of the idle arrays in the depots, updated only when arrays are moved between the
+   * magazines and the depots.
+   */
+  private final LongAdder pooledBytes = new LongAdder();
 
   public static PrimitiveArrayPool getInstance() {
     return INSTANCE;
@@ -52,70 +89,132 @@ public class PrimitiveArrayPool {
   private static final PrimitiveArrayPool INSTANCE = new PrimitiveArrayPool();
 
 
-  private PrimitiveArrayPool() {}
+  private PrimitiveArrayPool() {
+    for (TSDataType dataType : DATA_TYPES) {
+      depots.put(dataType, new Depot());
+    }
+  }
+
+  public Object getPrimitiveDataListByType(TSDataType dataType) {
+    Depot depot = depots.get(dataType);
+    if (depot == null) {
+      throw new UnSupportedDataTypeException("DataType: " + dataType);
+    }
+    Magazine magazine = magazines.get().get(dataType);
+    if (magazine.size == 0) {
+      depot.refill(magazine, dataType);
+    }
+    Object dataArray = magazine.pop();
+    if (dataArray == null) {
+      dataArray = newArray(dataType);
+    }
+    allocatedBytes.add(getArraySizeInBytes(dataType));
+    return dataArray;
+  }
 
-  public synchronized Object getPrimitiveDataListByType(TSDataType dataType) {
-    ArrayDeque dataListQueue = primitiveArraysMap.computeIfAbsent(dataType, k ->new ArrayDeque<>());
-    Object dataArray = dataListQueue.poll();
+  private Object newArray(TSDataType dataType) {
     switch (dataType) {
       case BOOLEAN:
-        if (dataArray == null) {
-          dataArray = new boolean[ARRAY_SIZE];
-        }
-        break;
+        return new boolean[ARRAY_SIZE];
       case INT32:
-        if (dataArray == null) {
-          dataArray = new int[ARRAY_SIZE];
-        }
-        break;
+        return new int[ARRAY_SIZE];
       case INT64:
-        if (dataArray == null) {
-          dataArray = new long[ARRAY_SIZE];
-        }
-        break;
+        return new long[ARRAY_SIZE];
       case FLOAT:
-        if (dataArray == null) {
-          dataArray = new float[ARRAY_SIZE];
-        }
-        break;
+        return new float[ARRAY_SIZE];
       case DOUBLE:
-        if (dataArray == null) {
-          dataArray = new double[ARRAY_SIZE];
-        }
-        break;
+        return new double[ARRAY_SIZE];
       case TEXT:
-        if (dataArray == null) {
-          dataArray = new Binary[ARRAY_SIZE];
-        }
-        break;
+        return new Binary[ARRAY_SIZE];
       default:
         throw new UnSupportedDataTypeException("DataType: " + dataType);
     }
-    return dataArray;
   }
 
+  public void release(Object dataArray) {
+    TSDataType dataType = getDataType(dataArray);
+    if (dataType == null) {
+      return;
+    }
+    allocatedBytes.add(-getArraySizeInBytes(dataType));
+    Magazine magazine = magazines.get().get(dataType);
+    if (magazine.size == MAGAZINE_SIZE) {
+      depots.get(dataType).drain(magazine, dataType);
+    }
+    magazine.push(dataArray);
+  }
+
+  /**
+   * stop counting an array got from the pool as in use without putting it back, for the arrays
+   * that are left to the GC because others may still read them.
+   */
+  public void discard(Object dataArray) {
+    TSDataType dataType = getDataType(dataArray);
+    if (dataType != null) {
+      allocatedBytes.add(-getArraySizeInBytes(dataType));
+    }
+  }
 
-  public synchronized void release(Object dataArray) {
+  private TSDataType getDataType(Object dataArray) {
     if (dataArray instanceof boolean[]) {
-      primitiveArraysMap.get(TSDataType.BOOLEAN).add(dataArray);
+      return TSDataType.BOOLEAN;
     } else if (dataArray instanceof int[]) {
-      primitiveArraysMap.get(TSDataType.INT32).add(dataArray);
-    } else if (dataArray instanceof long[]){
-      primitiveArraysMap.get(TSDataType.INT64).add(dataArray);
+      return TSDataType.INT32;
+    } else if (dataArray instanceof long[]) {
+      return TSDataType.INT64;
     } else if (dataArray instanceof float[]) {
-      primitiveArraysMap.get(TSDataType.FLOAT).add(dataArray);
+      return TSDataType.FLOAT;
     } else if (dataArray instanceof double[]) {
-      primitiveArraysMap.get(TSDataType.DOUBLE).add(dataArray);
+      return TSDataType.DOUBLE;
     } else if (dataArray instanceof Binary[]) {
-      primitiveArraysMap.get(TSDataType.TEXT).add(dataArray);
+      return TSDataType.TEXT;
     }
+    return null;
+  }
+
+  /**
+   * @return the bytes of an array of the data type, a Binary[] is counted by its references only
+   */
+  public static long getArraySizeInBytes(TSDataType dataType) {
+    switch (dataType) {
+      case BOOLEAN:
+        return ARRAY_SIZE;
+      case INT32:
+      case FLOAT:
+        return (long) ARRAY_SIZE * Integer.BYTES;
+      case INT64:
+      case DOUBLE:
+      case TEXT:
+        return (long) ARRAY_SIZE * Long.BYTES;
+      default:
+        throw new UnSupportedDataTypeException("DataType: " + dataType);
+    }
+  }
+
+  /**
+   * @return the bytes of the arrays got from the pool and not released yet
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes.sum();
+  }
+
+  /**
+   * @return the bytes of the idle arrays shared by all threads, excluding the ones kept by each
+   * thread
+   */
+  public long getPooledBytes() {
+    return pooledBytes.sum();
+  }
+
+  private long getMaxPooledBytes() {
+    return (long) (CONFIG.getAllocateMemoryForWrite() * CONFIG.getPrimitiveArrayPoolProportion());
   }
 
   /**
    * @param size needed capacity
    * @return an array of primitive data arrays
    */
-  public synchronized Object getDataListsByType(TSDataType dataType, int size) {
+  public Object getDataListsByType(TSDataType dataType, int size) {
     int arrayNumber = (int) Math.ceil((float) size / (float)ARRAY_SIZE);
     switch (dataType) {
       case BOOLEAN:
@@ -159,4 +258,58 @@ public class PrimitiveArrayPool {
     }
   }
 
+  /**
+   * the idle arrays of a data type kept by a thread, accessed by that thread only.
+   */
+  private static class Magazine {
+
+    private final Object[] arrays = new Object[MAGAZINE_SIZE];
+    private int size = 0;
+
+    private Object pop() {
+      if (size == 0) {
+        return null;
+      }
+      Object array = arrays[--size];
+      arrays[size] = null;
+      return array;
+    }
+
+    private void push(Object array) {
+      arrays[size++] = array;
+    }
+  }
+
+  /**
+   * the idle arrays of a data type shared by all threads, which are moved from and to the
+   * magazines MAGAZINE_SIZE / 2 at a time.
+   */
+  private class Depot {
+
+    private final ArrayDeque<Object> arrays = new ArrayDeque<>();
+
+    private synchronized void refill(Magazine magazine, TSDataType dataType) {
+      long arraySize = getArraySizeInBytes(dataType);
+      for (int i = 0; i < MAGAZINE_SIZE / 2 && !arrays.isEmpty(); i++) {
+        magazine.push(arrays.poll());
+        pooledBytes.add(-arraySize);
+      }
+    }
+
+    /**
+     * move half of the full magazine into the depot, the arrays beyond the bound are left to the
+     * GC instead.
+     */
+    private synchronized void drain(Magazine magazine, TSDataType dataType) {
+      long arraySize = getArraySizeInBytes(dataType);
+      long maxPooledBytes = getMaxPooledBytes();
+      for (int i = 0; i < MAGAZINE_SIZE / 2; i++) {
+        Object array = magazine.pop();
+        if (pooledBytes.sum() + arraySize <= maxPooledBytes) {
+          arrays.push(array);
+          pooledBytes.add(arraySize);
+        }
+      }
+    }
+  }
 }
@@ -24,9 +24,13 @@ import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.adapter.IoTDBConfigDynamicAdapter;
 import org.apache.iotdb.db.cost.statistic.Measurement;
 import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.cache.ChunkCacheMonitor;
+import org.apache.iotdb.db.engine.cache.MetadataCacheMonitor;
+import org.apache.iotdb.db.engine.merge.MergeManager;
 import org.apache.iotdb.db.exception.StartupException;
 import org.apache.iotdb.db.metadata.MManager;
 import org.apache.iotdb.db.monitor.StatMonitor;
+import org.apache.iotdb.db.query.pool.QueryTaskPoolManager;
 import org.apache.iotdb.db.rescon.TVListAllocator;
 import org.apache.iotdb.db.sync.receiver.SyncServerManager;
 import org.apache.iotdb.db.writelog.manager.MultiFileLogNodeManager;
@@ -72,6 +76,7 @@ public class IoTDB implements IoTDBMBean {
 
   private void setUp() throws StartupException {
     logger.info("Setting up IoTDB...");
+    long startTime = System.currentTimeMillis();
 
     Runtime.getRuntime().addShutdownHook(new IoTDBShutdownHook());
     setUncaughtExceptionHandler();
@@ -87,8 +92,13 @@ public class IoTDB implements IoTDBMBean {
       StatMonitor.getInstance().recovery();
     }
 
+    long phaseStartTime = System.currentTimeMillis();
     initMManager();
+    logger.info("Metadata is recovered in {}ms", System.currentTimeMillis() - phaseStartTime);
+    phaseStartTime = System.currentTimeMillis();
     registerManager.register(StorageEngine.getInstance());
+    logger.info("Storage engine is recovered in {}ms", System.currentTimeMillis() - phaseStartTime);
+    phaseStartTime = System.currentTimeMillis();
     registerManager.register(MultiFileLogNodeManager.getInstance());
     registerManager.register(JMXService.getInstance());
     registerManager.register(JDBCService.getInstance());
@@ -97,10 +107,16 @@ public class IoTDB implements IoTDBMBean {
     registerManager.register(Measurement.INSTANCE);
     registerManager.register(SyncServerManager.getInstance());
     registerManager.register(TVListAllocator.getInstance());
+    registerManager.register(MergeManager.getInstance());
+    registerManager.register(QueryTaskPoolManager.getInstance());
+    registerManager.register(MetadataCacheMonitor.getInstance());
+    registerManager.register(ChunkCacheMonitor.getInstance());
 
     JMXService.registerMBean(getInstance(), mbeanName);
+    logger.info("Other services are started in {}ms",
+        System.currentTimeMillis() - phaseStartTime);
 
-    logger.info("IoTDB is set up.");
+    logger.info("IoTDB is set up in {}ms.", System.currentTimeMillis() - startTime);
   }
 
   private void deactivate() {
@@ -25,14 +25,18 @@ public enum ServiceType {
   JDBC_SERVICE("JDBC ServerService", "JDBCService"),
   MONITOR_SERVICE("Monitor ServerService", "Monitor"),
   STAT_MONITOR_SERVICE("Statistics ServerService", ""),
-  WAL_SERVICE("WAL ServerService", ""),
+  WAL_SERVICE("WAL ServerService", "MultiFileLogNodeManager"),
   CLOSE_MERGE_SERVICE("Close&Merge ServerService", ""),
   JVM_MEM_CONTROL_SERVICE("Memory Controller", ""),
   AUTHORIZATION_SERVICE("Authorization ServerService", ""),
   FILE_READER_MANAGER_SERVICE("File reader manager ServerService", ""),
   SYNC_SERVICE("SYNC ServerService", ""),
   PERFORMANCE_STATISTIC_SERVICE("PERFORMANCE_STATISTIC_SERVICE","PERFORMANCE_STATISTIC_SERVICE"),
-  TVLIST_ALLOCATOR_SERVICE("TVList Allocator", "");
+  TVLIST_ALLOCATOR_SERVICE("TVList Allocator", ""),
+  MERGE_SERVICE("Merge Manager", "MergeManager"),
+  QUERY_TASK_POOL_SERVICE("Query Task Pool Manager", ""),
+  METADATA_CACHE_MONITOR_SERVICE("Metadata Cache Monitor", "MetadataCacheMonitor"),
+  CHUNK_CACHE_MONITOR_SERVICE("Chunk Cache Monitor", "ChunkCacheMonitor");
 
   private String name;
   private String jmxName;
@@ -28,9 +28,13 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
@@ -58,6 +62,7 @@ import org.apache.iotdb.db.metadata.Metadata;
 import org.apache.iotdb.db.qp.QueryProcessor;
 import org.apache.iotdb.db.qp.executor.QueryProcessExecutor;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.qp.physical.sys.AuthorPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
@@ -70,6 +75,7 @@ import org.apache.iotdb.service.rpc.thrift.TSCloseOperationReq;
 import org.apache.iotdb.service.rpc.thrift.TSCloseOperationResp;
 import org.apache.iotdb.service.rpc.thrift.TSCloseSessionReq;
 import org.apache.iotdb.service.rpc.thrift.TSCloseSessionResp;
+import org.apache.iotdb.service.rpc.thrift.TSBatchInsertionReq;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteBatchStatementReq;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteBatchStatementResp;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteStatementReq;
@@ -94,6 +100,7 @@ import org.apache.iotdb.service.rpc.thrift.TS_Status;
 import org.apache.iotdb.service.rpc.thrift.TS_StatusCode;
 import org.apache.iotdb.tsfile.common.constant.StatisticConstant;
 import org.apache.iotdb.tsfile.exception.filter.QueryFilterOptimizationException;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
@@ -127,6 +134,16 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
   // TODO: remove unclosed statements
   private Map<Long, PhysicalPlan> idStmtMap = new ConcurrentHashMap<>();
 
+  private AtomicLong globalOperationId = new AtomicLong(0L);
+  // (statement) -> (operationId) of the queries executed by the current connection
+  private ThreadLocal<HashMap<String, Long>> queryOperationIds = new ThreadLocal<>();
+  // (operationId) -> (context) of the queries being fetched by all the connections, so that a
+  // query can be cancelled from another connection while its own one is busy fetching it
+  private Map<Long, QueryContext> operationContextMap = new ConcurrentHashMap<>();
+  // (operationId) -> (username) of the queries in operationContextMap, only their owner may
+  // cancel them
+  private Map<Long, String> operationOwnerMap = new ConcurrentHashMap<>();
+
   public TSServiceImpl() throws IOException {
     processor = new QueryProcessor(new QueryProcessExecutor());
   }
@@ -175,6 +192,7 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
   private void initForOneSession() {
     queryStatus.set(new HashMap<>());
     queryRet.set(new HashMap<>());
+    queryOperationIds.set(new HashMap<>());
   }
 
   @Override
@@ -190,6 +208,11 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     } else {
       tsStatus = new TS_Status(TS_StatusCode.SUCCESS_STATUS);
       username.remove();
+      Map<Long, QueryContext> contextMap = contextMapLocal.get();
+      if (contextMap != null) {
+        removeOperations(contextMap.values());
+      }
+      queryOperationIds.remove();
       if (zoneIds.get() != null) {
         zoneIds.remove();
       }
@@ -199,6 +222,38 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
 
   @Override
   public TSCancelOperationResp cancelOperation(TSCancelOperationReq req) {
+    logger.info("{}: receive cancel operation", IoTDBConstant.GLOBAL_DB_NAME);
+    if (!checkLogin()) {
+      logger.info(INFO_NOT_LOGIN, IoTDBConstant.GLOBAL_DB_NAME);
+      return new TSCancelOperationResp(getErrorStatus(ERROR_NOT_LOGIN));
+    }
+    // the resources of the cancelled queries are still released by closeOperation
+    ByteBuffer guid = req.getOperationHandle().getOperationId().bufferForGuid();
+    if (guid.remaining() == Long.BYTES) {
+      // the query may be running in another connection of the same user
+      long operationId = guid.getLong(guid.position());
+      QueryContext context = operationContextMap.get(operationId);
+      if (context != null) {
+        if (!username.get().equals(operationOwnerMap.get(operationId))) {
+          return new TSCancelOperationResp(
+              getErrorStatus("No permissions to cancel the query of another user"));
+        }
+        context.cancel();
+      }
+    }
+    Map<Long, QueryContext> contextMap = contextMapLocal.get();
+    if (contextMap != null) {
+      if (req.isSetQueryId()) {
+        QueryContext context = contextMap.get(req.getQueryId());
+        if (context != null) {
+          context.cancel();
+        }
+      } else {
+        for (QueryContext context : contextMap.values()) {
+          context.cancel();
+        }
+      }
+    }
     return new TSCancelOperationResp(new TS_Status(TS_StatusCode.SUCCESS_STATUS));
   }
 
@@ -231,10 +286,26 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       for (QueryContext context : contextMap.values()) {
         QueryResourceManager.getInstance().endQueryForGivenJob(context.getJobId());
       }
+      removeOperations(contextMap.values());
       contextMapLocal.set(new HashMap<>());
     } else {
-      QueryResourceManager.getInstance()
-          .endQueryForGivenJob(contextMap.remove(req.queryId).getJobId());
+      QueryContext context = contextMap.remove(req.queryId);
+      QueryResourceManager.getInstance().endQueryForGivenJob(context.getJobId());
+      removeOperations(Collections.singletonList(context));
+    }
+  }
+
+  /**
+   * Stop the given queries from being cancelled by other connections.
+   */
+  private void removeOperations(Collection<QueryContext> contexts) {
+    Iterator<Entry<Long, QueryContext>> iterator = operationContextMap.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Entry<Long, QueryContext> entry = iterator.next();
+      if (contexts.contains(entry.getValue())) {
+        operationOwnerMap.remove(entry.getKey());
+        iterator.remove();
+      }
     }
   }
 
@@ -245,6 +316,9 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     if (this.queryStatus.get() != null) {
       this.queryStatus.get().clear();
     }
+    if (this.queryOperationIds.get() != null) {
+      this.queryOperationIds.get().clear();
+    }
   }
 
   private TS_Status getErrorStatus(String message) {
@@ -386,9 +460,9 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
    *
    * @param statement command
    * @return true if the statement is ADMIN COMMAND
-   * @throws IOException exception
+   * @throws StorageEngineException exception
    */
-  private boolean execAdminCommand(String statement) {
+  private boolean execAdminCommand(String statement) throws StorageEngineException {
     if (!"root".equals(username.get())) {
       return false;
     }
@@ -401,8 +475,8 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
         StorageEngine.getInstance().syncCloseAllProcessor();
         return true;
       case "merge":
-        // TODO change to merge!!!
-        throw new UnsupportedOperationException("merge not implemented");
+        StorageEngine.getInstance().mergeAll();
+        return true;
       default:
         return false;
     }
@@ -550,14 +624,17 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       }
 
       resp.setOperationType(plan.getOperatorType().toString());
-      TSHandleIdentifier operationId = new TSHandleIdentifier(
-          ByteBuffer.wrap(username.get().getBytes()),
+      // the guid identifies the query when it is cancelled, whatever the connection is
+      long globalId = globalOperationId.incrementAndGet();
+      ByteBuffer guid = ByteBuffer.allocate(Long.BYTES);
+      guid.putLong(0, globalId);
+      TSHandleIdentifier operationId = new TSHandleIdentifier(guid,
           ByteBuffer.wrap("PASS".getBytes()));
       TSOperationHandle operationHandle;
       resp.setColumns(columns);
       operationHandle = new TSOperationHandle(operationId, true);
       resp.setOperationHandle(operationHandle);
-      recordANewQuery(statement, plan);
+      recordANewQuery(statement, plan, globalId);
       return resp;
     } catch (Exception e) {
       logger.error("{}: Internal server error: ", IoTDBConstant.GLOBAL_DB_NAME, e);
@@ -670,14 +747,33 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       if (!queryRet.get().containsKey(statement)) {
         queryDataSet = createNewDataSet(statement, req);
       } else {
+        QueryContext context = contextMapLocal.get().get(req.queryId);
+        if (context != null && context.isCancelled()) {
+          return getTSFetchResultsResp(TS_StatusCode.ERROR_STATUS, "Query has been cancelled.");
+        }
         queryDataSet = queryRet.get().get(statement);
       }
 
       int fetchSize = req.getFetch_size();
-      TSQueryDataSet result = QueryDataSetUtils
-          .convertQueryDataSetByFetchSize(queryDataSet, fetchSize);
+      TSQueryDataSet result;
+      boolean hasResultSet;
+      if (req.isSetColumnar() && req.isColumnar()) {
+        CompressionType compressionType = CompressionType.UNCOMPRESSED;
+        if (req.isSetCompressionType()) {
+          compressionType = getResultCompressionType(req.getCompressionType());
+          if (compressionType == null) {
+            return getTSFetchResultsResp(TS_StatusCode.ERROR_STATUS,
+                "Unsupported compression type of results: " + req.getCompressionType());
+          }
+        }
+        result = QueryDataSetUtils
+            .convertQueryDataSetByFetchSizeInColumns(queryDataSet, fetchSize, compressionType);
+        hasResultSet = result.getRowCount() > 0;
+      } else {
+        result = QueryDataSetUtils.convertQueryDataSetByFetchSize(queryDataSet, fetchSize);
+        hasResultSet = !result.getRecords().isEmpty();
+      }
 
-      boolean hasResultSet = !result.getRecords().isEmpty();
       if (!hasResultSet && queryRet.get() != null) {
         queryRet.get().remove(statement);
       }
@@ -693,6 +789,19 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     }
   }
 
+  /**
+   * @return the compression of the columnar results named by the client, or null if it is not
+   * UNCOMPRESSED or SNAPPY, the only ones the client can uncompress
+   */
+  private CompressionType getResultCompressionType(String name) {
+    if (CompressionType.UNCOMPRESSED.name().equals(name)) {
+      return CompressionType.UNCOMPRESSED;
+    } else if (CompressionType.SNAPPY.name().equals(name)) {
+      return CompressionType.SNAPPY;
+    }
+    return null;
+  }
+
   private QueryDataSet createNewDataSet(String statement, TSFetchResultsReq req)
       throws PathErrorException, QueryFilterOptimizationException, StorageEngineException,
       ProcessorException, IOException {
@@ -703,6 +812,11 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
 
     initContextMap();
     contextMapLocal.get().put(req.queryId, context);
+    Long operationId = queryOperationIds.get().get(statement);
+    if (operationId != null) {
+      operationOwnerMap.put(operationId, username.get());
+      operationContextMap.put(operationId, context);
+    }
 
     queryDataSet = processor.getExecutor().processQuery(physicalPlan,
         context);
@@ -794,8 +908,9 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     return executeUpdateStatement(physicalPlan);
   }
 
-  private void recordANewQuery(String statement, PhysicalPlan physicalPlan) {
+  private void recordANewQuery(String statement, PhysicalPlan physicalPlan, long operationId) {
     queryStatus.get().put(statement, physicalPlan);
+    queryOperationIds.get().put(statement, operationId);
     // refresh current queryRet for statement
     queryRet.get().remove(statement);
   }
@@ -927,6 +1042,109 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     }
   }
 
+  @Override
+  public TSExecuteStatementResp insertBatch(TSBatchInsertionReq req) {
+    if (!checkLogin()) {
+      logger.info(INFO_NOT_LOGIN, IoTDBConstant.GLOBAL_DB_NAME);
+      return getTSExecuteStatementResp(TS_StatusCode.ERROR_STATUS, ERROR_NOT_LOGIN);
+    }
+
+    String errorMessage = checkBatchInsertion(req);
+    if (errorMessage != null) {
+      return getTSExecuteStatementResp(TS_StatusCode.ERROR_STATUS, errorMessage);
+    }
+
+    try {
+      TSDataType[] dataTypes = new TSDataType[req.getTypesSize()];
+      for (int i = 0; i < dataTypes.length; i++) {
+        dataTypes[i] = TSDataType.deserialize(req.getTypes().get(i).shortValue());
+      }
+      long[] times = QueryDataSetUtils.readTimesFromBuffer(req.bufferForTimestamps(),
+          req.getSize());
+      Object[] columns = QueryDataSetUtils.readValuesFromBuffer(req.bufferForValues(),
+          dataTypes, req.getSize());
+      BatchInsertPlan plan = new BatchInsertPlan(req.getDeviceId(),
+          req.getMeasurements().toArray(new String[0]), dataTypes, times, columns);
+      return executeUpdateStatement(plan);
+    } catch (Exception e) {
+      logger.info("meet error while executing a batch insertion into {}", req.getDeviceId(), e);
+      return getTSExecuteStatementResp(TS_StatusCode.ERROR_STATUS, e.getMessage());
+    }
+  }
+
+  /**
+   * check that the types match the measurements and the buffers hold the given number of rows of
+   * these types, so that a malformed request is not read beyond its buffers.
+   *
+   * @return the error message, or null if the request is well-formed
+   */
+  private String checkBatchInsertion(TSBatchInsertionReq req) {
+    int size = req.getSize();
+    if (size < 0) {
+      return "Negative number of rows: " + size;
+    }
+    if (req.getTypesSize() != req.getMeasurementsSize()) {
+      return String.format("%d types are given for %d measurements", req.getTypesSize(),
+          req.getMeasurementsSize());
+    }
+    if (req.bufferForTimestamps().remaining() < (long) size * Long.BYTES) {
+      return String.format("The timestamps are fewer than %d rows", size);
+    }
+    ByteBuffer values = req.bufferForValues().duplicate();
+    for (int i = 0; i < req.getTypesSize(); i++) {
+      short type = req.getTypes().get(i).shortValue();
+      if (type < 0 || type >= TSDataType.values().length) {
+        return String.format("Unknown type %d of measurement %s", type,
+            req.getMeasurements().get(i));
+      }
+      if (!skipColumn(values, TSDataType.deserialize(type), size)) {
+        return String.format("The values of measurement %s are fewer than %d rows",
+            req.getMeasurements().get(i), size);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * move the buffer over a packed value column of the given rows.
+   *
+   * @return false if the buffer ends before the column does
+   */
+  private boolean skipColumn(ByteBuffer values, TSDataType dataType, int size) {
+    int valueSize;
+    switch (dataType) {
+      case BOOLEAN:
+        valueSize = 1;
+        break;
+      case INT32:
+      case FLOAT:
+        valueSize = Integer.BYTES;
+        break;
+      case INT64:
+      case DOUBLE:
+        valueSize = Long.BYTES;
+        break;
+      default:
+        // TEXT, each value is prefixed with its length
+        for (int row = 0; row < size; row++) {
+          if (values.remaining() < Integer.BYTES) {
+            return false;
+          }
+          int length = values.getInt();
+          if (length < 0 || values.remaining() < length) {
+            return false;
+          }
+          values.position(values.position() + length);
+        }
+        return true;
+    }
+    if (values.remaining() < (long) size * valueSize) {
+      return false;
+    }
+    values.position(values.position() + size * valueSize);
+    return true;
+  }
+
   @Override
   public long requestStatementId() {
     return globalStmtId.incrementAndGet();
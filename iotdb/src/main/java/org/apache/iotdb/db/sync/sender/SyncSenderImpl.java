@@ -47,6 +47,8 @@ import org.apache.commons.io.FileUtils;
 import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.db.concurrent.ThreadName;
 import org.apache.iotdb.db.exception.SyncConnectionException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.metadata.MetadataConstant;
 import org.apache.iotdb.db.sync.conf.Constans;
 import org.apache.iotdb.db.sync.conf.SyncSenderConfig;
 import org.apache.iotdb.db.sync.conf.SyncSenderDescriptor;
@@ -418,6 +420,27 @@ public class SyncSenderImpl implements SyncSender {
    */
   @Override
   public void syncSchema() throws SyncConnectionException {
+    // the schema log only holds what was created after the metadata snapshot, if any, so a log of
+    // the whole schema is regenerated for the receiver to replay
+    File schemaFile;
+    try {
+      schemaFile = File.createTempFile(MetadataConstant.METADATA_LOG, ".sync");
+      MManager.exportLog(new File(config.getSchemaPath()).getParentFile(), schemaFile);
+    } catch (IOException e) {
+      throw new SyncConnectionException("Cannot export the schema to sync", e);
+    }
+    try {
+      syncSchema(schemaFile);
+    } finally {
+      try {
+        Files.deleteIfExists(schemaFile.toPath());
+      } catch (IOException e) {
+        logger.warn("Cannot delete the exported schema {}", schemaFile, e);
+      }
+    }
+  }
+
+  private void syncSchema(File schemaFile) throws SyncConnectionException {
     int retryCount = 0;
     outer:
     while (true) {
@@ -427,7 +450,7 @@ public class SyncSenderImpl implements SyncSender {
             .format("can not sync schema after %s tries.", Constans.MAX_SYNC_FILE_TRY));
       }
       byte[] buffer = new byte[Constans.DATA_CHUNK_SIZE];
-      try (FileInputStream fis = new FileInputStream(new File(config.getSchemaPath()));
+      try (FileInputStream fis = new FileInputStream(schemaFile);
           ByteArrayOutputStream bos = new ByteArrayOutputStream(Constans.DATA_CHUNK_SIZE)) {
         // Get md5 of the file.
         MessageDigest md = MessageDigest.getInstance("MD5");
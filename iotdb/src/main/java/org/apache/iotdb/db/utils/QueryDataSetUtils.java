@@ -14,6 +14,7 @@
  */
 package org.apache.iotdb.db.utils;
 
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
@@ -21,10 +22,15 @@ import java.util.List;
 import org.apache.iotdb.service.rpc.thrift.TSDataValue;
 import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
 import org.apache.iotdb.service.rpc.thrift.TSRowRecord;
+import org.apache.iotdb.tsfile.compress.ICompressor;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.Field;
 import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.utils.PublicBAOS;
 
 /**
  * TimeValuePairUtils to convert between thrift format and TsFile format.
@@ -56,6 +62,117 @@ public class QueryDataSetUtils {
     return tsQueryDataSet;
   }
 
+  /**
+   * convert query data set by fetch size into the columnar format of TSQueryDataSet: the
+   * timestamps, the non-null values of each column and a bitmap per column marking which rows
+   * have a value are each packed into one buffer, and the buffers are compressed if required.
+   *
+   * @param queryDataSet -query dataset
+   * @param fetchSize -fetch size
+   * @param compressionType -how the buffers are compressed
+   * @return -convert query dataset
+   */
+  public static TSQueryDataSet convertQueryDataSetByFetchSizeInColumns(QueryDataSet queryDataSet,
+      int fetchSize, CompressionType compressionType) throws IOException {
+    int columnNum = queryDataSet.getPaths().size();
+    PublicBAOS timeBAOS = new PublicBAOS();
+    DataOutputStream timeStream = new DataOutputStream(timeBAOS);
+    PublicBAOS[] valueBAOSs = new PublicBAOS[columnNum];
+    DataOutputStream[] valueStreams = new DataOutputStream[columnNum];
+    PublicBAOS[] bitmapBAOSs = new PublicBAOS[columnNum];
+    TSDataType[] dataTypes = new TSDataType[columnNum];
+    int[] currentBitmaps = new int[columnNum];
+    for (int i = 0; i < columnNum; i++) {
+      valueBAOSs[i] = new PublicBAOS();
+      valueStreams[i] = new DataOutputStream(valueBAOSs[i]);
+      bitmapBAOSs[i] = new PublicBAOS();
+    }
+
+    int rowCount = 0;
+    while (rowCount < fetchSize && queryDataSet.hasNext()) {
+      RowRecord rowRecord = queryDataSet.next();
+      timeStream.writeLong(rowRecord.getTimestamp());
+      List<Field> fields = rowRecord.getFields();
+      for (int i = 0; i < columnNum; i++) {
+        Field field = fields.get(i);
+        currentBitmaps[i] <<= 1;
+        if (field.getDataType() != null) {
+          currentBitmaps[i] |= 1;
+          dataTypes[i] = field.getDataType();
+          writeField(field, valueStreams[i]);
+        }
+      }
+      rowCount++;
+      if (rowCount % 8 == 0) {
+        for (int i = 0; i < columnNum; i++) {
+          bitmapBAOSs[i].write(currentBitmaps[i]);
+          currentBitmaps[i] = 0;
+        }
+      }
+    }
+    if (rowCount % 8 != 0) {
+      // pad the last byte so that row i is always bit (7 - i % 8) of byte i / 8
+      for (int i = 0; i < columnNum; i++) {
+        bitmapBAOSs[i].write(currentBitmaps[i] << (8 - rowCount % 8));
+      }
+    }
+
+    ICompressor compressor = ICompressor.getCompressor(compressionType);
+    TSQueryDataSet tsQueryDataSet = new TSQueryDataSet();
+    tsQueryDataSet.setRecords(new ArrayList<>());
+    tsQueryDataSet.setRowCount(rowCount);
+    tsQueryDataSet.setTime(compress(compressor, compressionType, timeBAOS));
+    List<ByteBuffer> valueList = new ArrayList<>(columnNum);
+    List<ByteBuffer> bitmapList = new ArrayList<>(columnNum);
+    List<Integer> typeList = new ArrayList<>(columnNum);
+    for (int i = 0; i < columnNum; i++) {
+      valueList.add(compress(compressor, compressionType, valueBAOSs[i]));
+      bitmapList.add(compress(compressor, compressionType, bitmapBAOSs[i]));
+      typeList.add(dataTypes[i] == null ? -1 : (int) dataTypes[i].serialize());
+    }
+    tsQueryDataSet.setValueList(valueList);
+    tsQueryDataSet.setBitmapList(bitmapList);
+    tsQueryDataSet.setTypeList(typeList);
+    return tsQueryDataSet;
+  }
+
+  private static void writeField(Field field, DataOutputStream stream) throws IOException {
+    switch (field.getDataType()) {
+      case BOOLEAN:
+        stream.writeBoolean(field.getBoolV());
+        break;
+      case INT32:
+        stream.writeInt(field.getIntV());
+        break;
+      case INT64:
+        stream.writeLong(field.getLongV());
+        break;
+      case FLOAT:
+        stream.writeFloat(field.getFloatV());
+        break;
+      case DOUBLE:
+        stream.writeDouble(field.getDoubleV());
+        break;
+      case TEXT:
+        byte[] bytes = field.getBinaryV().getValues();
+        stream.writeInt(bytes.length);
+        stream.write(bytes);
+        break;
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("data type %s is not supported when convert data at server",
+                field.getDataType().toString()));
+    }
+  }
+
+  private static ByteBuffer compress(ICompressor compressor, CompressionType compressionType,
+      PublicBAOS baos) throws IOException {
+    if (compressionType == CompressionType.UNCOMPRESSED) {
+      return ByteBuffer.wrap(baos.getBuf(), 0, baos.size());
+    }
+    return ByteBuffer.wrap(compressor.compress(baos.toByteArray()));
+  }
+
   /**
    * convert to tsRecord.
    *
@@ -101,4 +218,82 @@ public class QueryDataSetUtils {
     }
     return tsRowRecord;
   }
+
+  /**
+   * read the packed big-endian timestamps of a batch insertion.
+   *
+   * @param buffer -buffer positioned at the first timestamp
+   * @param size -number of rows
+   */
+  public static long[] readTimesFromBuffer(ByteBuffer buffer, int size) {
+    long[] times = new long[size];
+    for (int i = 0; i < size; i++) {
+      times[i] = buffer.getLong();
+    }
+    return times;
+  }
+
+  /**
+   * read the packed value columns of a batch insertion, one primitive array per column.
+   *
+   * @param buffer -buffer positioned at the first value of the first column
+   * @param types -data type of each column
+   * @param size -number of rows
+   */
+  public static Object[] readValuesFromBuffer(ByteBuffer buffer, TSDataType[] types, int size) {
+    Object[] values = new Object[types.length];
+    for (int i = 0; i < types.length; i++) {
+      switch (types[i]) {
+        case BOOLEAN:
+          boolean[] boolValues = new boolean[size];
+          for (int index = 0; index < size; index++) {
+            boolValues[index] = buffer.get() == 1;
+          }
+          values[i] = boolValues;
+          break;
+        case INT32:
+          int[] intValues = new int[size];
+          for (int index = 0; index < size; index++) {
+            intValues[index] = buffer.getInt();
+          }
+          values[i] = intValues;
+          break;
+        case INT64:
+          long[] longValues = new long[size];
+          for (int index = 0; index < size; index++) {
+            longValues[index] = buffer.getLong();
+          }
+          values[i] = longValues;
+          break;
+        case FLOAT:
+          float[] floatValues = new float[size];
+          for (int index = 0; index < size; index++) {
+            floatValues[index] = buffer.getFloat();
+          }
+          values[i] = floatValues;
+          break;
+        case DOUBLE:
+          double[] doubleValues = new double[size];
+          for (int index = 0; index < size; index++) {
+            doubleValues[index] = buffer.getDouble();
+          }
+          values[i] = doubleValues;
+          break;
+        case TEXT:
+          Binary[] binaryValues = new Binary[size];
+          for (int index = 0; index < size; index++) {
+            int binarySize = buffer.getInt();
+            byte[] binaryValue = new byte[binarySize];
+            buffer.get(binaryValue);
+            binaryValues[index] = new Binary(binaryValue);
+          }
+          values[i] = binaryValues;
+          break;
+        default:
+          throw new UnSupportedDataTypeException(String.format(
+              "data type %s is not supported when convert data at server", types[i]));
+      }
+    }
+    return values;
+  }
 }
@@ -44,8 +44,16 @@ public abstract class RandomDeleteCache<K, V> implements Cache<K, V> {
     return v;
   }
 
+  /**
+   * @return the cached value of the key, or null if it is not cached, without loading it
+   */
+  public V getIfPresent(K key) {
+    return cache.get(key);
+  }
+
   private void randomRemoveObjectIfCacheIsFull() throws CacheException {
-    if (cache.size() == this.cacheSize) {
+    // concurrent loads may overshoot the size
+    if (cache.size() >= this.cacheSize) {
       removeFirstObject();
     }
   }
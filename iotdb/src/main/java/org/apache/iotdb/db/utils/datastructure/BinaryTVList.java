@@ -25,6 +25,7 @@ import java.util.List;
 import org.apache.iotdb.db.rescon.PrimitiveArrayPool;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.write.chunk.IChunkWriter;
 
 public class BinaryTVList extends TVList {
 
@@ -83,13 +84,31 @@ public class BinaryTVList extends TVList {
     return cloneList;
   }
 
+  @Override
+  public BinaryTVList snapshot() {
+    BinaryTVList snapshot = new BinaryTVList();
+    snapshotAs(snapshot);
+    snapshot.values.addAll(values);
+    return snapshot;
+  }
+
+  @Override
+  protected void cloneValueArrays() {
+    values.replaceAll(this::cloneValue);
+  }
+
   private Binary[] cloneValue(Binary[] array) {
-    Binary[] cloneArray = new Binary[array.length];
+    Binary[] cloneArray = (Binary[]) PrimitiveArrayPool
+        .getInstance().getPrimitiveDataListByType(TSDataType.TEXT);
     System.arraycopy(array, 0, cloneArray, 0, array.length);
     return cloneArray;
   }
 
   public void sort() {
+    if (sorted) {
+      return;
+    }
+    copyArraysIfShared();
     if (sortedTimestamps == null || sortedTimestamps.length < size) {
       sortedTimestamps = (long[][]) PrimitiveArrayPool
           .getInstance().getDataListsByType(TSDataType.INT64, size);
@@ -108,7 +127,7 @@ public class BinaryTVList extends TVList {
   void clearValue() {
     if (values != null) {
       for (Binary[] dataArray : values) {
-        PrimitiveArrayPool.getInstance().release(dataArray);
+        releaseArray(dataArray);
       }
       values.clear();
     }
@@ -152,6 +171,22 @@ public class BinaryTVList extends TVList {
     }
   }
 
+  @Override
+  public void putBinaries(long[] time, Binary[] value, int start, int end) {
+    putBatch(time, value, start, end);
+  }
+
+  @Override
+  protected Object getValueArray(int arrayIndex) {
+    return values.get(arrayIndex);
+  }
+
+  @Override
+  protected void writeValues(IChunkWriter chunkWriter, long[] timeArray, int arrayIndex,
+      int start, int end) {
+    chunkWriter.write(timeArray, values.get(arrayIndex), start, end);
+  }
+
   @Override
   protected void expandValues() {
     values.add((Binary[]) PrimitiveArrayPool
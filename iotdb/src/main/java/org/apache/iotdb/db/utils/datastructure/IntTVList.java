@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.List;
 import org.apache.iotdb.db.rescon.PrimitiveArrayPool;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.write.chunk.IChunkWriter;
 
 public class IntTVList extends TVList {
 
@@ -82,13 +83,31 @@ public class IntTVList extends TVList {
     return cloneList;
   }
 
+  @Override
+  public IntTVList snapshot() {
+    IntTVList snapshot = new IntTVList();
+    snapshotAs(snapshot);
+    snapshot.values.addAll(values);
+    return snapshot;
+  }
+
+  @Override
+  protected void cloneValueArrays() {
+    values.replaceAll(this::cloneValue);
+  }
+
   private int[] cloneValue(int[] array) {
-    int[] cloneArray = new int[array.length];
+    int[] cloneArray = (int[]) PrimitiveArrayPool
+        .getInstance().getPrimitiveDataListByType(TSDataType.INT32);
     System.arraycopy(array, 0, cloneArray, 0, array.length);
     return cloneArray;
   }
 
   public void sort() {
+    if (sorted) {
+      return;
+    }
+    copyArraysIfShared();
     if (sortedTimestamps == null || sortedTimestamps.length < size) {
       sortedTimestamps = (long[][]) PrimitiveArrayPool
           .getInstance().getDataListsByType(TSDataType.INT64, size);
@@ -107,7 +126,7 @@ public class IntTVList extends TVList {
   void clearValue() {
     if (values != null) {
       for (int[] dataArray : values) {
-        PrimitiveArrayPool.getInstance().release(dataArray);
+        releaseArray(dataArray);
       }
       values.clear();
     }
@@ -151,6 +170,22 @@ public class IntTVList extends TVList {
     }
   }
 
+  @Override
+  public void putInts(long[] time, int[] value, int start, int end) {
+    putBatch(time, value, start, end);
+  }
+
+  @Override
+  protected Object getValueArray(int arrayIndex) {
+    return values.get(arrayIndex);
+  }
+
+  @Override
+  protected void writeValues(IChunkWriter chunkWriter, long[] timeArray, int arrayIndex,
+      int start, int end) {
+    chunkWriter.write(timeArray, values.get(arrayIndex), start, end);
+  }
+
   @Override
   protected void expandValues() {
     values.add((int[]) PrimitiveArrayPool
@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.List;
 import org.apache.iotdb.db.rescon.PrimitiveArrayPool;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.write.chunk.IChunkWriter;
 
 public class LongTVList extends TVList {
 
@@ -82,13 +83,31 @@ public class LongTVList extends TVList {
     return cloneList;
   }
 
+  @Override
+  public LongTVList snapshot() {
+    LongTVList snapshot = new LongTVList();
+    snapshotAs(snapshot);
+    snapshot.values.addAll(values);
+    return snapshot;
+  }
+
+  @Override
+  protected void cloneValueArrays() {
+    values.replaceAll(this::cloneValue);
+  }
+
   private long[] cloneValue(long[] array) {
-    long[] cloneArray = new long[array.length];
+    long[] cloneArray = (long[]) PrimitiveArrayPool
+        .getInstance().getPrimitiveDataListByType(TSDataType.INT64);
     System.arraycopy(array, 0, cloneArray, 0, array.length);
     return cloneArray;
   }
 
   public void sort() {
+    if (sorted) {
+      return;
+    }
+    copyArraysIfShared();
     if (sortedTimestamps == null || sortedTimestamps.length < size) {
       sortedTimestamps = (long[][]) PrimitiveArrayPool
           .getInstance().getDataListsByType(TSDataType.INT64, size);
@@ -107,7 +126,7 @@ public class LongTVList extends TVList {
   void clearValue() {
     if (values != null) {
       for (long[] dataArray : values) {
-        PrimitiveArrayPool.getInstance().release(dataArray);
+        releaseArray(dataArray);
       }
       values.clear();
     }
@@ -151,6 +170,22 @@ public class LongTVList extends TVList {
     }
   }
 
+  @Override
+  public void putLongs(long[] time, long[] value, int start, int end) {
+    putBatch(time, value, start, end);
+  }
+
+  @Override
+  protected Object getValueArray(int arrayIndex) {
+    return values.get(arrayIndex);
+  }
+
+  @Override
+  protected void writeValues(IChunkWriter chunkWriter, long[] timeArray, int arrayIndex,
+      int start, int end) {
+    chunkWriter.write(timeArray, values.get(arrayIndex), start, end);
+  }
+
   @Override
   protected void expandValues() {
     values.add((long[]) PrimitiveArrayPool
@@ -26,6 +26,7 @@ import java.util.List;
 import org.apache.iotdb.db.rescon.PrimitiveArrayPool;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.write.chunk.IChunkWriter;
 
 @SuppressWarnings("unused")
 public abstract class TVList {
@@ -45,6 +46,13 @@ public abstract class TVList {
    */
   private long timeOffset = Long.MIN_VALUE;
 
+  /**
+   * whether the arrays are also referenced by snapshots taken for queries. Shared arrays are
+   * copied before the existing points are modified in place, and they are left to the GC instead
+   * of being put back into the PrimitiveArrayPool.
+   */
+  private boolean shared;
+
   protected long pivotTime;
 
   protected long minTime;
@@ -92,6 +100,30 @@ public abstract class TVList {
     throw new UnsupportedOperationException(ERR_DATATYPE_NOT_CONSISTENT);
   }
 
+  public void putLongs(long[] time, long[] value, int start, int end) {
+    throw new UnsupportedOperationException(ERR_DATATYPE_NOT_CONSISTENT);
+  }
+
+  public void putInts(long[] time, int[] value, int start, int end) {
+    throw new UnsupportedOperationException(ERR_DATATYPE_NOT_CONSISTENT);
+  }
+
+  public void putFloats(long[] time, float[] value, int start, int end) {
+    throw new UnsupportedOperationException(ERR_DATATYPE_NOT_CONSISTENT);
+  }
+
+  public void putDoubles(long[] time, double[] value, int start, int end) {
+    throw new UnsupportedOperationException(ERR_DATATYPE_NOT_CONSISTENT);
+  }
+
+  public void putBinaries(long[] time, Binary[] value, int start, int end) {
+    throw new UnsupportedOperationException(ERR_DATATYPE_NOT_CONSISTENT);
+  }
+
+  public void putBooleans(long[] time, boolean[] value, int start, int end) {
+    throw new UnsupportedOperationException(ERR_DATATYPE_NOT_CONSISTENT);
+  }
+
   public long getLong(int index) {
     throw new UnsupportedOperationException(ERR_DATATYPE_NOT_CONSISTENT);
   }
@@ -132,8 +164,26 @@ public abstract class TVList {
 
   protected abstract void expandValues();
 
+  /**
+   * @return the value array at arrayIndex, which is a primitive array of the data type
+   */
+  protected abstract Object getValueArray(int arrayIndex);
+
   public abstract TVList clone();
 
+  /**
+   * get a sorted, read-only view of the current points, which references the arrays of this list
+   * instead of copying them. The points appended later are out of the range of the view, and the
+   * arrays are copied before the points in the view are moved by sort() or delete(). The caller
+   * must make sure that no point is written into this list concurrently.
+   */
+  public abstract TVList snapshot();
+
+  /**
+   * replace each value array with a copy of it.
+   */
+  protected abstract void cloneValueArrays();
+
   protected abstract void releaseLastValueArray();
 
   protected void releaseLastTimeArray() {
@@ -141,6 +191,7 @@ public abstract class TVList {
   }
 
   public void delete(long upperBound) {
+    copyArraysIfShared();
     int newSize = 0;
     minTime = Long.MAX_VALUE;
     for (int i = 0; i < size; i++) {
@@ -171,6 +222,45 @@ public abstract class TVList {
     cloneList.minTime = minTime;
   }
 
+  protected void snapshotAs(TVList snapshot) {
+    if (!sorted) {
+      sort();
+    }
+    shared = true;
+    snapshot.timestamps.addAll(timestamps);
+    snapshot.size = size;
+    snapshot.minTime = minTime;
+    snapshot.shared = true;
+  }
+
+  /**
+   * copy the arrays referenced by snapshots, so that the points can be modified in place.
+   */
+  protected void copyArraysIfShared() {
+    if (!shared) {
+      return;
+    }
+    // the original arrays are left to the snapshots
+    for (int i = 0; i < timestamps.size(); i++) {
+      PrimitiveArrayPool.getInstance().discard(timestamps.get(i));
+      PrimitiveArrayPool.getInstance().discard(getValueArray(i));
+    }
+    timestamps.replaceAll(this::cloneTime);
+    cloneValueArrays();
+    shared = false;
+  }
+
+  /**
+   * put an array of this list back into the PrimitiveArrayPool unless snapshots may still read it.
+   */
+  protected void releaseArray(Object dataArray) {
+    if (!shared) {
+      PrimitiveArrayPool.getInstance().release(dataArray);
+    } else {
+      PrimitiveArrayPool.getInstance().discard(dataArray);
+    }
+  }
+
   public void clear() {
     size = 0;
     timeOffset = Long.MIN_VALUE;
@@ -181,12 +271,13 @@ public abstract class TVList {
 
     clearValue();
     clearSortedValue();
+    shared = false;
   }
 
   protected void clearTime() {
     if (timestamps != null) {
       for (long[] dataArray : timestamps) {
-        PrimitiveArrayPool.getInstance().release(dataArray);
+        releaseArray(dataArray);
       }
       timestamps.clear();
     }
@@ -212,8 +303,75 @@ public abstract class TVList {
     }
   }
 
+  /**
+   * append the rows [start, end) of the given columns, copying array by array instead of point
+   * by point.
+   *
+   * @param value a primitive array of the data type of this list
+   */
+  protected void putBatch(long[] time, Object value, int start, int end) {
+    updateMinTimeAndSorted(time, start, end);
+    int idx = start;
+    while (idx < end) {
+      checkExpansion();
+      int arrayIndex = size / ARRAY_SIZE;
+      int elementIndex = size % ARRAY_SIZE;
+      int length = Math.min(end - idx, ARRAY_SIZE - elementIndex);
+      System.arraycopy(time, idx, timestamps.get(arrayIndex), elementIndex, length);
+      System.arraycopy(value, idx, getValueArray(arrayIndex), elementIndex, length);
+      idx += length;
+      size += length;
+    }
+  }
+
+  private void updateMinTimeAndSorted(long[] time, int start, int end) {
+    long lastTime = size > 0 ? getTime(size - 1) : Long.MIN_VALUE;
+    for (int i = start; i < end; i++) {
+      minTime = minTime <= time[i] ? minTime : time[i];
+      if (sorted && time[i] < lastTime) {
+        sorted = false;
+      }
+      lastTime = time[i];
+    }
+  }
+
+  /**
+   * write the points of a sorted list into the chunk writer, passing slices of the backing arrays
+   * instead of points. Of the points with the same timestamp only the last one is written.
+   */
+  public void writeTo(IChunkWriter chunkWriter) {
+    for (int arrayIndex = 0; arrayIndex * ARRAY_SIZE < size; arrayIndex++) {
+      long[] timeArray = timestamps.get(arrayIndex);
+      int arrayEnd = Math.min(ARRAY_SIZE, size - arrayIndex * ARRAY_SIZE);
+      // the last point of an array may be duplicated by the first point of the next array
+      boolean hasNextArray = (arrayIndex + 1) * ARRAY_SIZE < size;
+      long nextArrayTime = hasNextArray ? timestamps.get(arrayIndex + 1)[0] : 0;
+      int sliceStart = 0;
+      for (int i = 0; i < arrayEnd; i++) {
+        boolean duplicated = i + 1 < arrayEnd ? timeArray[i] == timeArray[i + 1]
+            : hasNextArray && timeArray[i] == nextArrayTime;
+        if (duplicated) {
+          if (sliceStart < i) {
+            writeValues(chunkWriter, timeArray, arrayIndex, sliceStart, i);
+          }
+          sliceStart = i + 1;
+        }
+      }
+      if (sliceStart < arrayEnd) {
+        writeValues(chunkWriter, timeArray, arrayIndex, sliceStart, arrayEnd);
+      }
+    }
+  }
+
+  /**
+   * write the points [start, end) of the arrays at arrayIndex into the chunk writer.
+   */
+  protected abstract void writeValues(IChunkWriter chunkWriter, long[] timeArray, int arrayIndex,
+      int start, int end);
+
   protected long[] cloneTime(long[] array) {
-    long[] cloneArray = new long[array.length];
+    long[] cloneArray = (long[]) PrimitiveArrayPool.getInstance()
+        .getPrimitiveDataListByType(TSDataType.INT64);
     System.arraycopy(array, 0, cloneArray, 0, array.length);
     return cloneArray;
   }
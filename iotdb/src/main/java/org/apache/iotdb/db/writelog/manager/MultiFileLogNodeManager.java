@@ -21,12 +21,17 @@ package org.apache.iotdb.db.writelog.manager;
 import java.io.IOException;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.db.concurrent.ThreadName;
 import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.StorageEngine;
 import org.apache.iotdb.db.exception.StartupException;
 import org.apache.iotdb.db.service.IService;
+import org.apache.iotdb.db.service.JMXService;
 import org.apache.iotdb.db.service.ServiceType;
 import org.apache.iotdb.db.writelog.node.ExclusiveWriteLogNode;
 import org.apache.iotdb.db.writelog.node.WriteLogNode;
@@ -37,12 +42,28 @@ import org.slf4j.LoggerFactory;
  * MultiFileLogNodeManager manages all ExclusiveWriteLogNodes, each manages WALs of a TsFile
  * (either seq or unseq).
  */
-public class MultiFileLogNodeManager implements WriteLogNodeManager, IService {
+public class MultiFileLogNodeManager implements WriteLogNodeManager, IService,
+    MultiFileLogNodeManagerMBean {
 
   private static final Logger logger = LoggerFactory.getLogger(MultiFileLogNodeManager.class);
+  private static final double NS_PER_MS = 1_000_000.0;
   private Map<String, WriteLogNode> nodeMap;
 
+  private final String mbeanName = String
+      .format("%s:%s=%s", IoTDBConstant.IOTDB_PACKAGE, IoTDBConstant.JMX_TYPE,
+          getID().getJmxName());
+
+  // statistics of the batches written by the sync tasks of the nodes in group commit mode
+  private AtomicLong groupCommitBatchNum = new AtomicLong();
+  private AtomicLong groupCommitLogNum = new AtomicLong();
+  private AtomicLong groupCommitByteNum = new AtomicLong();
+  private AtomicLong groupCommitForceNum = new AtomicLong();
+  private AtomicLong totalForceTimeNs = new AtomicLong();
+  private AtomicLong maxForceTimeNs = new AtomicLong();
+
   private Thread forceThread;
+  // runs the sync tasks of all log nodes in group commit mode, created by the first such task
+  private ExecutorService groupCommitExecutor;
   private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
 
   private final Runnable forceTask = () -> {
@@ -95,6 +116,92 @@ public class MultiFileLogNodeManager implements WriteLogNodeManager, IService {
     return node;
   }
 
+  /**
+   * @return the executor shared by all log nodes to write and force their logs in group commit
+   * mode
+   */
+  public synchronized ExecutorService getGroupCommitExecutor() {
+    if (groupCommitExecutor == null || groupCommitExecutor.isShutdown()) {
+      groupCommitExecutor = IoTDBThreadPoolFactory
+          .newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+              ThreadName.WAL_DAEMON.getName());
+    }
+    return groupCommitExecutor;
+  }
+
+  private synchronized void stopGroupCommitExecutor() {
+    if (groupCommitExecutor != null) {
+      groupCommitExecutor.shutdown();
+      groupCommitExecutor = null;
+    }
+  }
+
+  /**
+   * record a batch of logs written by the sync task of a log node in group commit mode.
+   *
+   * @param logNum number of logs in the batch
+   * @param byteNum size of the batch
+   * @param forceTimeNs time spent forcing the batch to the disk, negative if it is not forced
+   */
+  public void recordGroupCommit(int logNum, long byteNum, long forceTimeNs) {
+    groupCommitBatchNum.incrementAndGet();
+    groupCommitLogNum.addAndGet(logNum);
+    groupCommitByteNum.addAndGet(byteNum);
+    if (forceTimeNs >= 0) {
+      groupCommitForceNum.incrementAndGet();
+      totalForceTimeNs.addAndGet(forceTimeNs);
+      maxForceTimeNs.accumulateAndGet(forceTimeNs, Math::max);
+    }
+  }
+
+  @Override
+  public int getLogNodeNum() {
+    return nodeMap.size();
+  }
+
+  @Override
+  public long getGroupCommitBatchNum() {
+    return groupCommitBatchNum.get();
+  }
+
+  @Override
+  public long getGroupCommitLogNum() {
+    return groupCommitLogNum.get();
+  }
+
+  @Override
+  public long getGroupCommitByteNum() {
+    return groupCommitByteNum.get();
+  }
+
+  @Override
+  public double getAverageBatchLogNum() {
+    long batchNum = groupCommitBatchNum.get();
+    return batchNum == 0 ? 0 : (double) groupCommitLogNum.get() / batchNum;
+  }
+
+  @Override
+  public double getAverageBatchByteNum() {
+    long batchNum = groupCommitBatchNum.get();
+    return batchNum == 0 ? 0 : (double) groupCommitByteNum.get() / batchNum;
+  }
+
+  @Override
+  public long getGroupCommitForceNum() {
+    return groupCommitForceNum.get();
+  }
+
+  @Override
+  public double getAverageForceLatencyMs() {
+    long forceNum = groupCommitForceNum.get();
+    return forceNum == 0 ? 0 : totalForceTimeNs.get() / NS_PER_MS / forceNum;
+  }
+
+  @Override
+  public double getMaxForceLatencyMs() {
+    return maxForceTimeNs.get() / NS_PER_MS;
+  }
+
   @Override
   public void deleteNode(String identifier) throws IOException {
     WriteLogNode node = nodeMap.remove(identifier);
@@ -107,6 +214,7 @@ public class MultiFileLogNodeManager implements WriteLogNodeManager, IService {
   public void close() {
     if (!isActivated(forceThread)) {
       logger.error("MultiFileLogNodeManager has not yet started");
+      stopGroupCommitExecutor();
       return;
     }
     logger.info("LogNodeManager starts closing..");
@@ -126,6 +234,7 @@ public class MultiFileLogNodeManager implements WriteLogNodeManager, IService {
       }
     }
     nodeMap.clear();
+    stopGroupCommitExecutor();
     logger.info("LogNodeManager closed.");
   }
 
@@ -135,6 +244,7 @@ public class MultiFileLogNodeManager implements WriteLogNodeManager, IService {
       if (!config.isEnableWal()) {
         return;
       }
+      JMXService.registerMBean(getInstance(), mbeanName);
       if (!isActivated(forceThread)) {
         if (config.getForceWalPeriodInMs() > 0) {
           InstanceHolder.instance.forceThread = new Thread(InstanceHolder.instance.forceTask,
@@ -157,6 +267,7 @@ public class MultiFileLogNodeManager implements WriteLogNodeManager, IService {
     if (!config.isEnableWal()) {
       return;
     }
+    JMXService.deregisterMBean(mbeanName);
     close();
   }
 
@@ -0,0 +1,48 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.writelog.manager;
+
+/**
+ * Statistics of the write ahead log. The group commit statistics only count the batches written by
+ * the sync tasks of the log nodes when enable_wal_group_commit is set.
+ */
+public interface MultiFileLogNodeManagerMBean {
+
+  int getLogNodeNum();
+
+  long getGroupCommitBatchNum();
+
+  long getGroupCommitLogNum();
+
+  long getGroupCommitByteNum();
+
+  double getAverageBatchLogNum();
+
+  double getAverageBatchByteNum();
+
+  /**
+   * @return how many batches have been forced to the disk, the batches are not forced by the sync
+   * threads when wal_durability is ASYNC.
+   */
+  long getGroupCommitForceNum();
+
+  double getAverageForceLatencyMs();
+
+  double getMaxForceLatencyMs();
+}
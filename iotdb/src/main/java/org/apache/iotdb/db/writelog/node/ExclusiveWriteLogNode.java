@@ -20,23 +20,34 @@ import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 import org.apache.commons.io.FileUtils;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.directories.DirectoryManager;
 import org.apache.iotdb.db.engine.StorageEngine;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.writelog.io.ILogReader;
 import org.apache.iotdb.db.writelog.io.ILogWriter;
 import org.apache.iotdb.db.writelog.io.LogWriter;
 import org.apache.iotdb.db.writelog.io.MultiFileLogReader;
+import org.apache.iotdb.db.writelog.manager.MultiFileLogNodeManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * This WriteLogNode is used to manage insert ahead logs of a TsFile.
+ *
+ * By default the inserting thread serializes its log into the buffer under the write lock of the
+ * node and also writes the buffer to the file when it is full. If enable_wal_group_commit is set,
+ * the inserting threads only serialize logs into one of two buffers, and a sync task of the node,
+ * run by the executor shared by all nodes, swaps the buffers and writes (and forces, depending on
+ * wal_durability) the full one as a batch while the inserting threads keep filling the other.
  */
 public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<ExclusiveWriteLogNode> {
 
@@ -52,7 +63,9 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
 
   private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
 
-  private ByteBuffer logBuffer = ByteBuffer.allocate(logBufferSize);
+  private final boolean groupCommit = config.isEnableWalGroupCommit();
+
+  private ByteBuffer logBuffer = groupCommit ? null : ByteBuffer.allocate(logBufferSize);
 
   private ReadWriteLock lock = new ReentrantReadWriteLock();
 
@@ -61,6 +74,28 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
 
   private int bufferedLogNum = 0;
 
+  // the following fields are only used in group commit mode
+
+  private final WalDurability durability = config.getWalDurability();
+
+  /**
+   * protects the buffers and the fields below. The inserting threads serialize logs into
+   * workingBuffer while the sync task writes syncingBuffer without holding this lock.
+   */
+  private final ReentrantLock bufferLock = new ReentrantLock();
+  // signalled when the sync task swaps the buffers or finishes writing a batch
+  private final Condition syncedCondition = bufferLock.newCondition();
+  // allocated by the first write and released when the node is closed
+  private ByteBuffer workingBuffer;
+  private ByteBuffer syncingBuffer;
+  // the number of logs ever put into workingBuffer, and how many of them have been synced
+  private long appendedLogNum = 0;
+  private long syncedLogNum = 0;
+  private boolean syncRequested = false;
+  private boolean syncFailed = false;
+  // whether a sync task of this node is submitted or running, at most one is at any time
+  private boolean syncScheduled = false;
+
   /**
    * constructor of ExclusiveWriteLogNode.
    *
@@ -77,9 +112,25 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
 
   @Override
   public void write(PhysicalPlan plan) throws IOException {
+    write(plan::serializeTo);
+  }
+
+  @Override
+  public void write(BatchInsertPlan plan, int start, int end) throws IOException {
+    write(buffer -> plan.serializeTo(buffer, start, end));
+  }
+
+  /**
+   * @param serializer puts one log into the given buffer
+   */
+  private void write(Consumer<ByteBuffer> serializer) throws IOException {
+    if (groupCommit) {
+      groupCommitWrite(serializer);
+      return;
+    }
     lock.writeLock().lock();
     try {
-      putLog(plan);
+      putLog(serializer);
       if (bufferedLogNum >= config.getFlushWalThreshold()) {
         sync();
       }
@@ -90,23 +141,211 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
     }
   }
 
-  private void putLog(PhysicalPlan plan) {
+  private void putLog(Consumer<ByteBuffer> serializer) {
     logBuffer.mark();
     try {
-      plan.serializeTo(logBuffer);
+      serializer.accept(logBuffer);
     } catch (BufferOverflowException e) {
       logger.info("WAL BufferOverflow !");
       logBuffer.reset();
       sync();
-      plan.serializeTo(logBuffer);
+      serializer.accept(logBuffer);
     }
     bufferedLogNum ++;
   }
 
+  private void groupCommitWrite(Consumer<ByteBuffer> serializer) throws IOException {
+    bufferLock.lock();
+    try {
+      while (true) {
+        checkSyncFailed();
+        if (workingBuffer == null) {
+          workingBuffer = ByteBuffer.allocate(logBufferSize);
+          syncingBuffer = ByteBuffer.allocate(logBufferSize);
+        }
+        workingBuffer.mark();
+        try {
+          serializer.accept(workingBuffer);
+          break;
+        } catch (BufferOverflowException e) {
+          workingBuffer.reset();
+          if (bufferedLogNum == 0) {
+            throw new IOException("Log cannot fit into buffer, please increase wal_buffer_size",
+                e);
+          }
+          // wait until the sync task takes the full buffer away
+          syncRequested = true;
+          scheduleSync();
+          syncedCondition.await();
+        }
+      }
+      long logId = ++appendedLogNum;
+      bufferedLogNum++;
+      if (durability != WalDurability.ASYNC || bufferedLogNum >= config.getFlushWalThreshold()) {
+        scheduleSync();
+      }
+      if (durability == WalDurability.SYNC) {
+        while (syncedLogNum < logId) {
+          checkSyncFailed();
+          syncedCondition.await();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted when waiting for the WAL to be synced", e);
+    } finally {
+      bufferLock.unlock();
+    }
+  }
+
+  private void checkSyncFailed() throws IOException {
+    if (syncFailed) {
+      throw new IOException(String.format("Log node %s failed to sync logs", identifier));
+    }
+  }
+
+  /**
+   * submit a sync task unless one is already submitted or running, must be called with bufferLock
+   * held.
+   */
+  private void scheduleSync() {
+    if (!syncScheduled) {
+      syncScheduled = true;
+      MultiFileLogNodeManager.getInstance().getGroupCommitExecutor().execute(this::syncTask);
+    }
+  }
+
+  private boolean needSync() {
+    return bufferedLogNum > 0 && !syncFailed && (syncRequested
+        || durability != WalDurability.ASYNC || bufferedLogNum >= config.getFlushWalThreshold());
+  }
+
+  /**
+   * swap the buffers and write one batch. If more logs need to be synced afterwards, the task is
+   * submitted again instead of looping, so that a busy node cannot hold a thread of the shared
+   * executor while the other nodes wait.
+   */
+  private void syncTask() {
+    int logNum;
+    long lastLogId;
+    bufferLock.lock();
+    try {
+      if (!needSync()) {
+        syncScheduled = false;
+        syncedCondition.signalAll();
+        return;
+      }
+      ByteBuffer temp = workingBuffer;
+      workingBuffer = syncingBuffer;
+      syncingBuffer = temp;
+      logNum = bufferedLogNum;
+      lastLogId = appendedLogNum;
+      bufferedLogNum = 0;
+      syncRequested = false;
+      syncedCondition.signalAll();
+    } finally {
+      bufferLock.unlock();
+    }
+
+    boolean success = syncBatch(logNum);
+
+    bufferLock.lock();
+    try {
+      if (success) {
+        syncedLogNum = lastLogId;
+      } else {
+        syncFailed = true;
+      }
+      syncScheduled = false;
+      if (needSync()) {
+        scheduleSync();
+      }
+      syncedCondition.signalAll();
+    } finally {
+      bufferLock.unlock();
+    }
+  }
+
+  private boolean syncBatch(int logNum) {
+    lock.writeLock().lock();
+    try {
+      long byteNum = syncingBuffer.position();
+      ILogWriter writer = getCurrentFileWriter();
+      writer.write(syncingBuffer);
+      long forceTimeNs = -1;
+      if (durability != WalDurability.ASYNC) {
+        long startTime = System.nanoTime();
+        writer.force();
+        forceTimeNs = System.nanoTime() - startTime;
+      }
+      syncingBuffer.clear();
+      MultiFileLogNodeManager.getInstance().recordGroupCommit(logNum, byteNum, forceTimeNs);
+      return true;
+    } catch (IOException e) {
+      logger.error("Log node {} sync failed, change system mode to read-only", identifier, e);
+      IoTDBDescriptor.getInstance().getConfig().setReadOnly(true);
+      return false;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * wait until the logs put into the buffer before this call are synced.
+   */
+  private void waitGroupCommit() {
+    bufferLock.lock();
+    try {
+      long lastLogId = appendedLogNum;
+      if (syncedLogNum >= lastLogId) {
+        return;
+      }
+      syncRequested = true;
+      scheduleSync();
+      while (syncedLogNum < lastLogId && !syncFailed) {
+        syncedCondition.await();
+      }
+    } catch (InterruptedException e) {
+      logger.warn("Interrupted when waiting for log node {} to sync", identifier);
+      Thread.currentThread().interrupt();
+    } finally {
+      bufferLock.unlock();
+    }
+  }
+
+  /**
+   * sync all buffered logs and release the buffers, they will be allocated again by the next write.
+   */
+  private void stopGroupCommit() {
+    waitGroupCommit();
+    bufferLock.lock();
+    try {
+      while (syncScheduled) {
+        syncedCondition.await();
+      }
+      workingBuffer = null;
+      syncingBuffer = null;
+    } catch (InterruptedException e) {
+      logger.warn("Interrupted when waiting for the sync task of log node {} to finish",
+          identifier);
+      Thread.currentThread().interrupt();
+    } finally {
+      bufferLock.unlock();
+    }
+  }
+
   @Override
   public void close() {
-    sync();
+    if (groupCommit) {
+      stopGroupCommit();
+    } else {
+      sync();
+    }
     forceWal();
+    closeFileWriter();
+  }
+
+  private void closeFileWriter() {
     lock.writeLock().lock();
     try {
       if (this.currentFileWriter != null) {
@@ -123,13 +362,34 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
 
   @Override
   public void forceSync() {
-    sync();
-    forceWal();
+    if (!groupCommit) {
+      sync();
+      forceWal();
+      return;
+    }
+    waitGroupCommit();
+    if (durability == WalDurability.ASYNC) {
+      // in the other modes each batch has been forced by the sync task
+      forceWal();
+    }
   }
 
 
   @Override
   public void notifyStartFlush() {
+    if (groupCommit) {
+      // the sync task needs the write lock to write the logs of the flushing memtable
+      waitGroupCommit();
+      forceWal();
+      lock.writeLock().lock();
+      try {
+        closeFileWriter();
+        nextFileWriter();
+      } finally {
+        lock.writeLock().unlock();
+      }
+      return;
+    }
     lock.writeLock().lock();
     try {
       close();
@@ -162,9 +422,14 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
 
   @Override
   public void delete() throws IOException {
+    if (groupCommit) {
+      stopGroupCommit();
+    }
     lock.writeLock().lock();
     try {
-      logBuffer.clear();
+      if (logBuffer != null) {
+        logBuffer.clear();
+      }
       close();
       FileUtils.deleteDirectory(new File(logDirectory));
     } finally {
@@ -0,0 +1,41 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.writelog.node;
+
+/**
+ * How durable a write ahead log is when an insertion returns, used when the logs of a log node
+ * are group committed by the sync tasks of the node.
+ */
+public enum WalDurability {
+  /**
+   * The log is only in the buffer. The buffer is written when flush_wal_threshold logs are
+   * buffered or when the force thread forces the node every force_wal_period_in_ms.
+   */
+  ASYNC,
+  /**
+   * The log is only in the buffer. The sync tasks keep writing and forcing whatever is buffered,
+   * so at most the logs of one batch can be lost.
+   */
+  BATCH,
+  /**
+   * The insertion waits until the batch containing its log is written and forced. Concurrent
+   * insertions share one force.
+   */
+  SYNC
+}
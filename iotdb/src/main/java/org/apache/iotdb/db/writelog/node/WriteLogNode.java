@@ -20,6 +20,7 @@ package org.apache.iotdb.db.writelog.node;
 
 import java.io.IOException;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.writelog.io.ILogReader;
 
 /**
@@ -36,6 +37,12 @@ public interface WriteLogNode {
    */
   void write(PhysicalPlan plan) throws IOException;
 
+  /**
+   * Write a wal for the rows [start, end) of a BatchInsertPlan, which is read back as a plan of
+   * end - start rows.
+   */
+  void write(BatchInsertPlan plan, int start, int end) throws IOException;
+
   /**
    * Sync and close streams.
    */
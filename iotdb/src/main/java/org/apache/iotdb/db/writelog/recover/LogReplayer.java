@@ -31,6 +31,7 @@ import org.apache.iotdb.db.engine.modification.ModificationFile;
 import org.apache.iotdb.db.engine.version.VersionController;
 import org.apache.iotdb.db.exception.ProcessorException;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.DeletePlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.UpdatePlan;
@@ -92,6 +93,8 @@ public class LogReplayer {
         PhysicalPlan plan = logReader.next();
         if (plan instanceof InsertPlan) {
           replayInsert((InsertPlan) plan);
+        } else if (plan instanceof BatchInsertPlan) {
+          replayBatchInsert((BatchInsertPlan) plan);
         } else if (plan instanceof DeletePlan) {
           replayDelete((DeletePlan) plan);
         } else if (plan instanceof UpdatePlan) {
@@ -138,6 +141,43 @@ public class LogReplayer {
     recoverMemTable.insert(insertPlan);
   }
 
+  private void replayBatchInsert(BatchInsertPlan batchInsertPlan) {
+    String deviceId = batchInsertPlan.getDeviceId();
+    long[] times = batchInsertPlan.getTimes();
+    Long lastEndTime = currentTsFileResource == null ? null
+        : currentTsFileResource.getEndTimeMap().get(deviceId);
+    int start = 0;
+    while (start < batchInsertPlan.getRowCount()) {
+      // the last chunk group may contain the same data with the logs, ignore such rows in seq file
+      boolean ignored = isDuplicated(lastEndTime, times[start]);
+      int end = start + 1;
+      while (end < batchInsertPlan.getRowCount()
+          && isDuplicated(lastEndTime, times[end]) == ignored) {
+        end++;
+      }
+      if (!ignored) {
+        if (currentTsFileResource != null) {
+          long minTime = batchInsertPlan.getMinTime(start, end);
+          Long startTime = tempStartTimeMap.get(deviceId);
+          if (startTime == null || startTime > minTime) {
+            tempStartTimeMap.put(deviceId, minTime);
+          }
+          long maxTime = batchInsertPlan.getMaxTime(start, end);
+          Long endTime = tempEndTimeMap.get(deviceId);
+          if (endTime == null || endTime < maxTime) {
+            tempEndTimeMap.put(deviceId, maxTime);
+          }
+        }
+        recoverMemTable.insertBatch(batchInsertPlan, start, end);
+      }
+      start = end;
+    }
+  }
+
+  private boolean isDuplicated(Long lastEndTime, long time) {
+    return lastEndTime != null && lastEndTime >= time && !acceptDuplication;
+  }
+
   @SuppressWarnings("unused")
   private void replayUpdate(UpdatePlan updatePlan) {
     // TODO: support update
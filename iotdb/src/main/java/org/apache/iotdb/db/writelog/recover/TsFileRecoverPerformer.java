@@ -26,6 +26,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import org.apache.iotdb.db.conf.directories.DirectoryManager;
 import org.apache.iotdb.db.engine.memtable.IMemTable;
 import org.apache.iotdb.db.engine.memtable.MemTableFlushTask;
 import org.apache.iotdb.db.engine.memtable.PrimitiveMemTable;
@@ -71,6 +72,17 @@ public class TsFileRecoverPerformer {
   }
 
   /**
+   * A TsFile is sealed if its .resource file, which is written after the file is ended, exists
+   * and its WAL, which is deleted after that, does not. A sealed file needs no recovery, so only
+   * its resource is loaded without opening the file.
+   */
+  public boolean isSealed() {
+    return tsFileResource.fileExists() && !new File(DirectoryManager.getInstance().getWALFolder(),
+        logNodePrefix + new File(insertFilePath).getName()).exists();
+  }
+
+  /**
+   * 0. load the resource of a sealed TsFile directly
    * 1. recover the TsFile by RestorableTsFileIOWriter and truncate the file to remaining corrected
    * data
    * 2. redo the WALs to recover unpersisted data
@@ -78,15 +90,24 @@ public class TsFileRecoverPerformer {
    * 4. clean WALs
    */
   public void recover() throws ProcessorException {
-    IMemTable recoverMemTable = new PrimitiveMemTable();
-    this.logReplayer = new LogReplayer(logNodePrefix, insertFilePath, tsFileResource.getModFile(),
-        versionController,
-        tsFileResource, fileSchema, recoverMemTable, acceptUnseq);
     File insertFile = new File(insertFilePath);
     if (!insertFile.exists()) {
       logger.error("TsFile {} is missing, will skip its recovery.", insertFilePath);
       return;
     }
+    if (isSealed()) {
+      try {
+        tsFileResource.deSerialize();
+        return;
+      } catch (IOException e) {
+        throw new ProcessorException("recover the resource file failed: " + insertFilePath
+            + RESOURCE_SUFFIX, e);
+      }
+    }
+    IMemTable recoverMemTable = new PrimitiveMemTable();
+    this.logReplayer = new LogReplayer(logNodePrefix, insertFilePath, tsFileResource.getModFile(),
+        versionController,
+        tsFileResource, fileSchema, recoverMemTable, acceptUnseq);
     // remove corrupted part of the TsFile
     RestorableTsFileIOWriter restorableTsFileIOWriter;
     try {
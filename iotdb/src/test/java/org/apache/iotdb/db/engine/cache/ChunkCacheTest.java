@@ -0,0 +1,179 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.MetadataManagerHelper;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.query.reader.resourceRelated.SeqResourceIterateReader;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.controller.MetadataQuerierByFileImpl;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChunkCacheTest {
+
+  private String storageGroup = "storage_group1";
+  private String systemDir = "data/info";
+  private String deviceId = "root.vehicle.d0";
+  private String measurementId = "s0";
+  private StorageGroupProcessor processor;
+  private WeightedLruCache<ChunkCache.ChunkKey, Chunk> cache;
+
+  @Before
+  public void setUp() throws Exception {
+    MetadataManagerHelper.initMetadata();
+    EnvironmentUtils.envSetUp();
+    processor = new StorageGroupProcessor(systemDir, storageGroup);
+    cache = ChunkCache.getInstance().getCache();
+    ChunkCache.getInstance().clear();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    processor.syncDeleteDataFiles();
+    EnvironmentUtils.cleanEnv();
+    EnvironmentUtils.cleanDir("data");
+  }
+
+  @Test
+  public void testSharedAcrossQueries() throws IOException {
+    prepareSeqFiles();
+    long hitCount = cache.getHitCount();
+
+    assertEquals(10, query());
+    assertEquals(5, cache.size());
+    assertTrue(cache.getUsedWeight() > 0);
+
+    // the second query reads all the chunks from the cache
+    assertEquals(10, query());
+    assertEquals(5, cache.size());
+    assertEquals(hitCount + 5, cache.getHitCount());
+  }
+
+  @Test
+  public void testInvalidateByDeletion() throws IOException {
+    prepareSeqFiles();
+    assertEquals(10, query());
+    assertEquals(5, cache.size());
+
+    // the points of time 1 to 3 are in the first 2 files
+    processor.delete(deviceId, measurementId, 3);
+    assertEquals(3, cache.size());
+    // the chunk of the first file is skipped as all its points are deleted, the deletion of the
+    // second file is applied to the chunk read from the cache
+    assertEquals(7, query());
+    assertEquals(4, cache.size());
+    assertEquals(7, query());
+
+    processor.syncDeleteDataFiles();
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getUsedWeight());
+  }
+
+  @Test
+  public void testMappedFilesUnmapped() throws IOException {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    boolean enableMmapRead = config.isEnableMmapRead();
+    config.setEnableMmapRead(true);
+    try {
+      prepareSeqFiles();
+      assertEquals(10, query());
+      assertEquals(5, cache.size());
+      QueryContext context = new QueryContext(EnvironmentUtils.TEST_QUERY_JOB_ID);
+      String filePath = processor.query(deviceId, measurementId, context).getSeqResources().get(0)
+          .getFile().getPath();
+      TsFileSequenceReader reader = FileReaderManager.getInstance().get(filePath, true);
+      ChunkMetaData chunkMetaData = new MetadataQuerierByFileImpl(reader)
+          .getChunkMetaDataList(new Path(deviceId, measurementId)).get(0);
+      assertFalse(ChunkCache.getInstance().get(chunkMetaData, reader).getData().isDirect());
+
+      // the cached chunks are copies, so they are still readable after the files are unmapped
+      FileReaderManager.getInstance().closeAndRemoveAllOpenedReaders();
+      long hitCount = cache.getHitCount();
+      assertEquals(10, query());
+      assertEquals(hitCount + 5, cache.getHitCount());
+    } finally {
+      config.setEnableMmapRead(enableMmapRead);
+    }
+  }
+
+  /**
+   * 5 sealed files, each of which has 2 points.
+   */
+  private void prepareSeqFiles() {
+    for (int j = 1; j <= 10; j++) {
+      insert(j);
+      if (j % 2 == 0) {
+        processor.putAllWorkingTsFileProcessorIntoClosingList();
+      }
+    }
+    processor.waitForAllCurrentTsFileProcessorsClosed();
+  }
+
+  /**
+   * @return the number of points of the series.
+   */
+  private int query() throws IOException {
+    // a new context for each query, as the modifications are cached in the context
+    QueryContext context = new QueryContext(EnvironmentUtils.TEST_QUERY_JOB_ID);
+    QueryDataSource queryDataSource = processor.query(deviceId, measurementId, context);
+    SeqResourceIterateReader reader = new SeqResourceIterateReader(
+        new Path(deviceId, measurementId), queryDataSource.getSeqResources(), null, context);
+    int count = 0;
+    long lastTime = 0;
+    while (reader.hasNext()) {
+      BatchData batchData = reader.nextBatch();
+      while (batchData.hasNext()) {
+        assertTrue(batchData.currentTime() > lastTime);
+        assertEquals(batchData.currentTime(), batchData.getInt());
+        lastTime = batchData.currentTime();
+        count++;
+        batchData.next();
+      }
+    }
+    reader.close();
+    return count;
+  }
+
+  private void insert(long time) {
+    TSRecord record = new TSRecord(time, deviceId);
+    record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(time)));
+    processor.insert(new InsertPlan(record));
+  }
+}
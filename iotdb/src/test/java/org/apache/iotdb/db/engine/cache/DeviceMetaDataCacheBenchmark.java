@@ -0,0 +1,165 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bench the lookups of device metadata by many query threads, comparing the former cache (a
+ * LinkedHashMap LRU guarded by one monitor, with a per-key intern lock for misses) with
+ * {@link WeightedLruCache}. Most lookups hit a small set of hot devices and the rest are spread
+ * over all devices, so both hits and misses are measured.
+ */
+public class DeviceMetaDataCacheBenchmark {
+
+  private static int numOfWorker = 64;
+  private static int numOfLookupPerWorker = 200000;
+  private static int numOfFile = 100;
+  private static int numOfDevice = 100;
+  private static int numOfHotKey = 50;
+  private static int metadataSize = 1024;
+  /**
+   * the old cache held at most 100 entries, the new one is given the same budget in byte.
+   */
+  private static int cacheEntryNum = 100;
+
+  private static String[] keys = new String[numOfFile * numOfDevice];
+
+  static {
+    for (int i = 0; i < numOfFile; i++) {
+      for (int j = 0; j < numOfDevice; j++) {
+        keys[i * numOfDevice + j] = "data/sequence/root.sg/" + i + ".tsfile" + "root.sg.d" + j;
+      }
+    }
+  }
+
+  private interface Cache {
+
+    byte[] get(String key) throws IOException;
+  }
+
+  private static AtomicLong loadCount = new AtomicLong();
+
+  /**
+   * simulate reading and deserializing a TsDeviceMetadata.
+   */
+  private static byte[] load(String key) {
+    loadCount.incrementAndGet();
+    byte[] metadata = new byte[metadataSize];
+    for (int i = 0; i < metadata.length; i++) {
+      metadata[i] = (byte) (key.charAt(i % key.length()) + i);
+    }
+    return metadata;
+  }
+
+  /**
+   * the former implementation of DeviceMetaDataCache.
+   */
+  private static class SynchronizedLruCache implements Cache {
+
+    private final LinkedHashMap<String, byte[]> lruCache = new LinkedHashMap<String, byte[]>(
+        cacheEntryNum, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+        return size() > cacheEntryNum;
+      }
+    };
+
+    @Override
+    public byte[] get(String key) {
+      synchronized (lruCache) {
+        if (lruCache.containsKey(key)) {
+          return lruCache.get(key);
+        }
+      }
+      synchronized (key.intern()) {
+        synchronized (lruCache) {
+          if (lruCache.containsKey(key)) {
+            return lruCache.get(key);
+          }
+        }
+        byte[] value = load(key);
+        synchronized (lruCache) {
+          lruCache.put(key, value);
+          return lruCache.get(key);
+        }
+      }
+    }
+  }
+
+  private static class StripedCache implements Cache {
+
+    private final WeightedLruCache<String, byte[]> cache = new WeightedLruCache<>("bench",
+        (long) cacheEntryNum * metadataSize, (key, value) -> value.length);
+
+    @Override
+    public byte[] get(String key) throws IOException {
+      return cache.get(key, DeviceMetaDataCacheBenchmark::load);
+    }
+  }
+
+  private static void bench(String name, Cache cache, double hotRatio)
+      throws InterruptedException {
+    loadCount.set(0);
+    CountDownLatch latch = new CountDownLatch(numOfWorker);
+    long startTime = System.nanoTime();
+    for (int i = 0; i < numOfWorker; i++) {
+      int seed = i;
+      new Thread(() -> {
+        try {
+          Random random = new Random(seed);
+          for (int j = 0; j < numOfLookupPerWorker; j++) {
+            int index = random.nextDouble() < hotRatio ? random.nextInt(numOfHotKey)
+                : random.nextInt(keys.length);
+            cache.get(keys[index]);
+          }
+        } catch (IOException e) {
+          e.printStackTrace();
+        } finally {
+          latch.countDown();
+        }
+      }).start();
+    }
+    latch.await();
+    long elapsed = System.nanoTime() - startTime;
+    long lookups = (long) numOfWorker * numOfLookupPerWorker;
+    System.out.println(String.format(
+        "%s: %d threads, hot ratio %.2f, %d lookups, %d loads, the total time: %d ms, "
+            + "%.1f ns per lookup. ", name, numOfWorker, hotRatio, lookups, loadCount.get(), elapsed / 1000_000,
+        (double) elapsed / lookups));
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    // warm up
+    bench("synchronized LRU", new SynchronizedLruCache(), 0.9);
+    bench("striped cache", new StripedCache(), 0.9);
+
+    // hits only, which is where the single monitor is contended
+    bench("synchronized LRU", new SynchronizedLruCache(), 1.0);
+    bench("striped cache", new StripedCache(), 1.0);
+    // mostly hits with misses spread over all devices
+    bench("synchronized LRU", new SynchronizedLruCache(), 0.9);
+    bench("striped cache", new StripedCache(), 0.9);
+  }
+}
@@ -0,0 +1,238 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.executor.EngineQueryRouter;
+import org.apache.iotdb.db.query.fill.IFill;
+import org.apache.iotdb.db.query.fill.PreviousFill;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.db.utils.TimeValuePair;
+import org.apache.iotdb.db.utils.TsPrimitiveType.TsDouble;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.expression.impl.GlobalTimeExpression;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.DoubleDataPoint;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LastValueCacheTest {
+
+  private String storageGroup = "root.test";
+  private String deviceId = "root.test.d0";
+  private String measurementId = "s0";
+  private Path path = new Path(deviceId, measurementId);
+  private LastValueCache cache = LastValueCache.getInstance();
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.envSetUp();
+    MManager.getInstance().setStorageLevelToMTree(storageGroup);
+    MManager.getInstance().addPathToMTree(path.getFullPath(), TSDataType.DOUBLE.toString(),
+        TSEncoding.PLAIN.toString());
+    StorageEngine.getInstance().addTimeSeries(path, TSDataType.DOUBLE, TSEncoding.PLAIN,
+        CompressionType.valueOf(TSFileConfig.compressor), Collections.emptyMap());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testInsertAndFlush() throws Exception {
+    for (int i = 1; i <= 100; i++) {
+      insert(i, i);
+    }
+    assertLast(100, 100);
+    // the cached point is weighed against the capacity of the cache
+    assertEquals(1, cache.getCache().size());
+    assertTrue(cache.getCache().getUsedWeight() > 0);
+
+    // the cached point is updated by the insertions after it is loaded
+    insert(101, 101);
+    insert(101, 1010);
+    assertLast(101, 1010);
+    long[] times = new long[]{103, 102};
+    Object[] columns = new Object[]{new double[]{103, 102}};
+    StorageEngine.getInstance().insertBatch(new BatchInsertPlan(deviceId,
+        new String[]{measurementId}, new TSDataType[]{TSDataType.DOUBLE}, times, columns));
+    assertLast(103, 103);
+
+    // a flush does not change the last point
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    assertLast(103, 103);
+
+    // loaded again from the sealed files
+    cache.clear();
+    assertLast(103, 103);
+  }
+
+  @Test
+  public void testUnseqAndDelete() throws Exception {
+    for (int i = 1; i <= 50; i++) {
+      insert(i, i);
+    }
+    StorageEngine.getInstance().syncCloseAllProcessor();
+
+    // the point at 50 is overwritten by an unsequence point
+    insert(50, 500);
+    insert(20, 200);
+    assertLast(50, 500);
+    cache.clear();
+    assertLast(50, 500);
+
+    StorageEngine.getInstance().delete(deviceId, measurementId, 30);
+    assertLast(50, 500);
+    StorageEngine.getInstance().delete(deviceId, measurementId, 50);
+    assertNull(cache.get(path, newContext()));
+
+    insert(10, 10);
+    assertLast(10, 10);
+
+    StorageEngine.getInstance().deleteAllDataFilesInOneStorageGroup(storageGroup);
+    assertNull(cache.get(path, newContext()));
+  }
+
+  @Test
+  public void testLastAggregationAndPreviousFill() throws Exception {
+    for (int i = 1; i <= 50; i++) {
+      insert(i, i);
+    }
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    insert(60, 60);
+    EngineQueryRouter router = new EngineQueryRouter();
+
+    // answered by the cached point
+    QueryDataSet dataSet = router.aggregate(Collections.singletonList(path),
+        Collections.singletonList("last"), null, newContext());
+    assertEquals(60.0, dataSet.next().getFields().get(0).getDoubleV(), 0);
+    dataSet = router.aggregate(Collections.singletonList(path),
+        Collections.singletonList("max_time"), null, newContext());
+    assertEquals(60, dataSet.next().getFields().get(0).getLongV());
+    // the cached point does not satisfy the filter, so the series is read
+    dataSet = router.aggregate(Collections.singletonList(path),
+        Collections.singletonList("last"), new GlobalTimeExpression(TimeFilter.lt(55)),
+        newContext());
+    assertEquals(50.0, dataSet.next().getFields().get(0).getDoubleV(), 0);
+
+    assertEquals(60.0, previousFill(100, -1), 0);
+    assertEquals(60.0, previousFill(100, 40), 0);
+    assertTrue(Double.isNaN(previousFill(100, 39)));
+    // the query time is before the last point, so the series is read
+    assertEquals(50.0, previousFill(55, -1), 0);
+    assertTrue(Double.isNaN(previousFill(55, 4)));
+  }
+
+  @Test
+  public void testConcurrentLoad() throws Exception {
+    LastValueCache.LastPoint point = new LastValueCache.LastPoint();
+    AtomicInteger loadCount = new AtomicInteger();
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch inserted = new CountDownLatch(1);
+    ExecutorService service = Executors.newFixedThreadPool(4);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      futures.add(service.submit(() -> {
+        point.loadIfAbsent(() -> {
+          loadCount.incrementAndGet();
+          loading.countDown();
+          // an insertion is applied while the point is being loaded
+          try {
+            inserted.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return new TimeValuePair(10, new TsDouble(10));
+        });
+        return point.get();
+      }));
+    }
+    loading.await();
+    point.update(20, new TsDouble(20));
+    inserted.countDown();
+    for (Future<?> future : futures) {
+      TimeValuePair lastPoint = (TimeValuePair) future.get();
+      assertEquals(20, lastPoint.getTimestamp());
+    }
+    service.shutdown();
+    // the TsFiles are read by one of the concurrent misses only
+    assertEquals(1, loadCount.get());
+  }
+
+  /**
+   * @return the filled value, or NaN if it is null
+   */
+  private double previousFill(long queryTime, long beforeRange) throws Exception {
+    Map<TSDataType, IFill> fillTypes = new HashMap<>();
+    fillTypes.put(TSDataType.DOUBLE, new PreviousFill(TSDataType.DOUBLE, queryTime, beforeRange));
+    QueryDataSet dataSet = new EngineQueryRouter()
+        .fill(Collections.singletonList(path), queryTime, fillTypes, newContext());
+    assertTrue(dataSet.hasNext());
+    RowRecord record = dataSet.next();
+    assertEquals(queryTime, record.getTimestamp());
+    if (record.getFields().get(0).getDataType() == null) {
+      return Double.NaN;
+    }
+    return record.getFields().get(0).getDoubleV();
+  }
+
+  private void assertLast(long time, double value) throws Exception {
+    TimeValuePair lastPoint = cache.get(path, newContext());
+    assertEquals(time, lastPoint.getTimestamp());
+    assertEquals(value, lastPoint.getValue().getDouble(), 0);
+  }
+
+  private QueryContext newContext() {
+    // a new context for each query, as the modifications are cached in the context
+    return new QueryContext(EnvironmentUtils.TEST_QUERY_JOB_ID);
+  }
+
+  private void insert(long time, double value) throws Exception {
+    TSRecord record = new TSRecord(time, deviceId);
+    record.addTuple(new DoubleDataPoint(measurementId, value));
+    assertTrue(StorageEngine.getInstance().insert(new InsertPlan(record)));
+  }
+}
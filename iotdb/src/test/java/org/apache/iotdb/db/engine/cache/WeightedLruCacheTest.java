@@ -0,0 +1,225 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class WeightedLruCacheTest {
+
+  private AtomicInteger loadCount = new AtomicInteger();
+
+  private WeightedLruCache<Integer, String> newCache(long capacity) {
+    // a single stripe keeps the recency order exact
+    return new WeightedLruCache<>("test", capacity, (key, value) -> value.length(), 1);
+  }
+
+  private String load(int key) {
+    loadCount.incrementAndGet();
+    return value(key);
+  }
+
+  /**
+   * @return a value weighing 10.
+   */
+  private String value(int key) {
+    return String.format("%010d", key);
+  }
+
+  @Test
+  public void testHitAndMiss() throws IOException {
+    WeightedLruCache<Integer, String> cache = newCache(100);
+    assertEquals(value(1), cache.get(1, this::load));
+    assertEquals(value(1), cache.get(1, this::load));
+    assertEquals(1, loadCount.get());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(0.5, cache.getHitRatio(), 0.0001);
+    assertEquals(10, cache.getUsedWeight());
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void testRemoveIf() throws IOException {
+    WeightedLruCache<Integer, String> cache = newCache(100);
+    for (int i = 0; i < 6; i++) {
+      cache.get(i, this::load);
+    }
+    cache.removeIf(key -> key % 2 == 0);
+    assertEquals(3, cache.size());
+    assertEquals(30, cache.getUsedWeight());
+    for (int i = 0; i < 6; i++) {
+      assertEquals(i % 2 == 0, cache.getIfPresent(i) == null);
+    }
+  }
+
+  @Test
+  public void testEvictByWeight() throws IOException {
+    WeightedLruCache<Integer, String> cache = newCache(50);
+    for (int i = 0; i < 10; i++) {
+      cache.get(i, this::load);
+    }
+    assertEquals(5, cache.size());
+    assertEquals(50, cache.getUsedWeight());
+    assertEquals(5, cache.getEvictionCount());
+    for (int i = 0; i < 5; i++) {
+      assertNull(cache.getIfPresent(i));
+    }
+  }
+
+  @Test
+  public void testScanResistance() throws IOException {
+    WeightedLruCache<Integer, String> cache = newCache(50);
+    // 0 and 1 are used twice and are promoted into the protected segment
+    for (int i = 0; i < 2; i++) {
+      cache.get(i, this::load);
+      cache.get(i, this::load);
+    }
+    // a scan over entries used only once does not evict them
+    for (int i = 100; i < 120; i++) {
+      cache.get(i, this::load);
+    }
+    assertEquals(value(0), cache.getIfPresent(0));
+    assertEquals(value(1), cache.getIfPresent(1));
+    assertEquals(50, cache.getUsedWeight());
+  }
+
+  @Test
+  public void testTooHeavyAndNull() throws IOException {
+    WeightedLruCache<Integer, String> cache = newCache(5);
+    assertEquals(value(1), cache.get(1, this::load));
+    assertEquals(0, cache.size());
+    assertNull(cache.get(2, key -> null));
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getUsedWeight());
+  }
+
+  @Test
+  public void testRemoveAndClear() throws IOException {
+    WeightedLruCache<Integer, String> cache = newCache(100);
+    cache.get(1, this::load);
+    cache.get(2, this::load);
+    cache.get(2, this::load);
+    cache.remove(2);
+    assertNull(cache.getIfPresent(2));
+    assertEquals(10, cache.getUsedWeight());
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getUsedWeight());
+  }
+
+  @Test
+  public void testLoadFailure() {
+    WeightedLruCache<Integer, String> cache = newCache(100);
+    try {
+      cache.get(1, key -> {
+        throw new IOException("broken file");
+      });
+      fail();
+    } catch (IOException e) {
+      assertEquals("broken file", e.getMessage());
+    }
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testConcurrentMissesAreCoalesced() throws Exception {
+    WeightedLruCache<Integer, String> cache = newCache(100);
+    int threadNum = 8;
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(threadNum);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      results.add(pool.submit(() -> cache.get(1, key -> {
+        loading.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new IOException(e);
+        }
+        return load(key);
+      })));
+      loading.await();
+      for (int i = 1; i < threadNum; i++) {
+        results.add(pool.submit(() -> cache.get(1, this::load)));
+      }
+      // let the waiters reach the pending load
+      Thread.sleep(100);
+      release.countDown();
+      String first = results.get(0).get(10, TimeUnit.SECONDS);
+      for (Future<String> result : results) {
+        assertSame(first, result.get(10, TimeUnit.SECONDS));
+      }
+      assertEquals(1, loadCount.get());
+      assertEquals(1, cache.size());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testStripedConcurrentAccess() throws Exception {
+    WeightedLruCache<Integer, String> cache = new WeightedLruCache<>("test", 500,
+        (key, value) -> value.length());
+    int threadNum = 8;
+    ExecutorService pool = Executors.newFixedThreadPool(threadNum);
+    try {
+      List<Future<?>> results = new ArrayList<>();
+      for (int i = 0; i < threadNum; i++) {
+        int seed = i;
+        results.add(pool.submit(() -> {
+          Random random = new Random(seed);
+          for (int j = 0; j < 10000; j++) {
+            int key = random.nextInt(200);
+            if (j % 100 == 0) {
+              cache.remove(key);
+            } else {
+              assertEquals(value(key), cache.get(key, this::load));
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> result : results) {
+        result.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    assertTrue(cache.getUsedWeight() <= 500);
+    assertEquals(cache.size() * 10L, cache.getUsedWeight());
+    assertEquals(80000 - 800, cache.getHitCount() + cache.getMissCount());
+  }
+}
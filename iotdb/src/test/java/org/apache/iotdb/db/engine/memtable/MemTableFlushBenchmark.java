@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.memtable;
+
+import org.apache.iotdb.db.utils.datastructure.TVList;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.write.chunk.ChunkBuffer;
+import org.apache.iotdb.tsfile.write.chunk.ChunkWriterImpl;
+import org.apache.iotdb.tsfile.write.chunk.IChunkWriter;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+/**
+ * Memtable flush benchmark. Bench the encoding of the sorted series of a memtable into chunks,
+ * writing the points one by one against writing slices of the TVLists.
+ */
+public class MemTableFlushBenchmark {
+
+  private static String deviceId = "d0";
+  private static int numOfMeasurement = 100;
+  private static int numOfPoint = 100000;
+  private static int numOfRound = 5;
+
+  private static String[] measurementId = new String[numOfMeasurement];
+
+  static {
+    for (int i = 0; i < numOfMeasurement; i++) {
+      measurementId[i] = "m" + i;
+    }
+  }
+
+  private static void writeOneByOne(TVList tvList, IChunkWriter chunkWriter,
+      TSDataType dataType) {
+    for (int i = 0; i < tvList.size(); i++) {
+      long time = tvList.getTime(i);
+      if (i + 1 < tvList.size() && time == tvList.getTime(i + 1)) {
+        continue;
+      }
+      switch (dataType) {
+        case INT64:
+          chunkWriter.write(time, tvList.getLong(i));
+          break;
+        case DOUBLE:
+          chunkWriter.write(time, tvList.getDouble(i));
+          break;
+        default:
+          throw new UnsupportedOperationException(dataType.toString());
+      }
+    }
+  }
+
+  private static long encode(IMemTable memTable, MeasurementSchema[] schemas, boolean batch) {
+    long startTime = System.currentTimeMillis();
+    for (int i = 0; i < numOfMeasurement; i++) {
+      IWritableMemChunk series = memTable.getMemTableMap().get(deviceId).get(measurementId[i]);
+      TVList tvList = series.getSortedTVList();
+      ChunkWriterImpl chunkWriter = new ChunkWriterImpl(schemas[i], new ChunkBuffer(schemas[i]),
+          TSFileConfig.pageSizeInByte);
+      if (batch) {
+        tvList.writeTo(chunkWriter);
+      } else {
+        writeOneByOne(tvList, chunkWriter, schemas[i].getType());
+      }
+      chunkWriter.sealCurrentPage();
+    }
+    return System.currentTimeMillis() - startTime;
+  }
+
+  public static void main(String[] args) {
+    IMemTable memTable = new PrimitiveMemTable();
+    MeasurementSchema[] schemas = new MeasurementSchema[numOfMeasurement];
+    for (int j = 0; j < numOfMeasurement; j++) {
+      // half of the series are INT64 and half are DOUBLE
+      TSDataType dataType = j % 2 == 0 ? TSDataType.INT64 : TSDataType.DOUBLE;
+      TSEncoding encoding = j % 4 < 2 ? TSEncoding.PLAIN
+          : (dataType == TSDataType.INT64 ? TSEncoding.TS_2DIFF : TSEncoding.GORILLA);
+      schemas[j] = new MeasurementSchema(measurementId[j], dataType, encoding);
+    }
+    for (int i = 0; i < numOfPoint; i++) {
+      for (int j = 0; j < numOfMeasurement; j++) {
+        memTable.write(deviceId, measurementId[j], schemas[j].getType(), i,
+            String.valueOf(i % 1000));
+      }
+    }
+
+    for (int round = 0; round < numOfRound; round++) {
+      long oneByOneTime = encode(memTable, schemas, false);
+      long batchTime = encode(memTable, schemas, true);
+      System.out.println(String.format(
+          "Num of time series: %d, Num of points for each time series: %d, "
+              + "encoding one by one: %d ms, encoding by slices: %d ms. ",
+          numOfMeasurement, numOfPoint, oneByOneTime, batchTime));
+    }
+  }
+}
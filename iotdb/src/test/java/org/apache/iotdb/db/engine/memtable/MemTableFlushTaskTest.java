@@ -18,14 +18,19 @@
  */
 package org.apache.iotdb.db.engine.memtable;
 
+import static org.apache.iotdb.db.rescon.PrimitiveArrayPool.ARRAY_SIZE;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import org.apache.iotdb.db.engine.MetadataManagerHelper;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetaData;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.write.writer.RestorableTsFileIOWriter;
 import org.junit.After;
 import org.junit.Before;
@@ -78,4 +83,72 @@ public class MemTableFlushTaskTest {
     assertEquals(MemTableTestUtils.dataType0, chunkMetaData.getTsDataType());
     assertEquals(endTime - startTime + 1, chunkMetaData.getNumOfPoints());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testFlushDuplicatedTime() throws Exception {
+    int pointNum = 1000;
+    long expectedSum = 0;
+    long expectedLast = 0;
+    for (long time = pointNum; time >= 1; time--) {
+      memTable.write(MemTableTestUtils.deviceId0, MemTableTestUtils.measurementId0,
+          MemTableTestUtils.dataType0, time, String.valueOf(time));
+    }
+    // overwrite some points, including the ones at the boundaries of the underlying arrays
+    for (long time = 1; time <= pointNum; time++) {
+      long value = time;
+      if (time % 3 == 0 || time % ARRAY_SIZE == 0 || time % ARRAY_SIZE == 1) {
+        value = time + pointNum;
+        memTable.write(MemTableTestUtils.deviceId0, MemTableTestUtils.measurementId0,
+            MemTableTestUtils.dataType0, time, String.valueOf(value));
+      }
+      expectedSum += value;
+      expectedLast = value;
+    }
+
+    MemTableFlushTask memTableFlushTask = new MemTableFlushTask(memTable,
+        MemTableTestUtils.getFileSchema(), writer, storageGroup);
+    memTableFlushTask.syncFlushMemTable();
+    writer.makeMetadataVisible();
+    ChunkMetaData chunkMetaData = writer
+        .getVisibleMetadataList(MemTableTestUtils.deviceId0, MemTableTestUtils.measurementId0,
+            MemTableTestUtils.dataType0).get(0);
+    assertEquals(1, chunkMetaData.getStartTime());
+    assertEquals(pointNum, chunkMetaData.getEndTime());
+    assertEquals(pointNum, chunkMetaData.getNumOfPoints());
+    Statistics<?> statistics = Statistics
+        .deserialize(chunkMetaData.getDigest(), MemTableTestUtils.dataType0);
+    assertEquals(expectedSum, statistics.getSum(), 0.0);
+    assertEquals((int) expectedLast, statistics.getLast());
+  }
+
+  @Test
+  public void testFlushManyDevices() throws ExecutionException, InterruptedException {
+    int deviceNum = 50;
+    for (int i = 0; i < deviceNum; i++) {
+      // devices with more points are put first so that their encoding finishes later
+      MemTableTestUtils.produceData(memTable, i, i + (deviceNum - i) * 100L, "d" + i,
+          MemTableTestUtils.measurementId0, MemTableTestUtils.dataType0);
+    }
+    List<String> expectedOrder = new ArrayList<>(memTable.getMemTableMap().keySet());
+
+    MemTableFlushTask memTableFlushTask = new MemTableFlushTask(memTable,
+        MemTableTestUtils.getFileSchema(), writer, storageGroup);
+    memTableFlushTask.syncFlushMemTable();
+
+    // the chunk groups are written in the order of the memtable, one after another
+    List<ChunkGroupMetaData> chunkGroupMetaDatas = writer.getChunkGroupMetaDatas();
+    assertEquals(deviceNum, chunkGroupMetaDatas.size());
+    long lastEndOffset = 0;
+    for (int i = 0; i < deviceNum; i++) {
+      ChunkGroupMetaData chunkGroupMetaData = chunkGroupMetaDatas.get(i);
+      assertEquals(expectedOrder.get(i), chunkGroupMetaData.getDeviceID());
+      assertTrue(chunkGroupMetaData.getStartOffsetOfChunkGroup() >= lastEndOffset);
+      lastEndOffset = chunkGroupMetaData.getEndOffsetOfChunkGroup();
+
+      int deviceIndex = Integer.parseInt(chunkGroupMetaData.getDeviceID().substring(1));
+      ChunkMetaData chunkMetaData = chunkGroupMetaData.getChunkMetaDataList().get(0);
+      assertEquals(deviceIndex, chunkMetaData.getStartTime());
+      assertEquals(deviceIndex + (deviceNum - deviceIndex) * 100L, chunkMetaData.getEndTime());
+    }
+  }
+}
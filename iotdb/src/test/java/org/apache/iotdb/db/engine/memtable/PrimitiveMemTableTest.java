@@ -22,6 +22,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Random;
+import org.apache.iotdb.db.engine.querycontext.MemChunkCursor;
+import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
 import org.apache.iotdb.db.utils.MathUtils;
 import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.db.utils.TsPrimitiveType;
@@ -29,6 +31,7 @@ import org.apache.iotdb.db.utils.datastructure.TVList;
 import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.junit.Assert;
 import org.junit.Before;
@@ -88,6 +91,48 @@ public class PrimitiveMemTableTest {
     }
   }
 
+  @Test
+  public void testQueryMultipleMemTables() {
+    String deviceId = "d1";
+    String measurementId = "s1";
+    IMemTable flushingMemTable = new PrimitiveMemTable();
+    IMemTable workMemTable = new PrimitiveMemTable();
+    for (int i = 0; i < 1000; i++) {
+      flushingMemTable.write(deviceId, measurementId, TSDataType.INT64, i, String.valueOf(i));
+    }
+    // overwrite the even timestamps in [500, 1500) in the newer memtable
+    for (int i = 1498; i >= 500; i -= 2) {
+      workMemTable.write(deviceId, measurementId, TSDataType.INT64, i, String.valueOf(-i));
+    }
+    flushingMemTable.delete(deviceId, measurementId, 99);
+
+    ReadOnlyMemChunk memChunk = new ReadOnlyMemChunk(TSDataType.INT64, Arrays.asList(
+        flushingMemTable.query(deviceId, measurementId, TSDataType.INT64, Collections.emptyMap()),
+        workMemTable.query(deviceId, measurementId, TSDataType.INT64, Collections.emptyMap())));
+    // the snapshots are not affected by the writes after the query
+    workMemTable.write(deviceId, measurementId, TSDataType.INT64, 501, "0");
+
+    MemChunkCursor cursor = memChunk.getCursor();
+    BatchData batchData = new BatchData(TSDataType.INT64, true);
+    while (cursor.hasNext()) {
+      cursor.putCurrentTo(batchData);
+      cursor.next();
+    }
+    int count = 0;
+    for (long time = 100; time < 1500; time++) {
+      if (time >= 1000 && time % 2 == 1) {
+        continue;
+      }
+      Assert.assertEquals(time, batchData.currentTime());
+      long expected = time >= 500 && time % 2 == 0 ? -time : time;
+      Assert.assertEquals(expected, batchData.getLong());
+      batchData.next();
+      count++;
+    }
+    Assert.assertFalse(batchData.hasNext());
+    Assert.assertEquals(count, memChunk.getSortedTimeValuePairList().size());
+  }
+
   private void write(IMemTable memTable, String deviceId, String sensorId, TSDataType dataType,
       int size) {
     TimeValuePair[] ret = genTimeValuePair(size, dataType);
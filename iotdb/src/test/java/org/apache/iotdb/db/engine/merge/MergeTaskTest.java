@@ -0,0 +1,156 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge;
+
+import java.io.IOException;
+import org.apache.iotdb.db.engine.MetadataManagerHelper;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.reader.resourceRelated.SeqResourceIterateReader;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MergeTaskTest {
+
+  private String storageGroup = "storage_group1";
+  private String systemDir = "data/info";
+  private String deviceId = "root.vehicle.d0";
+  private String measurementId = "s0";
+  private StorageGroupProcessor processor;
+  private QueryContext context = EnvironmentUtils.TEST_QUERY_CONTEXT;
+
+  @Before
+  public void setUp() throws Exception {
+    MetadataManagerHelper.initMetadata();
+    EnvironmentUtils.envSetUp();
+    MergeManager.getInstance().start();
+    processor = new StorageGroupProcessor(systemDir, storageGroup);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    MergeManager.getInstance().stop();
+    processor.syncDeleteDataFiles();
+    EnvironmentUtils.cleanEnv();
+    EnvironmentUtils.cleanDir("data");
+  }
+
+  @Test
+  public void testMergeUnseqIntoSeq() throws InterruptedException, IOException {
+    prepareSeqAndUnseqFiles();
+
+    QueryDataSource queryDataSource = processor.query(deviceId, measurementId, context);
+    Assert.assertEquals(10, queryDataSource.getSeqResources().size());
+    Assert.assertEquals(10, queryDataSource.getUnseqResources().size());
+
+    Assert.assertTrue(processor.merge());
+    while (processor.isMerging()) {
+      Thread.sleep(10);
+    }
+
+    queryDataSource = processor.query(deviceId, measurementId, context);
+    Assert.assertEquals(10, queryDataSource.getSeqResources().size());
+    Assert.assertEquals(0, queryDataSource.getUnseqResources().size());
+    for (TsFileResource resource : queryDataSource.getSeqResources()) {
+      Assert.assertTrue(resource.isClosed());
+      Assert.assertTrue(resource.getFile().exists());
+    }
+    // the values of the unsequence files overwrite the old ones
+    checkData(queryDataSource, 1);
+  }
+
+  @Test
+  public void testMergeWithDeletion() throws InterruptedException, IOException {
+    prepareSeqAndUnseqFiles();
+    processor.delete(deviceId, measurementId, 3);
+
+    Assert.assertTrue(processor.merge());
+    while (processor.isMerging()) {
+      Thread.sleep(10);
+    }
+
+    QueryDataSource queryDataSource = processor.query(deviceId, measurementId, context);
+    Assert.assertEquals(0, queryDataSource.getUnseqResources().size());
+    checkData(queryDataSource, 4);
+  }
+
+  @Test
+  public void testMergeWithoutUnseq() {
+    for (int j = 1; j <= 5; j++) {
+      insert(j);
+      processor.putAllWorkingTsFileProcessorIntoClosingList();
+    }
+    processor.waitForAllCurrentTsFileProcessorsClosed();
+
+    Assert.assertFalse(processor.merge());
+    Assert.assertFalse(processor.isMerging());
+  }
+
+  private void prepareSeqAndUnseqFiles() {
+    for (int j = 1; j <= 10; j++) {
+      insert(j, j);
+      processor.putAllWorkingTsFileProcessorIntoClosingList();
+    }
+    processor.waitForAllCurrentTsFileProcessorsClosed();
+
+    for (int j = 10; j >= 1; j--) {
+      insert(j, j * 10);
+      processor.putAllWorkingTsFileProcessorIntoClosingList();
+    }
+    processor.waitForAllCurrentTsFileProcessorsClosed();
+  }
+
+  private void checkData(QueryDataSource queryDataSource, long firstTime) throws IOException {
+    SeqResourceIterateReader reader = new SeqResourceIterateReader(
+        new Path(deviceId, measurementId), queryDataSource.getSeqResources(), null, context);
+    long time = firstTime;
+    while (reader.hasNext()) {
+      BatchData batchData = reader.nextBatch();
+      while (batchData.hasNext()) {
+        Assert.assertEquals(time, batchData.currentTime());
+        Assert.assertEquals(time * 10, batchData.getInt());
+        time++;
+        batchData.next();
+      }
+    }
+    reader.close();
+    Assert.assertEquals(11, time);
+  }
+
+  private void insert(long time) {
+    insert(time, time);
+  }
+
+  private void insert(long time, long value) {
+    TSRecord record = new TSRecord(time, deviceId);
+    record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(value)));
+    processor.insert(new InsertPlan(record));
+  }
+}
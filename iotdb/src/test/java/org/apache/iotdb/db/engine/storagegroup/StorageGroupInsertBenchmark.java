@@ -0,0 +1,113 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import java.util.concurrent.CountDownLatch;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+
+/**
+ * Measure the insert throughput of one storage group with different numbers of writing threads,
+ * each of which writes its own devices.
+ *
+ * Usage: StorageGroupInsertBenchmark [rowsPerThread] [maxThreadNum]
+ */
+public class StorageGroupInsertBenchmark {
+
+  private static final String STORAGE_GROUP = "root.bench";
+  private static final String SYSTEM_DIR = "data/info";
+  private static int numOfDevicePerThread = 4;
+  private static int numOfMeasurement = 10;
+
+  private static String[] measurements = new String[numOfMeasurement];
+
+  static {
+    for (int i = 0; i < numOfMeasurement; i++) {
+      measurements[i] = "measurement_" + i;
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    int rowsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+    int maxThreadNum = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+
+    for (int threadNum = 1; threadNum <= maxThreadNum; threadNum *= 2) {
+      prepare(threadNum);
+      EnvironmentUtils.envSetUp();
+      StorageGroupProcessor processor = new StorageGroupProcessor(SYSTEM_DIR, STORAGE_GROUP);
+
+      long elapsed = insert(processor, threadNum, rowsPerThread);
+      long points = (long) threadNum * rowsPerThread * numOfMeasurement;
+      System.out.println(String.format("threads: %d, points: %d, time: %dms, %.0f points/s",
+          threadNum, points, elapsed, points * 1000.0 / Math.max(elapsed, 1)));
+
+      processor.putAllWorkingTsFileProcessorIntoClosingList();
+      processor.syncDeleteDataFiles();
+      EnvironmentUtils.cleanEnv();
+      EnvironmentUtils.cleanDir("data");
+    }
+  }
+
+  private static void prepare(int threadNum) throws Exception {
+    MManager manager = MManager.getInstance();
+    manager.init();
+    manager.clear();
+    manager.setStorageLevelToMTree(STORAGE_GROUP);
+    for (int i = 0; i < threadNum * numOfDevicePerThread; i++) {
+      for (String measurement : measurements) {
+        manager.addPathToMTree(getDevice(i) + "." + measurement, TSDataType.INT64.toString(),
+            TSEncoding.PLAIN.toString());
+      }
+    }
+  }
+
+  private static String getDevice(int index) {
+    return STORAGE_GROUP + ".device_" + index;
+  }
+
+  private static long insert(StorageGroupProcessor processor, int threadNum, int rowsPerThread)
+      throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(threadNum);
+    long startTime = System.currentTimeMillis();
+    for (int i = 0; i < threadNum; i++) {
+      int firstDevice = i * numOfDevicePerThread;
+      new Thread(() -> {
+        try {
+          for (int row = 0; row < rowsPerThread; row++) {
+            String device = getDevice(firstDevice + row % numOfDevicePerThread);
+            TSRecord record = new TSRecord(row / numOfDevicePerThread + 1, device);
+            for (String measurement : measurements) {
+              record.addTuple(new LongDataPoint(measurement, row));
+            }
+            processor.insert(new InsertPlan(record));
+          }
+        } finally {
+          latch.countDown();
+        }
+      }).start();
+    }
+    latch.await();
+    return System.currentTimeMillis() - startTime;
+  }
+}
@@ -18,12 +18,18 @@
  */
 package org.apache.iotdb.db.engine.storagegroup;
 
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.iotdb.db.engine.MetadataManagerHelper;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.exception.StorageGroupProcessorException;
+import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.write.record.TSRecord;
 import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
@@ -107,4 +113,116 @@ public class StorageGroupProcessorTest {
     }
   }
 
+  @Test
+  public void testRecoverWithPool() throws Exception {
+    for (int j = 1; j <= 10; j++) {
+      TSRecord record = new TSRecord(j, deviceId);
+      record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(j)));
+      processor.insert(new InsertPlan(record));
+      processor.putAllWorkingTsFileProcessorIntoClosingList();
+    }
+    processor.waitForAllCurrentTsFileProcessorsClosed();
+    // an unsealed file, whose logs are redone by the recovery
+    TSRecord record = new TSRecord(11, deviceId);
+    record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, "11"));
+    processor.insert(new InsertPlan(record));
+    // the log is only buffered until the force thread syncs it, sync it before the recovery
+    processor.getWorkSequenceTsFileProcessor().getLogNode().forceSync();
+
+    ExecutorService recoverPool = Executors.newFixedThreadPool(4);
+    try {
+      StorageGroupProcessor recovered = new StorageGroupProcessor(systemDir, storageGroup,
+          recoverPool);
+      QueryDataSource queryDataSource = recovered.query(deviceId, measurementId, context);
+      Assert.assertEquals(11, queryDataSource.getSeqResources().size());
+      for (int i = 0; i < 11; i++) {
+        TsFileResource resource = queryDataSource.getSeqResources().get(i);
+        Assert.assertTrue(resource.isClosed());
+        Assert.assertEquals(i + 1L, (long) resource.getStartTimeMap().get(deviceId));
+        Assert.assertEquals(i + 1L, (long) resource.getEndTimeMap().get(deviceId));
+      }
+    } finally {
+      recoverPool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testInsertBatch() {
+    for (int j = 21; j <= 30; j++) {
+      TSRecord record = new TSRecord(j, deviceId);
+      record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(j)));
+      processor.insert(new InsertPlan(record));
+    }
+    processor.putAllWorkingTsFileProcessorIntoClosingList();
+    processor.waitForAllCurrentTsFileProcessorsClosed();
+
+    // rows 1..10 and 41..50 are interleaved, so they go to the unsequence and sequence file
+    long[] times = new long[20];
+    int[] values = new int[20];
+    for (int i = 0; i < 10; i++) {
+      times[2 * i] = i + 1;
+      times[2 * i + 1] = i + 41;
+    }
+    for (int i = 0; i < 20; i++) {
+      values[i] = (int) times[i];
+    }
+    BatchInsertPlan batchInsertPlan = new BatchInsertPlan(deviceId, new String[]{measurementId},
+        new TSDataType[]{TSDataType.INT32}, times, new Object[]{values});
+    Assert.assertTrue(processor.insertBatch(batchInsertPlan));
+
+    QueryDataSource queryDataSource = processor.query(deviceId, measurementId, context);
+    Assert.assertEquals(2, queryDataSource.getSeqResources().size());
+    Assert.assertEquals(1, queryDataSource.getUnseqResources().size());
+    TsFileResource unseqResource = queryDataSource.getUnseqResources().get(0);
+    Assert.assertEquals(1L, (long) unseqResource.getStartTimeMap().get(deviceId));
+    Assert.assertEquals(10L, (long) unseqResource.getEndTimeMap().get(deviceId));
+    Assert.assertEquals(10, unseqResource.getReadOnlyMemChunk().getSortedTimeValuePairList().size());
+    TsFileResource seqResource = queryDataSource.getSeqResources().get(1);
+    Assert.assertEquals(10, seqResource.getReadOnlyMemChunk().getSortedTimeValuePairList().size());
+  }
+
+  @Test
+  public void testConcurrentInsert() throws InterruptedException {
+    // two threads per device, each inserting every other timestamp
+    int threadNum = 4;
+    int rowNum = 1000;
+    String[] devices = {"root.vehicle.d0", "root.vehicle.d1"};
+    AtomicBoolean failed = new AtomicBoolean(false);
+    Thread[] threads = new Thread[threadNum];
+    for (int i = 0; i < threadNum; i++) {
+      String device = devices[i % devices.length];
+      int offset = i / devices.length;
+      threads[i] = new Thread(() -> {
+        for (int j = 0; j < rowNum; j++) {
+          long time = 2L * j + offset + 1;
+          TSRecord record = new TSRecord(time, device);
+          record.addTuple(
+              DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(time)));
+          if (!processor.insert(new InsertPlan(record))) {
+            failed.set(true);
+          }
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    Assert.assertFalse(failed.get());
+
+    for (String device : devices) {
+      QueryDataSource queryDataSource = processor.query(device, measurementId, context);
+      Assert.assertEquals(1, queryDataSource.getSeqResources().size());
+      Assert.assertTrue(queryDataSource.getUnseqResources().isEmpty());
+      TsFileResource resource = queryDataSource.getSeqResources().get(0);
+      Assert.assertEquals(1L, (long) resource.getStartTimeMap().get(device));
+      List<TimeValuePair> points = resource.getReadOnlyMemChunk().getSortedTimeValuePairList();
+      Assert.assertEquals(2 * rowNum, points.size());
+      for (int i = 0; i < points.size(); i++) {
+        Assert.assertEquals(i + 1, points.get(i).getTimestamp());
+        Assert.assertEquals(i + 1, points.get(i).getValue().getInt());
+      }
+    }
+  }
+
 }
\ No newline at end of file
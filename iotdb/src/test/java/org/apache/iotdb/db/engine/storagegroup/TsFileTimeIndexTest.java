@@ -0,0 +1,121 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.ValueFilter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
+import org.junit.Test;
+
+public class TsFileTimeIndexTest {
+
+  private static final String DEVICE_0 = "root.sg.d0";
+  private static final String DEVICE_1 = "root.sg.d1";
+
+  @Test
+  public void testSelectSequenceFiles() {
+    TsFileTimeIndex index = new TsFileTimeIndex(true);
+    List<TsFileResource> resources = new ArrayList<>();
+    // file i covers [i * 100, i * 100 + 99] of device 0, the odd ones also cover device 1
+    for (int i = 0; i < 100; i++) {
+      TsFileResource resource = newClosedResource(i, i * 100L, i * 100L + 99);
+      if (i % 2 == 1) {
+        resource.getStartTimeMap().put(DEVICE_1, i * 100L);
+        resource.getEndTimeMap().put(DEVICE_1, i * 100L + 99);
+      }
+      resources.add(resource);
+      index.add(resource);
+    }
+
+    assertEquals(resources, index.select(DEVICE_0, null));
+    assertEquals(resources.subList(3, 6),
+        index.select(DEVICE_0, FilterFactory.and(TimeFilter.gtEq(350L), TimeFilter.lt(600L))));
+    assertEquals(Arrays.asList(resources.get(3), resources.get(5)),
+        index.select(DEVICE_1, FilterFactory.and(TimeFilter.gtEq(250L), TimeFilter.lt(600L))));
+    assertEquals(Arrays.asList(resources.get(1), resources.get(99)), index.select(DEVICE_0,
+        FilterFactory.or(TimeFilter.eq(150L), TimeFilter.gt(9950L))));
+    assertEquals(Collections.emptyList(), index.select(DEVICE_0, TimeFilter.gt(10000L)));
+    assertEquals(Collections.emptyList(), index.select("root.sg.d2", null));
+    // a value filter does not prune any file
+    assertEquals(resources, index.select(DEVICE_0, ValueFilter.gt(1)));
+  }
+
+  @Test
+  public void testSelectUnclosedFiles() throws IOException {
+    TsFileTimeIndex index = new TsFileTimeIndex(true);
+    TsFileResource closed = newClosedResource(0, 0, 99);
+    TsFileResource closing = new TsFileResource(new File("1.tsfile"), null);
+    TsFileResource working = new TsFileResource(new File("2.tsfile"), null);
+    index.add(closed);
+    index.add(closing);
+    index.add(working);
+    // the devices and times of unclosed files are read when a query comes
+    closing.updateStartTime(DEVICE_0, 100);
+    working.updateStartTime(DEVICE_0, 200);
+    assertEquals(Arrays.asList(closing, working), index.select(DEVICE_0, TimeFilter.gt(150L)));
+
+    // the files are still ordered as in the file list after the later file is closed first
+    closing.forceUpdateEndTime(DEVICE_0, 199);
+    working.forceUpdateEndTime(DEVICE_0, 299);
+    working.close();
+    index.onClosed(working);
+    assertEquals(Arrays.asList(closed, closing, working), index.select(DEVICE_0, null));
+    assertEquals(Collections.singletonList(working), index.select(DEVICE_0, TimeFilter.gt(250L)));
+    closing.close();
+    index.onClosed(closing);
+    assertEquals(Arrays.asList(closing, working), index.select(DEVICE_0, TimeFilter.gt(150L)));
+
+    index.rebuild(Arrays.asList(closed, working));
+    assertEquals(Arrays.asList(closed, working), index.select(DEVICE_0, null));
+  }
+
+  @Test
+  public void testSelectUnsequenceFiles() {
+    TsFileTimeIndex index = new TsFileTimeIndex(false);
+    List<TsFileResource> resources = new ArrayList<>();
+    // the ranges of unsequence files overlap, and the files keep the order of the file list
+    for (int i = 0; i < 10; i++) {
+      TsFileResource resource = newClosedResource(i, 1000 - i * 100L, 1000 + i * 100L);
+      resources.add(resource);
+      index.add(resource);
+    }
+    assertEquals(resources, index.select(DEVICE_0, TimeFilter.eq(1000L)));
+    assertEquals(resources.subList(6, 10), index.select(DEVICE_0, TimeFilter.lt(450L)));
+    assertEquals(resources.subList(3, 10), index.select(DEVICE_0,
+        FilterFactory.or(TimeFilter.lt(750L), TimeFilter.gt(1250L))));
+  }
+
+  private TsFileResource newClosedResource(int fileIndex, long startTime, long endTime) {
+    Map<String, Long> startTimeMap = new HashMap<>();
+    Map<String, Long> endTimeMap = new HashMap<>();
+    startTimeMap.put(DEVICE_0, startTime);
+    endTimeMap.put(DEVICE_0, endTime);
+    return new TsFileResource(new File(fileIndex + ".tsfile"), startTimeMap, endTimeMap);
+  }
+}
@@ -125,6 +125,30 @@ public class MManagerAdvancedTest {
     }
   }
 
+  @Test
+  public void testDeviceSchema() throws PathErrorException, MetadataErrorException {
+    DeviceSchema d0 = mmanager.getDeviceSchema("root.vehicle.d0");
+    DeviceSchema d1 = mmanager.getDeviceSchema("root.vehicle.d1");
+    Assert.assertSame(d0, mmanager.getDeviceSchema("root.vehicle.d0"));
+    Assert.assertEquals("root.vehicle.d0", d0.getStorageGroupName());
+    Assert.assertEquals("root.vehicle.d1",
+        mmanager.getStorageGroupNameByDevice("root.vehicle.d1"));
+    Assert.assertEquals(TSDataType.INT32, d0.getNode().getChild("s0").getSchema().getType());
+
+    // the cached schema is dropped when the metadata changes
+    mmanager.setStorageLevelToMTree("root.vehicle.d3");
+    DeviceSchema newD0 = mmanager.getDeviceSchema("root.vehicle.d0");
+    Assert.assertNotSame(d0, newD0);
+    Assert.assertSame(newD0, mmanager.getDeviceSchema("root.vehicle.d0"));
+
+    try {
+      mmanager.getDeviceSchema("root.vehicle.d100");
+      fail();
+    } catch (PathErrorException e) {
+      // the device does not exist
+    }
+  }
+
   @Test
   public void testGetNextLevelPath()
       throws PathErrorException, IOException {
@@ -0,0 +1,185 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MManagerSnapshotTest {
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private int prevSnapshotThreshold;
+  private MManager manager;
+  private File logFile;
+  private File snapshotFile;
+
+  @Before
+  public void setUp() throws Exception {
+    prevSnapshotThreshold = config.getMlogSnapshotThreshold();
+    EnvironmentUtils.envSetUp();
+    manager = MManager.getInstance();
+    String schemaDir = config.getSystemDir() + File.separator + "schema";
+    logFile = new File(schemaDir, MetadataConstant.METADATA_LOG);
+    snapshotFile = new File(schemaDir, MetadataConstant.METADATA_SNAPSHOT);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    config.setMlogSnapshotThreshold(prevSnapshotThreshold);
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testSnapshotAndLogTail() throws Exception {
+    config.setMlogSnapshotThreshold(4);
+    manager.setStorageLevelToMTree("root.sg1");
+    manager.setStorageLevelToMTree("root.sg2");
+    manager.addPathToMTree("root.sg1.d1.s1", TSDataType.INT32, TSEncoding.RLE,
+        CompressionType.SNAPPY, Collections.singletonMap("max_point_number", "3"));
+    manager.addPathToMTree("root.sg1.d2.s1", TSDataType.INT32, TSEncoding.RLE,
+        CompressionType.SNAPPY, null);
+    // the snapshot is taken after the 4th entry
+    assertTrue(snapshotFile.exists());
+    assertFalse(logFile.exists());
+
+    manager.addPathToMTree("root.sg2.d1.s2", TSDataType.TEXT, TSEncoding.PLAIN,
+        CompressionType.UNCOMPRESSED, null);
+    manager.deletePaths(Collections.singletonList(new Path("root.sg1.d2.s1")));
+    assertTrue(logFile.exists());
+
+    restart();
+    assertMetadata();
+  }
+
+  @Test
+  public void testCrashBeforeTruncatingLog() throws Exception {
+    config.setMlogSnapshotThreshold(0);
+    manager.setStorageLevelToMTree("root.sg1");
+    manager.setStorageLevelToMTree("root.sg2");
+    manager.addPathToMTree("root.sg1.d1.s1", TSDataType.INT32, TSEncoding.RLE,
+        CompressionType.SNAPPY, Collections.singletonMap("max_point_number", "3"));
+    manager.addPathToMTree("root.sg1.d2.s1", TSDataType.INT32, TSEncoding.RLE,
+        CompressionType.SNAPPY, null);
+    byte[] coveredLog = Files.readAllBytes(logFile.toPath());
+    manager.createSnapshot();
+    // the covered part of the log is still there as if the system crashed before deleting it
+    Files.write(logFile.toPath(), coveredLog);
+
+    manager.addPathToMTree("root.sg2.d1.s2", TSDataType.TEXT, TSEncoding.PLAIN,
+        CompressionType.UNCOMPRESSED, null);
+    manager.deletePaths(Collections.singletonList(new Path("root.sg1.d2.s1")));
+
+    restart();
+    assertMetadata();
+  }
+
+  @Test
+  public void testSnapshotWhenLogIsLargeEnough() throws Exception {
+    config.setMlogSnapshotThreshold(0);
+    manager.setStorageLevelToMTree("root.sg1");
+    for (int i = 0; i < 100; i++) {
+      manager.addPathToMTree("root.sg1.d1.s" + i, TSDataType.INT32, TSEncoding.RLE,
+          CompressionType.SNAPPY, null);
+    }
+    manager.createSnapshot();
+    long snapshotSize = snapshotFile.length();
+
+    config.setMlogSnapshotThreshold(1);
+    int seriesNum = 0;
+    while (logFile.exists() || seriesNum == 0) {
+      // the log is kept until it is at least half as large as the snapshot
+      assertTrue(!logFile.exists() || logFile.length() < snapshotSize / 2);
+      manager.addPathToMTree("root.sg1.d2.t" + seriesNum++, TSDataType.INT32, TSEncoding.RLE,
+          CompressionType.SNAPPY, null);
+    }
+    assertTrue(seriesNum > 1);
+    assertTrue(snapshotFile.length() > snapshotSize);
+
+    restart();
+    assertEquals(100 + seriesNum, manager.getSchemaForStorageGroup("root.sg1").size());
+  }
+
+  @Test
+  public void testExportLog() throws Exception {
+    config.setMlogSnapshotThreshold(4);
+    manager.setStorageLevelToMTree("root.sg1");
+    manager.setStorageLevelToMTree("root.sg2");
+    manager.addPathToMTree("root.sg1.d1.s1", TSDataType.INT32, TSEncoding.RLE,
+        CompressionType.SNAPPY, Collections.singletonMap("max_point_number", "3"));
+    manager.addPathToMTree("root.sg1.d2.s1", TSDataType.INT32, TSEncoding.RLE,
+        CompressionType.SNAPPY, null);
+    assertTrue(snapshotFile.exists());
+    manager.addPathToMTree("root.sg2.d1.s2", TSDataType.TEXT, TSEncoding.PLAIN,
+        CompressionType.UNCOMPRESSED, null);
+    manager.deletePaths(Collections.singletonList(new Path("root.sg1.d2.s1")));
+
+    File exportedFile = new File(logFile.getParentFile(), "exported.txt");
+    MManager.exportLog(logFile.getParentFile(), exportedFile);
+    // the exported log alone recreates the metadata, as a receiver of sync replays it
+    Files.delete(snapshotFile.toPath());
+    Files.move(exportedFile.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    config.setMlogSnapshotThreshold(0);
+
+    restart();
+    assertMetadata();
+  }
+
+  private void restart() {
+    manager.reload();
+  }
+
+  private void assertMetadata() throws Exception {
+    assertEquals(2, manager.getAllStorageGroupNames().size());
+    assertTrue(manager.pathExist("root.sg1.d1.s1"));
+    assertFalse(manager.pathExist("root.sg1.d2.s1"));
+    assertTrue(manager.pathExist("root.sg2.d1.s2"));
+    assertEquals("root.sg1", manager.getStorageGroupNameByPath("root.sg1.d1.s1"));
+    assertEquals("root.sg2", manager.getStorageGroupNameByPath("root.sg2.d1.s2"));
+    assertEquals(TSDataType.TEXT, manager.getSeriesType("root.sg2.d1.s2"));
+    MeasurementSchema schema = manager.getNodeByPath("root.sg1.d1.s1").getSchema();
+    assertEquals("3", schema.getProps().get("max_point_number"));
+    assertEquals(CompressionType.SNAPPY, schema.getCompressor());
+    assertEquals(1, manager.getSchemaForStorageGroup("root.sg1").size());
+    assertEquals(1, manager.getMaximalSeriesNumberAmongStorageGroups());
+
+    // the recovered metadata keeps being logged
+    manager.addPathToMTree("root.sg1.d3.s1", TSDataType.INT32, TSEncoding.RLE,
+        CompressionType.SNAPPY, null);
+    restart();
+    assertTrue(manager.pathExist("root.sg1.d3.s1"));
+    assertEquals(2, manager.getMaximalSeriesNumberAmongStorageGroups());
+  }
+}
@@ -0,0 +1,196 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.executor;
+
+import static org.apache.iotdb.db.utils.EnvironmentUtils.TEST_QUERY_CONTEXT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.query.pool.QueryTaskPoolManager;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.common.constant.StatisticConstant;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.Field;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.expression.IExpression;
+import org.apache.iotdb.tsfile.read.expression.impl.GlobalTimeExpression;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.DoubleDataPoint;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Aggregations over sealed files, which are calculated from chunk meta data whenever a whole chunk
+ * can be used.
+ */
+public class AggregateEngineExecutorTest {
+
+  private String storageGroup = "root.test";
+  private String measurement = "s0";
+  private EngineQueryRouter router = new EngineQueryRouter();
+
+  private static final List<String> AGGREGATIONS = Arrays
+      .asList(StatisticConstant.COUNT, StatisticConstant.SUM, StatisticConstant.MIN_VALUE,
+          StatisticConstant.MAX_VALUE, StatisticConstant.FIRST, StatisticConstant.LAST,
+          StatisticConstant.MIN_TIME, StatisticConstant.MAX_TIME, StatisticConstant.MEAN);
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.envSetUp();
+    MManager.getInstance().setStorageLevelToMTree(storageGroup);
+    MManager.getInstance().addPathToMTree(storageGroup + "." + measurement,
+        TSDataType.DOUBLE.toString(), TSEncoding.PLAIN.toString());
+    StorageEngine.getInstance()
+        .addTimeSeries(new Path(storageGroup, measurement), TSDataType.DOUBLE, TSEncoding.PLAIN,
+            CompressionType.valueOf(TSFileConfig.compressor), Collections.emptyMap());
+
+    // two sealed files, each of which holds one chunk of 100 points
+    insertRange(1, 100);
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    insertRange(101, 200);
+    StorageEngine.getInstance().syncCloseAllProcessor();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+  }
+
+  private void insertRange(long start, long end) throws Exception {
+    for (long time = start; time <= end; time++) {
+      insert(time, time);
+    }
+  }
+
+  private void insert(long time, double value) throws Exception {
+    TSRecord record = new TSRecord(time, storageGroup);
+    record.addTuple(new DoubleDataPoint(measurement, value));
+    StorageEngine.getInstance().insert(new InsertPlan(record));
+  }
+
+  private List<String> aggregate(IExpression expression) throws Exception {
+    List<Path> paths = new ArrayList<>();
+    for (int i = 0; i < AGGREGATIONS.size(); i++) {
+      paths.add(new Path(storageGroup, measurement));
+    }
+    QueryDataSet dataSet = router.aggregate(paths, AGGREGATIONS, expression, TEST_QUERY_CONTEXT);
+    assertTrue(dataSet.hasNext());
+    List<String> results = toStrings(dataSet.next());
+    assertFalse(dataSet.hasNext());
+    return results;
+  }
+
+  private List<String> toStrings(RowRecord record) {
+    List<String> results = new ArrayList<>();
+    for (Field field : record.getFields()) {
+      results.add(field.getStringValue());
+    }
+    return results;
+  }
+
+  @Test
+  public void testSealedChunks() throws Exception {
+    assertEquals(Arrays.asList("200", "20100.0", "1.0", "200.0", "1.0", "200.0", "1", "200",
+        "100.5"), aggregate(null));
+  }
+
+  @Test
+  public void testParallelSeries() throws Exception {
+    QueryTaskPoolManager.getInstance().start();
+    try {
+      assertEquals(Arrays.asList("200", "20100.0", "1.0", "200.0", "1.0", "200.0", "1", "200",
+          "100.5"), aggregate(null));
+    } finally {
+      QueryTaskPoolManager.getInstance().stop();
+    }
+  }
+
+  @Test
+  public void testTimeFilter() throws Exception {
+    // the second chunk is fully covered, the first one is not
+    IExpression expression = new GlobalTimeExpression(TimeFilter.gtEq(51L));
+    assertEquals(Arrays.asList("150", "18825.0", "51.0", "200.0", "51.0", "200.0", "51", "200",
+        "125.5"), aggregate(expression));
+  }
+
+  @Test
+  public void testUnsequenceData() throws Exception {
+    // overwrite a point of the first chunk, whose statistics become useless
+    insert(50, 1000.0);
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    assertEquals(Arrays.asList("200", "21050.0", "1.0", "1000.0", "1.0", "200.0", "1", "200",
+        "105.25"), aggregate(null));
+  }
+
+  @Test
+  public void testDeletion() throws Exception {
+    StorageEngine.getInstance().delete(storageGroup, measurement, 50);
+    assertEquals(Arrays.asList("150", "18825.0", "51.0", "200.0", "51.0", "200.0", "51", "200",
+        "125.5"), aggregate(null));
+  }
+
+  @Test
+  public void testGroupBy() throws Exception {
+    List<Path> paths = Arrays
+        .asList(new Path(storageGroup, measurement), new Path(storageGroup, measurement));
+    List<String> aggregations = Arrays.asList(StatisticConstant.COUNT, StatisticConstant.SUM);
+    // the intervals do not align with the chunks
+    QueryDataSet dataSet = router.groupBy(paths, aggregations, null, 75, 1,
+        Collections.singletonList(new Pair<>(1L, 300L)), TEST_QUERY_CONTEXT);
+    String[] expected = {"1 75 2850.0", "76 75 8475.0", "151 50 8775.0", "226 0 0.0"};
+    for (String row : expected) {
+      assertTrue(dataSet.hasNext());
+      RowRecord record = dataSet.next();
+      assertEquals(row, record.getTimestamp() + " " + String.join(" ", toStrings(record)));
+    }
+    assertFalse(dataSet.hasNext());
+  }
+
+  @Test
+  public void testGroupByWholeChunks() throws Exception {
+    List<Path> paths = Arrays
+        .asList(new Path(storageGroup, measurement), new Path(storageGroup, measurement));
+    List<String> aggregations = Arrays.asList(StatisticConstant.COUNT, StatisticConstant.SUM);
+    QueryDataSet dataSet = router.groupBy(paths, aggregations, null, 100, 1,
+        Collections.singletonList(new Pair<>(1L, 200L)), TEST_QUERY_CONTEXT);
+    String[] expected = {"1 100 5050.0", "101 100 15050.0"};
+    for (String row : expected) {
+      assertTrue(dataSet.hasNext());
+      RowRecord record = dataSet.next();
+      assertEquals(row, record.getTimestamp() + " " + String.join(" ", toStrings(record)));
+    }
+    assertFalse(dataSet.hasNext());
+  }
+}
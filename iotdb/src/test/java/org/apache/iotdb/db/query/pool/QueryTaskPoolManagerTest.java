@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.pool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueryTaskPoolManagerTest {
+
+  private QueryTaskPoolManager manager = QueryTaskPoolManager.getInstance();
+
+  @Before
+  public void setUp() {
+    manager.start();
+  }
+
+  @After
+  public void tearDown() {
+    manager.stop();
+  }
+
+  private List<Callable<Integer>> createTasks(int taskNum, Set<String> threads) {
+    List<Callable<Integer>> tasks = new ArrayList<>();
+    for (int i = 0; i < taskNum; i++) {
+      int result = i;
+      tasks.add(() -> {
+        threads.add(Thread.currentThread().getName());
+        Thread.sleep(10);
+        return result;
+      });
+    }
+    return tasks;
+  }
+
+  @Test
+  public void testInvokeAll() throws IOException {
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    List<Integer> results = manager.invokeAll(new QueryContext(1), createTasks(20, threads));
+    assertEquals(20, results.size());
+    for (int i = 0; i < results.size(); i++) {
+      assertEquals(i, (int) results.get(i));
+    }
+    assertTrue(threads.size() > 1);
+    assertTrue(threads.size()
+        <= IoTDBDescriptor.getInstance().getConfig().getMaxQueryParallelism());
+  }
+
+  @Test
+  public void testInvokeAllWithoutPool() throws IOException {
+    manager.stop();
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    List<Integer> results = manager.invokeAll(new QueryContext(1), createTasks(5, threads));
+    assertEquals(5, results.size());
+    assertEquals(1, threads.size());
+    assertTrue(threads.contains(Thread.currentThread().getName()));
+  }
+
+  @Test
+  public void testTaskFailure() {
+    List<Callable<Integer>> tasks = createTasks(10, ConcurrentHashMap.newKeySet());
+    tasks.set(5, () -> {
+      throw new IOException("task failed");
+    });
+    try {
+      manager.invokeAll(new QueryContext(1), tasks);
+      fail("the failure of a task should be thrown");
+    } catch (IOException e) {
+      assertEquals("task failed", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testCancel() {
+    QueryContext context = new QueryContext(1);
+    List<Callable<Integer>> tasks = createTasks(10, ConcurrentHashMap.newKeySet());
+    tasks.set(0, () -> {
+      context.cancel();
+      return 0;
+    });
+    try {
+      manager.invokeAll(context, tasks);
+      fail("a cancelled query should not finish");
+    } catch (IOException e) {
+      assertTrue(context.isCancelled());
+    }
+  }
+}
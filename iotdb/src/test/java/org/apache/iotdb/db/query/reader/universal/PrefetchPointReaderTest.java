@@ -0,0 +1,101 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.reader.universal;
+
+import java.io.IOException;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.pool.QueryTaskPoolManager;
+import org.apache.iotdb.db.query.reader.seriesRelated.FakedIPointReader;
+import org.apache.iotdb.db.utils.TimeValuePair;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PrefetchPointReaderTest {
+
+  @Before
+  public void setUp() {
+    QueryTaskPoolManager.getInstance().start();
+  }
+
+  @After
+  public void tearDown() {
+    QueryTaskPoolManager.getInstance().stop();
+  }
+
+  @Test
+  public void testRead() throws IOException {
+    check(new PrefetchPointReader(new FakedIPointReader(100, 1000, 7, 11), new QueryContext(1),
+        64), 100, 1000, 7, 11);
+    // the size of the series is a multiple of the batch size
+    check(new PrefetchPointReader(new FakedIPointReader(100, 1024, 7, 11), new QueryContext(1),
+        64), 100, 1024, 7, 11);
+    check(new PrefetchPointReader(new FakedIPointReader(100, 0, 7, 11), new QueryContext(1),
+        64), 100, 0, 7, 11);
+  }
+
+  @Test
+  public void testReadWithoutPool() throws IOException {
+    QueryTaskPoolManager.getInstance().stop();
+    check(new PrefetchPointReader(new FakedIPointReader(100, 1000, 7, 11), new QueryContext(1),
+        64), 100, 1000, 7, 11);
+  }
+
+  private void check(PrefetchPointReader reader, long startTime, int size, int interval,
+      int modValue) throws IOException {
+    long time = startTime;
+    int count = 0;
+    while (reader.hasNext()) {
+      Assert.assertEquals(time, reader.current().getTimestamp());
+      TimeValuePair timeValuePair = reader.next();
+      Assert.assertEquals(time, timeValuePair.getTimestamp());
+      Assert.assertEquals(time % modValue, timeValuePair.getValue().getLong());
+      time += interval;
+      count++;
+    }
+    Assert.assertEquals(size, count);
+    Assert.assertNull(reader.next());
+    reader.close();
+  }
+
+  @Test
+  public void testCancel() throws IOException {
+    QueryContext context = new QueryContext(1);
+    PrefetchPointReader reader = new PrefetchPointReader(new FakedIPointReader(100, 1000, 7, 11),
+        context, 64);
+    for (int i = 0; i < 64; i++) {
+      Assert.assertTrue(reader.hasNext());
+      reader.next();
+    }
+    context.cancel();
+    int count = 0;
+    try {
+      while (reader.hasNext()) {
+        reader.next();
+        count++;
+      }
+      Assert.fail("a cancelled query should not be read to the end");
+    } catch (IOException e) {
+      // at most the batch already read ahead is returned
+      Assert.assertTrue(count <= 64);
+    }
+    reader.close();
+  }
+}
@@ -21,6 +21,7 @@ package org.apache.iotdb.db.query.reader.universal;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
@@ -91,6 +92,37 @@ public class PriorityMergeReaderByTimestampTest {
 
   }
 
+  @Test
+  public void testValuesInTimestamps() throws IOException {
+    PriorityMergeReaderByTimestamp pointReader = createReader();
+    PriorityMergeReaderByTimestamp batchReader = createReader();
+
+    Random random = new Random();
+    long[] timestamps = new long[100];
+    Object[] values = new Object[timestamps.length];
+    long time = 4;
+    while (time < 1080 + 200 * 13 + 600) {
+      int length = random.nextInt(timestamps.length) + 1;
+      for (int i = 0; i < length; i++) {
+        timestamps[i] = time;
+        time += random.nextInt(20) + 1;
+      }
+      Arrays.fill(values, null);
+      batchReader.getValuesInTimestamps(timestamps, length, values);
+      for (int i = 0; i < length; i++) {
+        Assert.assertEquals(pointReader.getValueInTimestamp(timestamps[i]), values[i]);
+      }
+    }
+  }
+
+  private PriorityMergeReaderByTimestamp createReader() {
+    PriorityMergeReaderByTimestamp priorityReader = new PriorityMergeReaderByTimestamp();
+    priorityReader.addReaderWithPriority(new FakedReaderByTimestamp(100, 200, 5, 11), 1);
+    priorityReader.addReaderWithPriority(new FakedReaderByTimestamp(850, 200, 7, 19), 2);
+    priorityReader.addReaderWithPriority(new FakedReaderByTimestamp(1080, 200, 13, 31), 3);
+    return priorityReader;
+  }
+
   public static class FakedReaderByTimestamp implements IReaderByTimestamp,
       IPointReader {
 
@@ -0,0 +1,215 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.timegenerator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.executor.EngineQueryRouter;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.expression.IBinaryExpression;
+import org.apache.iotdb.tsfile.read.expression.IExpression;
+import org.apache.iotdb.tsfile.read.expression.QueryExpression;
+import org.apache.iotdb.tsfile.read.expression.impl.BinaryExpression;
+import org.apache.iotdb.tsfile.read.expression.impl.SingleSeriesExpression;
+import org.apache.iotdb.tsfile.read.filter.ValueFilter;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EngineTimeGeneratorTest {
+
+  private static final int POINT_NUM = 3000;
+
+  private String storageGroup = "root.vg";
+  private String deviceId = "root.vg.d0";
+  private Path s0 = new Path(deviceId, "s0");
+  private Path s1 = new Path(deviceId, "s1");
+  private Path s2 = new Path(deviceId, "s2");
+
+  /**
+   * the values of s0, s1 and s2 at each time, null if absent.
+   */
+  private Long[][] model = new Long[3][POINT_NUM + 1];
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.envSetUp();
+    MManager.getInstance().setStorageLevelToMTree(storageGroup);
+    for (Path path : Arrays.asList(s0, s1, s2)) {
+      MManager.getInstance().addPathToMTree(path.getFullPath(), TSDataType.INT64.toString(),
+          TSEncoding.PLAIN.toString());
+      StorageEngine.getInstance().addTimeSeries(path, TSDataType.INT64, TSEncoding.PLAIN,
+          CompressionType.valueOf(TSFileConfig.compressor), Collections.emptyMap());
+    }
+    prepareData();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testGetValue() throws Exception {
+    IExpression expression = BinaryExpression.and(
+        new SingleSeriesExpression(s0, ValueFilter.gt(100L)),
+        new SingleSeriesExpression(s1, ValueFilter.gt(5L)));
+    EngineTimeGenerator timeGenerator = new EngineTimeGenerator(expression, newContext());
+    assertTrue(timeGenerator.hasLeafNode(s0));
+    assertTrue(timeGenerator.hasLeafNode(s1));
+    assertFalse(timeGenerator.hasLeafNode(s2));
+
+    int count = 0;
+    while (timeGenerator.hasNext()) {
+      long time = timeGenerator.next();
+      assertEquals(model[0][(int) time], timeGenerator.getValue(s0, time));
+      assertEquals(model[1][(int) time], timeGenerator.getValue(s1, time));
+      assertNull(timeGenerator.getValue(s2, time));
+      count++;
+    }
+    assertEquals(countRows(expression), count);
+
+    timeGenerator = new EngineTimeGenerator(expression, newContext());
+    long[] timestamps = new long[1000];
+    int total = 0;
+    int length;
+    while ((length = timeGenerator.next(timestamps)) > 0) {
+      total += length;
+    }
+    assertEquals(count, total);
+  }
+
+  @Test
+  public void testQueryWithValueFilter() throws Exception {
+    // the selected series s0 and s1 are in the filter
+    checkQuery(BinaryExpression.and(
+        new SingleSeriesExpression(s0, ValueFilter.gt(100L)),
+        new SingleSeriesExpression(s1, ValueFilter.gt(5L))));
+    // the values of one side of an OR filter are read by the readers
+    checkQuery(BinaryExpression.or(
+        new SingleSeriesExpression(s0, ValueFilter.lt(10L)),
+        new SingleSeriesExpression(s1, ValueFilter.eq(9L))));
+    checkQuery(new SingleSeriesExpression(s2, ValueFilter.gtEq(0L)));
+  }
+
+  private void checkQuery(IExpression expression) throws Exception {
+    List<Path> paths = Arrays.asList(s0, s1, s2);
+    QueryDataSet dataSet = new EngineQueryRouter()
+        .query(QueryExpression.create(paths, expression), newContext());
+    int count = 0;
+    while (dataSet.hasNext()) {
+      RowRecord record = dataSet.next();
+      int time = (int) record.getTimestamp();
+      assertTrue(satisfy(expression, time));
+      for (int i = 0; i < 3; i++) {
+        if (model[i][time] == null) {
+          assertNull(record.getFields().get(i).getDataType());
+        } else {
+          assertEquals(model[i][time].longValue(), record.getFields().get(i).getLongV());
+        }
+      }
+      count++;
+    }
+    assertEquals(countRows(expression), count);
+  }
+
+  private int countRows(IExpression expression) {
+    int count = 0;
+    for (int time = 1; time <= POINT_NUM; time++) {
+      if (satisfy(expression, time)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private boolean satisfy(IExpression expression, int time) {
+    switch (expression.getType()) {
+      case AND:
+        return satisfy(((IBinaryExpression) expression).getLeft(), time)
+            && satisfy(((IBinaryExpression) expression).getRight(), time);
+      case OR:
+        return satisfy(((IBinaryExpression) expression).getLeft(), time)
+            || satisfy(((IBinaryExpression) expression).getRight(), time);
+      default:
+        SingleSeriesExpression seriesExpression = (SingleSeriesExpression) expression;
+        int index = Integer.parseInt(seriesExpression.getSeriesPath().getMeasurement().substring(1));
+        Long value = model[index][time];
+        return value != null && seriesExpression.getFilter().satisfy(time, value);
+    }
+  }
+
+  /**
+   * sealed sequence files, unsequence data overwriting some of them and the data in memory, where
+   * s1 is absent at the times divisible by 3 and s2 at the times divisible by 7.
+   */
+  private void prepareData() throws Exception {
+    for (int time = 1; time <= POINT_NUM; time++) {
+      if (time == POINT_NUM / 2 + 1) {
+        StorageEngine.getInstance().syncCloseAllProcessor();
+        for (int unseqTime = 100; unseqTime <= 300; unseqTime += 2) {
+          insert(unseqTime, unseqTime + 1000, unseqTime % 10, unseqTime % 100);
+        }
+      }
+      insert(time, time, time % 10, time % 100);
+    }
+  }
+
+  private void insert(int time, long v0, long v1, long v2) throws Exception {
+    TSRecord record = new TSRecord(time, deviceId);
+    List<Long> values = new ArrayList<>(Arrays.asList(v0, v1, v2));
+    if (time % 3 == 0) {
+      values.set(1, null);
+    }
+    if (time % 7 == 0) {
+      values.set(2, null);
+    }
+    for (int i = 0; i < 3; i++) {
+      if (values.get(i) != null) {
+        record.addTuple(new LongDataPoint("s" + i, values.get(i)));
+      }
+      model[i][time] = values.get(i);
+    }
+    assertTrue(StorageEngine.getInstance().insert(new InsertPlan(record)));
+  }
+
+  private QueryContext newContext() {
+    return new QueryContext(EnvironmentUtils.TEST_QUERY_JOB_ID);
+  }
+}
@@ -0,0 +1,187 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.rescon;
+
+import static org.apache.iotdb.db.rescon.PrimitiveArrayPool.ARRAY_SIZE;
+import static org.apache.iotdb.db.rescon.PrimitiveArrayPool.MAGAZINE_SIZE;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PrimitiveArrayPoolTest {
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private double proportion;
+  private PrimitiveArrayPool pool = PrimitiveArrayPool.getInstance();
+
+  @Before
+  public void setUp() {
+    proportion = config.getPrimitiveArrayPoolProportion();
+  }
+
+  @After
+  public void tearDown() {
+    config.setPrimitiveArrayPoolProportion(proportion);
+  }
+
+  @Test
+  public void testReuseAndAccounting() {
+    long allocated = pool.getAllocatedBytes();
+    long[] array = (long[]) pool.getPrimitiveDataListByType(TSDataType.INT64);
+    Assert.assertEquals(ARRAY_SIZE, array.length);
+    Assert.assertEquals(allocated + ARRAY_SIZE * Long.BYTES, pool.getAllocatedBytes());
+    pool.release(array);
+    Assert.assertEquals(allocated, pool.getAllocatedBytes());
+    // the thread gets back the array it has just released
+    Assert.assertSame(array, pool.getPrimitiveDataListByType(TSDataType.INT64));
+
+    int[][] arrays = (int[][]) pool.getDataListsByType(TSDataType.INT32, ARRAY_SIZE * 2 + 1);
+    Assert.assertEquals(3, arrays.length);
+    Assert.assertEquals(allocated + ARRAY_SIZE * Long.BYTES + 3 * ARRAY_SIZE * Integer.BYTES,
+        pool.getAllocatedBytes());
+    pool.discard(array);
+    for (int[] intArray : arrays) {
+      pool.release(intArray);
+    }
+    Assert.assertEquals(allocated, pool.getAllocatedBytes());
+  }
+
+  @Test
+  public void testBound() {
+    config.setPrimitiveArrayPoolProportion(0);
+    long pooled = pool.getPooledBytes();
+    releaseNewArrays(MAGAZINE_SIZE * 2);
+    // only the magazine of the thread keeps arrays, the ones beyond are left to the GC
+    Assert.assertTrue(pool.getPooledBytes() <= pooled);
+
+    config.setPrimitiveArrayPoolProportion(0.5);
+    pooled = pool.getPooledBytes();
+    releaseNewArrays(MAGAZINE_SIZE * 2);
+    Assert.assertTrue(pool.getPooledBytes() >= pooled + MAGAZINE_SIZE / 2 * ARRAY_SIZE);
+  }
+
+  /**
+   * get arrays from the pool and release them back, which leaves the magazine of the thread full.
+   */
+  private void releaseNewArrays(int number) {
+    releaseNewArrays(number, TSDataType.BOOLEAN);
+  }
+
+  private void releaseNewArrays(int number, TSDataType dataType) {
+    List<Object> arrays = new ArrayList<>();
+    for (int i = 0; i < number; i++) {
+      arrays.add(pool.getPrimitiveDataListByType(dataType));
+    }
+    for (Object array : arrays) {
+      pool.release(array);
+    }
+  }
+
+  @Test
+  public void testReleaseFromShortLivedThreads() throws Exception {
+    emptyDepot(TSDataType.FLOAT);
+    long pooled = pool.getPooledBytes();
+    long arraySize = PrimitiveArrayPool.getArraySizeInBytes(TSDataType.FLOAT);
+    long maxPooled = pooled + 4 * MAGAZINE_SIZE * arraySize;
+    config.setPrimitiveArrayPoolProportion(
+        (double) maxPooled / config.getAllocateMemoryForWrite());
+
+    // like the threads of the closed RPC connections, which end with their magazines full
+    for (int i = 0; i < 100; i++) {
+      Thread thread = new Thread(() -> releaseNewArrays(MAGAZINE_SIZE * 2, TSDataType.FLOAT));
+      thread.start();
+      thread.join();
+      Assert.assertTrue(pool.getPooledBytes() <= maxPooled);
+    }
+    Assert.assertTrue(pool.getPooledBytes() > pooled);
+
+    // the arrays left in the magazines of the ended threads are not counted as pooled, so all of
+    // the counted ones can still be got by a new thread
+    emptyDepot(TSDataType.FLOAT);
+    Assert.assertEquals(pooled, pool.getPooledBytes());
+  }
+
+  /**
+   * get the arrays of the data type from a new thread until its depot is empty.
+   */
+  private void emptyDepot(TSDataType dataType) throws Exception {
+    ExecutorService service = Executors.newSingleThreadExecutor();
+    service.submit(() -> {
+      long pooled;
+      do {
+        pooled = pool.getPooledBytes();
+        // the first get of every MAGAZINE_SIZE / 2 refills the magazine from the depot
+        for (int i = 0; i < MAGAZINE_SIZE / 2; i++) {
+          pool.discard(pool.getPrimitiveDataListByType(dataType));
+        }
+      } while (pool.getPooledBytes() < pooled);
+    }).get();
+    service.shutdown();
+  }
+
+  @Test
+  public void testConcurrentGetAndRelease() throws Exception {
+    long allocated = pool.getAllocatedBytes();
+    int threadNum = 4;
+    int loop = 20000;
+    ExecutorService service = Executors.newFixedThreadPool(threadNum * 2);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < threadNum; i++) {
+      long marker = i;
+      BlockingQueue<long[]> queue = new ArrayBlockingQueue<>(1024);
+      // the arrays got by one thread are released by another one, like a memtable being flushed
+      futures.add(service.submit(() -> {
+        for (int j = 0; j < loop; j++) {
+          long[] array = (long[]) pool.getPrimitiveDataListByType(TSDataType.INT64);
+          array[0] = marker;
+          array[ARRAY_SIZE - 1] = j;
+          queue.put(array);
+        }
+        return null;
+      }));
+      futures.add(service.submit(() -> {
+        for (int j = 0; j < loop; j++) {
+          long[] array = queue.take();
+          // an array is never handed to two threads at a time
+          Assert.assertEquals(marker, array[0]);
+          Assert.assertEquals(j, array[ARRAY_SIZE - 1]);
+          pool.release(array);
+        }
+        return null;
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    service.shutdown();
+    Assert.assertEquals(allocated, pool.getAllocatedBytes());
+  }
+}
@@ -0,0 +1,120 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.iotdb.db.query.dataset.AuthDataSet;
+import org.apache.iotdb.jdbc.IoTDBColumnarDataSet;
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.Field;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.junit.Test;
+
+public class QueryDataSetUtilsTest {
+
+  private static final int ROW_NUM = 19;
+
+  private AuthDataSet createDataSet() {
+    List<Path> paths = Arrays.asList(new Path("root.sg.d0.s0"), new Path("root.sg.d0.s1"),
+        new Path("root.sg.d0.s2"), new Path("root.sg.d0.s3"));
+    List<TSDataType> dataTypes = Arrays.asList(TSDataType.INT64, TSDataType.TEXT,
+        TSDataType.DOUBLE, TSDataType.INT32);
+    AuthDataSet dataSet = new AuthDataSet(paths, dataTypes);
+    for (int i = 0; i < ROW_NUM; i++) {
+      RowRecord record = new RowRecord(i * 10);
+      Field longField = new Field(TSDataType.INT64);
+      longField.setLongV(i);
+      record.addField(longField);
+      Field textField = new Field(TSDataType.TEXT);
+      textField.setBinaryV(new Binary("text" + i));
+      record.addField(textField);
+      // s2 only has values in the odd rows and s3 has no value at all
+      if (i % 2 == 1) {
+        Field doubleField = new Field(TSDataType.DOUBLE);
+        doubleField.setDoubleV(i + 0.5);
+        record.addField(doubleField);
+      } else {
+        record.addField(new Field(null));
+      }
+      record.addField(new Field(null));
+      dataSet.putRecord(record);
+    }
+    return dataSet;
+  }
+
+  @Test
+  public void testConvertInColumns() throws IOException {
+    AuthDataSet dataSet = createDataSet();
+    int fetchSize = 10;
+    int row = 0;
+    while (true) {
+      TSQueryDataSet tsQueryDataSet = QueryDataSetUtils
+          .convertQueryDataSetByFetchSizeInColumns(dataSet, fetchSize,
+              CompressionType.UNCOMPRESSED);
+      assertTrue(tsQueryDataSet.getRecords().isEmpty());
+      if (tsQueryDataSet.getRowCount() == 0) {
+        break;
+      }
+      assertEquals(Math.min(fetchSize, ROW_NUM - row), tsQueryDataSet.getRowCount());
+      assertEquals(-1, (int) tsQueryDataSet.getTypeList().get(3));
+
+      IoTDBColumnarDataSet columnarDataSet = new IoTDBColumnarDataSet(tsQueryDataSet,
+          CompressionType.UNCOMPRESSED);
+      assertEquals(4, columnarDataSet.getColumnNum());
+      while (columnarDataSet.hasNext()) {
+        columnarDataSet.next();
+        assertEquals(row * 10, columnarDataSet.getTimestamp());
+        assertEquals(row, columnarDataSet.getLong(0));
+        assertEquals("text" + row, columnarDataSet.getString(1));
+        if (row % 2 == 1) {
+          assertFalse(columnarDataSet.isNull(2));
+          assertEquals(row + 0.5, columnarDataSet.getDouble(2), 0.0);
+          assertEquals(String.valueOf(row + 0.5), columnarDataSet.getString(2));
+        } else {
+          assertTrue(columnarDataSet.isNull(2));
+          assertNull(columnarDataSet.getString(2));
+        }
+        assertTrue(columnarDataSet.isNull(3));
+        row++;
+      }
+    }
+    assertEquals(ROW_NUM, row);
+  }
+
+  @Test
+  public void testConvertEmptyDataSetInColumns() throws IOException {
+    AuthDataSet dataSet = new AuthDataSet(new ArrayList<>(), new ArrayList<>());
+    TSQueryDataSet tsQueryDataSet = QueryDataSetUtils
+        .convertQueryDataSetByFetchSizeInColumns(dataSet, 10, CompressionType.UNCOMPRESSED);
+    assertEquals(0, tsQueryDataSet.getRowCount());
+    assertFalse(new IoTDBColumnarDataSet(tsQueryDataSet, CompressionType.UNCOMPRESSED).hasNext());
+  }
+}
@@ -74,6 +74,44 @@ public class LongTVListTest {
     }
   }
 
+  @Test
+  public void testPutLongsWithoutSort() {
+    LongTVList tvList = new LongTVList();
+    long[] times = new long[1000];
+    long[] values = new long[1000];
+    for (int i = 0; i < 1000; i++) {
+      times[i] = i;
+      values[i] = i * 2;
+    }
+    // append in two calls to cross the boundaries of the underlying arrays unaligned
+    tvList.putLongs(times, values, 0, 10);
+    tvList.putLongs(times, values, 10, 1000);
+    Assert.assertEquals(1000, tvList.size());
+    Assert.assertTrue(tvList.sorted);
+    for (int i = 0; i < tvList.size(); i++) {
+      Assert.assertEquals(i, tvList.getTime(i));
+      Assert.assertEquals(i * 2, tvList.getLong(i));
+    }
+  }
+
+  @Test
+  public void testPutLongsWithSort() {
+    LongTVList tvList = new LongTVList();
+    long[] times = new long[1000];
+    long[] values = new long[1000];
+    for (int i = 0; i < 1000; i++) {
+      times[i] = 999 - i;
+      values[i] = 999 - i;
+    }
+    tvList.putLong(1000, 1000);
+    tvList.putLongs(times, values, 0, 1000);
+    Assert.assertFalse(tvList.sorted);
+    tvList.sort();
+    for (int i = 0; i < tvList.size(); i++) {
+      Assert.assertEquals(i, tvList.getTime(i));
+      Assert.assertEquals(i, tvList.getLong(i));
+    }
+  }
 
   @Test
   public void compareLongTVListSortTime() {
@@ -90,4 +128,54 @@ public class LongTVListTest {
     }
   }
 
-}
\ No newline at end of file
+  @Test
+  public void testSnapshotIsolation() {
+    LongTVList tvList = new LongTVList();
+    for (long i = 1000; i >= 1; i--) {
+      tvList.putLong(i, i);
+    }
+    TVList snapshot = tvList.snapshot();
+    Assert.assertTrue(tvList.sorted);
+
+    // appended, sorted, deleted and finally cleared and reused after the snapshot is taken
+    for (long i = 0; i < 500; i++) {
+      tvList.putLong(-i, -i);
+    }
+    tvList.sort();
+    tvList.delete(300);
+    tvList.clear();
+    LongTVList reusedList = new LongTVList();
+    for (long i = 0; i < 2000; i++) {
+      reusedList.putLong(i, -1);
+    }
+
+    Assert.assertEquals(1000, snapshot.size());
+    for (int i = 0; i < snapshot.size(); i++) {
+      Assert.assertEquals(i + 1, snapshot.getTime(i));
+      Assert.assertEquals(i + 1, snapshot.getLong(i));
+    }
+  }
+
+  @Test
+  public void testSnapshotSharesArrays() {
+    LongTVList tvList = new LongTVList();
+    for (long i = 0; i < 1000; i++) {
+      tvList.putLong(i, i);
+    }
+    TVList snapshot = tvList.snapshot();
+    Assert.assertSame(tvList.timestamps.get(0), snapshot.timestamps.get(0));
+
+    // appending in order keeps sharing the arrays
+    tvList.putLong(1000, 1000);
+    tvList.sort();
+    Assert.assertSame(tvList.timestamps.get(0), snapshot.timestamps.get(0));
+    Assert.assertEquals(1000, snapshot.size());
+
+    // sorting out-of-order points copies the arrays first
+    tvList.putLong(-1, -1);
+    tvList.sort();
+    Assert.assertTrue(tvList.timestamps.get(0) != snapshot.timestamps.get(0));
+    Assert.assertEquals(-1, tvList.getTime(0));
+    Assert.assertEquals(0, snapshot.getTime(0));
+  }
+}
@@ -24,15 +24,27 @@ import static junit.framework.TestCase.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.DeletePlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
 import org.apache.iotdb.db.writelog.io.ILogReader;
 import org.apache.iotdb.db.writelog.node.ExclusiveWriteLogNode;
+import org.apache.iotdb.db.writelog.node.WalDurability;
 import org.apache.iotdb.db.writelog.node.WriteLogNode;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.utils.Binary;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -86,6 +98,35 @@ public class WriteLogNodeTest {
     logNode.delete();
   }
 
+  @Test
+  public void testWriteBatchLog() throws IOException {
+    // this test writes a batch insertion, of which only a part of the rows is logged
+    String identifier = "root.logTestDevice";
+
+    WriteLogNode logNode = new ExclusiveWriteLogNode(identifier);
+
+    String[] measurements = new String[]{"s1", "s2", "s3"};
+    TSDataType[] dataTypes = new TSDataType[]{TSDataType.DOUBLE, TSDataType.INT64,
+        TSDataType.TEXT};
+    BatchInsertPlan batchInsertPlan = new BatchInsertPlan(identifier, measurements, dataTypes,
+        new long[]{100, 101, 102},
+        new Object[]{new double[]{1.0, 2.0, 3.0}, new long[]{15, 16, 17},
+            new Binary[]{new Binary("a"), new Binary("b"), new Binary("c")}});
+    logNode.write(batchInsertPlan, 1, 3);
+    logNode.close();
+
+    ILogReader reader = logNode.getLogReader();
+    BatchInsertPlan expected = new BatchInsertPlan(identifier, measurements, dataTypes,
+        new long[]{101, 102},
+        new Object[]{new double[]{2.0, 3.0}, new long[]{16, 17},
+            new Binary[]{new Binary("b"), new Binary("c")}});
+    assertEquals(expected, reader.next());
+    assertFalse(reader.hasNext());
+    reader.close();
+
+    logNode.delete();
+  }
+
   @Test
   public void testNotifyFlush() throws IOException {
     // this test writes a few logs and sync them
@@ -193,4 +234,137 @@ public class WriteLogNodeTest {
 
     logNode.delete();
   }
+
+  @Test
+  public void testGroupCommit() throws Exception {
+    // this test writes logs from several threads with group commit, each write returns only after
+    // its log is synced, so all logs can be read without closing the node
+    boolean enableGroupCommit = config.isEnableWalGroupCommit();
+    WalDurability durability = config.getWalDurability();
+    config.setEnableWalGroupCommit(true);
+    config.setWalDurability(WalDurability.SYNC);
+    String identifier = "root.logTestDevice.groupCommit";
+    WriteLogNode logNode = new ExclusiveWriteLogNode(identifier);
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      int threadNum = 4;
+      int logNumPerThread = 100;
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threadNum; i++) {
+        int threadId = i;
+        futures.add(pool.submit(() -> {
+          for (int j = 0; j < logNumPerThread; j++) {
+            logNode.write(new InsertPlan(identifier, threadId * logNumPerThread + j,
+                new String[]{"s1"}, new String[]{"1.0"}));
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+
+      Set<Long> times = new HashSet<>();
+      ILogReader reader = logNode.getLogReader();
+      while (reader.hasNext()) {
+        PhysicalPlan plan = reader.next();
+        times.add(((InsertPlan) plan).getTime());
+      }
+      reader.close();
+      assertEquals(threadNum * logNumPerThread, times.size());
+    } finally {
+      pool.shutdownNow();
+      logNode.delete();
+      config.setEnableWalGroupCommit(enableGroupCommit);
+      config.setWalDurability(durability);
+    }
+  }
+
+  @Test
+  public void testGroupCommitManyNodes() throws Exception {
+    // this test writes to more log nodes than the threads of the shared sync executor, closes them
+    // to release their buffers, and then writes to them again
+    boolean enableGroupCommit = config.isEnableWalGroupCommit();
+    WalDurability durability = config.getWalDurability();
+    config.setEnableWalGroupCommit(true);
+    config.setWalDurability(WalDurability.SYNC);
+    int nodeNum = Runtime.getRuntime().availableProcessors() * 2 + 1;
+    int logNumPerNode = 20;
+    List<WriteLogNode> logNodes = new ArrayList<>();
+    for (int i = 0; i < nodeNum; i++) {
+      logNodes.add(new ExclusiveWriteLogNode("root.logTestDevice.groupCommit" + i));
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(nodeNum);
+    try {
+      for (int round = 0; round < 2; round++) {
+        int startTime = round * logNumPerNode;
+        List<Future<?>> futures = new ArrayList<>();
+        for (WriteLogNode logNode : logNodes) {
+          futures.add(pool.submit(() -> {
+            for (int j = startTime; j < startTime + logNumPerNode; j++) {
+              logNode.write(new InsertPlan(logNode.getIdentifier(), j,
+                  new String[]{"s1"}, new String[]{"1.0"}));
+            }
+            return null;
+          }));
+        }
+        for (Future<?> future : futures) {
+          future.get();
+        }
+        for (WriteLogNode logNode : logNodes) {
+          logNode.close();
+        }
+      }
+
+      for (WriteLogNode logNode : logNodes) {
+        Set<Long> times = new HashSet<>();
+        ILogReader reader = logNode.getLogReader();
+        while (reader.hasNext()) {
+          times.add(((InsertPlan) reader.next()).getTime());
+        }
+        reader.close();
+        assertEquals(2 * logNumPerNode, times.size());
+      }
+    } finally {
+      pool.shutdownNow();
+      for (WriteLogNode logNode : logNodes) {
+        logNode.delete();
+      }
+      config.setEnableWalGroupCommit(enableGroupCommit);
+      config.setWalDurability(durability);
+    }
+  }
+
+  @Test
+  public void testGroupCommitNotifyFlush() throws IOException {
+    // this test checks that the logs written before notifyStartFlush() are in the old file when
+    // group commit is enabled
+    boolean enableGroupCommit = config.isEnableWalGroupCommit();
+    WalDurability durability = config.getWalDurability();
+    config.setEnableWalGroupCommit(true);
+    config.setWalDurability(WalDurability.ASYNC);
+    String identifier = "root.logTestDevice";
+    WriteLogNode logNode = new ExclusiveWriteLogNode(identifier);
+    try {
+      InsertPlan bwInsertPlan = new InsertPlan(identifier, 100,
+          new String[]{"s1", "s2", "s3", "s4"},
+          new String[]{"1.0", "15", "str", "false"});
+      DeletePlan deletePlan = new DeletePlan(50, new Path(identifier + ".s1"));
+
+      logNode.write(bwInsertPlan);
+      logNode.notifyStartFlush();
+      logNode.write(deletePlan);
+      logNode.forceSync();
+
+      logNode.notifyEndFlush();
+      ILogReader logReader = logNode.getLogReader();
+      assertEquals(deletePlan, logReader.next());
+      assertFalse(logReader.hasNext());
+      logReader.close();
+    } finally {
+      logNode.delete();
+      config.setEnableWalGroupCommit(enableGroupCommit);
+      config.setWalDurability(durability);
+    }
+  }
 }
@@ -44,6 +44,26 @@ public class Config {
   public static final String AUTH_PASSWORD = "password";
   public static final String DEFALUT_PASSWORD = "password";
 
+  /**
+   * how the server compresses the columnar buffers of a fetch, UNCOMPRESSED or SNAPPY.
+   */
+  public static final String RESULT_COMPRESSION = "result_compression";
+  public static final String DEFAULT_RESULT_COMPRESSION = "UNCOMPRESSED";
+
+  /**
+   * how many batches of a query may be fetched ahead of the reader by a background thread, 0
+   * fetches a batch only when the reader has consumed the previous one.
+   */
+  public static final String PREFETCH_BATCHES = "prefetch_batches";
+  public static final int DEFAULT_PREFETCH_BATCHES = 0;
+
+  /**
+   * when prefetching, the fetch size is adapted so that a fetch takes about this long, between the
+   * fetch size of the statement and PREFETCH_MAX_FETCH_SIZE_FACTOR times of it.
+   */
+  public static final long PREFETCH_TARGET_FETCH_TIME_MS = 200;
+  public static final int PREFETCH_MAX_FETCH_SIZE_FACTOR = 16;
+
   public static final int RETRY_NUM = 3;
   public static final long RETRY_INTERVAL = 1000;
 
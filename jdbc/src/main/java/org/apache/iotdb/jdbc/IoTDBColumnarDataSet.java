@@ -0,0 +1,204 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.jdbc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.List;
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
+/**
+ * IoTDBColumnarDataSet iterates the rows of one fetch returned in the columnar format of
+ * TSQueryDataSet. The buffers are kept as they arrive and a value is only decoded when it is
+ * read, so moving to the next row does not create any object.
+ */
+public class IoTDBColumnarDataSet {
+
+  private static final Charset STRING_CHARSET = Charset.forName(TSFileConfig.STRING_ENCODING);
+
+  private int rowCount;
+  private int rowIndex = -1;
+  private ByteBuffer timeBuffer;
+  private ByteBuffer[] valueBuffers;
+  private ByteBuffer[] bitmapBuffers;
+  private TSDataType[] dataTypes;
+  // offset in valueBuffers[i] of the value of the current row, -1 if the value is null
+  private int[] valueOffsets;
+  // offset in valueBuffers[i] of the value of the next row that is not null
+  private int[] nextValueOffsets;
+
+  public IoTDBColumnarDataSet(TSQueryDataSet tsQueryDataSet, CompressionType compressionType) {
+    IUnCompressor unCompressor = IUnCompressor.getUnCompressor(compressionType);
+    this.rowCount = tsQueryDataSet.getRowCount();
+    this.timeBuffer = uncompress(unCompressor, compressionType, tsQueryDataSet.bufferForTime());
+
+    List<ByteBuffer> valueList = tsQueryDataSet.getValueList();
+    List<ByteBuffer> bitmapList = tsQueryDataSet.getBitmapList();
+    List<Integer> typeList = tsQueryDataSet.getTypeList();
+    int columnNum = typeList.size();
+    valueBuffers = new ByteBuffer[columnNum];
+    bitmapBuffers = new ByteBuffer[columnNum];
+    dataTypes = new TSDataType[columnNum];
+    valueOffsets = new int[columnNum];
+    nextValueOffsets = new int[columnNum];
+    for (int i = 0; i < columnNum; i++) {
+      valueBuffers[i] = uncompress(unCompressor, compressionType, valueList.get(i));
+      bitmapBuffers[i] = uncompress(unCompressor, compressionType, bitmapList.get(i));
+      int type = typeList.get(i);
+      dataTypes[i] = type < 0 ? null : TSDataType.deserialize((short) type);
+    }
+  }
+
+  private static ByteBuffer uncompress(IUnCompressor unCompressor,
+      CompressionType compressionType, ByteBuffer buffer) {
+    // slice so that absolute offsets start from 0 whatever the position of the thrift buffer is
+    if (compressionType == CompressionType.UNCOMPRESSED) {
+      return buffer.slice();
+    }
+    byte[] compressed = new byte[buffer.remaining()];
+    buffer.duplicate().get(compressed);
+    return ByteBuffer.wrap(unCompressor.uncompress(compressed));
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  public boolean hasNext() {
+    return rowIndex + 1 < rowCount;
+  }
+
+  /**
+   * move to the next row, only the offsets of the values are updated.
+   */
+  public void next() {
+    rowIndex++;
+    int bitmask = 0x80 >>> (rowIndex & 7);
+    int bitmapIndex = rowIndex >>> 3;
+    for (int i = 0; i < dataTypes.length; i++) {
+      if ((bitmapBuffers[i].get(bitmapIndex) & bitmask) == 0) {
+        valueOffsets[i] = -1;
+        continue;
+      }
+      int offset = nextValueOffsets[i];
+      valueOffsets[i] = offset;
+      nextValueOffsets[i] = offset + valueSize(i, offset);
+    }
+  }
+
+  private int valueSize(int column, int offset) {
+    switch (dataTypes[column]) {
+      case BOOLEAN:
+        return 1;
+      case INT32:
+      case FLOAT:
+        return 4;
+      case INT64:
+      case DOUBLE:
+        return 8;
+      case TEXT:
+        return 4 + valueBuffers[column].getInt(offset);
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Data type %s is not supported.", dataTypes[column]));
+    }
+  }
+
+  public int getColumnNum() {
+    return dataTypes.length;
+  }
+
+  public long getTimestamp() {
+    return timeBuffer.getLong(rowIndex * 8);
+  }
+
+  /**
+   * @param column index of the column, starting from 0 and excluding the time column
+   * @return the data type of the column, null if the column has no value in this fetch
+   */
+  public TSDataType getDataType(int column) {
+    return dataTypes[column];
+  }
+
+  public boolean isNull(int column) {
+    return valueOffsets[column] < 0;
+  }
+
+  public boolean getBoolean(int column) {
+    return valueBuffers[column].get(valueOffsets[column]) != 0;
+  }
+
+  public int getInt(int column) {
+    return valueBuffers[column].getInt(valueOffsets[column]);
+  }
+
+  public long getLong(int column) {
+    return valueBuffers[column].getLong(valueOffsets[column]);
+  }
+
+  public float getFloat(int column) {
+    return valueBuffers[column].getFloat(valueOffsets[column]);
+  }
+
+  public double getDouble(int column) {
+    return valueBuffers[column].getDouble(valueOffsets[column]);
+  }
+
+  public byte[] getBinary(int column) {
+    ByteBuffer buffer = valueBuffers[column];
+    int offset = valueOffsets[column];
+    byte[] bytes = new byte[buffer.getInt(offset)];
+    ByteBuffer duplicate = buffer.duplicate();
+    duplicate.position(offset + 4);
+    duplicate.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * @return the value of the column in the current row as a string in the same form as
+   * Field.getStringValue(), or null if the value is null
+   */
+  public String getString(int column) {
+    if (isNull(column)) {
+      return null;
+    }
+    switch (dataTypes[column]) {
+      case BOOLEAN:
+        return String.valueOf(getBoolean(column));
+      case INT32:
+        return String.valueOf(getInt(column));
+      case INT64:
+        return String.valueOf(getLong(column));
+      case FLOAT:
+        return String.valueOf(getFloat(column));
+      case DOUBLE:
+        return String.valueOf(getDouble(column));
+      case TEXT:
+        return new String(getBinary(column), STRING_CHARSET);
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Data type %s is not supported.", dataTypes[column]));
+    }
+  }
+}
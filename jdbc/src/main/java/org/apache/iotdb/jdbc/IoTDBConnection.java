@@ -40,13 +40,18 @@ import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Struct;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Executor;
 import org.apache.iotdb.service.rpc.thrift.ServerProperties;
+import org.apache.iotdb.service.rpc.thrift.TSBatchInsertionReq;
+import org.apache.iotdb.service.rpc.thrift.TSCancelOperationReq;
+import org.apache.iotdb.service.rpc.thrift.TSCancelOperationResp;
 import org.apache.iotdb.service.rpc.thrift.TSCloseSessionReq;
+import org.apache.iotdb.service.rpc.thrift.TSExecuteStatementResp;
 import org.apache.iotdb.service.rpc.thrift.TSGetTimeZoneResp;
 import org.apache.iotdb.service.rpc.thrift.TSIService;
 import org.apache.iotdb.service.rpc.thrift.TSOpenSessionReq;
@@ -55,6 +60,9 @@ import org.apache.iotdb.service.rpc.thrift.TSProtocolVersion;
 import org.apache.iotdb.service.rpc.thrift.TSSetTimeZoneReq;
 import org.apache.iotdb.service.rpc.thrift.TSSetTimeZoneResp;
 import org.apache.iotdb.service.rpc.thrift.TS_SessionHandle;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.write.record.RowBatch;
 import org.apache.thrift.TException;
 import org.apache.thrift.protocol.TBinaryProtocol;
 import org.apache.thrift.transport.TSocket;
@@ -81,10 +89,11 @@ public class IoTDBConnection implements Connection {
   }
 
   public IoTDBConnection(String url, Properties info) throws SQLException, TTransportException {
-    if (url == null) {
-      throw new IoTDBURLException("Input url cannot be null");
-    }
-    params = Utils.parseUrl(url, info);
+    this(parseParams(url, info));
+  }
+
+  private IoTDBConnection(IoTDBConnectionParams params) throws SQLException, TTransportException {
+    this.params = params;
 
     supportedProtocols.add(TSProtocolVersion.TSFILE_SERVICE_PROTOCOL_V1);
 
@@ -97,6 +106,28 @@ public class IoTDBConnection implements Connection {
     autoCommit = false;
   }
 
+  private static IoTDBConnectionParams parseParams(String url, Properties info)
+      throws IoTDBURLException {
+    if (url == null) {
+      throw new IoTDBURLException("Input url cannot be null");
+    }
+    return Utils.parseUrl(url, info);
+  }
+
+  /**
+   * Cancel an operation through a new session, as the calls of this connection are serialized and
+   * it may be busy fetching the results of the operation to cancel.
+   */
+  TSCancelOperationResp cancelOperation(TSCancelOperationReq req)
+      throws SQLException, TException {
+    IoTDBConnection cancelConnection = new IoTDBConnection(params);
+    try {
+      return cancelConnection.client.cancelOperation(req);
+    } finally {
+      cancelConnection.close();
+    }
+  }
+
   public static TSIService.Iface newSynchronizedClient(TSIService.Iface client) {
     return (TSIService.Iface) Proxy.newProxyInstance(IoTDBConnection.class.getClassLoader(),
         new Class[]{TSIService.Iface.class}, new SynchronizedHandler(client));
@@ -497,10 +528,44 @@ public class IoTDBConnection implements Connection {
     this.zoneId = ZoneId.of(zoneId);
   }
 
+  /**
+   * insert the rows of a RowBatch by one RPC, the values are sent in binary columns so the
+   * server neither parses SQL nor converts strings.
+   */
+  public void insertBatch(RowBatch rowBatch) throws TException, IoTDBSQLException {
+    TSBatchInsertionReq req = new TSBatchInsertionReq();
+    req.setDeviceId(rowBatch.deviceId);
+    req.setMeasurements(rowBatch.measurements);
+    List<Integer> types = new ArrayList<>();
+    for (TSDataType dataType : rowBatch.dataTypes) {
+      types.add((int) dataType.serialize());
+    }
+    req.setTypes(types);
+    req.setTimestamps(Utils.convertTimestamps(rowBatch));
+    req.setValues(Utils.convertValues(rowBatch));
+    req.setSize(rowBatch.batchSize);
+    TSExecuteStatementResp resp = client.insertBatch(req);
+    Utils.verifySuccess(resp.getStatus());
+  }
+
   public ServerProperties getServerProperties() throws TException {
     return client.getProperties();
   }
 
+  /**
+   * @return how the server is asked to compress the columnar buffers of a fetch
+   */
+  public CompressionType getResultCompression() {
+    return params == null ? CompressionType.UNCOMPRESSED : params.getResultCompression();
+  }
+
+  /**
+   * @return how many batches of a query are fetched ahead of the reader, 0 if not prefetching
+   */
+  public int getPrefetchBatches() {
+    return params == null ? Config.DEFAULT_PREFETCH_BATCHES : params.getPrefetchBatches();
+  }
+
   public TSProtocolVersion getProtocol() {
     return protocol;
   }
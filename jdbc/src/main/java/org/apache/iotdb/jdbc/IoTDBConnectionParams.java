@@ -18,6 +18,8 @@
  */
 package org.apache.iotdb.jdbc;
 
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+
 public class IoTDBConnectionParams {
 
   private String host = Config.IOTDB_DEFAULT_HOST;
@@ -26,6 +28,9 @@ public class IoTDBConnectionParams {
   private String seriesName = Config.DEFAULT_SERIES_NAME;
   private String username = Config.DEFAULT_USER;
   private String password = Config.DEFALUT_PASSWORD;
+  private CompressionType resultCompression = CompressionType
+      .valueOf(Config.DEFAULT_RESULT_COMPRESSION);
+  private int prefetchBatches = Config.DEFAULT_PREFETCH_BATCHES;
 
   public IoTDBConnectionParams(String url) {
     this.jdbcUriString = url;
@@ -79,4 +84,20 @@ public class IoTDBConnectionParams {
     this.password = password;
   }
 
+  public CompressionType getResultCompression() {
+    return resultCompression;
+  }
+
+  public void setResultCompression(CompressionType resultCompression) {
+    this.resultCompression = resultCompression;
+  }
+
+  public int getPrefetchBatches() {
+    return prefetchBatches;
+  }
+
+  public void setPrefetchBatches(int prefetchBatches) {
+    this.prefetchBatches = prefetchBatches;
+  }
+
 }
@@ -27,6 +27,7 @@ import java.net.URL;
 import java.sql.Array;
 import java.sql.Blob;
 import java.sql.Clob;
+import java.sql.Connection;
 import java.sql.Date;
 import java.sql.NClob;
 import java.sql.Ref;
@@ -48,11 +49,10 @@ import java.util.List;
 import java.util.Map;
 import org.apache.iotdb.service.rpc.thrift.TSCloseOperationReq;
 import org.apache.iotdb.service.rpc.thrift.TSCloseOperationResp;
-import org.apache.iotdb.service.rpc.thrift.TSFetchResultsReq;
-import org.apache.iotdb.service.rpc.thrift.TSFetchResultsResp;
 import org.apache.iotdb.service.rpc.thrift.TSIService;
 import org.apache.iotdb.service.rpc.thrift.TSOperationHandle;
-import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.Field;
 import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.apache.thrift.TException;
@@ -77,6 +77,12 @@ public class IoTDBQueryResultSet implements ResultSet {
   private Map<String, Integer> columnInfoMap;
   private RowRecord record;
   private Iterator<RowRecord> recordItr;
+  // the rows of the current fetch if the server returns them in columns
+  private IoTDBColumnarDataSet columnarDataSet;
+  private CompressionType resultCompression = CompressionType.UNCOMPRESSED;
+  private int prefetchBatches = Config.DEFAULT_PREFETCH_BATCHES;
+  private IoTDBResultFetcher resultFetcher;
+  private boolean hasColumnarRecord = false;
   private int rowsFetched = 0;
   private int maxRows; // defined in TsfileStatement
   private int fetchSize;
@@ -124,6 +130,11 @@ public class IoTDBQueryResultSet implements ResultSet {
     this.columnInfoMap = new HashMap<>();
     this.columnInfoMap.put(TIMESTAMP_STR, 1);
     this.queryId = queryId;
+    Connection connection = statement.getConnection();
+    if (connection instanceof IoTDBConnection) {
+      this.resultCompression = ((IoTDBConnection) connection).getResultCompression();
+      this.prefetchBatches = ((IoTDBConnection) connection).getPrefetchBatches();
+    }
     int index = 2;
     for (String name : columnName) {
       columnInfoList.add(name);
@@ -204,6 +215,10 @@ public class IoTDBQueryResultSet implements ResultSet {
       return;
     }
 
+    if (resultFetcher != null) {
+      // no fetch should reach the server after the query is closed
+      resultFetcher.close();
+    }
     closeOperationHandle();
     client = null;
     isClosed = true;
@@ -402,6 +417,10 @@ public class IoTDBQueryResultSet implements ResultSet {
 
   @Override
   public double getDouble(String columnName) throws SQLException {
+    int column = getColumnarIndex(columnName, TSDataType.DOUBLE);
+    if (column >= 0) {
+      return columnarDataSet.getDouble(column);
+    }
     return Double.parseDouble(getValueByName(columnName));
   }
 
@@ -432,6 +451,10 @@ public class IoTDBQueryResultSet implements ResultSet {
 
   @Override
   public float getFloat(String columnName) throws SQLException {
+    int column = getColumnarIndex(columnName, TSDataType.FLOAT);
+    if (column >= 0) {
+      return columnarDataSet.getFloat(column);
+    }
     return Float.parseFloat(getValueByName(columnName));
   }
 
@@ -447,6 +470,10 @@ public class IoTDBQueryResultSet implements ResultSet {
 
   @Override
   public int getInt(String columnName) throws SQLException {
+    int column = getColumnarIndex(columnName, TSDataType.INT32);
+    if (column >= 0) {
+      return columnarDataSet.getInt(column);
+    }
     return Integer.parseInt(getValueByName(columnName));
   }
 
@@ -457,6 +484,14 @@ public class IoTDBQueryResultSet implements ResultSet {
 
   @Override
   public long getLong(String columnName) throws SQLException {
+    if (columnarDataSet != null && columnName.equals(TIMESTAMP_STR)) {
+      checkRecord();
+      return columnarDataSet.getTimestamp();
+    }
+    int column = getColumnarIndex(columnName, TSDataType.INT64);
+    if (column >= 0) {
+      return columnarDataSet.getLong(column);
+    }
     return Long.parseLong(getValueByName(columnName));
   }
 
@@ -702,29 +737,29 @@ public class IoTDBQueryResultSet implements ResultSet {
 
   // the next record rule without constraints
   private boolean nextWithoutConstraints() throws SQLException {
-    if ((recordItr == null || !recordItr.hasNext()) && !emptyResultSet) {
-      TSFetchResultsReq req = new TSFetchResultsReq(sql, fetchSize, queryId);
-
-      try {
-        TSFetchResultsResp resp = client.fetchResults(req);
-        Utils.verifySuccess(resp.getStatus());
-        if (!resp.hasResultSet) {
-          emptyResultSet = true;
-        } else {
-          TSQueryDataSet tsQueryDataSet = resp.getQueryDataSet();
-          List<RowRecord> records = Utils.convertRowRecords(tsQueryDataSet);
-          recordItr = records.iterator();
-        }
-      } catch (TException e) {
-        throw new SQLException(
-            "Cannot fetch result from server, because of network connection: {} ", e);
+    if ((recordItr == null || !recordItr.hasNext())
+        && (columnarDataSet == null || !columnarDataSet.hasNext()) && !emptyResultSet) {
+      if (resultFetcher == null) {
+        resultFetcher = new IoTDBResultFetcher(client, sql, queryId, resultCompression, fetchSize,
+            prefetchBatches);
+      }
+      IoTDBResultFetcher.Batch batch = resultFetcher.next();
+      if (batch == IoTDBResultFetcher.Batch.END) {
+        emptyResultSet = true;
+      } else {
+        columnarDataSet = batch.getColumnarDataSet();
+        recordItr = batch.getRecords() == null ? null : batch.getRecords().iterator();
       }
-
     }
     if (emptyResultSet) {
       return false;
     }
 
+    if (columnarDataSet != null) {
+      columnarDataSet.next();
+      hasColumnarRecord = true;
+      return true;
+    }
     record = recordItr.next();
     return true;
   }
@@ -1215,7 +1250,7 @@ public class IoTDBQueryResultSet implements ResultSet {
   }
 
   private void checkRecord() throws SQLException {
-    if (record == null) {
+    if (record == null && !hasColumnarRecord) {
       throw new SQLException("No record remains");
     }
   }
@@ -1231,8 +1266,30 @@ public class IoTDBQueryResultSet implements ResultSet {
     return columnInfoList.get(columnIndex - 1);
   }
 
+  /**
+   * @return the index of the column in the columnar data set if the current row is read from it
+   * and its value is a non-null of the given type, otherwise -1
+   */
+  private int getColumnarIndex(String columnName, TSDataType dataType) throws SQLException {
+    if (columnarDataSet == null || columnName.equals(TIMESTAMP_STR)) {
+      return -1;
+    }
+    checkRecord();
+    int column = columnInfoMap.get(columnName) - 2;
+    if (columnarDataSet.getDataType(column) != dataType || columnarDataSet.isNull(column)) {
+      return -1;
+    }
+    return column;
+  }
+
   private String getValueByName(String columnName) throws SQLException {
     checkRecord();
+    if (columnarDataSet != null) {
+      if (columnName.equals(TIMESTAMP_STR)) {
+        return String.valueOf(columnarDataSet.getTimestamp());
+      }
+      return columnarDataSet.getString(columnInfoMap.get(columnName) - 2);
+    }
     if (columnName.equals(TIMESTAMP_STR)) {
       return String.valueOf(record.getTimestamp());
     }
@@ -0,0 +1,239 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.jdbc;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.apache.iotdb.service.rpc.thrift.TSFetchResultsReq;
+import org.apache.iotdb.service.rpc.thrift.TSFetchResultsResp;
+import org.apache.iotdb.service.rpc.thrift.TSIService;
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.thrift.TException;
+
+/**
+ * Fetches the results of a query batch by batch. Without prefetching a batch is fetched when the
+ * reader asks for it. With prefetching a background thread keeps up to prefetchBatches batches
+ * fetched and decompressed ahead of the reader, and adapts the fetch size to the observed fetch
+ * throughput so that a fetch takes about Config.PREFETCH_TARGET_FETCH_TIME_MS.
+ */
+public class IoTDBResultFetcher implements Runnable {
+
+  private static final long TARGET_FETCH_TIME_NS = TimeUnit.MILLISECONDS
+      .toNanos(Config.PREFETCH_TARGET_FETCH_TIME_MS);
+
+  private final TSIService.Iface client;
+  private final String sql;
+  private final long queryId;
+  private final CompressionType resultCompression;
+  private final int minFetchSize;
+  private final int maxFetchSize;
+  private int fetchSize;
+
+  private final int prefetchBatches;
+  private BlockingQueue<Batch> batches;
+  private Thread prefetchThread;
+  private volatile boolean closed = false;
+  // the end of the results or the failure of a fetch, returned again if the reader asks for more
+  private Batch lastBatch;
+
+  /**
+   * @param client should be safe to be called concurrently if prefetchBatches > 0, as the one
+   * returned by IoTDBConnection
+   */
+  public IoTDBResultFetcher(TSIService.Iface client, String sql, long queryId,
+      CompressionType resultCompression, int fetchSize, int prefetchBatches) {
+    this.client = client;
+    this.sql = sql;
+    this.queryId = queryId;
+    this.resultCompression = resultCompression;
+    this.fetchSize = fetchSize;
+    this.minFetchSize = fetchSize;
+    this.maxFetchSize = (int) Math
+        .min(Integer.MAX_VALUE, (long) fetchSize * Config.PREFETCH_MAX_FETCH_SIZE_FACTOR);
+    this.prefetchBatches = prefetchBatches;
+  }
+
+  /**
+   * @return the next batch of the results, Batch.END if there is no more result
+   */
+  public Batch next() throws SQLException {
+    if (lastBatch != null) {
+      return lastBatch.get();
+    }
+    Batch batch;
+    if (prefetchBatches <= 0) {
+      try {
+        batch = fetch(fetchSize);
+      } catch (SQLException e) {
+        batch = new Batch(e);
+      }
+    } else {
+      batch = takePrefetched();
+    }
+    if (batch.isLast()) {
+      lastBatch = batch;
+    }
+    return batch.get();
+  }
+
+  private Batch takePrefetched() throws SQLException {
+    if (prefetchThread == null) {
+      batches = new ArrayBlockingQueue<>(prefetchBatches);
+      prefetchThread = new Thread(this, "iotdb-jdbc-prefetch-" + queryId);
+      prefetchThread.setDaemon(true);
+      prefetchThread.start();
+    }
+    try {
+      return batches.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for the results of the query", e);
+    }
+  }
+
+  @Override
+  public void run() {
+    Batch batch;
+    do {
+      long startTime = System.nanoTime();
+      try {
+        batch = fetch(fetchSize);
+      } catch (SQLException e) {
+        batch = new Batch(e);
+      }
+      if (!batch.isLast() && batch.getRowCount() >= fetchSize) {
+        // a batch smaller than the fetch size is the tail of the results, its time says little
+        fetchSize = adaptFetchSize(fetchSize, batch.getRowCount(), System.nanoTime() - startTime,
+            minFetchSize, maxFetchSize);
+      }
+      try {
+        batches.put(batch);
+      } catch (InterruptedException e) {
+        // closed by the reader
+        Thread.currentThread().interrupt();
+        return;
+      }
+    } while (!batch.isLast() && !closed);
+  }
+
+  /**
+   * @return the fetch size with which a fetch is expected to take TARGET_FETCH_TIME_NS given that
+   * the last one returned rowCount rows in elapsedNanos, growing at most twice per fetch
+   */
+  static int adaptFetchSize(int fetchSize, int rowCount, long elapsedNanos, int minFetchSize,
+      int maxFetchSize) {
+    long target = elapsedNanos <= 0 ? (long) fetchSize * 2
+        : (long) (rowCount * ((double) TARGET_FETCH_TIME_NS / elapsedNanos));
+    target = Math.min(target, (long) fetchSize * 2);
+    return (int) Math.max(minFetchSize, Math.min(maxFetchSize, target));
+  }
+
+  private Batch fetch(int size) throws SQLException {
+    TSFetchResultsReq req = new TSFetchResultsReq(sql, size, queryId);
+    req.setColumnar(true);
+    req.setCompressionType(resultCompression.name());
+
+    try {
+      TSFetchResultsResp resp = client.fetchResults(req);
+      Utils.verifySuccess(resp.getStatus());
+      if (!resp.hasResultSet) {
+        return Batch.END;
+      }
+      TSQueryDataSet tsQueryDataSet = resp.getQueryDataSet();
+      if (tsQueryDataSet.isSetTime()) {
+        // the server understands the columnar format, values are decoded when they are read
+        return new Batch(new IoTDBColumnarDataSet(tsQueryDataSet, resultCompression));
+      }
+      return new Batch(Utils.convertRowRecords(tsQueryDataSet));
+    } catch (TException e) {
+      throw new SQLException(
+          "Cannot fetch result from server, because of network connection: {} ", e);
+    }
+  }
+
+  /**
+   * stop prefetching and drop the prefetched batches. Returns after the fetch in progress, if any,
+   * so that the query can be closed safely afterwards.
+   */
+  public void close() {
+    closed = true;
+    if (prefetchThread == null) {
+      return;
+    }
+    prefetchThread.interrupt();
+    try {
+      prefetchThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    batches.clear();
+  }
+
+  /**
+   * A batch of results in either the columnar format or the row format, or the failure of a fetch.
+   */
+  public static class Batch {
+
+    public static final Batch END = new Batch((SQLException) null);
+
+    private IoTDBColumnarDataSet columnarDataSet;
+    private List<RowRecord> records;
+    private SQLException exception;
+
+    Batch(IoTDBColumnarDataSet columnarDataSet) {
+      this.columnarDataSet = columnarDataSet;
+    }
+
+    Batch(List<RowRecord> records) {
+      this.records = records;
+    }
+
+    Batch(SQLException exception) {
+      this.exception = exception;
+    }
+
+    private boolean isLast() {
+      return columnarDataSet == null && records == null;
+    }
+
+    private Batch get() throws SQLException {
+      if (exception != null) {
+        throw exception;
+      }
+      return this;
+    }
+
+    int getRowCount() {
+      return columnarDataSet != null ? columnarDataSet.getRowCount() : records.size();
+    }
+
+    public IoTDBColumnarDataSet getColumnarDataSet() {
+      return columnarDataSet;
+    }
+
+    public List<RowRecord> getRecords() {
+      return records;
+    }
+  }
+}
@@ -132,7 +132,11 @@ public class IoTDBStatement implements Statement {
     try {
       if (operationHandle != null) {
         TSCancelOperationReq closeReq = new TSCancelOperationReq(operationHandle);
-        TSCancelOperationResp closeResp = client.cancelOperation(closeReq);
+        if (queryId.get() > 0) {
+          // the id of the last query issued by this statement
+          closeReq.setQueryId(queryId.get() - 1);
+        }
+        TSCancelOperationResp closeResp = connection.cancelOperation(closeReq);
         Utils.verifySuccess(closeResp.getStatus());
       }
     } catch (Exception e) {
@@ -18,6 +18,7 @@
  */
 package org.apache.iotdb.jdbc;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
@@ -29,10 +30,12 @@ import org.apache.iotdb.service.rpc.thrift.TSRowRecord;
 import org.apache.iotdb.service.rpc.thrift.TS_Status;
 import org.apache.iotdb.service.rpc.thrift.TS_StatusCode;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.Field;
 import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.write.record.RowBatch;
 
 /**
  * Utils to convert between thrift format and TsFile format.
@@ -75,6 +78,29 @@ public class Utils {
     if (info.containsKey(Config.AUTH_PASSWORD)) {
       params.setPassword(info.getProperty(Config.AUTH_PASSWORD));
     }
+    if (info.containsKey(Config.RESULT_COMPRESSION)) {
+      String compression = info.getProperty(Config.RESULT_COMPRESSION).trim().toUpperCase();
+      // only these have both a compressor on the server and an uncompressor here
+      if (!compression.equals(CompressionType.UNCOMPRESSED.name())
+          && !compression.equals(CompressionType.SNAPPY.name())) {
+        throw new IoTDBURLException(
+            String.format("Unsupported %s: %s", Config.RESULT_COMPRESSION, compression));
+      }
+      params.setResultCompression(CompressionType.valueOf(compression));
+    }
+    if (info.containsKey(Config.PREFETCH_BATCHES)) {
+      String prefetchBatches = info.getProperty(Config.PREFETCH_BATCHES).trim();
+      String errorMessage = String.format("%s should be a non-negative integer: %s",
+          Config.PREFETCH_BATCHES, prefetchBatches);
+      try {
+        params.setPrefetchBatches(Integer.parseInt(prefetchBatches));
+      } catch (NumberFormatException e) {
+        throw new IoTDBURLException(errorMessage);
+      }
+      if (params.getPrefetchBatches() < 0) {
+        throw new IoTDBURLException(errorMessage);
+      }
+    }
 
     return params;
   }
@@ -151,4 +177,102 @@ public class Utils {
                         dataType));
     }
   }
+
+  /**
+   * pack the timestamps of a RowBatch as big-endian longs.
+   */
+  public static ByteBuffer convertTimestamps(RowBatch rowBatch) {
+    ByteBuffer buffer = ByteBuffer.allocate(rowBatch.batchSize * Long.BYTES);
+    for (int i = 0; i < rowBatch.batchSize; i++) {
+      buffer.putLong(rowBatch.timestamps[i]);
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * pack the value columns of a RowBatch one after another, each column in the same way as the
+   * timestamps, BOOLEAN as one byte and TEXT as an int length followed by the bytes.
+   */
+  public static ByteBuffer convertValues(RowBatch rowBatch) {
+    int size = rowBatch.batchSize;
+    ByteBuffer buffer = ByteBuffer.allocate(getValueBufferSize(rowBatch));
+    for (int i = 0; i < rowBatch.dataTypes.size(); i++) {
+      TSDataType dataType = rowBatch.dataTypes.get(i);
+      switch (dataType) {
+        case INT32:
+          int[] intValues = (int[]) rowBatch.values[i];
+          for (int index = 0; index < size; index++) {
+            buffer.putInt(intValues[index]);
+          }
+          break;
+        case INT64:
+          long[] longValues = (long[]) rowBatch.values[i];
+          for (int index = 0; index < size; index++) {
+            buffer.putLong(longValues[index]);
+          }
+          break;
+        case FLOAT:
+          float[] floatValues = (float[]) rowBatch.values[i];
+          for (int index = 0; index < size; index++) {
+            buffer.putFloat(floatValues[index]);
+          }
+          break;
+        case DOUBLE:
+          double[] doubleValues = (double[]) rowBatch.values[i];
+          for (int index = 0; index < size; index++) {
+            buffer.putDouble(doubleValues[index]);
+          }
+          break;
+        case BOOLEAN:
+          boolean[] boolValues = (boolean[]) rowBatch.values[i];
+          for (int index = 0; index < size; index++) {
+            buffer.put((byte) (boolValues[index] ? 1 : 0));
+          }
+          break;
+        case TEXT:
+          Binary[] binaryValues = (Binary[]) rowBatch.values[i];
+          for (int index = 0; index < size; index++) {
+            buffer.putInt(binaryValues[index].getLength());
+            buffer.put(binaryValues[index].getValues());
+          }
+          break;
+        default:
+          throw new UnSupportedDataTypeException(
+              String.format("Data type %s is not supported.", dataType));
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  private static int getValueBufferSize(RowBatch rowBatch) {
+    int size = rowBatch.batchSize;
+    int valueBufferSize = 0;
+    for (int i = 0; i < rowBatch.dataTypes.size(); i++) {
+      switch (rowBatch.dataTypes.get(i)) {
+        case INT32:
+        case FLOAT:
+          valueBufferSize += size * 4;
+          break;
+        case INT64:
+        case DOUBLE:
+          valueBufferSize += size * 8;
+          break;
+        case BOOLEAN:
+          valueBufferSize += size;
+          break;
+        case TEXT:
+          Binary[] binaryValues = (Binary[]) rowBatch.values[i];
+          for (int index = 0; index < size; index++) {
+            valueBufferSize += Integer.BYTES + binaryValues[index].getLength();
+          }
+          break;
+        default:
+          throw new UnSupportedDataTypeException(
+              String.format("Data type %s is not supported.", rowBatch.dataTypes.get(i)));
+      }
+    }
+    return valueBufferSize;
+  }
 }
@@ -0,0 +1,159 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.iotdb.service.rpc.thrift.TSFetchResultsReq;
+import org.apache.iotdb.service.rpc.thrift.TSFetchResultsResp;
+import org.apache.iotdb.service.rpc.thrift.TSIService;
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+import org.apache.iotdb.service.rpc.thrift.TS_Status;
+import org.apache.iotdb.service.rpc.thrift.TS_StatusCode;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.thrift.TException;
+import org.junit.Test;
+
+public class IoTDBResultFetcherTest {
+
+  private static final String SQL = "select s0 from root.vehicle.d0";
+
+  @Test
+  public void testAdaptFetchSize() {
+    long target = TimeUnit.MILLISECONDS.toNanos(Config.PREFETCH_TARGET_FETCH_TIME_MS);
+    // a fetch as long as the target keeps the fetch size
+    assertEquals(1000, IoTDBResultFetcher.adaptFetchSize(1000, 1000, target, 100, 16000));
+    // fast fetches grow the fetch size by at most twice
+    assertEquals(2000, IoTDBResultFetcher.adaptFetchSize(1000, 1000, target / 10, 100, 16000));
+    assertEquals(1500, IoTDBResultFetcher.adaptFetchSize(1000, 1000, target * 2 / 3, 100, 16000));
+    assertEquals(16000, IoTDBResultFetcher.adaptFetchSize(10000, 10000, target / 10, 100, 16000));
+    // slow fetches shrink it, but not below the minimum
+    assertEquals(500, IoTDBResultFetcher.adaptFetchSize(1000, 1000, target * 2, 100, 16000));
+    assertEquals(100, IoTDBResultFetcher.adaptFetchSize(1000, 1000, target * 100, 100, 16000));
+  }
+
+  @Test
+  public void testFetchWithoutPrefetching() throws TException, SQLException {
+    TSIService.Iface client = mockClient(3, 2);
+    IoTDBResultFetcher fetcher = new IoTDBResultFetcher(client, SQL, 1,
+        CompressionType.UNCOMPRESSED, 2, 0);
+    assertEquals(3 * 2 + 1, countRows(fetcher));
+    fetcher.close();
+  }
+
+  @Test
+  public void testFetchWithPrefetching() throws TException, SQLException {
+    TSIService.Iface client = mockClient(100, 2);
+    IoTDBResultFetcher fetcher = new IoTDBResultFetcher(client, SQL, 1,
+        CompressionType.UNCOMPRESSED, 2, 2);
+    assertEquals(100 * 2 + 1, countRows(fetcher));
+    fetcher.close();
+  }
+
+  @Test
+  public void testPrefetchingFailure() throws TException {
+    TSIService.Iface client = mock(TSIService.Iface.class);
+    when(client.fetchResults(any(TSFetchResultsReq.class)))
+        .thenReturn(new TSFetchResultsResp(new TS_Status(TS_StatusCode.ERROR_STATUS), false));
+    IoTDBResultFetcher fetcher = new IoTDBResultFetcher(client, SQL, 1,
+        CompressionType.UNCOMPRESSED, 2, 1);
+    // the failure is reported each time the reader asks for more
+    for (int i = 0; i < 2; i++) {
+      try {
+        fetcher.next();
+        fail();
+      } catch (SQLException e) {
+        // expected
+      }
+    }
+    fetcher.close();
+  }
+
+  @Test
+  public void testCloseWhilePrefetching() throws TException, SQLException {
+    // more batches than can be buffered, so the prefetching thread is blocked when closed
+    TSIService.Iface client = mockClient(1000, 2);
+    IoTDBResultFetcher fetcher = new IoTDBResultFetcher(client, SQL, 1,
+        CompressionType.UNCOMPRESSED, 2, 1);
+    assertEquals(2, fetcher.next().getColumnarDataSet().getRowCount());
+    fetcher.close();
+  }
+
+  private static int countRows(IoTDBResultFetcher fetcher) throws SQLException {
+    int rowCount = 0;
+    IoTDBResultFetcher.Batch batch;
+    while ((batch = fetcher.next()) != IoTDBResultFetcher.Batch.END) {
+      IoTDBColumnarDataSet dataSet = batch.getColumnarDataSet();
+      while (dataSet.hasNext()) {
+        dataSet.next();
+        assertEquals(rowCount, dataSet.getTimestamp());
+        rowCount++;
+      }
+    }
+    assertSame(IoTDBResultFetcher.Batch.END, fetcher.next());
+    return rowCount;
+  }
+
+  /**
+   * a client returning fullBatchNum batches of the given size and then a batch of one row, with
+   * the time of the rows counting from 0.
+   */
+  private static TSIService.Iface mockClient(int fullBatchNum, int batchSize) throws TException {
+    List<TSFetchResultsResp> responses = new ArrayList<>();
+    long time = 0;
+    for (int i = 0; i <= fullBatchNum; i++) {
+      int rowCount = i < fullBatchNum ? batchSize : 1;
+      ByteBuffer timeBuffer = ByteBuffer.allocate(rowCount * 8);
+      for (int j = 0; j < rowCount; j++) {
+        timeBuffer.putLong(time++);
+      }
+      timeBuffer.flip();
+      TSQueryDataSet dataSet = new TSQueryDataSet(Collections.emptyList());
+      dataSet.setRowCount(rowCount);
+      dataSet.setTime(timeBuffer);
+      dataSet.setValueList(Collections.emptyList());
+      dataSet.setBitmapList(Collections.emptyList());
+      dataSet.setTypeList(Collections.emptyList());
+      TSFetchResultsResp resp = new TSFetchResultsResp(
+          new TS_Status(TS_StatusCode.SUCCESS_STATUS), true);
+      resp.setQueryDataSet(dataSet);
+      responses.add(resp);
+    }
+    responses.add(new TSFetchResultsResp(new TS_Status(TS_StatusCode.SUCCESS_STATUS), false));
+
+    TSIService.Iface client = mock(TSIService.Iface.class);
+    when(client.fetchResults(any(TSFetchResultsReq.class))).thenAnswer(invocation -> {
+      synchronized (responses) {
+        return responses.size() == 1 ? responses.get(0) : responses.remove(0);
+      }
+    });
+    return client;
+  }
+}
@@ -31,6 +31,7 @@ import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
 import org.apache.iotdb.service.rpc.thrift.TSRowRecord;
 import org.apache.iotdb.service.rpc.thrift.TS_Status;
 import org.apache.iotdb.service.rpc.thrift.TS_StatusCode;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.Field;
 import org.apache.iotdb.tsfile.read.common.RowRecord;
@@ -66,6 +67,49 @@ public class UtilsTest {
     assertEquals(params.getPassword(), userPwd);
   }
 
+  @Test
+  public void testParseResultCompression() throws IoTDBURLException {
+    String url = Config.IOTDB_URL_PREFIX + "localhost:6667/";
+    Properties properties = new Properties();
+    assertEquals(CompressionType.UNCOMPRESSED,
+        Utils.parseUrl(url, properties).getResultCompression());
+
+    properties.setProperty(Config.RESULT_COMPRESSION, "snappy");
+    assertEquals(CompressionType.SNAPPY, Utils.parseUrl(url, properties).getResultCompression());
+
+    // GZIP is a CompressionType, but there is no compressor for it
+    for (String illegal : new String[]{"GZIP", "LZ4", "zip"}) {
+      properties.setProperty(Config.RESULT_COMPRESSION, illegal);
+      try {
+        Utils.parseUrl(url, properties);
+        fail();
+      } catch (IoTDBURLException e) {
+        assertTrue(e.getMessage().contains(Config.RESULT_COMPRESSION));
+      }
+    }
+  }
+
+  @Test
+  public void testParsePrefetchBatches() throws IoTDBURLException {
+    String url = Config.IOTDB_URL_PREFIX + "localhost:6667/";
+    Properties properties = new Properties();
+    assertEquals(Config.DEFAULT_PREFETCH_BATCHES,
+        Utils.parseUrl(url, properties).getPrefetchBatches());
+
+    properties.setProperty(Config.PREFETCH_BATCHES, "2");
+    assertEquals(2, Utils.parseUrl(url, properties).getPrefetchBatches());
+
+    for (String illegal : new String[]{"-1", "two"}) {
+      properties.setProperty(Config.PREFETCH_BATCHES, illegal);
+      try {
+        Utils.parseUrl(url, properties);
+        fail();
+      } catch (IoTDBURLException e) {
+        assertTrue(e.getMessage().contains(Config.PREFETCH_BATCHES));
+      }
+    }
+  }
+
   @Test
   public void testVerifySuccess() {
     try {
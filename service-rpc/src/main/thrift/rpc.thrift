@@ -44,7 +44,8 @@ struct TS_Status {
 
 struct TSHandleIdentifier {
   // 16 byte globally unique identifier This is the public ID of the handle and can be used for reporting.
-  // In current version, it is not used.
+  // In current version, it is only used by the handle of a query, as the i64 id with which the
+  // query can be cancelled from any session.
   1: required binary guid,
 
   // 16 byte secret generated by the server and used to verify that the handle is not being hijacked by another user.
@@ -164,6 +165,8 @@ struct TSGetOperationStatusResp {
 struct TSCancelOperationReq {
   // Operation to cancel
   1: required TSOperationHandle operationHandle
+  // the query to cancel, all queries of the session are cancelled if it is not set
+  2: optional i64 queryId
 }
 
 struct TSCancelOperationResp {
@@ -200,13 +203,28 @@ struct TSRowRecord{
 }
 
 struct TSQueryDataSet{
+	// the rows of a fetch that does not ask for the columnar format, otherwise empty
 	1: required list<TSRowRecord> records
+	// the timestamps of the rows as packed big-endian i64
+	2: optional binary time
+	// the non-null values of each column packed in the same way as the timestamps, BOOLEAN as
+	// one byte and TEXT as an i32 length followed by the bytes
+	3: optional list<binary> valueList
+	// one bitmap per column, the bit (7 - i % 8) of the byte i / 8 is set if row i is not null
+	4: optional list<binary> bitmapList
+	// TSDataType of each column, -1 if the column has no value in this fetch
+	5: optional list<i32> typeList
+	6: optional i32 rowCount
 }
 
 struct TSFetchResultsReq{
 	1: required string statement
 	2: required i32 fetch_size
 	3: required i64 queryId
+	// return the rows in the columnar format of TSQueryDataSet
+	4: optional bool columnar
+	// CompressionType of the columnar buffers, UNCOMPRESSED if not set
+	5: optional string compressionType
 }
 
 struct TSFetchResultsResp{
@@ -257,6 +275,22 @@ struct TSInsertionReq {
     5: required i64 stmtId
 }
 
+// insert a batch of rows of one device in columnar format
+struct TSBatchInsertionReq {
+    1: required string deviceId
+    2: required list<string> measurements
+    // the value columns one after another, each column is packed in the same way as the
+    // timestamps: big-endian primitives, BOOLEAN as one byte and TEXT as an i32 length
+    // followed by the bytes
+    3: required binary values
+    // the timestamps of the rows as packed big-endian i64
+    4: required binary timestamps
+    // TSDataType of each measurement
+    5: required list<i32> types
+    // the number of rows
+    6: required i32 size
+}
+
 struct ServerProperties {
 	1: required string version;
 	2: required list<string> supportedTimeAggregationOperations;
@@ -291,5 +325,7 @@ service TSIService {
 
 	TSExecuteStatementResp executeInsertion(1:TSInsertionReq req);
 
+	TSExecuteStatementResp insertBatch(1:TSBatchInsertionReq req);
+
 	i64 requestStatementId();
 	}
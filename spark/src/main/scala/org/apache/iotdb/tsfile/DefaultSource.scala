@@ -29,6 +29,7 @@ import org.apache.iotdb.tsfile.DefaultSource.SerializableConfiguration
 import org.apache.iotdb.tsfile.common.constant.QueryConstant
 import org.apache.iotdb.tsfile.io.HDFSInput
 import org.apache.iotdb.tsfile.read.common.Field
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet
 import org.apache.iotdb.tsfile.read.{ReadOnlyTsFile, TsFileSequenceReader}
 import org.apache.spark.TaskContext
 import org.apache.spark.sql.SparkSession
@@ -36,6 +37,8 @@ import org.apache.spark.sql.catalyst.InternalRow
 import org.apache.spark.sql.catalyst.encoders.RowEncoder
 import org.apache.spark.sql.catalyst.expressions.GenericRow
 import org.apache.spark.sql.execution.datasources.{FileFormat, OutputWriterFactory, PartitionedFile}
+import org.apache.spark.sql.execution.vectorized.OnHeapColumnVector
+import org.apache.spark.sql.internal.SQLConf
 import org.apache.spark.sql.sources.{DataSourceRegister, Filter}
 import org.apache.spark.sql.types._
 import org.slf4j.LoggerFactory
@@ -69,6 +72,49 @@ private[tsfile] class DefaultSource extends FileFormat with DataSourceRegister {
     true
   }
 
+  override def supportBatch(sparkSession: SparkSession, schema: StructType): Boolean = {
+    val conf = sparkSession.sessionState.conf
+    conf.getConfString(DefaultSource.vectorizedReaderEnabled, "true").toBoolean &&
+      conf.wholeStageEnabled &&
+      schema.length <= conf.wholeStageMaxNumFields &&
+      schema.forall(f => f.dataType match {
+        case BooleanType | IntegerType | LongType | FloatType | DoubleType | StringType => true
+        case _ => false
+      })
+  }
+
+  override def vectorTypes(
+                            requiredSchema: StructType,
+                            partitionSchema: StructType,
+                            sqlConf: SQLConf): Option[Seq[String]] = {
+    Option(Seq.fill(requiredSchema.length + partitionSchema.length)(
+      classOf[OnHeapColumnVector].getName))
+  }
+
+  override def buildReaderWithPartitionValues(
+                                               sparkSession: SparkSession,
+                                               dataSchema: StructType,
+                                               partitionSchema: StructType,
+                                               requiredSchema: StructType,
+                                               filters: Seq[Filter],
+                                               options: Map[String, String],
+                                               hadoopConf: Configuration): (PartitionedFile) => Iterator[InternalRow] = {
+    if (!supportBatch(sparkSession, StructType(requiredSchema.fields ++ partitionSchema.fields))) {
+      return super.buildReaderWithPartitionValues(sparkSession, dataSchema, partitionSchema,
+        requiredSchema, filters, options, hadoopConf)
+    }
+    val broadcastedConf =
+      sparkSession.sparkContext.broadcast(new SerializableConfiguration(hadoopConf))
+
+    (file: PartitionedFile) => {
+      val queryDataSet = DefaultSource.query(file, broadcastedConf.value.value, requiredSchema, filters)
+      val batchReader = new TsFileBatchReader(queryDataSet, requiredSchema, partitionSchema,
+        file.partitionValues, DefaultSource.batchSize)
+      // the scan reads the batches as they are when supportBatch is true, as it does for Parquet
+      batchReader.asInstanceOf[Iterator[InternalRow]]
+    }
+  }
+
   override def buildReader(
                             sparkSession: SparkSession,
                             dataSchema: StructType,
@@ -81,31 +127,7 @@ private[tsfile] class DefaultSource extends FileFormat with DataSourceRegister {
       sparkSession.sparkContext.broadcast(new SerializableConfiguration(hadoopConf))
 
     (file: PartitionedFile) => {
-      val log = LoggerFactory.getLogger(classOf[DefaultSource])
-      log.info(file.toString())
-
-      val conf = broadcastedConf.value.value
-      val in = new HDFSInput(new Path(new URI(file.filePath)), conf)
-
-      val reader: TsFileSequenceReader = new TsFileSequenceReader(in)
-
-      Option(TaskContext.get()).foreach { taskContext => {
-        taskContext.addTaskCompletionListener { _ => in.close() }
-        log.info("task Id: " + taskContext.taskAttemptId() + " partition Id: " + taskContext.partitionId())
-      }
-      }
-
-      val tsFileMetaData = reader.readFileMetadata
-
-      // get queriedSchema from requiredSchema
-      var queriedSchema = Converter.prepSchema(requiredSchema, tsFileMetaData)
-
-      // construct queryExpression based on queriedSchema and filters
-      val queryExpression = Converter.toQueryExpression(queriedSchema, filters)
-
-      val readTsFile: ReadOnlyTsFile = new ReadOnlyTsFile(reader)
-      val queryDataSet = readTsFile.query(queryExpression, file.start.asInstanceOf[java.lang.Long],
-        (file.start + file.length).asInstanceOf[java.lang.Long])
+      val queryDataSet = DefaultSource.query(file, broadcastedConf.value.value, requiredSchema, filters)
 
       new Iterator[InternalRow] {
         private val rowBuffer = Array.fill[Any](requiredSchema.length)(null)
@@ -115,6 +137,12 @@ private[tsfile] class DefaultSource extends FileFormat with DataSourceRegister {
         // Used to convert `Row`s containing data columns into `InternalRow`s.
         private val encoderForDataColumns = RowEncoder(requiredSchema)
 
+        // position of each required field in the fields of a record, which is computed once for
+        // the file: -2 for the time field and -1 for the fields absent in the current file
+        private val positions = requiredSchema.fields.map(field =>
+          if (field.name == QueryConstant.RESERVED_TIME) -2
+          else queryDataSet.getPaths.indexOf(new org.apache.iotdb.tsfile.read.common.Path(field.name)))
+
         override def hasNext: Boolean = {
           val hasNext = queryDataSet.hasNext
           hasNext
@@ -124,15 +152,14 @@ private[tsfile] class DefaultSource extends FileFormat with DataSourceRegister {
 
           val curRecord = queryDataSet.next()
           val fields = curRecord.getFields
-          val paths = queryDataSet.getPaths
 
           //index in one required row
           var index = 0
-          requiredSchema.foreach((field: StructField) => {
-            if (field.name == QueryConstant.RESERVED_TIME) {
+          while (index < positions.length) {
+            val pos = positions(index)
+            if (pos == -2) {
               rowBuffer(index) = curRecord.getTimestamp
             } else {
-              val pos = paths.indexOf(new org.apache.iotdb.tsfile.read.common.Path(field.name))
               var curField: Field = null
               if (pos != -1) {
                 curField = fields.get(pos)
@@ -140,7 +167,7 @@ private[tsfile] class DefaultSource extends FileFormat with DataSourceRegister {
               rowBuffer(index) = Converter.toSqlValue(curField)
             }
             index += 1
-          })
+          }
 
           encoderForDataColumns.toRow(safeDataRow)
         }
@@ -169,6 +196,45 @@ private[tsfile] class DefaultSource extends FileFormat with DataSourceRegister {
 private[tsfile] object DefaultSource {
   val path = "path"
 
+  // set "spark.sql.tsfile.enableVectorizedReader" to false to read the rows one by one
+  val vectorizedReaderEnabled = "spark.sql.tsfile.enableVectorizedReader"
+
+  // the max number of rows in a ColumnarBatch of the vectorized reader
+  val batchSize = 4096
+
+  /**
+    * Query the required columns in the space partition of a file. The filters are pushed down to
+    * the query expression, and the chunks out of the partition or not satisfying the filters are
+    * skipped by their statistics.
+    */
+  def query(file: PartitionedFile, conf: Configuration, requiredSchema: StructType,
+            filters: Seq[Filter]): QueryDataSet = {
+    val log = LoggerFactory.getLogger(classOf[DefaultSource])
+    log.info(file.toString())
+
+    val in = new HDFSInput(new Path(new URI(file.filePath)), conf)
+
+    val reader: TsFileSequenceReader = new TsFileSequenceReader(in)
+
+    Option(TaskContext.get()).foreach { taskContext => {
+      taskContext.addTaskCompletionListener { _ => in.close() }
+      log.info("task Id: " + taskContext.taskAttemptId() + " partition Id: " + taskContext.partitionId())
+    }
+    }
+
+    val tsFileMetaData = reader.readFileMetadata
+
+    // get queriedSchema from requiredSchema
+    val queriedSchema = Converter.prepSchema(requiredSchema, tsFileMetaData)
+
+    // construct queryExpression based on queriedSchema and filters
+    val queryExpression = Converter.toQueryExpression(queriedSchema, filters)
+
+    val readTsFile: ReadOnlyTsFile = new ReadOnlyTsFile(reader)
+    readTsFile.query(queryExpression, file.start.asInstanceOf[java.lang.Long],
+      (file.start + file.length).asInstanceOf[java.lang.Long])
+  }
+
   class SerializableConfiguration(@transient var value: Configuration) extends Serializable {
     private def writeObject(out: ObjectOutputStream): Unit = {
       out.defaultWriteObject()
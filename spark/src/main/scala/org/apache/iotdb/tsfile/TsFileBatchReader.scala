@@ -0,0 +1,156 @@
+/**
+  * Licensed to the Apache Software Foundation (ASF) under one
+  * or more contributor license agreements.  See the NOTICE file
+  * distributed with this work for additional information
+  * regarding copyright ownership.  The ASF licenses this file
+  * to you under the Apache License, Version 2.0 (the
+  * "License"); you may not use this file except in compliance
+  * with the License.  You may obtain a copy of the License at
+  *
+  *     http://www.apache.org/licenses/LICENSE-2.0
+  *
+  * Unless required by applicable law or agreed to in writing,
+  * software distributed under the License is distributed on an
+  * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+  * KIND, either express or implied.  See the License for the
+  * specific language governing permissions and limitations
+  * under the License.
+  */
+
+package org.apache.iotdb.tsfile
+
+import org.apache.iotdb.tsfile.common.constant.QueryConstant
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType
+import org.apache.iotdb.tsfile.read.common.{ColumnBlock, Path}
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet
+import org.apache.spark.sql.catalyst.InternalRow
+import org.apache.spark.sql.execution.vectorized.{ColumnVectorUtils, OnHeapColumnVector, WritableColumnVector}
+import org.apache.spark.sql.types.StructType
+import org.apache.spark.sql.vectorized.{ColumnVector, ColumnarBatch}
+
+/**
+  * Read the QueryDataSet of a partitioned file as ColumnarBatches. Each batch is filled column by
+  * column from a ColumnBlock of the data set, so no Row or Field is built for each row and the
+  * primitive columns are copied in bulk.
+  *
+  * @param queryDataSet    the data set of the partitioned file
+  * @param requiredSchema  the data columns, including the time column
+  * @param partitionSchema the partition columns, which follow the data columns in the batch
+  * @param partitionValues the values of the partition columns of the file
+  * @param capacity        the max number of rows in a batch
+  */
+private[tsfile] class TsFileBatchReader(queryDataSet: QueryDataSet,
+                                        requiredSchema: StructType,
+                                        partitionSchema: StructType,
+                                        partitionValues: InternalRow,
+                                        capacity: Int) extends Iterator[ColumnarBatch] {
+
+  private val TimeColumn = -1
+  private val AbsentColumn = -2
+
+  private val columnVectors: Array[WritableColumnVector] = OnHeapColumnVector
+    .allocateColumns(capacity, StructType(requiredSchema.fields ++ partitionSchema.fields))
+    .asInstanceOf[Array[WritableColumnVector]]
+
+  private val columnarBatch = new ColumnarBatch(columnVectors.asInstanceOf[Array[ColumnVector]])
+
+  private val block = new ColumnBlock(queryDataSet.getDataTypes, capacity)
+
+  // the position of each required column in the data set, which is computed once for the file
+  private val positions: Array[Int] = requiredSchema.fields.map(field =>
+    if (field.name == QueryConstant.RESERVED_TIME) {
+      TimeColumn
+    } else {
+      val pos = queryDataSet.getPaths.indexOf(new Path(field.name))
+      if (pos == -1) AbsentColumn else pos
+    })
+
+  // whether columnarBatch holds rows which have not been returned
+  private var batchLoaded = false
+
+  initConstantColumns()
+
+  private def initConstantColumns(): Unit = {
+    for (i <- positions.indices) {
+      if (positions(i) == AbsentColumn) {
+        columnVectors(i).putNulls(0, capacity)
+        columnVectors(i).setIsConstant()
+      }
+    }
+    for (i <- partitionSchema.fields.indices) {
+      val vector = columnVectors(requiredSchema.length + i)
+      ColumnVectorUtils.populate(vector, partitionValues, i)
+      vector.setIsConstant()
+    }
+  }
+
+  override def hasNext: Boolean = {
+    if (!batchLoaded) {
+      batchLoaded = loadBatch()
+    }
+    batchLoaded
+  }
+
+  override def next(): ColumnarBatch = {
+    if (!hasNext) {
+      throw new NoSuchElementException("No more batch in the TsFile")
+    }
+    batchLoaded = false
+    columnarBatch
+  }
+
+  private def loadBatch(): Boolean = {
+    val rowNum = queryDataSet.nextBlock(block)
+    if (rowNum == 0) {
+      return false
+    }
+    for (i <- positions.indices) {
+      val vector = columnVectors(i)
+      positions(i) match {
+        case TimeColumn =>
+          vector.reset()
+          vector.putLongs(0, rowNum, block.getTimestamps, 0)
+        case AbsentColumn =>
+        case pos =>
+          vector.reset()
+          fillColumn(vector, pos, rowNum)
+      }
+    }
+    columnarBatch.setNumRows(rowNum)
+    true
+  }
+
+  private def fillColumn(vector: WritableColumnVector, pos: Int, rowNum: Int): Unit = {
+    val isNull = block.getIsNull(pos)
+    block.getDataType(pos) match {
+      case TSDataType.BOOLEAN =>
+        val values = block.getBooleans(pos)
+        var row = 0
+        while (row < rowNum) {
+          vector.putBoolean(row, values(row))
+          row += 1
+        }
+      case TSDataType.INT32 => vector.putInts(0, rowNum, block.getInts(pos), 0)
+      case TSDataType.INT64 => vector.putLongs(0, rowNum, block.getLongs(pos), 0)
+      case TSDataType.FLOAT => vector.putFloats(0, rowNum, block.getFloats(pos), 0)
+      case TSDataType.DOUBLE => vector.putDoubles(0, rowNum, block.getDoubles(pos), 0)
+      case TSDataType.TEXT =>
+        val values = block.getBinaries(pos)
+        var row = 0
+        while (row < rowNum) {
+          if (!isNull(row)) {
+            vector.putByteArray(row, values(row).getValues)
+          }
+          row += 1
+        }
+      case other => throw new UnsupportedOperationException(s"Unsupported type $other")
+    }
+    var row = 0
+    while (row < rowNum) {
+      if (isNull(row)) {
+        vector.putNull(row)
+      }
+      row += 1
+    }
+  }
+}
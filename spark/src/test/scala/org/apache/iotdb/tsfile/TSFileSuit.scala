@@ -199,6 +199,21 @@ class TSFileSuit extends FunSuite with BeforeAndAfterAll {
     Assert.assertEquals(16, newDf.count())
   }
 
+  test("testVectorizedReader") {
+    val queries = Seq(
+      "select * from tsfile_table",
+      "select time, `device_1.sensor_2` from tsfile_table where `device_1.sensor_1` > 0",
+      "select * from tsfile_table where time < 4")
+    val df = spark.read.tsfile(tsfileFolder1)
+    df.createOrReplaceTempView("tsfile_table")
+    queries.foreach(query => {
+      spark.conf.set(DefaultSource.vectorizedReaderEnabled, "false")
+      val rows = spark.sql(query).collectAsList()
+      spark.conf.set(DefaultSource.vectorizedReaderEnabled, "true")
+      Assert.assertEquals(rows, spark.sql(query).collectAsList())
+    })
+  }
+
   test("testQuerySchema") {
     val df = spark.read.format("org.apache.iotdb.tsfile").load(tsfile1)
 
@@ -115,6 +115,10 @@ public class IntPacker {
    * IntPacker#NUM_OF_INTS}
    */
   public void unpack8Values(byte[] buf, int offset, int[] values) {
+    unpack8Values(buf, offset, values, 0);
+  }
+
+  private void unpack8Values(byte[] buf, int offset, int[] values, int valueOffset) {
     int byteIdx = offset;
     long buffer = 0;
     // total bits which have read from 'buf' to 'buffer'. i.e.,
@@ -135,7 +139,7 @@ public class IntPacker {
       // then decode one Integer one by one until left bits in 'buffer' is
       // not enough to decode one Integer.
       while (totalBits >= width && valueIdx < 8) {
-        values[valueIdx] = (int) (buffer >>> (totalBits - width));
+        values[valueOffset + valueIdx] = (int) (buffer >>> (totalBits - width));
         valueIdx++;
         totalBits -= width;
         buffer = buffer & ((1 << totalBits) - 1);
@@ -155,12 +159,8 @@ public class IntPacker {
     int idx = 0;
     int k = 0;
     while (idx < length) {
-      int[] tv = new int[8];
-      // decode 8 values one time, current result will be saved in the array named 'tv'
-      unpack8Values(buf, idx, tv);
-      for (int i = 0; i < 8; i++) {
-        values[k + i] = tv[i];
-      }
+      // decode 8 values one time into values from k
+      unpack8Values(buf, idx, values, k);
       idx += width;
       k += 8;
     }
@@ -140,6 +140,119 @@ public abstract class Decoder {
     throw new TsFileDecodingException("Method readBigDecimal is not supproted by Decoder");
   }
 
+  /**
+   * decode at most {@code length} int values into {@code values} from {@code offset}. This
+   * implementation reads the values one by one, decoders override it to decode in bulk.
+   *
+   * @return the number of decoded values, which is less than length only if there is no more
+   * value in the buffer
+   */
+  public int readInts(ByteBuffer buffer, int[] values, int offset, int length)
+      throws IOException {
+    int count = 0;
+    while (count < length && hasNext(buffer)) {
+      values[offset + count++] = readInt(buffer);
+    }
+    return count;
+  }
+
+  /**
+   * see {@link #readInts(ByteBuffer, int[], int, int)}.
+   */
+  public int readBooleans(ByteBuffer buffer, boolean[] values, int offset, int length)
+      throws IOException {
+    int count = 0;
+    while (count < length && hasNext(buffer)) {
+      values[offset + count++] = readBoolean(buffer);
+    }
+    return count;
+  }
+
+  /**
+   * see {@link #readInts(ByteBuffer, int[], int, int)}.
+   */
+  public int readLongs(ByteBuffer buffer, long[] values, int offset, int length)
+      throws IOException {
+    int count = 0;
+    while (count < length && hasNext(buffer)) {
+      values[offset + count++] = readLong(buffer);
+    }
+    return count;
+  }
+
+  /**
+   * see {@link #readInts(ByteBuffer, int[], int, int)}.
+   */
+  public int readFloats(ByteBuffer buffer, float[] values, int offset, int length)
+      throws IOException {
+    int count = 0;
+    while (count < length && hasNext(buffer)) {
+      values[offset + count++] = readFloat(buffer);
+    }
+    return count;
+  }
+
+  /**
+   * see {@link #readInts(ByteBuffer, int[], int, int)}.
+   */
+  public int readDoubles(ByteBuffer buffer, double[] values, int offset, int length)
+      throws IOException {
+    int count = 0;
+    while (count < length && hasNext(buffer)) {
+      values[offset + count++] = readDouble(buffer);
+    }
+    return count;
+  }
+
+  /**
+   * skip at most {@code length} values of the given type. This implementation decodes the values
+   * and drops them, decoders override it to skip without decoding when their format allows.
+   *
+   * @return the number of skipped values, which is less than length only if there is no more
+   * value in the buffer
+   */
+  public int skip(ByteBuffer buffer, TSDataType dataType, int length) throws IOException {
+    int count = 0;
+    while (count < length && hasNext(buffer)) {
+      switch (dataType) {
+        case BOOLEAN:
+          readBoolean(buffer);
+          break;
+        case INT32:
+          readInt(buffer);
+          break;
+        case INT64:
+          readLong(buffer);
+          break;
+        case FLOAT:
+          readFloat(buffer);
+          break;
+        case DOUBLE:
+          readDouble(buffer);
+          break;
+        case TEXT:
+          readBinary(buffer);
+          break;
+        default:
+          throw new TsFileDecodingException("Decoder cannot skip values of type " + dataType);
+      }
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * skip the leading values that are known to be less than {@code value} without decoding them,
+   * the values in the buffer must be in ascending order, e.g. a time column. Only the decoders
+   * whose format carries checkpoints, i.e. the first value of each pack, can tell without decoding
+   * and this implementation skips nothing.
+   *
+   * @return the number of skipped values, all the skipped values are less than {@code value}
+   */
+  public int skipLessThan(ByteBuffer buffer, long value) throws IOException {
+    return 0;
+  }
+
   public abstract boolean hasNext(ByteBuffer buffer) throws IOException;
 
   public abstract void reset();
@@ -22,6 +22,7 @@ package org.apache.iotdb.tsfile.encoding.decoder;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import org.apache.iotdb.tsfile.encoding.encoder.DeltaBinaryEncoder;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.utils.BytesUtils;
 import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
@@ -82,6 +83,96 @@ public abstract class DeltaBinaryDecoder extends Decoder {
     return (nextReadIndex < readIntTotalCount) || buffer.remaining() > 0;
   }
 
+  /**
+   * the number of bytes of minDeltaBase and firstValue in the header of a pack.
+   */
+  protected abstract int getPackHeaderSize();
+
+  /**
+   * a pack is {@code <packNum> <packWidth> <minDeltaBase> <firstValue> <deltas>}, which holds
+   * packNum + 1 values.
+   *
+   * @return the position where the pack after the one starting at {@code position} starts
+   */
+  private int nextPackPosition(ByteBuffer buffer, int position) {
+    int num = buffer.getInt(position);
+    int width = buffer.getInt(position + Integer.BYTES);
+    return position + 2 * Integer.BYTES + getPackHeaderSize() + ceil(num * width);
+  }
+
+  /**
+   * skip the rest of the current pack and the whole packs without unpacking their deltas.
+   */
+  @Override
+  public int skip(ByteBuffer buffer, TSDataType dataType, int length) throws IOException {
+    int count = Math.min(length, readIntTotalCount - nextReadIndex);
+    nextReadIndex += count;
+    while (count < length && buffer.hasRemaining()) {
+      int num = buffer.getInt(buffer.position()) + 1;
+      if (count + num > length) {
+        // the rest ends in the middle of the pack, which has to be unpacked
+        return count + super.skip(buffer, dataType, length - count);
+      }
+      buffer.position(nextPackPosition(buffer, buffer.position()));
+      count += num;
+    }
+    return count;
+  }
+
+  /**
+   * The first value of each pack is a checkpoint: all the values of a pack are less than the first
+   * value of the next pack, so a pack is skipped without unpacking if the first value of the next
+   * pack is not greater than {@code value}. Only the packs not started yet are skipped.
+   */
+  @Override
+  public int skipLessThan(ByteBuffer buffer, long value) {
+    if (nextReadIndex < readIntTotalCount) {
+      return 0;
+    }
+    int count = 0;
+    int position = buffer.position();
+    while (position < buffer.limit()) {
+      int next = nextPackPosition(buffer, position);
+      if (next >= buffer.limit() || readFirstValue(buffer, next) > value) {
+        break;
+      }
+      count += buffer.getInt(position) + 1;
+      position = next;
+    }
+    buffer.position(position);
+    return count;
+  }
+
+  /**
+   * @return the first value of the pack starting at {@code position}
+   */
+  protected abstract long readFirstValue(ByteBuffer buffer, int position);
+
+  @Override
+  public void reset() {
+    // drop what is left of the current pack, a reader may stop in the middle of a page
+    readIntTotalCount = 0;
+    nextReadIndex = 0;
+  }
+
+  /**
+   * read {@code width} bits from the bit offset {@code pos} of {@code bytes}. The bits are packed
+   * from the highest bit of each byte, the same as {@link BytesUtils#bytesToLong(byte[], int,
+   * int)} but a byte is read at a time instead of a bit.
+   */
+  static long unpack(byte[] bytes, int pos, int width) {
+    long value = 0;
+    int end = pos + width;
+    while (pos < end) {
+      int bitInByte = pos & 7;
+      int take = Math.min(8 - bitInByte, end - pos);
+      int bits = ((bytes[pos >>> 3] & 0xFF) >>> (8 - bitInByte - take)) & ((1 << take) - 1);
+      value = (value << take) | bits;
+      pos += take;
+    }
+    return value;
+  }
+
   public static class IntDeltaDecoder extends DeltaBinaryDecoder {
 
     private int firstValue;
@@ -114,6 +205,28 @@ public abstract class DeltaBinaryDecoder extends Decoder {
       return readT(buffer);
     }
 
+    /**
+     * copy the decoded values of the current pack at once instead of one by one.
+     */
+    @Override
+    public int readInts(ByteBuffer buffer, int[] values, int offset, int length) {
+      int count = 0;
+      while (count < length) {
+        if (nextReadIndex == readIntTotalCount) {
+          if (!buffer.hasRemaining()) {
+            break;
+          }
+          values[offset + count++] = loadIntBatch(buffer);
+          continue;
+        }
+        int num = Math.min(length - count, readIntTotalCount - nextReadIndex);
+        System.arraycopy(data, nextReadIndex, values, offset + count, num);
+        nextReadIndex += num;
+        count += num;
+      }
+      return count;
+    }
+
     /**
      * if remaining data has been run out, load next pack from InputStream.
      *
@@ -158,13 +271,18 @@ public abstract class DeltaBinaryDecoder extends Decoder {
 
     @Override
     protected void readValue(int i) {
-      int v = BytesUtils.bytesToInt(deltaBuf, packWidth * i, packWidth);
+      int v = (int) unpack(deltaBuf, packWidth * i, packWidth);
       data[i] = previous + minDeltaBase + v;
     }
 
     @Override
-    public void reset() {
-      // do nothing
+    protected int getPackHeaderSize() {
+      return 2 * Integer.BYTES;
+    }
+
+    @Override
+    protected long readFirstValue(ByteBuffer buffer, int position) {
+      return buffer.getInt(position + 3 * Integer.BYTES);
     }
   }
 
@@ -231,6 +349,28 @@ public abstract class DeltaBinaryDecoder extends Decoder {
       return readT(buffer);
     }
 
+    /**
+     * copy the decoded values of the current pack at once instead of one by one.
+     */
+    @Override
+    public int readLongs(ByteBuffer buffer, long[] values, int offset, int length) {
+      int count = 0;
+      while (count < length) {
+        if (nextReadIndex == readIntTotalCount) {
+          if (!buffer.hasRemaining()) {
+            break;
+          }
+          values[offset + count++] = loadIntBatch(buffer);
+          continue;
+        }
+        int num = Math.min(length - count, readIntTotalCount - nextReadIndex);
+        System.arraycopy(data, nextReadIndex, values, offset + count, num);
+        nextReadIndex += num;
+        count += num;
+      }
+      return count;
+    }
+
     @Override
     protected void readHeader(ByteBuffer buffer) {
       minDeltaBase = ReadWriteIOUtils.readLong(buffer);
@@ -244,13 +384,18 @@ public abstract class DeltaBinaryDecoder extends Decoder {
 
     @Override
     protected void readValue(int i) {
-      long v = BytesUtils.bytesToLong(deltaBuf, packWidth * i, packWidth);
+      long v = unpack(deltaBuf, packWidth * i, packWidth);
       data[i] = previous + minDeltaBase + v;
     }
 
     @Override
-    public void reset() {
-      // do nothing
+    protected int getPackHeaderSize() {
+      return 2 * Long.BYTES;
+    }
+
+    @Override
+    protected long readFirstValue(ByteBuffer buffer, int position) {
+      return buffer.getLong(position + 2 * Integer.BYTES + Long.BYTES);
     }
 
   }
@@ -50,6 +50,12 @@ public class FloatDecoder extends Decoder {
    */
   private boolean isMaxPointNumberRead;
 
+  /**
+   * the scaled values decoded by the bulk reads, reused across the reads.
+   */
+  private int[] intBuffer;
+  private long[] longBuffer;
+
   public FloatDecoder(TSEncoding encodingType, TSDataType dataType) {
     super(encodingType);
     if (encodingType == TSEncoding.RLE) {
@@ -96,6 +102,53 @@ public class FloatDecoder extends Decoder {
     return value / maxPointValue;
   }
 
+  @Override
+  public int readFloats(ByteBuffer buffer, float[] values, int offset, int length)
+      throws IOException {
+    if (length == 0 || !hasNext(buffer)) {
+      return 0;
+    }
+    readMaxPointValue(buffer);
+    if (intBuffer == null || intBuffer.length < length) {
+      intBuffer = new int[length];
+    }
+    int count = decoder.readInts(buffer, intBuffer, 0, length);
+    for (int i = 0; i < count; i++) {
+      values[offset + i] = (float) (intBuffer[i] / maxPointValue);
+    }
+    return count;
+  }
+
+  @Override
+  public int readDoubles(ByteBuffer buffer, double[] values, int offset, int length)
+      throws IOException {
+    if (length == 0 || !hasNext(buffer)) {
+      return 0;
+    }
+    readMaxPointValue(buffer);
+    if (longBuffer == null || longBuffer.length < length) {
+      longBuffer = new long[length];
+    }
+    int count = decoder.readLongs(buffer, longBuffer, 0, length);
+    for (int i = 0; i < count; i++) {
+      values[offset + i] = longBuffer[i] / maxPointValue;
+    }
+    return count;
+  }
+
+  /**
+   * skip the scaled values with the underlying decoder.
+   */
+  @Override
+  public int skip(ByteBuffer buffer, TSDataType dataType, int length) throws IOException {
+    if (length == 0 || !hasNext(buffer)) {
+      return 0;
+    }
+    readMaxPointValue(buffer);
+    return decoder.skip(buffer,
+        dataType == TSDataType.FLOAT ? TSDataType.INT32 : TSDataType.INT64, length);
+  }
+
   private void readMaxPointValue(ByteBuffer buffer) {
     if (!isMaxPointNumberRead) {
       int maxPointNumber = ReadWriteForEncodingUtils.readUnsignedVarInt(buffer);
@@ -103,12 +103,7 @@ public abstract class GorillaDecoder extends Decoder {
    * @throws IOException cannot read from stream
    */
   protected int readIntFromStream(ByteBuffer buffer, int len) throws IOException {
-    int num = 0;
-    for (int i = 0; i < len; i++) {
-      int bit = readBit(buffer) ? 1 : 0;
-      num |= bit << (len - 1 - i);
-    }
-    return num;
+    return (int) readLongFromStream(buffer, len);
   }
 
   /**
@@ -121,9 +116,18 @@ public abstract class GorillaDecoder extends Decoder {
    */
   protected long readLongFromStream(ByteBuffer buffer, int len) throws IOException {
     long num = 0;
-    for (int i = 0; i < len; i++) {
-      long bit = (long) (readBit(buffer) ? 1 : 0);
-      num |= bit << (len - 1 - i);
+    // take as many bits as possible from the buffered byte at a time
+    while (len > 0) {
+      if (numberLeftInBuffer == 0 && !isEnd) {
+        fillBuffer(buffer);
+      }
+      if (isEmpty() || numberLeftInBuffer <= 0) {
+        throw new IOException("Reading from empty buffer");
+      }
+      int bitNum = Math.min(len, numberLeftInBuffer);
+      numberLeftInBuffer -= bitNum;
+      num = (num << bitNum) | ((this.buffer >> numberLeftInBuffer) & ((1 << bitNum) - 1));
+      len -= bitNum;
     }
     return num;
   }
@@ -21,6 +21,7 @@ package org.apache.iotdb.tsfile.encoding.decoder;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
 import org.apache.iotdb.tsfile.encoding.bitpacking.IntPacker;
 import org.apache.iotdb.tsfile.encoding.common.EndianType;
@@ -104,6 +105,43 @@ public class IntRleDecoder extends RleDecoder {
     return result;
   }
 
+  @Override
+  public int readInts(ByteBuffer buffer, int[] values, int offset, int length)
+      throws IOException {
+    int count = 0;
+    while (count < length && prepareRun(buffer)) {
+      int num = Math.min(length - count, currentCount);
+      if (mode == Mode.RLE) {
+        Arrays.fill(values, offset + count, offset + count + num, currentValue);
+      } else {
+        System.arraycopy(currentBuffer, bitPackingNum - currentCount, values, offset + count, num);
+      }
+      consumeRun(num);
+      count += num;
+    }
+    return count;
+  }
+
+  @Override
+  public int readBooleans(ByteBuffer buffer, boolean[] values, int offset, int length)
+      throws IOException {
+    int count = 0;
+    while (count < length && prepareRun(buffer)) {
+      int num = Math.min(length - count, currentCount);
+      if (mode == Mode.RLE) {
+        Arrays.fill(values, offset + count, offset + count + num, currentValue != 0);
+      } else {
+        int start = bitPackingNum - currentCount;
+        for (int i = 0; i < num; i++) {
+          values[offset + count + i] = currentBuffer[start + i] != 0;
+        }
+      }
+      consumeRun(num);
+      count += num;
+    }
+    return count;
+  }
+
   @Override
   protected void initPacker() {
     packer = new IntPacker(bitWidth);
@@ -21,6 +21,7 @@ package org.apache.iotdb.tsfile.encoding.decoder;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
 import org.apache.iotdb.tsfile.encoding.bitpacking.LongPacker;
 import org.apache.iotdb.tsfile.encoding.common.EndianType;
@@ -99,6 +100,23 @@ public class LongRleDecoder extends RleDecoder {
     return result;
   }
 
+  @Override
+  public int readLongs(ByteBuffer buffer, long[] values, int offset, int length)
+      throws IOException {
+    int count = 0;
+    while (count < length && prepareRun(buffer)) {
+      int num = Math.min(length - count, currentCount);
+      if (mode == Mode.RLE) {
+        Arrays.fill(values, offset + count, offset + count + num, currentValue);
+      } else {
+        System.arraycopy(currentBuffer, bitPackingNum - currentCount, values, offset + count, num);
+      }
+      consumeRun(num);
+      count += num;
+    }
+    return count;
+  }
+
   @Override
   protected void initPacker() {
     packer = new LongPacker(bitWidth);
@@ -123,4 +141,4 @@ public class LongRleDecoder extends RleDecoder {
     packer.unpackAllValues(bytes, bytesToRead, currentBuffer);
   }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -22,8 +22,10 @@ package org.apache.iotdb.tsfile.encoding.decoder;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import org.apache.iotdb.tsfile.encoding.common.EndianType;
 import org.apache.iotdb.tsfile.exception.encoding.TsFileDecodingException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
@@ -117,6 +119,96 @@ public class PlainDecoder extends Decoder {
     return new Binary(buf);
   }
 
+  @Override
+  public int readBooleans(ByteBuffer buffer, boolean[] values, int offset, int length) {
+    int count = Math.min(length, buffer.remaining());
+    for (int i = 0; i < count; i++) {
+      values[offset + i] = buffer.get() != 0;
+    }
+    return count;
+  }
+
+  @Override
+  public int readInts(ByteBuffer buffer, int[] values, int offset, int length)
+      throws IOException {
+    if (endianType != EndianType.LITTLE_ENDIAN) {
+      return super.readInts(buffer, values, offset, length);
+    }
+    int count = Math.min(length, buffer.remaining() / Integer.BYTES);
+    littleEndianSlice(buffer, count * Integer.BYTES).asIntBuffer().get(values, offset, count);
+    return count;
+  }
+
+  @Override
+  public int readLongs(ByteBuffer buffer, long[] values, int offset, int length)
+      throws IOException {
+    if (endianType != EndianType.LITTLE_ENDIAN) {
+      return super.readLongs(buffer, values, offset, length);
+    }
+    int count = Math.min(length, buffer.remaining() / Long.BYTES);
+    littleEndianSlice(buffer, count * Long.BYTES).asLongBuffer().get(values, offset, count);
+    return count;
+  }
+
+  @Override
+  public int readFloats(ByteBuffer buffer, float[] values, int offset, int length)
+      throws IOException {
+    if (endianType != EndianType.LITTLE_ENDIAN) {
+      return super.readFloats(buffer, values, offset, length);
+    }
+    int count = Math.min(length, buffer.remaining() / Float.BYTES);
+    littleEndianSlice(buffer, count * Float.BYTES).asFloatBuffer().get(values, offset, count);
+    return count;
+  }
+
+  @Override
+  public int readDoubles(ByteBuffer buffer, double[] values, int offset, int length)
+      throws IOException {
+    if (endianType != EndianType.LITTLE_ENDIAN) {
+      return super.readDoubles(buffer, values, offset, length);
+    }
+    int count = Math.min(length, buffer.remaining() / Double.BYTES);
+    littleEndianSlice(buffer, count * Double.BYTES).asDoubleBuffer().get(values, offset, count);
+    return count;
+  }
+
+  /**
+   * skip fixed size values by moving the position of the buffer.
+   */
+  @Override
+  public int skip(ByteBuffer buffer, TSDataType dataType, int length) throws IOException {
+    int size;
+    switch (dataType) {
+      case BOOLEAN:
+        size = 1;
+        break;
+      case INT32:
+      case FLOAT:
+        size = Integer.BYTES;
+        break;
+      case INT64:
+      case DOUBLE:
+        size = Long.BYTES;
+        break;
+      default:
+        return super.skip(buffer, dataType, length);
+    }
+    int count = Math.min(length, buffer.remaining() / size);
+    buffer.position(buffer.position() + count * size);
+    return count;
+  }
+
+  /**
+   * @return the next {@code size} bytes of the buffer in little endian, the buffer is moved past
+   * them.
+   */
+  private ByteBuffer littleEndianSlice(ByteBuffer buffer, int size) {
+    ByteBuffer slice = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+    slice.limit(size);
+    buffer.position(buffer.position() + size);
+    return slice;
+  }
+
   @Override
   public boolean hasNext(ByteBuffer buffer) throws IOException {
     return buffer.remaining() > 0;
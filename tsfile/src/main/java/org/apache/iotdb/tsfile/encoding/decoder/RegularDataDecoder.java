@@ -170,7 +170,9 @@ public abstract class RegularDataDecoder extends Decoder {
 
     @Override
     public void reset() {
-      // do nothing
+      // drop what is left of the current pack, a reader may stop in the middle of a page
+      readIntTotalCount = 0;
+      nextReadIndex = 0;
     }
   }
 
@@ -283,7 +285,9 @@ public abstract class RegularDataDecoder extends Decoder {
 
     @Override
     public void reset() {
-      // do nothing
+      // drop what is left of the current pack, a reader may stop in the middle of a page
+      readIntTotalCount = 0;
+      nextReadIndex = 0;
     }
   }
 }
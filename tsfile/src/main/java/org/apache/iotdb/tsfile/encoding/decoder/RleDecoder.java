@@ -26,6 +26,7 @@ import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.encoding.common.EndianType;
 import org.apache.iotdb.tsfile.exception.encoding.TsFileDecodingException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
@@ -177,6 +178,53 @@ public abstract class RleDecoder extends Decoder {
     return false;
   }
 
+  /**
+   * make sure the current run, which is either a repeated value or bit-packed groups, has values
+   * left, reading the next run or the next pattern if needed. Used by the bulk reads, which take
+   * as many values as they need from a run at once.
+   *
+   * @param buffer ByteBuffer
+   * @return false if there is no value left
+   * @throws IOException cannot read the next run
+   */
+  protected boolean prepareRun(ByteBuffer buffer) throws IOException {
+    if (currentCount == 0) {
+      if (!isLengthAndBitWidthReaded) {
+        if (!buffer.hasRemaining()) {
+          return false;
+        }
+        // start to read a new rle+bit-packing pattern
+        readLengthAndBitWidth(buffer);
+      }
+      readNext();
+    }
+    return true;
+  }
+
+  /**
+   * consume num values of the current run.
+   */
+  protected void consumeRun(int num) {
+    currentCount -= num;
+    if (!hasNextPackage()) {
+      isLengthAndBitWidthReaded = false;
+    }
+  }
+
+  /**
+   * skip whole runs or parts of them without copying their values out.
+   */
+  @Override
+  public int skip(ByteBuffer buffer, TSDataType dataType, int length) throws IOException {
+    int count = 0;
+    while (count < length && prepareRun(buffer)) {
+      int num = Math.min(length - count, currentCount);
+      consumeRun(num);
+      count += num;
+    }
+    return count;
+  }
+
   /**
    * Check whether there is another pattern left for reading.
    *
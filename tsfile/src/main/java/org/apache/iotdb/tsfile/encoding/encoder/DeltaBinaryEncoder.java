@@ -152,8 +152,8 @@ public abstract class DeltaBinaryEncoder extends Encoder {
       return width;
     }
 
-    private void calcDelta(Integer value) {
-      Integer delta = value - previousValue;// calculate delta
+    private void calcDelta(int value) {
+      int delta = value - previousValue;// calculate delta
       if (delta < minDeltaBase) {
         minDeltaBase = delta;
       }
@@ -217,6 +217,13 @@ public abstract class DeltaBinaryEncoder extends Encoder {
       encodeValue(value, out);
     }
 
+    @Override
+    public void encode(int[] values, int start, int end, ByteArrayOutputStream out) {
+      for (int i = start; i < end; i++) {
+        encodeValue(values[i], out);
+      }
+    }
+
     @Override
     public int getOneItemMaxSize() {
       return 4;
@@ -252,8 +259,8 @@ public abstract class DeltaBinaryEncoder extends Encoder {
       reset();
     }
 
-    private void calcDelta(Long value) {
-      Long delta = value - previousValue;// calculate delta
+    private void calcDelta(long value) {
+      long delta = value - previousValue;// calculate delta
       if (delta < minDeltaBase) {
         minDeltaBase = delta;
       }
@@ -271,7 +278,7 @@ public abstract class DeltaBinaryEncoder extends Encoder {
       }
     }
 
-    private int getValueWidth(Long v) {
+    private int getValueWidth(long v) {
       return 64 - Long.numberOfLeadingZeros(v);
     }
 
@@ -296,6 +303,13 @@ public abstract class DeltaBinaryEncoder extends Encoder {
       encodeValue(value, out);
     }
 
+    @Override
+    public void encode(long[] values, int start, int end, ByteArrayOutputStream out) {
+      for (int i = start; i < end; i++) {
+        encodeValue(values[i], out);
+      }
+    }
+
     @Override
     public int getOneItemMaxSize() {
       return 8;
@@ -82,6 +82,61 @@ public abstract class Encoder {
     throw new TsFileEncodingException("Method encode BigDecimal is not supported by Encoder");
   }
 
+  /**
+   * encode values[start, end). Encoders that can do better than encoding the values one by one
+   * override it.
+   */
+  public void encode(boolean[] values, int start, int end, ByteArrayOutputStream out) {
+    for (int i = start; i < end; i++) {
+      encode(values[i], out);
+    }
+  }
+
+  /**
+   * encode values[start, end).
+   */
+  public void encode(int[] values, int start, int end, ByteArrayOutputStream out) {
+    for (int i = start; i < end; i++) {
+      encode(values[i], out);
+    }
+  }
+
+  /**
+   * encode values[start, end).
+   */
+  public void encode(long[] values, int start, int end, ByteArrayOutputStream out) {
+    for (int i = start; i < end; i++) {
+      encode(values[i], out);
+    }
+  }
+
+  /**
+   * encode values[start, end).
+   */
+  public void encode(float[] values, int start, int end, ByteArrayOutputStream out) {
+    for (int i = start; i < end; i++) {
+      encode(values[i], out);
+    }
+  }
+
+  /**
+   * encode values[start, end).
+   */
+  public void encode(double[] values, int start, int end, ByteArrayOutputStream out) {
+    for (int i = start; i < end; i++) {
+      encode(values[i], out);
+    }
+  }
+
+  /**
+   * encode values[start, end).
+   */
+  public void encode(Binary[] values, int start, int end, ByteArrayOutputStream out) {
+    for (int i = start; i < end; i++) {
+      encode(values[i], out);
+    }
+  }
+
   /**
    * Write all values buffered in memory cache to OutputStream.
    *
@@ -34,9 +34,14 @@ import org.slf4j.LoggerFactory;
 public class PlainEncoder extends Encoder {
 
   private static final Logger logger = LoggerFactory.getLogger(PlainEncoder.class);
+  private static final int BATCH_BUFFER_SIZE = 4096;
   private EndianType endianType;
   private TSDataType dataType;
   private int maxStringLength;
+  /**
+   * reused by the batch encoding, allocated on the first use.
+   */
+  private byte[] batchBuffer;
 
   public PlainEncoder(EndianType endianType, TSDataType dataType, int maxStringLength) {
     super(TSEncoding.PLAIN);
@@ -92,25 +97,15 @@ public class PlainEncoder extends Encoder {
 
   @Override
   public void encode(long value, ByteArrayOutputStream out) {
-    byte[] bufferBig = new byte[8];
-    byte[] bufferLittle = new byte[8];
-
-    for (int i = 0; i < 8; i++) {
-      bufferLittle[i] = (byte) (((value) >> (i * 8)) & 0xFF);
-      bufferBig[8 - i - 1] = (byte) (((value) >> (i * 8)) & 0xFF);
-    }
-    try {
-      if (this.endianType == EndianType.LITTLE_ENDIAN) {
-        out.write(bufferLittle);
-      } else if (this.endianType == EndianType.BIG_ENDIAN) {
-        logger.error(
-            "tsfile-encoding PlainEncoder: current version does not support long value encoding");
-        throw new TsFileEncodingException(
-            "tsfile-encoding PlainEncoder: current version does not support long value encoding");
+    if (this.endianType == EndianType.LITTLE_ENDIAN) {
+      for (int i = 0; i < 8; i++) {
+        out.write((int) ((value >> (i * 8)) & 0xFF));
       }
-    } catch (IOException e) {
-      logger
-          .error("tsfile-encoding PlainEncoder: error occurs when encode long value {}", value, e);
+    } else if (this.endianType == EndianType.BIG_ENDIAN) {
+      logger.error(
+          "tsfile-encoding PlainEncoder: current version does not support long value encoding");
+      throw new TsFileEncodingException(
+          "tsfile-encoding PlainEncoder: current version does not support long value encoding");
     }
   }
 
@@ -137,6 +132,103 @@ public class PlainEncoder extends Encoder {
     }
   }
 
+  @Override
+  public void encode(int[] values, int start, int end, ByteArrayOutputStream out) {
+    if (endianType != EndianType.LITTLE_ENDIAN) {
+      super.encode(values, start, end, out);
+      return;
+    }
+    byte[] buffer = getBatchBuffer();
+    int pos = 0;
+    for (int i = start; i < end; i++) {
+      if (pos == buffer.length) {
+        out.write(buffer, 0, pos);
+        pos = 0;
+      }
+      pos = putInt(values[i], buffer, pos);
+    }
+    out.write(buffer, 0, pos);
+  }
+
+  @Override
+  public void encode(long[] values, int start, int end, ByteArrayOutputStream out) {
+    if (endianType != EndianType.LITTLE_ENDIAN) {
+      super.encode(values, start, end, out);
+      return;
+    }
+    byte[] buffer = getBatchBuffer();
+    int pos = 0;
+    for (int i = start; i < end; i++) {
+      if (pos == buffer.length) {
+        out.write(buffer, 0, pos);
+        pos = 0;
+      }
+      pos = putLong(values[i], buffer, pos);
+    }
+    out.write(buffer, 0, pos);
+  }
+
+  @Override
+  public void encode(float[] values, int start, int end, ByteArrayOutputStream out) {
+    if (endianType != EndianType.LITTLE_ENDIAN) {
+      super.encode(values, start, end, out);
+      return;
+    }
+    byte[] buffer = getBatchBuffer();
+    int pos = 0;
+    for (int i = start; i < end; i++) {
+      if (pos == buffer.length) {
+        out.write(buffer, 0, pos);
+        pos = 0;
+      }
+      pos = putInt(Float.floatToIntBits(values[i]), buffer, pos);
+    }
+    out.write(buffer, 0, pos);
+  }
+
+  @Override
+  public void encode(double[] values, int start, int end, ByteArrayOutputStream out) {
+    if (endianType != EndianType.LITTLE_ENDIAN) {
+      super.encode(values, start, end, out);
+      return;
+    }
+    byte[] buffer = getBatchBuffer();
+    int pos = 0;
+    for (int i = start; i < end; i++) {
+      if (pos == buffer.length) {
+        out.write(buffer, 0, pos);
+        pos = 0;
+      }
+      pos = putLong(Double.doubleToLongBits(values[i]), buffer, pos);
+    }
+    out.write(buffer, 0, pos);
+  }
+
+  /**
+   * @return a buffer for batch encoding, whose length is a multiple of 8.
+   */
+  private byte[] getBatchBuffer() {
+    if (batchBuffer == null) {
+      batchBuffer = new byte[BATCH_BUFFER_SIZE];
+    }
+    return batchBuffer;
+  }
+
+  private static int putInt(int value, byte[] buffer, int pos) {
+    buffer[pos] = (byte) value;
+    buffer[pos + 1] = (byte) (value >> 8);
+    buffer[pos + 2] = (byte) (value >> 16);
+    buffer[pos + 3] = (byte) (value >> 24);
+    return pos + 4;
+  }
+
+  private static int putLong(long value, byte[] buffer, int pos) {
+    for (int i = 0; i < 8; i++) {
+      buffer[pos + i] = (byte) (value >> (i * 8));
+    }
+    return pos + 8;
+  }
+
   @Override
   public void flush(ByteArrayOutputStream out) {
     //This is an empty function.
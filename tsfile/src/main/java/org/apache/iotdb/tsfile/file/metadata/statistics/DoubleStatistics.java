@@ -53,6 +53,35 @@ public class DoubleStatistics extends Statistics<Double> {
     }
   }
 
+  @Override
+  public void updateStats(double[] values, int start, int end) {
+    if (start >= end) {
+      return;
+    }
+    if (isEmpty) {
+      double value = values[start++];
+      initializeStats(value, value, value, value, value);
+      isEmpty = false;
+    }
+    double minValue = min;
+    double maxValue = max;
+    double sumValue = sum;
+    for (int i = start; i < end; i++) {
+      double value = values[i];
+      if (value < minValue) {
+        minValue = value;
+      }
+      if (value > maxValue) {
+        maxValue = value;
+      }
+      sumValue += value;
+    }
+    min = minValue;
+    max = maxValue;
+    sum = sumValue;
+    last = values[end - 1];
+  }
+
   private void updateStats(double minValue, double maxValue, double firstValue, double sumValue,
       double lastValue) {
     if (minValue < min) {
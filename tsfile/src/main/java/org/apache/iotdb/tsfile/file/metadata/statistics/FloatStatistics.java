@@ -53,6 +53,35 @@ public class FloatStatistics extends Statistics<Float> {
     }
   }
 
+  @Override
+  public void updateStats(float[] values, int start, int end) {
+    if (start >= end) {
+      return;
+    }
+    if (isEmpty) {
+      float value = values[start++];
+      initializeStats(value, value, value, value, value);
+      isEmpty = false;
+    }
+    float minValue = min;
+    float maxValue = max;
+    double sumValue = sum;
+    for (int i = start; i < end; i++) {
+      float value = values[i];
+      if (value < minValue) {
+        minValue = value;
+      }
+      if (value > maxValue) {
+        maxValue = value;
+      }
+      sumValue += value;
+    }
+    min = minValue;
+    max = maxValue;
+    sum = sumValue;
+    last = values[end - 1];
+  }
+
   private void updateStats(float minValue, float maxValue, float firstValue,
       double sumValue, float last) {
     if (minValue < min) {
@@ -54,6 +54,35 @@ public class IntegerStatistics extends Statistics<Integer> {
     }
   }
 
+  @Override
+  public void updateStats(int[] values, int start, int end) {
+    if (start >= end) {
+      return;
+    }
+    if (isEmpty) {
+      int value = values[start++];
+      initializeStats(value, value, value, value, value);
+      isEmpty = false;
+    }
+    int minValue = min;
+    int maxValue = max;
+    double sumValue = sum;
+    for (int i = start; i < end; i++) {
+      int value = values[i];
+      if (value < minValue) {
+        minValue = value;
+      }
+      if (value > maxValue) {
+        maxValue = value;
+      }
+      sumValue += value;
+    }
+    min = minValue;
+    max = maxValue;
+    sum = sumValue;
+    last = values[end - 1];
+  }
+
   private void updateStats(int minValue, int maxValue,
       int firstValue, double sumValue, int lastValue) {
     // TODO: unused parameter
@@ -78,6 +78,35 @@ public class LongStatistics extends Statistics<Long> {
     }
   }
 
+  @Override
+  public void updateStats(long[] values, int start, int end) {
+    if (start >= end) {
+      return;
+    }
+    if (isEmpty) {
+      long value = values[start++];
+      initializeStats(value, value, value, value, value);
+      isEmpty = false;
+    }
+    long minValue = min;
+    long maxValue = max;
+    double sumValue = sum;
+    for (int i = start; i < end; i++) {
+      long value = values[i];
+      if (value < minValue) {
+        minValue = value;
+      }
+      if (value > maxValue) {
+        maxValue = value;
+      }
+      sumValue += value;
+    }
+    min = minValue;
+    max = maxValue;
+    sum = sumValue;
+    last = values[end - 1];
+  }
+
   private void updateStats(long minValue, long maxValue, long firstValue, double sumValue,
       long lastValue) {
     if (minValue < min) {
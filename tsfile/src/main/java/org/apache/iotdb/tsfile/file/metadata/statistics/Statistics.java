@@ -23,7 +23,10 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.nio.ByteBuffer;
+import java.util.Map;
+import org.apache.iotdb.tsfile.common.constant.StatisticConstant;
 import org.apache.iotdb.tsfile.exception.write.UnknownColumnTypeException;
+import org.apache.iotdb.tsfile.file.metadata.TsDigest;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.reader.TsFileInput;
 import org.apache.iotdb.tsfile.utils.Binary;
@@ -97,6 +100,47 @@ public abstract class Statistics<T> {
     return statistics;
   }
 
+  /**
+   * rebuild the statistics of a chunk from the digest in its ChunkMetaData.
+   *
+   * @param digest digest of the chunk
+   * @param dataType data type of the chunk
+   * @return the statistics, or null if the digest does not contain all of min, max, first, last
+   * and sum
+   */
+  public static Statistics<?> deserialize(TsDigest digest, TSDataType dataType) throws IOException {
+    Map<String, ByteBuffer> statisticsMap = digest == null ? null : digest.getStatistics();
+    if (statisticsMap == null) {
+      return null;
+    }
+    ByteBuffer[] values = new ByteBuffer[5];
+    String[] keys = {StatisticConstant.MIN_VALUE, StatisticConstant.MAX_VALUE,
+        StatisticConstant.FIRST, StatisticConstant.LAST, StatisticConstant.SUM};
+    int size = 0;
+    for (int i = 0; i < keys.length; i++) {
+      ByteBuffer value = statisticsMap.get(keys[i]);
+      if (value == null) {
+        return null;
+      }
+      values[i] = value.duplicate();
+      size += Integer.BYTES + value.remaining();
+    }
+
+    Statistics<?> statistics = getStatsByType(dataType);
+    // lay out the values in the same way as serialize() does
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    for (int i = 0; i < values.length; i++) {
+      if (statistics.sizeOfDatum() == -1 && i < values.length - 1) {
+        buffer.putInt(values[i].remaining());
+      }
+      buffer.put(values[i]);
+    }
+    buffer.flip();
+    statistics.fill(buffer);
+    statistics.isEmpty = false;
+    return statistics;
+  }
+
   public abstract void setMinMaxFromBytes(byte[] minBytes, byte[] maxBytes);
 
   public abstract T getMin();
@@ -204,6 +248,45 @@ public abstract class Statistics<T> {
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * update the statistics with values[start, end), which is the same as updating them one by one.
+   */
+  public void updateStats(boolean[] values, int start, int end) {
+    for (int i = start; i < end; i++) {
+      updateStats(values[i]);
+    }
+  }
+
+  public void updateStats(int[] values, int start, int end) {
+    for (int i = start; i < end; i++) {
+      updateStats(values[i]);
+    }
+  }
+
+  public void updateStats(long[] values, int start, int end) {
+    for (int i = start; i < end; i++) {
+      updateStats(values[i]);
+    }
+  }
+
+  public void updateStats(float[] values, int start, int end) {
+    for (int i = start; i < end; i++) {
+      updateStats(values[i]);
+    }
+  }
+
+  public void updateStats(double[] values, int start, int end) {
+    for (int i = start; i < end; i++) {
+      updateStats(values[i]);
+    }
+  }
+
+  public void updateStats(Binary[] values, int start, int end) {
+    for (int i = start; i < end; i++) {
+      updateStats(values[i]);
+    }
+  }
+
   public void reset() {
   }
 
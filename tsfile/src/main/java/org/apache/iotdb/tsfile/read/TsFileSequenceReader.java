@@ -108,6 +108,18 @@ public class TsFileSequenceReader implements AutoCloseable {
     this(input, true);
   }
 
+  /**
+   * Create a reader of the given file which is read through the given input, e.g., a
+   * MmapTsFileInput.
+   *
+   * @param file the data file
+   * @param input the input of the file
+   */
+  public TsFileSequenceReader(String file, TsFileInput input) throws IOException {
+    this(input, true);
+    this.file = file;
+  }
+
   /**
    * construct function for TsFileSequenceReader.
    *
@@ -393,10 +405,15 @@ public class TsFileSequenceReader implements AutoCloseable {
       case UNCOMPRESSED:
         return buffer;
       default:
-        // FIXME if the buffer is not array-implemented.
-        unCompressor.uncompress(buffer.array(), buffer.position(), buffer.remaining(),
-            uncompressedBuffer.array(),
-            0);
+        if (buffer.hasArray()) {
+          unCompressor.uncompress(buffer.array(), buffer.arrayOffset() + buffer.position(),
+              buffer.remaining(), uncompressedBuffer.array(), 0);
+        } else {
+          // e.g., a slice of a memory-mapped file
+          byte[] compressed = new byte[buffer.remaining()];
+          buffer.get(compressed);
+          unCompressor.uncompress(compressed, 0, compressed.length, uncompressedBuffer.array(), 0);
+        }
         return uncompressedBuffer;
     }
   }
@@ -441,18 +458,13 @@ public class TsFileSequenceReader implements AutoCloseable {
    * @return data that been read.
    */
   private ByteBuffer readData(long position, int size) throws IOException {
-    ByteBuffer buffer = ByteBuffer.allocate(size);
     if (position == -1) {
-      if (ReadWriteIOUtils.readAsPossible(tsFileInput, buffer) != size) {
-        throw new IOException("reach the end of the data");
-      }
-    } else {
-      if (ReadWriteIOUtils.readAsPossible(tsFileInput, buffer, position, size) != size) {
-        throw new IOException("reach the end of the data");
-      }
+      long currentPosition = tsFileInput.position();
+      ByteBuffer buffer = tsFileInput.readData(currentPosition, size);
+      tsFileInput.position(currentPosition + size);
+      return buffer;
     }
-    buffer.flip();
-    return buffer;
+    return tsFileInput.readData(position, size);
   }
 
   /**
@@ -217,6 +217,33 @@ public class BatchData implements Serializable {
     (timeRet.get(timeArrayIdx))[curTimeIdx++] = v;
     timeLength++;
   }
+  /**
+   * put the timestamps in {@code times} from {@code offset} to {@code offset + length}, which is
+   * the same as putting them one by one but copies them array by array.
+   */
+  public void putTimes(long[] times, int offset, int length) {
+    while (length > 0) {
+      if (curTimeIdx == timeCapacity) {
+        if (timeCapacity >= capacityThreshold) {
+          this.timeRet.add(new long[timeCapacity]);
+          timeArrayIdx++;
+          curTimeIdx = 0;
+        } else {
+          long[] newData = new long[timeCapacity * 2];
+          System.arraycopy(timeRet.get(0), 0, newData, 0, timeCapacity);
+          this.timeRet.set(0, newData);
+          timeCapacity = timeCapacity * 2;
+        }
+      }
+      int num = Math.min(length, timeCapacity - curTimeIdx);
+      System.arraycopy(times, offset, timeRet.get(timeArrayIdx), curTimeIdx, num);
+      curTimeIdx += num;
+      timeLength += num;
+      offset += num;
+      length -= num;
+    }
+  }
+
 
   /**
    * put boolean data.
@@ -241,6 +268,35 @@ public class BatchData implements Serializable {
     (this.booleanRet.get(valueArrayIdx))[curValueIdx++] = v;
     valueLength++;
   }
+  /**
+   * put the values in {@code values} from {@code offset} to {@code offset + length}, see
+   * {@link #putTimes(long[], int, int)}.
+   */
+  public void putBooleans(boolean[] values, int offset, int length) {
+    while (length > 0) {
+      if (curValueIdx == valueCapacity) {
+        if (valueCapacity >= capacityThreshold) {
+          if (this.booleanRet.size() <= valueArrayIdx + 1) {
+            this.booleanRet.add(new boolean[valueCapacity]);
+          }
+          valueArrayIdx++;
+          curValueIdx = 0;
+        } else {
+          boolean[] newData = new boolean[valueCapacity * 2];
+          System.arraycopy(booleanRet.get(0), 0, newData, 0, valueCapacity);
+          this.booleanRet.set(0, newData);
+          valueCapacity = valueCapacity * 2;
+        }
+      }
+      int num = Math.min(length, valueCapacity - curValueIdx);
+      System.arraycopy(values, offset, booleanRet.get(valueArrayIdx), curValueIdx, num);
+      curValueIdx += num;
+      valueLength += num;
+      offset += num;
+      length -= num;
+    }
+  }
+
 
   /**
    * put int data.
@@ -265,6 +321,35 @@ public class BatchData implements Serializable {
     (this.intRet.get(valueArrayIdx))[curValueIdx++] = v;
     valueLength++;
   }
+  /**
+   * put the values in {@code values} from {@code offset} to {@code offset + length}, see
+   * {@link #putTimes(long[], int, int)}.
+   */
+  public void putInts(int[] values, int offset, int length) {
+    while (length > 0) {
+      if (curValueIdx == valueCapacity) {
+        if (valueCapacity >= capacityThreshold) {
+          if (this.intRet.size() <= valueArrayIdx + 1) {
+            this.intRet.add(new int[valueCapacity]);
+          }
+          valueArrayIdx++;
+          curValueIdx = 0;
+        } else {
+          int[] newData = new int[valueCapacity * 2];
+          System.arraycopy(intRet.get(0), 0, newData, 0, valueCapacity);
+          this.intRet.set(0, newData);
+          valueCapacity = valueCapacity * 2;
+        }
+      }
+      int num = Math.min(length, valueCapacity - curValueIdx);
+      System.arraycopy(values, offset, intRet.get(valueArrayIdx), curValueIdx, num);
+      curValueIdx += num;
+      valueLength += num;
+      offset += num;
+      length -= num;
+    }
+  }
+
 
   /**
    * put long data.
@@ -289,6 +374,35 @@ public class BatchData implements Serializable {
     (this.longRet.get(valueArrayIdx))[curValueIdx++] = v;
     valueLength++;
   }
+  /**
+   * put the values in {@code values} from {@code offset} to {@code offset + length}, see
+   * {@link #putTimes(long[], int, int)}.
+   */
+  public void putLongs(long[] values, int offset, int length) {
+    while (length > 0) {
+      if (curValueIdx == valueCapacity) {
+        if (valueCapacity >= capacityThreshold) {
+          if (this.longRet.size() <= valueArrayIdx + 1) {
+            this.longRet.add(new long[valueCapacity]);
+          }
+          valueArrayIdx++;
+          curValueIdx = 0;
+        } else {
+          long[] newData = new long[valueCapacity * 2];
+          System.arraycopy(longRet.get(0), 0, newData, 0, valueCapacity);
+          this.longRet.set(0, newData);
+          valueCapacity = valueCapacity * 2;
+        }
+      }
+      int num = Math.min(length, valueCapacity - curValueIdx);
+      System.arraycopy(values, offset, longRet.get(valueArrayIdx), curValueIdx, num);
+      curValueIdx += num;
+      valueLength += num;
+      offset += num;
+      length -= num;
+    }
+  }
+
 
   /**
    * put float data.
@@ -313,6 +427,35 @@ public class BatchData implements Serializable {
     (this.floatRet.get(valueArrayIdx))[curValueIdx++] = v;
     valueLength++;
   }
+  /**
+   * put the values in {@code values} from {@code offset} to {@code offset + length}, see
+   * {@link #putTimes(long[], int, int)}.
+   */
+  public void putFloats(float[] values, int offset, int length) {
+    while (length > 0) {
+      if (curValueIdx == valueCapacity) {
+        if (valueCapacity >= capacityThreshold) {
+          if (this.floatRet.size() <= valueArrayIdx + 1) {
+            this.floatRet.add(new float[valueCapacity]);
+          }
+          valueArrayIdx++;
+          curValueIdx = 0;
+        } else {
+          float[] newData = new float[valueCapacity * 2];
+          System.arraycopy(floatRet.get(0), 0, newData, 0, valueCapacity);
+          this.floatRet.set(0, newData);
+          valueCapacity = valueCapacity * 2;
+        }
+      }
+      int num = Math.min(length, valueCapacity - curValueIdx);
+      System.arraycopy(values, offset, floatRet.get(valueArrayIdx), curValueIdx, num);
+      curValueIdx += num;
+      valueLength += num;
+      offset += num;
+      length -= num;
+    }
+  }
+
 
   /**
    * put double data.
@@ -337,6 +480,35 @@ public class BatchData implements Serializable {
     (this.doubleRet.get(valueArrayIdx))[curValueIdx++] = v;
     valueLength++;
   }
+  /**
+   * put the values in {@code values} from {@code offset} to {@code offset + length}, see
+   * {@link #putTimes(long[], int, int)}.
+   */
+  public void putDoubles(double[] values, int offset, int length) {
+    while (length > 0) {
+      if (curValueIdx == valueCapacity) {
+        if (valueCapacity >= capacityThreshold) {
+          if (this.doubleRet.size() <= valueArrayIdx + 1) {
+            this.doubleRet.add(new double[valueCapacity]);
+          }
+          valueArrayIdx++;
+          curValueIdx = 0;
+        } else {
+          double[] newData = new double[valueCapacity * 2];
+          System.arraycopy(doubleRet.get(0), 0, newData, 0, valueCapacity);
+          this.doubleRet.set(0, newData);
+          valueCapacity = valueCapacity * 2;
+        }
+      }
+      int num = Math.min(length, valueCapacity - curValueIdx);
+      System.arraycopy(values, offset, doubleRet.get(valueArrayIdx), curValueIdx, num);
+      curValueIdx += num;
+      valueLength += num;
+      offset += num;
+      length -= num;
+    }
+  }
+
 
   /**
    * put binary data.
@@ -0,0 +1,203 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.read.common;
+
+import java.util.List;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+/**
+ * <code>ColumnBlock</code> holds a block of rows of a {@code QueryDataSet} column by column, where
+ * the values of each column are kept in a primitive array of its data type. It is refilled by
+ * {@code QueryDataSet.nextBlock} so that the callers reading many rows, e.g., the columnar readers
+ * of the compute engines, need not build a RowRecord and Fields for each row.
+ */
+public class ColumnBlock {
+
+  private TSDataType[] dataTypes;
+  private long[] timestamps;
+  /**
+   * boolean[], int[], long[], float[], double[] or Binary[] according to the data type of the
+   * column
+   */
+  private Object[] values;
+  private boolean[][] isNull;
+  private int size;
+
+  public ColumnBlock(List<TSDataType> dataTypes, int capacity) {
+    this.dataTypes = dataTypes.toArray(new TSDataType[0]);
+    this.timestamps = new long[capacity];
+    this.values = new Object[this.dataTypes.length];
+    this.isNull = new boolean[this.dataTypes.length][capacity];
+    for (int i = 0; i < this.dataTypes.length; i++) {
+      values[i] = allocate(this.dataTypes[i], capacity);
+    }
+  }
+
+  private static Object allocate(TSDataType dataType, int capacity) {
+    switch (dataType) {
+      case BOOLEAN:
+        return new boolean[capacity];
+      case INT32:
+        return new int[capacity];
+      case INT64:
+        return new long[capacity];
+      case FLOAT:
+        return new float[capacity];
+      case DOUBLE:
+        return new double[capacity];
+      case TEXT:
+        return new Binary[capacity];
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    }
+  }
+
+  public int getCapacity() {
+    return timestamps.length;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public boolean isFull() {
+    return size == timestamps.length;
+  }
+
+  public int getColumnNum() {
+    return dataTypes.length;
+  }
+
+  public TSDataType getDataType(int column) {
+    return dataTypes[column];
+  }
+
+  public long[] getTimestamps() {
+    return timestamps;
+  }
+
+  public boolean[] getIsNull(int column) {
+    return isNull[column];
+  }
+
+  public boolean[] getBooleans(int column) {
+    return (boolean[]) values[column];
+  }
+
+  public int[] getInts(int column) {
+    return (int[]) values[column];
+  }
+
+  public long[] getLongs(int column) {
+    return (long[]) values[column];
+  }
+
+  public float[] getFloats(int column) {
+    return (float[]) values[column];
+  }
+
+  public double[] getDoubles(int column) {
+    return (double[]) values[column];
+  }
+
+  public Binary[] getBinaries(int column) {
+    return (Binary[]) values[column];
+  }
+
+  public void reset() {
+    size = 0;
+  }
+
+  /**
+   * append a row whose columns are all null until they are set.
+   *
+   * @return the index of the row
+   */
+  public int addRow(long time) {
+    timestamps[size] = time;
+    for (boolean[] columnIsNull : isNull) {
+      columnIsNull[size] = true;
+    }
+    return size++;
+  }
+
+  /**
+   * set a column of a row to the current value of the batch data.
+   */
+  public void setValue(int row, int column, BatchData data) {
+    switch (dataTypes[column]) {
+      case BOOLEAN:
+        ((boolean[]) values[column])[row] = data.getBoolean();
+        break;
+      case INT32:
+        ((int[]) values[column])[row] = data.getInt();
+        break;
+      case INT64:
+        ((long[]) values[column])[row] = data.getLong();
+        break;
+      case FLOAT:
+        ((float[]) values[column])[row] = data.getFloat();
+        break;
+      case DOUBLE:
+        ((double[]) values[column])[row] = data.getDouble();
+        break;
+      case TEXT:
+        ((Binary[]) values[column])[row] = data.getBinary();
+        break;
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataTypes[column]));
+    }
+    isNull[column][row] = false;
+  }
+
+  /**
+   * set a column of a row to the value of the field, which may be null.
+   */
+  public void setValue(int row, int column, Field field) {
+    if (field == null || field.getDataType() == null || field.isNull()) {
+      isNull[column][row] = true;
+      return;
+    }
+    switch (dataTypes[column]) {
+      case BOOLEAN:
+        ((boolean[]) values[column])[row] = field.getBoolV();
+        break;
+      case INT32:
+        ((int[]) values[column])[row] = field.getIntV();
+        break;
+      case INT64:
+        ((long[]) values[column])[row] = field.getLongV();
+        break;
+      case FLOAT:
+        ((float[]) values[column])[row] = field.getFloatV();
+        break;
+      case DOUBLE:
+        ((double[]) values[column])[row] = field.getDoubleV();
+        break;
+      case TEXT:
+        ((Binary[]) values[column])[row] = field.getBinaryV();
+        break;
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataTypes[column]));
+    }
+    isNull[column][row] = false;
+  }
+}
@@ -19,7 +19,9 @@
 package org.apache.iotdb.tsfile.read.filter;
 
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.basic.UnaryFilter;
 import org.apache.iotdb.tsfile.read.filter.factory.FilterType;
+import org.apache.iotdb.tsfile.read.filter.operator.AndFilter;
 import org.apache.iotdb.tsfile.read.filter.operator.Eq;
 import org.apache.iotdb.tsfile.read.filter.operator.Gt;
 import org.apache.iotdb.tsfile.read.filter.operator.GtEq;
@@ -27,6 +29,7 @@ import org.apache.iotdb.tsfile.read.filter.operator.Lt;
 import org.apache.iotdb.tsfile.read.filter.operator.LtEq;
 import org.apache.iotdb.tsfile.read.filter.operator.NotEq;
 import org.apache.iotdb.tsfile.read.filter.operator.NotFilter;
+import org.apache.iotdb.tsfile.read.filter.operator.OrFilter;
 
 public class TimeFilter {
 
@@ -58,6 +61,65 @@ public class TimeFilter {
     return new TimeNotEq(value);
   }
 
+  /**
+   * get the smallest timestamp that may satisfy the filter. Value filters and not filters do not
+   * bound the time, so the bound may be looser than needed but never tighter.
+   *
+   * @param filter a filter, or null which accepts any timestamp
+   */
+  public static long getLowerBound(Filter filter) {
+    if (filter instanceof AndFilter) {
+      AndFilter andFilter = (AndFilter) filter;
+      return Math.max(getLowerBound(andFilter.getLeft()), getLowerBound(andFilter.getRight()));
+    }
+    if (filter instanceof OrFilter) {
+      OrFilter orFilter = (OrFilter) filter;
+      return Math.min(getLowerBound(orFilter.getLeft()), getLowerBound(orFilter.getRight()));
+    }
+    if (!isTimeFilter(filter)) {
+      return Long.MIN_VALUE;
+    }
+    long time = (Long) ((UnaryFilter) filter).getValue();
+    if (filter instanceof Gt) {
+      return time == Long.MAX_VALUE ? time : time + 1;
+    } else if (filter instanceof GtEq || filter instanceof Eq) {
+      return time;
+    }
+    return Long.MIN_VALUE;
+  }
+
+  /**
+   * get the largest timestamp that may satisfy the filter. Value filters and not filters do not
+   * bound the time, so the bound may be looser than needed but never tighter.
+   *
+   * @param filter a filter, or null which accepts any timestamp
+   */
+  public static long getUpperBound(Filter filter) {
+    if (filter instanceof AndFilter) {
+      AndFilter andFilter = (AndFilter) filter;
+      return Math.min(getUpperBound(andFilter.getLeft()), getUpperBound(andFilter.getRight()));
+    }
+    if (filter instanceof OrFilter) {
+      OrFilter orFilter = (OrFilter) filter;
+      return Math.max(getUpperBound(orFilter.getLeft()), getUpperBound(orFilter.getRight()));
+    }
+    if (!isTimeFilter(filter)) {
+      return Long.MAX_VALUE;
+    }
+    long time = (Long) ((UnaryFilter) filter).getValue();
+    if (filter instanceof Lt) {
+      return time == Long.MIN_VALUE ? time : time - 1;
+    } else if (filter instanceof LtEq || filter instanceof Eq) {
+      return time;
+    }
+    return Long.MAX_VALUE;
+  }
+
+  private static boolean isTimeFilter(Filter filter) {
+    return filter instanceof UnaryFilter
+        && ((UnaryFilter) filter).getFilterType() == FilterType.TIME_FILTER;
+  }
+
   public static class TimeEq extends Eq {
 
     private TimeEq(long value) {
@@ -27,6 +27,7 @@ import java.util.Set;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.ColumnBlock;
 import org.apache.iotdb.tsfile.read.common.Field;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.common.RowRecord;
@@ -116,24 +117,7 @@ public class DataSetWithoutTimeGenerator extends QueryDataSet {
       if (data.hasNext() && data.currentTime() == minTime) {
         putValueToField(data, field);
         data.next();
-
-        if (!data.hasNext()) {
-          FileSeriesReader reader = readers.get(i);
-          if (reader.hasNextBatch()) {
-            data = reader.nextBatch();
-            if (data.hasNext()) {
-              batchDataList.set(i, data);
-              timeHeapPut(data.currentTime());
-            } else {
-              hasDataRemaining.set(i, false);
-            }
-          } else {
-            hasDataRemaining.set(i, false);
-          }
-        } else {
-          timeHeapPut(data.currentTime());
-        }
-
+        advance(i, data);
       } else {
         field.setNull();
       }
@@ -144,6 +128,54 @@ public class DataSetWithoutTimeGenerator extends QueryDataSet {
     return record;
   }
 
+  /**
+   * fill the block from the batch data directly, without a RowRecord and Fields for each row.
+   */
+  @Override
+  public int nextBlock(ColumnBlock block) throws IOException {
+    block.reset();
+    while (!block.isFull() && hasNext()) {
+      long minTime = timeHeapGet();
+      int row = block.addRow(minTime);
+
+      for (int i = 0; i < paths.size(); i++) {
+        if (!hasDataRemaining.get(i)) {
+          continue;
+        }
+        BatchData data = batchDataList.get(i);
+        if (data.hasNext() && data.currentTime() == minTime) {
+          block.setValue(row, i, data);
+          data.next();
+          advance(i, data);
+        }
+      }
+    }
+    return block.getSize();
+  }
+
+  /**
+   * put the next time of the i-th series into the heap, reading its next batch if the current one
+   * is used up.
+   */
+  private void advance(int i, BatchData data) throws IOException {
+    if (data.hasNext()) {
+      timeHeapPut(data.currentTime());
+      return;
+    }
+    FileSeriesReader reader = readers.get(i);
+    if (reader.hasNextBatch()) {
+      data = reader.nextBatch();
+      if (data.hasNext()) {
+        batchDataList.set(i, data);
+        timeHeapPut(data.currentTime());
+      } else {
+        hasDataRemaining.set(i, false);
+      }
+    } else {
+      hasDataRemaining.set(i, false);
+    }
+  }
+
   /**
    * keep heap from storing duplicate time.
    */
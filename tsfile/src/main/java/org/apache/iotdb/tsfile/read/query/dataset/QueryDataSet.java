@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.util.List;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.ColumnBlock;
 import org.apache.iotdb.tsfile.read.common.Field;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.common.RowRecord;
@@ -51,6 +52,26 @@ public abstract class QueryDataSet {
    */
   public abstract RowRecord next() throws IOException;
 
+  /**
+   * This method is used for columnar batch query. It refills the block with the next rows until
+   * the block is full or there is no more row, and the columns of the block are in the order of
+   * {@code getPaths()}.
+   *
+   * @return the number of rows in the block
+   */
+  public int nextBlock(ColumnBlock block) throws IOException {
+    block.reset();
+    while (!block.isFull() && hasNext()) {
+      RowRecord record = next();
+      int row = block.addRow(record.getTimestamp());
+      List<Field> fields = record.getFields();
+      for (int i = 0; i < fields.size(); i++) {
+        block.setValue(row, i, fields.get(i));
+      }
+    }
+    return block.getSize();
+  }
+
   public List<Path> getPaths() {
     return paths;
   }
@@ -0,0 +1,269 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.read.reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A TsFileInput that maps a sealed TsFile into memory, so that chunks and pages are read as
+ * slices of the mapped memory instead of being copied onto the heap. The file must not be changed
+ * while it is mapped, so only sealed files should be read by this input.
+ *
+ * A file is mapped in segments of at most 1GB because a MappedByteBuffer is indexed by int. Data
+ * that crosses two segments is copied. The segments are unmapped by close() instead of waiting
+ * for the garbage collector, so the slices returned by this input must not be used after it is
+ * closed, and a cache that outlives the input must copy them. If the JVM does not allow unmapping
+ * a buffer explicitly, the mapped memory is left to the garbage collector.
+ */
+public class MmapTsFileInput implements TsFileInput {
+
+  private static final Logger logger = LoggerFactory.getLogger(MmapTsFileInput.class);
+
+  private static final int SEGMENT_SHIFT = 30;
+  private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+  private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+  /**
+   * null if the JVM does not allow unmapping a buffer explicitly.
+   */
+  private static final Unmapper UNMAPPER = createUnmapper();
+
+  private FileChannel channel;
+  private MappedByteBuffer[] segments;
+  private final long size;
+  private long position = 0;
+
+  public MmapTsFileInput(Path file) throws IOException {
+    channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      size = channel.size();
+      segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+      for (int i = 0; i < segments.length; i++) {
+        long segmentStart = (long) i << SEGMENT_SHIFT;
+        segments[i] = channel.map(MapMode.READ_ONLY, segmentStart,
+            Math.min(SEGMENT_SIZE, size - segmentStart));
+      }
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public long size() {
+    return size;
+  }
+
+  @Override
+  public long position() {
+    return position;
+  }
+
+  @Override
+  public TsFileInput position(long newPosition) {
+    if (newPosition < 0) {
+      throw new IllegalArgumentException("Negative position: " + newPosition);
+    }
+    position = newPosition;
+    return this;
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    int read = read(dst, position);
+    if (read > 0) {
+      position += read;
+    }
+    return read;
+  }
+
+  @Override
+  public int read(ByteBuffer dst, long position) throws IOException {
+    if (position < 0) {
+      throw new IllegalArgumentException("Negative position: " + position);
+    }
+    if (position >= size) {
+      return -1;
+    }
+    int length = (int) Math.min(dst.remaining(), size - position);
+    int read = 0;
+    while (read < length) {
+      ByteBuffer segment = segmentAt(position + read);
+      int toRead = Math.min(length - read, segment.remaining());
+      segment.limit(segment.position() + toRead);
+      dst.put(segment);
+      read += toRead;
+    }
+    return read;
+  }
+
+  /**
+   * Returns a slice of the mapped memory unless the data crosses two segments, in which case it is
+   * copied. The returned buffer is read-only.
+   */
+  @Override
+  public ByteBuffer readData(long position, int length) throws IOException {
+    if (position < 0 || position + length > size) {
+      throw new IOException("reach the end of the data");
+    }
+    ByteBuffer segment = segmentAt(position);
+    if (segment.remaining() < length) {
+      ByteBuffer buffer = ByteBuffer.allocate(length);
+      read(buffer, position);
+      buffer.flip();
+      return buffer;
+    }
+    segment.limit(segment.position() + length);
+    return segment.slice();
+  }
+
+  /**
+   * @return a duplicate of the segment containing the given position, positioned at it
+   */
+  private ByteBuffer segmentAt(long position) throws IOException {
+    MappedByteBuffer[] mapped = segments;
+    if (mapped == null) {
+      throw new IOException("The input is closed");
+    }
+    ByteBuffer segment = mapped[(int) (position >>> SEGMENT_SHIFT)].duplicate();
+    segment.position((int) (position & SEGMENT_MASK));
+    return segment;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (position >= size) {
+      return -1;
+    }
+    int b = segmentAt(position).get() & 0xFF;
+    position++;
+    return b;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    return read(ByteBuffer.wrap(b, off, len));
+  }
+
+  /**
+   * the position of the returned channel is independent of the position of this input.
+   */
+  @Override
+  public FileChannel wrapAsFileChannel() {
+    return channel;
+  }
+
+  @Override
+  public InputStream wrapAsInputStream() {
+    return new InputStream() {
+      @Override
+      public int read() throws IOException {
+        return MmapTsFileInput.this.read();
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+          return 0;
+        }
+        return MmapTsFileInput.this.read(b, off, len);
+      }
+
+      @Override
+      public long skip(long n) {
+        long skipped = Math.max(0, Math.min(n, size - position));
+        position += skipped;
+        return skipped;
+      }
+
+      @Override
+      public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, size - position));
+      }
+    };
+  }
+
+  @Override
+  public void close() throws IOException {
+    MappedByteBuffer[] mapped = segments;
+    segments = null;
+    channel.close();
+    if (mapped != null && UNMAPPER != null) {
+      for (MappedByteBuffer segment : mapped) {
+        try {
+          UNMAPPER.unmap(segment);
+        } catch (Exception e) {
+          logger.warn("Cannot unmap a segment of the file, it is left to the GC", e);
+          return;
+        }
+      }
+    }
+  }
+
+  @Override
+  public int readInt() throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES);
+    if (read(buffer) != Integer.BYTES) {
+      throw new IOException("reach the end of the data");
+    }
+    buffer.flip();
+    return buffer.getInt();
+  }
+
+  /**
+   * Unmaps a buffer through sun.misc.Unsafe.invokeCleaner() on Java 9+, or through the cleaner of
+   * the buffer on Java 8.
+   */
+  private interface Unmapper {
+
+    void unmap(ByteBuffer buffer) throws Exception;
+  }
+
+  private static Unmapper createUnmapper() {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      Object unsafe = theUnsafe.get(null);
+      return buffer -> invokeCleaner.invoke(unsafe, buffer);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // not Java 9+, try the cleaner of Java 8
+    }
+    try {
+      Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+      Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+      return buffer -> clean.invoke(cleaner.invoke(buffer));
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      logger.info("Mapped TsFiles cannot be unmapped explicitly, they are left to the GC", e);
+      return null;
+    }
+  }
+}
@@ -26,6 +26,7 @@ import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 
 public interface TsFileInput {
 
@@ -103,6 +104,26 @@ public interface TsFileInput {
    */
   int read(ByteBuffer dst, long position) throws IOException;
 
+  /**
+   * Reads length bytes starting at the given position, without changing the position of this
+   * TsFileInput. Inputs backed by memory may return a view of the memory instead of a copy, so the
+   * returned buffer should only be read.
+   *
+   * @param position The file position at which the data starts; must be non-negative
+   * @param length The number of bytes to read
+   * @return A buffer whose remaining bytes are the data
+   * @throws IOException If there are less than length bytes from the position, or some other I/O
+   * error occurs
+   */
+  default ByteBuffer readData(long position, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    if (ReadWriteIOUtils.readAsPossible(this, buffer, position, length) != length) {
+      throw new IOException("reach the end of the data");
+    }
+    buffer.flip();
+    return buffer;
+  }
+
   /**
    * read a byte from the Input.
    */
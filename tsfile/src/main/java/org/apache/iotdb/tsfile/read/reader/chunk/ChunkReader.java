@@ -21,12 +21,12 @@ package org.apache.iotdb.tsfile.read.reader.chunk;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.Arrays;
 import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
 import org.apache.iotdb.tsfile.compress.IUnCompressor;
 import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
 import org.apache.iotdb.tsfile.file.header.ChunkHeader;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.read.common.BatchData;
@@ -91,6 +91,11 @@ public abstract class ChunkReader {
       // deserialize a PageHeader from chunkDataBuffer
       pageHeader = PageHeader.deserializeFrom(chunkDataBuffer, chunkHeader.getDataType());
 
+      // the pages are in time order, so none of the rest satisfies either
+      if (pageAfterRange(pageHeader)) {
+        chunkDataBuffer.position(chunkDataBuffer.limit());
+        return false;
+      }
       // if the current page satisfies
       if (pageSatisfied(pageHeader)) {
         hasCachedPageHeader = true;
@@ -122,8 +127,12 @@ public abstract class ChunkReader {
     return data;
   }
 
+  /**
+   * Returns the header of the next page, or null if some points in the page have been deleted, in
+   * which case the statistics in the header can not be used and the page has to be read.
+   */
   public PageHeader nextPageHeader() throws IOException {
-    return pageHeader;
+    return pageHeader.getMinTimestamp() > deletedAt ? pageHeader : null;
   }
 
   public void skipPageData() {
@@ -137,22 +146,43 @@ public abstract class ChunkReader {
 
   public abstract boolean pageSatisfied(PageHeader pageHeader);
 
+  /**
+   * whether all the points of the page are after the time range of the query.
+   */
+  protected boolean pageAfterRange(PageHeader pageHeader) {
+    return false;
+  }
+
   private PageReader constructPageReaderForNextPage(int compressedPageBodyLength)
       throws IOException {
-    byte[] compressedPageBody = new byte[compressedPageBodyLength];
-
     // already in memory
     if (compressedPageBodyLength > chunkDataBuffer.remaining()) {
       throw new IOException(
           "unexpected byte read length when read compressedPageBody. Expected:"
-              + Arrays.toString(compressedPageBody) + ". Actual:" + chunkDataBuffer
-              .remaining());
+              + compressedPageBodyLength + ". Actual:" + chunkDataBuffer.remaining());
     }
 
-    chunkDataBuffer.get(compressedPageBody, 0, compressedPageBodyLength);
+    ByteBuffer pageData;
+    if (unCompressor.getCodecName() == CompressionType.UNCOMPRESSED) {
+      // the page is read from the chunk in place, which may be a slice of a mapped file
+      pageData = chunkDataBuffer.slice();
+      pageData.limit(compressedPageBodyLength);
+      skipBytesInStreamByLength(compressedPageBodyLength);
+    } else if (chunkDataBuffer.hasArray()) {
+      byte[] uncompressedPageBody = new byte[pageHeader.getUncompressedSize()];
+      unCompressor.uncompress(chunkDataBuffer.array(),
+          chunkDataBuffer.arrayOffset() + chunkDataBuffer.position(), compressedPageBodyLength,
+          uncompressedPageBody, 0);
+      skipBytesInStreamByLength(compressedPageBodyLength);
+      pageData = ByteBuffer.wrap(uncompressedPageBody);
+    } else {
+      byte[] compressedPageBody = new byte[compressedPageBodyLength];
+      chunkDataBuffer.get(compressedPageBody, 0, compressedPageBodyLength);
+      pageData = ByteBuffer.wrap(unCompressor.uncompress(compressedPageBody));
+    }
     valueDecoder.reset();
-    PageReader reader = new PageReader(ByteBuffer.wrap(unCompressor.uncompress(compressedPageBody)),
-        chunkHeader.getDataType(),
+    timeDecoder.reset();
+    PageReader reader = new PageReader(pageData, chunkHeader.getDataType(),
         valueDecoder, timeDecoder, filter);
     reader.setDeletedAt(deletedAt);
     return reader;
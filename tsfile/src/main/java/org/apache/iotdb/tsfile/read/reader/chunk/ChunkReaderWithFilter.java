@@ -21,15 +21,24 @@ package org.apache.iotdb.tsfile.read.reader.chunk;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.read.common.Chunk;
 import org.apache.iotdb.tsfile.read.filter.DigestForFilter;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 
 public class ChunkReaderWithFilter extends ChunkReader {
 
   private Filter filter;
 
+  private long upperBound;
+
   public ChunkReaderWithFilter(Chunk chunk, Filter filter) {
     super(chunk, filter);
     this.filter = filter;
+    this.upperBound = TimeFilter.getUpperBound(filter);
+  }
+
+  @Override
+  protected boolean pageAfterRange(PageHeader pageHeader) {
+    return pageHeader.getMinTimestamp() > upperBound;
   }
 
   @Override
@@ -24,6 +24,7 @@ import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
@@ -50,6 +51,27 @@ public class PageReader {
 
   private long deletedAt = -1;
 
+  /**
+   * the number of points decoded at a time.
+   */
+  private static final int DECODE_BATCH_SIZE = 1024;
+
+  /**
+   * the decoded timestamps of a batch, reused by the batches of the page.
+   */
+  private long[] times;
+
+  /**
+   * the time range of the points to read, derived from the filter and the deletion.
+   */
+  private long lowerBound;
+  private long upperBound;
+
+  /**
+   * whether the upper bound has been passed, so that the rest of the page is not decoded.
+   */
+  private boolean endOfRange = false;
+
   public PageReader(ByteBuffer pageData, TSDataType dataType, Decoder valueDecoder,
       Decoder timeDecoder,
       Filter filter) {
@@ -82,19 +104,42 @@ public class PageReader {
   }
 
   public boolean hasNextBatch() throws IOException {
-    return timeDecoder.hasNext(timeBuffer);
+    return !endOfRange && timeDecoder.hasNext(timeBuffer);
   }
 
   /**
    * may return an empty BatchData
    */
   public BatchData nextBatch() throws IOException {
-    if (filter == null) {
-      data = getAllPageData();
-    } else {
-      data = getAllPageDataWithFilter();
+    data = new BatchData(dataType, true);
+    if (times == null) {
+      times = new long[DECODE_BATCH_SIZE];
+    }
+    lowerBound = Math.max(TimeFilter.getLowerBound(filter),
+        deletedAt == Long.MAX_VALUE ? deletedAt : deletedAt + 1);
+    upperBound = TimeFilter.getUpperBound(filter);
+    switch (dataType) {
+      case BOOLEAN:
+        decodeBooleans(data);
+        break;
+      case INT32:
+        decodeInts(data);
+        break;
+      case INT64:
+        decodeLongs(data);
+        break;
+      case FLOAT:
+        decodeFloats(data);
+        break;
+      case DOUBLE:
+        decodeDoubles(data);
+        break;
+      case TEXT:
+        decodeBinaries(data);
+        break;
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
     }
-
     return data;
   }
 
@@ -102,141 +147,197 @@ public class PageReader {
     return data;
   }
 
-  private BatchData getAllPageData() throws IOException {
-
-    BatchData pageData = new BatchData(dataType, true);
-
-    while (timeDecoder.hasNext(timeBuffer)) {
-      long timestamp = timeDecoder.readLong(timeBuffer);
-
-      switch (dataType) {
-        case BOOLEAN:
-          boolean aBoolean = valueDecoder.readBoolean(valueBuffer);
-          if (timestamp > deletedAt) {
-            pageData.putTime(timestamp);
-            pageData.putBoolean(aBoolean);
-          }
-          break;
-        case INT32:
-          int anInt = valueDecoder.readInt(valueBuffer);
-          if (timestamp > deletedAt) {
-            pageData.putTime(timestamp);
-            pageData.putInt(anInt);
-          }
-          break;
-        case INT64:
-          long aLong = valueDecoder.readLong(valueBuffer);
-          if (timestamp > deletedAt) {
-            pageData.putTime(timestamp);
-            pageData.putLong(aLong);
-          }
-          break;
-        case FLOAT:
-          float aFloat = valueDecoder.readFloat(valueBuffer);
-          if (timestamp > deletedAt) {
-            pageData.putTime(timestamp);
-            pageData.putFloat(aFloat);
-          }
-          break;
-        case DOUBLE:
-          double aDouble = valueDecoder.readDouble(valueBuffer);
-          if (timestamp > deletedAt) {
-            pageData.putTime(timestamp);
-            pageData.putDouble(aDouble);
-          }
-          break;
-        case TEXT:
-          Binary aBinary = valueDecoder.readBinary(valueBuffer);
-          if (timestamp > deletedAt) {
-            pageData.putTime(timestamp);
-            pageData.putBinary(aBinary);
-          }
-          break;
-        default:
-          throw new UnSupportedDataTypeException(String.valueOf(dataType));
+  /*
+   * The timestamps are decoded DECODE_BATCH_SIZE points at a time into an array, and only the
+   * values of the timestamps in [lowerBound, upperBound] are decoded, see nextTimeBatch(). Then the
+   * points not satisfying the filter are removed by compacting the arrays in place, and the rest
+   * are copied into the BatchData in bulk. Without filter, the arrays are copied as they are.
+   */
+
+  private void decodeBooleans(BatchData pageData) throws IOException {
+    boolean[] values = new boolean[DECODE_BATCH_SIZE];
+    int count;
+    while ((count = nextTimeBatch()) >= 0) {
+      checkValueCount(valueDecoder.readBooleans(valueBuffer, values, 0, count), count);
+      if (filter == null) {
+        pageData.putTimes(times, 0, count);
+        pageData.putBooleans(values, 0, count);
+        continue;
       }
+      int size = 0;
+      for (int i = 0; i < count; i++) {
+        if (filter.satisfy(times[i], values[i])) {
+          times[size] = times[i];
+          values[size++] = values[i];
+        }
+      }
+      pageData.putTimes(times, 0, size);
+      pageData.putBooleans(values, 0, size);
     }
-    return pageData;
-  }
-
-  private BatchData getAllPageDataWithFilter() throws IOException {
-    BatchData pageData = new BatchData(dataType, true);
-
-    while (timeDecoder.hasNext(timeBuffer)) {
-      long timestamp = timeDecoder.readLong(timeBuffer);
-
-      switch (dataType) {
-        case BOOLEAN:
-          readBoolean(pageData, timestamp);
-          break;
-        case INT32:
-          readInt(pageData, timestamp);
-          break;
-        case INT64:
-          readLong(pageData, timestamp);
-          break;
-        case FLOAT:
-          readFloat(pageData, timestamp);
-          break;
-        case DOUBLE:
-          readDouble(pageData, timestamp);
-          break;
-        case TEXT:
-          readText(pageData, timestamp);
-          break;
-        default:
-          throw new UnSupportedDataTypeException(String.valueOf(dataType));
+  }
+
+  private void decodeInts(BatchData pageData) throws IOException {
+    int[] values = new int[DECODE_BATCH_SIZE];
+    int count;
+    while ((count = nextTimeBatch()) >= 0) {
+      checkValueCount(valueDecoder.readInts(valueBuffer, values, 0, count), count);
+      if (filter == null) {
+        pageData.putTimes(times, 0, count);
+        pageData.putInts(values, 0, count);
+        continue;
       }
+      int size = 0;
+      for (int i = 0; i < count; i++) {
+        if (filter.satisfy(times[i], values[i])) {
+          times[size] = times[i];
+          values[size++] = values[i];
+        }
+      }
+      pageData.putTimes(times, 0, size);
+      pageData.putInts(values, 0, size);
     }
+  }
 
-    return pageData;
+  private void decodeLongs(BatchData pageData) throws IOException {
+    long[] values = new long[DECODE_BATCH_SIZE];
+    int count;
+    while ((count = nextTimeBatch()) >= 0) {
+      checkValueCount(valueDecoder.readLongs(valueBuffer, values, 0, count), count);
+      if (filter == null) {
+        pageData.putTimes(times, 0, count);
+        pageData.putLongs(values, 0, count);
+        continue;
+      }
+      int size = 0;
+      for (int i = 0; i < count; i++) {
+        if (filter.satisfy(times[i], values[i])) {
+          times[size] = times[i];
+          values[size++] = values[i];
+        }
+      }
+      pageData.putTimes(times, 0, size);
+      pageData.putLongs(values, 0, size);
+    }
+  }
+
+  private void decodeFloats(BatchData pageData) throws IOException {
+    float[] values = new float[DECODE_BATCH_SIZE];
+    int count;
+    while ((count = nextTimeBatch()) >= 0) {
+      checkValueCount(valueDecoder.readFloats(valueBuffer, values, 0, count), count);
+      if (filter == null) {
+        pageData.putTimes(times, 0, count);
+        pageData.putFloats(values, 0, count);
+        continue;
+      }
+      int size = 0;
+      for (int i = 0; i < count; i++) {
+        if (filter.satisfy(times[i], values[i])) {
+          times[size] = times[i];
+          values[size++] = values[i];
+        }
+      }
+      pageData.putTimes(times, 0, size);
+      pageData.putFloats(values, 0, size);
+    }
   }
 
-  private void readBoolean(BatchData pageData, long timestamp) {
-    boolean aBoolean = valueDecoder.readBoolean(valueBuffer);
-    if (timestamp > deletedAt && filter.satisfy(timestamp, aBoolean)) {
-      pageData.putTime(timestamp);
-      pageData.putBoolean(aBoolean);
+  private void decodeDoubles(BatchData pageData) throws IOException {
+    double[] values = new double[DECODE_BATCH_SIZE];
+    int count;
+    while ((count = nextTimeBatch()) >= 0) {
+      checkValueCount(valueDecoder.readDoubles(valueBuffer, values, 0, count), count);
+      if (filter == null) {
+        pageData.putTimes(times, 0, count);
+        pageData.putDoubles(values, 0, count);
+        continue;
+      }
+      int size = 0;
+      for (int i = 0; i < count; i++) {
+        if (filter.satisfy(times[i], values[i])) {
+          times[size] = times[i];
+          values[size++] = values[i];
+        }
+      }
+      pageData.putTimes(times, 0, size);
+      pageData.putDoubles(values, 0, size);
     }
   }
 
-  private void readInt(BatchData pageData, long timestamp) {
-    int anInt = valueDecoder.readInt(valueBuffer);
-    if (timestamp > deletedAt && filter.satisfy(timestamp, anInt)) {
-      pageData.putTime(timestamp);
-      pageData.putInt(anInt);
+  private void decodeBinaries(BatchData pageData) throws IOException {
+    int count;
+    while ((count = nextTimeBatch()) >= 0) {
+      for (int i = 0; i < count; i++) {
+        Binary aBinary = valueDecoder.readBinary(valueBuffer);
+        if (filter == null || filter.satisfy(times[i], aBinary)) {
+          pageData.putTime(times[i]);
+          pageData.putBinary(aBinary);
+        }
+      }
     }
   }
 
-  private void readLong(BatchData pageData, long timestamp) {
-    long aLong = valueDecoder.readLong(valueBuffer);
-    if (timestamp > deletedAt && filter.satisfy(timestamp, aLong)) {
-      pageData.putTime(timestamp);
-      pageData.putLong(aLong);
+  /**
+   * decode the next batch of timestamps into {@code times}, keeping only the ones in [lowerBound,
+   * upperBound] from the start of the array. The values of the timestamps before the lower bound
+   * are skipped without being read, and once a timestamp passes the upper bound the rest of the
+   * page is left undecoded as the timestamps of a page are in ascending order. Before the batch,
+   * the time decoder skips the packs before the lower bound using the first timestamp of each pack
+   * as a checkpoint if its encoding allows.
+   *
+   * @return the number of timestamps in the batch to read the values of, or -1 if the page is
+   * over
+   */
+  private int nextTimeBatch() throws IOException {
+    if (endOfRange) {
+      return -1;
+    }
+    skipValues(timeDecoder.skipLessThan(timeBuffer, lowerBound));
+    int count = timeDecoder.readLongs(timeBuffer, times, 0, DECODE_BATCH_SIZE);
+    if (count == 0) {
+      return -1;
     }
+    int from = times[0] >= lowerBound ? 0 : searchTimes(count, lowerBound);
+    int to = times[count - 1] <= upperBound ? count : searchTimes(count, upperBound + 1);
+    to = Math.max(from, to);
+    if (to < count) {
+      endOfRange = true;
+    }
+    skipValues(from);
+    if (from > 0) {
+      System.arraycopy(times, from, times, 0, to - from);
+    }
+    return to - from;
   }
 
-  private void readFloat(BatchData pageData, long timestamp) {
-    float aFloat = valueDecoder.readFloat(valueBuffer);
-    if (timestamp > deletedAt && filter.satisfy(timestamp, aFloat)) {
-      pageData.putTime(timestamp);
-      pageData.putFloat(aFloat);
+  /**
+   * @return the index of the first timestamp in times[0, count) that is not less than time, or
+   * count if there is none
+   */
+  private int searchTimes(int count, long time) {
+    int low = 0;
+    int high = count;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (times[mid] < time) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
     }
+    return low;
   }
 
-  private void readDouble(BatchData pageData, long timestamp) {
-    double aDouble = valueDecoder.readDouble(valueBuffer);
-    if (timestamp > deletedAt && filter.satisfy(timestamp, aDouble)) {
-      pageData.putTime(timestamp);
-      pageData.putDouble(aDouble);
+  private void skipValues(int count) throws IOException {
+    if (count > 0) {
+      checkValueCount(valueDecoder.skip(valueBuffer, dataType, count), count);
     }
   }
 
-  private void readText(BatchData pageData, long timestamp) {
-    Binary aBinary = valueDecoder.readBinary(valueBuffer);
-    if (timestamp > deletedAt && filter.satisfy(timestamp, aBinary)) {
-      pageData.putTime(timestamp);
-      pageData.putBinary(aBinary);
+  private void checkValueCount(int valueCount, int timeCount) throws IOException {
+    if (valueCount != timeCount) {
+      throw new IOException(String.format(
+          "The page has %d timestamps but %d values in a batch", timeCount, valueCount));
     }
   }
 
@@ -36,6 +36,8 @@ public abstract class FileSeriesReader {
   protected List<ChunkMetaData> chunkMetaDataList;
   protected ChunkReader chunkReader;
   private int chunkToRead;
+  // a chunk that satisfies the condition and has not been loaded
+  private ChunkMetaData nextChunkMetaData;
 
   private BatchData data;
 
@@ -61,21 +63,55 @@ public abstract class FileSeriesReader {
     }
 
     // current chunk does not have additional batch, init new chunk reader
-    while (chunkToRead < chunkMetaDataList.size()) {
+    while (hasNextChunk()) {
+      initChunkReader(nextChunkMetaData);
+      nextChunkMetaData = null;
+
+      if (chunkReader.hasNextBatch()) {
+        return true;
+      }
+    }
+    return false;
+  }
 
+  /**
+   * check if the current chunk has been read out and there is another chunk satisfying the
+   * condition. The chunk is not loaded, so its meta data can be used to decide whether to read it.
+   *
+   * @return True if all batches of the current chunk have been read and a new chunk is next
+   */
+  public boolean hasNextChunk() throws IOException {
+    if (nextChunkMetaData != null) {
+      return true;
+    }
+    if (chunkReader != null && chunkReader.hasNextBatch()) {
+      return false;
+    }
+    while (chunkToRead < chunkMetaDataList.size()) {
       ChunkMetaData chunkMetaData = nextChunkMeta();
       if (chunkSatisfied(chunkMetaData)) {
         // chunk metadata satisfy the condition
-        initChunkReader(chunkMetaData);
-
-        if (chunkReader.hasNextBatch()) {
-          return true;
-        }
+        nextChunkMetaData = chunkMetaData;
+        return true;
       }
     }
     return false;
   }
 
+  /**
+   * get the meta data of the next chunk, only valid after hasNextChunk() returns true.
+   */
+  public ChunkMetaData nextChunkMetaData() {
+    return nextChunkMetaData;
+  }
+
+  /**
+   * skip the next chunk without reading it from the file.
+   */
+  public void skipChunkData() {
+    nextChunkMetaData = null;
+  }
+
   /**
    * get next batch data.
    */
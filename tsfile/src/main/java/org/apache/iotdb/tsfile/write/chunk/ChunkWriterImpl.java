@@ -199,6 +199,91 @@ public class ChunkWriterImpl implements IChunkWriter {
     checkPageSizeAndMayOpenANewPage();
   }
 
+  @Override
+  public void write(long[] timestamps, long[] values, int start, int end) {
+    while (start < end) {
+      int batchEnd = start + nextBatchSize(end - start);
+      dataPageWriter.write(timestamps, values, start, batchEnd);
+      pageStatistics.updateStats(values, start, batchEnd);
+      afterBatchWritten(timestamps, start, batchEnd);
+      start = batchEnd;
+    }
+  }
+
+  @Override
+  public void write(long[] timestamps, int[] values, int start, int end) {
+    while (start < end) {
+      int batchEnd = start + nextBatchSize(end - start);
+      dataPageWriter.write(timestamps, values, start, batchEnd);
+      pageStatistics.updateStats(values, start, batchEnd);
+      afterBatchWritten(timestamps, start, batchEnd);
+      start = batchEnd;
+    }
+  }
+
+  @Override
+  public void write(long[] timestamps, boolean[] values, int start, int end) {
+    while (start < end) {
+      int batchEnd = start + nextBatchSize(end - start);
+      dataPageWriter.write(timestamps, values, start, batchEnd);
+      pageStatistics.updateStats(values, start, batchEnd);
+      afterBatchWritten(timestamps, start, batchEnd);
+      start = batchEnd;
+    }
+  }
+
+  @Override
+  public void write(long[] timestamps, float[] values, int start, int end) {
+    while (start < end) {
+      int batchEnd = start + nextBatchSize(end - start);
+      dataPageWriter.write(timestamps, values, start, batchEnd);
+      pageStatistics.updateStats(values, start, batchEnd);
+      afterBatchWritten(timestamps, start, batchEnd);
+      start = batchEnd;
+    }
+  }
+
+  @Override
+  public void write(long[] timestamps, double[] values, int start, int end) {
+    while (start < end) {
+      int batchEnd = start + nextBatchSize(end - start);
+      dataPageWriter.write(timestamps, values, start, batchEnd);
+      pageStatistics.updateStats(values, start, batchEnd);
+      afterBatchWritten(timestamps, start, batchEnd);
+      start = batchEnd;
+    }
+  }
+
+  @Override
+  public void write(long[] timestamps, Binary[] values, int start, int end) {
+    while (start < end) {
+      int batchEnd = start + nextBatchSize(end - start);
+      dataPageWriter.write(timestamps, values, start, batchEnd);
+      pageStatistics.updateStats(values, start, batchEnd);
+      afterBatchWritten(timestamps, start, batchEnd);
+      start = batchEnd;
+    }
+  }
+
+  /**
+   * @return how many of the remaining points can be written in a batch, which ends at the first
+   * point after which writing them one by one would check the page size.
+   */
+  private int nextBatchSize(int remaining) {
+    int untilCheck = Math.min(pageCountUpperBound, valueCountInOnePageForNextCheck)
+        - valueCountInOnePage;
+    return Math.max(1, Math.min(remaining, untilCheck));
+  }
+
+  private void afterBatchWritten(long[] timestamps, int start, int end) {
+    this.time = timestamps[end - 1];
+    valueCountInOnePage += end - start;
+    if (minTimestamp == -1) {
+      minTimestamp = timestamps[start];
+    }
+    checkPageSizeAndMayOpenANewPage();
+  }
+
   /**
    * check occupied memory size, if it exceeds the PageSize threshold, flush them to given
    * OutputStream.
@@ -65,6 +65,36 @@ public interface IChunkWriter {
    */
   void write(long time, Binary value);
 
+  /**
+   * write time value pairs [start, end), the timestamps are in ascending order.
+   */
+  void write(long[] timestamps, int[] values, int start, int end);
+
+  /**
+   * write time value pairs [start, end), the timestamps are in ascending order.
+   */
+  void write(long[] timestamps, long[] values, int start, int end);
+
+  /**
+   * write time value pairs [start, end), the timestamps are in ascending order.
+   */
+  void write(long[] timestamps, boolean[] values, int start, int end);
+
+  /**
+   * write time value pairs [start, end), the timestamps are in ascending order.
+   */
+  void write(long[] timestamps, float[] values, int start, int end);
+
+  /**
+   * write time value pairs [start, end), the timestamps are in ascending order.
+   */
+  void write(long[] timestamps, double[] values, int start, int end);
+
+  /**
+   * write time value pairs [start, end), the timestamps are in ascending order.
+   */
+  void write(long[] timestamps, Binary[] values, int start, int end);
+
   /**
    * flush data to TsFileIOWriter.
    */
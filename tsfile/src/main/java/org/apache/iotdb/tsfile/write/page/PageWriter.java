@@ -121,6 +121,54 @@ public class PageWriter {
     valueEncoder.encode(value, valueOut);
   }
 
+  /**
+   * write time value pairs [start, end) into encoder
+   */
+  public void write(long[] timestamps, boolean[] values, int start, int end) {
+    timeEncoder.encode(timestamps, start, end, timeOut);
+    valueEncoder.encode(values, start, end, valueOut);
+  }
+
+  /**
+   * write time value pairs [start, end) into encoder
+   */
+  public void write(long[] timestamps, int[] values, int start, int end) {
+    timeEncoder.encode(timestamps, start, end, timeOut);
+    valueEncoder.encode(values, start, end, valueOut);
+  }
+
+  /**
+   * write time value pairs [start, end) into encoder
+   */
+  public void write(long[] timestamps, long[] values, int start, int end) {
+    timeEncoder.encode(timestamps, start, end, timeOut);
+    valueEncoder.encode(values, start, end, valueOut);
+  }
+
+  /**
+   * write time value pairs [start, end) into encoder
+   */
+  public void write(long[] timestamps, float[] values, int start, int end) {
+    timeEncoder.encode(timestamps, start, end, timeOut);
+    valueEncoder.encode(values, start, end, valueOut);
+  }
+
+  /**
+   * write time value pairs [start, end) into encoder
+   */
+  public void write(long[] timestamps, double[] values, int start, int end) {
+    timeEncoder.encode(timestamps, start, end, timeOut);
+    valueEncoder.encode(values, start, end, valueOut);
+  }
+
+  /**
+   * write time value pairs [start, end) into encoder
+   */
+  public void write(long[] timestamps, Binary[] values, int start, int end) {
+    timeEncoder.encode(timestamps, start, end, timeOut);
+    valueEncoder.encode(values, start, end, valueOut);
+  }
+
   /**
    * flush all data remained in encoders.
    */
@@ -0,0 +1,104 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.write.record;
+
+import java.util.List;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+/**
+ * RowBatch is a batch of rows of one device kept in columns: a long[] of timestamps and one
+ * primitive array per measurement (int[], long[], float[], double[], boolean[] or Binary[]
+ * according to its data type). Rows are appended by setting the values at index batchSize and
+ * then increasing batchSize.
+ */
+public class RowBatch {
+
+  private static final int DEFAULT_MAX_BATCH_SIZE = 1024;
+
+  public String deviceId;
+  public List<String> measurements;
+  public List<TSDataType> dataTypes;
+
+  public long[] timestamps;
+  public Object[] values;
+  /**
+   * the number of rows that are set.
+   */
+  public int batchSize;
+
+  private int maxBatchSize;
+
+  public RowBatch(String deviceId, List<String> measurements, List<TSDataType> dataTypes) {
+    this(deviceId, measurements, dataTypes, DEFAULT_MAX_BATCH_SIZE);
+  }
+
+  public RowBatch(String deviceId, List<String> measurements, List<TSDataType> dataTypes,
+      int maxBatchSize) {
+    if (measurements.size() != dataTypes.size()) {
+      throw new IllegalArgumentException(String.format(
+          "%d measurements are given with %d data types", measurements.size(), dataTypes.size()));
+    }
+    this.deviceId = deviceId;
+    this.measurements = measurements;
+    this.dataTypes = dataTypes;
+    this.maxBatchSize = maxBatchSize;
+    this.timestamps = new long[maxBatchSize];
+    this.values = new Object[dataTypes.size()];
+    for (int i = 0; i < dataTypes.size(); i++) {
+      values[i] = createColumn(dataTypes.get(i), maxBatchSize);
+    }
+  }
+
+  private static Object createColumn(TSDataType dataType, int size) {
+    switch (dataType) {
+      case BOOLEAN:
+        return new boolean[size];
+      case INT32:
+        return new int[size];
+      case INT64:
+        return new long[size];
+      case FLOAT:
+        return new float[size];
+      case DOUBLE:
+        return new double[size];
+      case TEXT:
+        return new Binary[size];
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Data type %s is not supported.", dataType));
+    }
+  }
+
+  public int getMaxBatchSize() {
+    return maxBatchSize;
+  }
+
+  public boolean isFull() {
+    return batchSize >= maxBatchSize;
+  }
+
+  /**
+   * drop all rows so that the arrays can be reused.
+   */
+  public void reset() {
+    batchSize = 0;
+  }
+}
@@ -43,6 +43,7 @@ import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.common.Chunk;
 import org.apache.iotdb.tsfile.utils.BytesUtils;
 import org.apache.iotdb.tsfile.utils.PublicBAOS;
 import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
@@ -217,6 +218,29 @@ public class TsFileIOWriter {
     currentChunkMetaData = null;
   }
 
+  /**
+   * write a chunk read from another TsFile as a whole into the current chunk group, without
+   * decoding and re-encoding its pages.
+   *
+   * @param chunk the chunk (header and page data) to be copied
+   * @param chunkMetadata the metadata of the copied chunk in its original file
+   * @throws IOException if I/O error occurs
+   */
+  public void writeChunk(Chunk chunk, ChunkMetaData chunkMetadata) throws IOException {
+    ChunkMetaData metaData = new ChunkMetaData(chunkMetadata.getMeasurementUid(),
+        chunkMetadata.getTsDataType(), out.getPosition(), chunkMetadata.getStartTime(),
+        chunkMetadata.getEndTime());
+    metaData.setDigest(chunkMetadata.getDigest());
+    metaData.setNumOfPoints(chunkMetadata.getNumOfPoints());
+    chunk.getHeader().serializeTo(out.wrapAsStream());
+    ByteBuffer data = chunk.getData().duplicate();
+    byte[] bytes = new byte[data.remaining()];
+    data.get(bytes);
+    out.write(bytes);
+    currentChunkGroupMetaData.addTimeSeriesChunkMetaData(metaData);
+    LOG.debug("write series chunk:{} as a whole, file position {}", metaData, out.getPosition());
+  }
+
   /**
    * write {@linkplain TsFileMetaData TSFileMetaData} to output stream and close it.
    *
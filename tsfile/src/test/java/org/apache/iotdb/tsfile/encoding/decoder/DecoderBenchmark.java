@@ -0,0 +1,181 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.encoding.decoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
+import org.apache.iotdb.tsfile.encoding.encoder.TSEncodingBuilder;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+
+/**
+ * Compare decoding the values of each encoding one by one with decoding them in bulk.
+ *
+ * <p>Usage: DecoderBenchmark [valueNum] [round]
+ */
+public class DecoderBenchmark {
+
+  private static final int BATCH_SIZE = 1024;
+
+  private static final Object[][] CASES = {
+      {TSEncoding.PLAIN, TSDataType.INT64},
+      {TSEncoding.PLAIN, TSDataType.DOUBLE},
+      {TSEncoding.RLE, TSDataType.INT32},
+      {TSEncoding.RLE, TSDataType.INT64},
+      {TSEncoding.TS_2DIFF, TSDataType.INT32},
+      {TSEncoding.TS_2DIFF, TSDataType.INT64},
+      {TSEncoding.TS_2DIFF, TSDataType.DOUBLE},
+      {TSEncoding.GORILLA, TSDataType.FLOAT},
+      {TSEncoding.GORILLA, TSDataType.DOUBLE},
+  };
+
+  private DecoderBenchmark() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    int valueNum = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+    int round = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+    for (Object[] benchCase : CASES) {
+      TSEncoding encoding = (TSEncoding) benchCase[0];
+      TSDataType dataType = (TSDataType) benchCase[1];
+      ByteBuffer encoded = encode(encoding, dataType, valueNum);
+      // warm up
+      for (int i = 0; i < 3; i++) {
+        decodeOneByOne(encoding, dataType, encoded.duplicate());
+        decodeInBulk(encoding, dataType, encoded.duplicate());
+      }
+
+      long scalarTime = 0;
+      long bulkTime = 0;
+      for (int i = 0; i < round; i++) {
+        long start = System.nanoTime();
+        decodeOneByOne(encoding, dataType, encoded.duplicate());
+        scalarTime += System.nanoTime() - start;
+        start = System.nanoTime();
+        decodeInBulk(encoding, dataType, encoded.duplicate());
+        bulkTime += System.nanoTime() - start;
+      }
+      System.out.println(String.format(
+          "%-9s %-7s one by one: %8.2f ns/value, bulk: %8.2f ns/value, speedup: %.2f",
+          encoding, dataType, (double) scalarTime / round / valueNum,
+          (double) bulkTime / round / valueNum, (double) scalarTime / bulkTime));
+    }
+  }
+
+  private static ByteBuffer encode(TSEncoding encoding, TSDataType dataType, int valueNum)
+      throws IOException {
+    Random random = new Random(0);
+    Encoder encoder = TSEncodingBuilder.getConverter(encoding).getEncoder(dataType);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    long value = 0;
+    for (int i = 0; i < valueNum; i++) {
+      // a slowly changing series as most sensors produce
+      value += random.nextInt(10);
+      switch (dataType) {
+        case INT32:
+          encoder.encode((int) value, out);
+          break;
+        case INT64:
+          encoder.encode(value, out);
+          break;
+        case FLOAT:
+          encoder.encode(value / 10.0f, out);
+          break;
+        case DOUBLE:
+          encoder.encode(value / 10.0, out);
+          break;
+        default:
+          throw new IllegalArgumentException(dataType.toString());
+      }
+    }
+    encoder.flush(out);
+    return ByteBuffer.wrap(out.toByteArray());
+  }
+
+  private static double decodeOneByOne(TSEncoding encoding, TSDataType dataType,
+      ByteBuffer buffer) throws IOException {
+    Decoder decoder = Decoder.getDecoderByType(encoding, dataType);
+    double sum = 0;
+    while (decoder.hasNext(buffer)) {
+      switch (dataType) {
+        case INT32:
+          sum += decoder.readInt(buffer);
+          break;
+        case INT64:
+          sum += decoder.readLong(buffer);
+          break;
+        case FLOAT:
+          sum += decoder.readFloat(buffer);
+          break;
+        case DOUBLE:
+          sum += decoder.readDouble(buffer);
+          break;
+        default:
+          throw new IllegalArgumentException(dataType.toString());
+      }
+    }
+    return sum;
+  }
+
+  private static double decodeInBulk(TSEncoding encoding, TSDataType dataType, ByteBuffer buffer)
+      throws IOException {
+    Decoder decoder = Decoder.getDecoderByType(encoding, dataType);
+    int[] ints = new int[BATCH_SIZE];
+    long[] longs = new long[BATCH_SIZE];
+    float[] floats = new float[BATCH_SIZE];
+    double[] doubles = new double[BATCH_SIZE];
+    double sum = 0;
+    int num;
+    do {
+      switch (dataType) {
+        case INT32:
+          num = decoder.readInts(buffer, ints, 0, BATCH_SIZE);
+          for (int i = 0; i < num; i++) {
+            sum += ints[i];
+          }
+          break;
+        case INT64:
+          num = decoder.readLongs(buffer, longs, 0, BATCH_SIZE);
+          for (int i = 0; i < num; i++) {
+            sum += longs[i];
+          }
+          break;
+        case FLOAT:
+          num = decoder.readFloats(buffer, floats, 0, BATCH_SIZE);
+          for (int i = 0; i < num; i++) {
+            sum += floats[i];
+          }
+          break;
+        case DOUBLE:
+          num = decoder.readDoubles(buffer, doubles, 0, BATCH_SIZE);
+          for (int i = 0; i < num; i++) {
+            sum += doubles[i];
+          }
+          break;
+        default:
+          throw new IllegalArgumentException(dataType.toString());
+      }
+    } while (num == BATCH_SIZE);
+    return sum;
+  }
+}
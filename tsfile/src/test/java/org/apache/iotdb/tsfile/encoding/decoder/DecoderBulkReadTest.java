@@ -0,0 +1,195 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.encoding.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
+import org.apache.iotdb.tsfile.encoding.encoder.TSEncodingBuilder;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.utils.BytesUtils;
+import org.junit.Test;
+
+/**
+ * The bulk reads of each decoder must return the same values as the scalar reads, whatever the
+ * sizes of the batches are.
+ */
+public class DecoderBulkReadTest {
+
+  private static final int ROW_NUM = 5000;
+  private static final int[] BATCH_SIZES = {1, 7, 100, 1024};
+
+  private Random random = new Random(20190725L);
+
+  @Test
+  public void testPlain() throws IOException {
+    checkAllTypes(TSEncoding.PLAIN, TSDataType.BOOLEAN, TSDataType.INT32, TSDataType.INT64,
+        TSDataType.FLOAT, TSDataType.DOUBLE);
+  }
+
+  @Test
+  public void testRle() throws IOException {
+    checkAllTypes(TSEncoding.RLE, TSDataType.BOOLEAN, TSDataType.INT32, TSDataType.INT64,
+        TSDataType.FLOAT, TSDataType.DOUBLE);
+  }
+
+  @Test
+  public void testTs2Diff() throws IOException {
+    checkAllTypes(TSEncoding.TS_2DIFF, TSDataType.INT32, TSDataType.INT64, TSDataType.FLOAT,
+        TSDataType.DOUBLE);
+  }
+
+  @Test
+  public void testGorilla() throws IOException {
+    checkAllTypes(TSEncoding.GORILLA, TSDataType.FLOAT, TSDataType.DOUBLE);
+  }
+
+  @Test
+  public void testEmptyBuffer() throws IOException {
+    ByteBuffer empty = ByteBuffer.allocate(0);
+    assertEquals(0, Decoder.getDecoderByType(TSEncoding.TS_2DIFF, TSDataType.INT64)
+        .readLongs(empty, new long[8], 0, 8));
+    assertEquals(0, Decoder.getDecoderByType(TSEncoding.RLE, TSDataType.INT32)
+        .readInts(empty, new int[8], 0, 8));
+    assertEquals(0, Decoder.getDecoderByType(TSEncoding.PLAIN, TSDataType.DOUBLE)
+        .readDoubles(empty, new double[8], 0, 8));
+    assertEquals(0, Decoder.getDecoderByType(TSEncoding.TS_2DIFF, TSDataType.FLOAT)
+        .readFloats(empty, new float[8], 0, 8));
+  }
+
+  @Test
+  public void testUnpack() {
+    byte[] bytes = new byte[64];
+    random.nextBytes(bytes);
+    for (int width = 0; width <= 64; width++) {
+      for (int pos = 0; pos + width <= bytes.length * 8; pos += 13) {
+        assertEquals(BytesUtils.bytesToLong(bytes, pos, width),
+            DeltaBinaryDecoder.unpack(bytes, pos, width));
+      }
+    }
+  }
+
+  private void checkAllTypes(TSEncoding encoding, TSDataType... dataTypes) throws IOException {
+    for (TSDataType dataType : dataTypes) {
+      ByteBuffer encoded = encode(encoding, dataType);
+      for (int batchSize : BATCH_SIZES) {
+        check(encoding, dataType, encoded.duplicate(), batchSize);
+      }
+    }
+  }
+
+  /**
+   * values with runs of repeated values and random values, so that RLE has both modes.
+   */
+  private ByteBuffer encode(TSEncoding encoding, TSDataType dataType) throws IOException {
+    Encoder encoder = TSEncodingBuilder.getConverter(encoding).getEncoder(dataType);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    long value = 0;
+    for (int i = 0; i < ROW_NUM; i++) {
+      if (i % 100 >= 50) {
+        value = random.nextInt(1000);
+      }
+      switch (dataType) {
+        case BOOLEAN:
+          encoder.encode(value % 2 == 0, out);
+          break;
+        case INT32:
+          encoder.encode((int) value, out);
+          break;
+        case INT64:
+          encoder.encode(value << 20, out);
+          break;
+        case FLOAT:
+          encoder.encode(value / 100.0f, out);
+          break;
+        case DOUBLE:
+          encoder.encode(value / 100.0, out);
+          break;
+        default:
+          throw new IllegalArgumentException(dataType.toString());
+      }
+    }
+    encoder.flush(out);
+    return ByteBuffer.wrap(out.toByteArray());
+  }
+
+  private void check(TSEncoding encoding, TSDataType dataType, ByteBuffer encoded, int batchSize)
+      throws IOException {
+    String message = encoding + " " + dataType + " " + batchSize;
+    Decoder scalarDecoder = Decoder.getDecoderByType(encoding, dataType);
+    Decoder bulkDecoder = Decoder.getDecoderByType(encoding, dataType);
+    ByteBuffer scalarBuffer = encoded.duplicate();
+    ByteBuffer bulkBuffer = encoded.duplicate();
+    int count = 0;
+    while (true) {
+      int num;
+      switch (dataType) {
+        case BOOLEAN:
+          boolean[] booleans = new boolean[batchSize + 1];
+          num = bulkDecoder.readBooleans(bulkBuffer, booleans, 1, batchSize);
+          for (int i = 0; i < num; i++) {
+            assertEquals(message, scalarDecoder.readBoolean(scalarBuffer), booleans[i + 1]);
+          }
+          break;
+        case INT32:
+          int[] ints = new int[batchSize + 1];
+          num = bulkDecoder.readInts(bulkBuffer, ints, 1, batchSize);
+          for (int i = 0; i < num; i++) {
+            assertEquals(message, scalarDecoder.readInt(scalarBuffer), ints[i + 1]);
+          }
+          break;
+        case INT64:
+          long[] longs = new long[batchSize + 1];
+          num = bulkDecoder.readLongs(bulkBuffer, longs, 1, batchSize);
+          for (int i = 0; i < num; i++) {
+            assertEquals(message, scalarDecoder.readLong(scalarBuffer), longs[i + 1]);
+          }
+          break;
+        case FLOAT:
+          float[] floats = new float[batchSize + 1];
+          num = bulkDecoder.readFloats(bulkBuffer, floats, 1, batchSize);
+          for (int i = 0; i < num; i++) {
+            assertEquals(message, scalarDecoder.readFloat(scalarBuffer), floats[i + 1], 0);
+          }
+          break;
+        case DOUBLE:
+          double[] doubles = new double[batchSize + 1];
+          num = bulkDecoder.readDoubles(bulkBuffer, doubles, 1, batchSize);
+          for (int i = 0; i < num; i++) {
+            assertEquals(message, scalarDecoder.readDouble(scalarBuffer), doubles[i + 1], 0);
+          }
+          break;
+        default:
+          throw new IllegalArgumentException(dataType.toString());
+      }
+      count += num;
+      if (num < batchSize) {
+        break;
+      }
+    }
+    assertEquals(message, ROW_NUM, count);
+    assertTrue(message, !scalarDecoder.hasNext(scalarBuffer));
+  }
+}
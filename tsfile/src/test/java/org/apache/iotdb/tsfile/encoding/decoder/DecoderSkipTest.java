@@ -0,0 +1,188 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.encoding.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
+import org.apache.iotdb.tsfile.encoding.encoder.TSEncodingBuilder;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.junit.Test;
+
+/**
+ * Skipping values must leave a decoder at the same value as reading them, and skipping the values
+ * less than a bound must never skip a value not less than it.
+ */
+public class DecoderSkipTest {
+
+  private static final int ROW_NUM = 5000;
+  private static final int[] SKIP_SIZES = {1, 7, 100, 129, 1024};
+
+  private Random random = new Random(20190801L);
+
+  @Test
+  public void testPlain() throws IOException {
+    checkAllTypes(TSEncoding.PLAIN, TSDataType.BOOLEAN, TSDataType.INT32, TSDataType.INT64,
+        TSDataType.FLOAT, TSDataType.DOUBLE, TSDataType.TEXT);
+  }
+
+  @Test
+  public void testRle() throws IOException {
+    checkAllTypes(TSEncoding.RLE, TSDataType.BOOLEAN, TSDataType.INT32, TSDataType.INT64,
+        TSDataType.FLOAT, TSDataType.DOUBLE);
+  }
+
+  @Test
+  public void testTs2Diff() throws IOException {
+    checkAllTypes(TSEncoding.TS_2DIFF, TSDataType.INT32, TSDataType.INT64, TSDataType.FLOAT,
+        TSDataType.DOUBLE);
+  }
+
+  @Test
+  public void testGorilla() throws IOException {
+    checkAllTypes(TSEncoding.GORILLA, TSDataType.FLOAT, TSDataType.DOUBLE);
+  }
+
+  @Test
+  public void testSkipLessThan() throws IOException {
+    Encoder encoder = TSEncodingBuilder.getConverter(TSEncoding.TS_2DIFF)
+        .getEncoder(TSDataType.INT64);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int i = 0; i < ROW_NUM; i++) {
+      encoder.encode(i * 3L, out);
+    }
+    encoder.flush(out);
+    ByteBuffer encoded = ByteBuffer.wrap(out.toByteArray());
+
+    for (long bound = -1; bound <= ROW_NUM * 3 + 1; bound += 97) {
+      Decoder decoder = Decoder.getDecoderByType(TSEncoding.TS_2DIFF, TSDataType.INT64);
+      ByteBuffer buffer = encoded.duplicate();
+      int skipped = decoder.skipLessThan(buffer, bound);
+      assertTrue(String.valueOf(bound), skipped == 0 || (skipped - 1) * 3L < bound);
+      if (skipped < ROW_NUM) {
+        assertEquals(skipped * 3L, decoder.readLong(buffer));
+        // the pack has been started, so nothing is skipped
+        assertEquals(0, decoder.skipLessThan(buffer, bound));
+      }
+      if (bound > 1024 * 3) {
+        // the checkpoints make the decoder skip all but the last pack before the bound at most
+        assertTrue(String.valueOf(bound), skipped >= 512);
+      }
+    }
+  }
+
+  private void checkAllTypes(TSEncoding encoding, TSDataType... dataTypes) throws IOException {
+    for (TSDataType dataType : dataTypes) {
+      ByteBuffer encoded = encode(encoding, dataType);
+      Object[] expected = new Object[ROW_NUM];
+      Decoder decoder = Decoder.getDecoderByType(encoding, dataType);
+      ByteBuffer buffer = encoded.duplicate();
+      for (int i = 0; i < ROW_NUM; i++) {
+        expected[i] = read(decoder, buffer, dataType);
+      }
+      for (int skipSize : SKIP_SIZES) {
+        check(encoding, dataType, encoded.duplicate(), expected, skipSize);
+      }
+    }
+  }
+
+  /**
+   * skip skipSize values and read one value in turn, comparing the read ones with the expected.
+   */
+  private void check(TSEncoding encoding, TSDataType dataType, ByteBuffer buffer,
+      Object[] expected, int skipSize) throws IOException {
+    String message = encoding + " " + dataType + " " + skipSize;
+    Decoder decoder = Decoder.getDecoderByType(encoding, dataType);
+    int index = 0;
+    while (true) {
+      int skipped = decoder.skip(buffer, dataType, skipSize);
+      index += skipped;
+      if (skipped < skipSize) {
+        break;
+      }
+      if (index == ROW_NUM) {
+        break;
+      }
+      assertEquals(message, expected[index++], read(decoder, buffer, dataType));
+    }
+    assertEquals(message, ROW_NUM, index);
+    assertTrue(message, !decoder.hasNext(buffer));
+  }
+
+  private Object read(Decoder decoder, ByteBuffer buffer, TSDataType dataType) {
+    switch (dataType) {
+      case BOOLEAN:
+        return decoder.readBoolean(buffer);
+      case INT32:
+        return decoder.readInt(buffer);
+      case INT64:
+        return decoder.readLong(buffer);
+      case FLOAT:
+        return decoder.readFloat(buffer);
+      case DOUBLE:
+        return decoder.readDouble(buffer);
+      case TEXT:
+        return decoder.readBinary(buffer);
+      default:
+        throw new IllegalArgumentException(dataType.toString());
+    }
+  }
+
+  private ByteBuffer encode(TSEncoding encoding, TSDataType dataType) throws IOException {
+    Encoder encoder = TSEncodingBuilder.getConverter(encoding).getEncoder(dataType);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    long value = 0;
+    for (int i = 0; i < ROW_NUM; i++) {
+      if (i % 100 >= 50) {
+        value = random.nextInt(1000);
+      }
+      switch (dataType) {
+        case BOOLEAN:
+          encoder.encode(value % 2 == 0, out);
+          break;
+        case INT32:
+          encoder.encode((int) value, out);
+          break;
+        case INT64:
+          encoder.encode(value << 20, out);
+          break;
+        case FLOAT:
+          encoder.encode(value / 100.0f, out);
+          break;
+        case DOUBLE:
+          encoder.encode(value / 100.0, out);
+          break;
+        case TEXT:
+          encoder.encode(new Binary("v" + value), out);
+          break;
+        default:
+          throw new IllegalArgumentException(dataType.toString());
+      }
+    }
+    encoder.flush(out);
+    return ByteBuffer.wrap(out.toByteArray());
+  }
+}
@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.read.common.ColumnBlock;
 import org.apache.iotdb.tsfile.read.common.Field;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.common.RowRecord;
@@ -377,4 +378,61 @@ public class ReadTest {
       cnt++;
     }
   }
+
+  @Test
+  public void queryInBlocksTest() throws IOException {
+    List<Path> pathList = new ArrayList<>();
+    pathList.add(new Path("d1.s1"));
+    pathList.add(new Path("d2.s2"));
+    pathList.add(new Path("d2.s4"));
+    assertSameInBlocks(QueryExpression.create(pathList, null));
+
+    IExpression valFilter = new SingleSeriesExpression(new Path("d2.s2"), ValueFilter.gt(9722L));
+    assertSameInBlocks(QueryExpression.create(pathList, valFilter));
+  }
+
+  private void assertSameInBlocks(QueryExpression queryExpression) throws IOException {
+    List<RowRecord> records = new ArrayList<>();
+    QueryDataSet dataSet = roTsFile.query(queryExpression);
+    while (dataSet.hasNext()) {
+      records.add(dataSet.next());
+    }
+
+    dataSet = roTsFile.query(queryExpression);
+    ColumnBlock block = new ColumnBlock(dataSet.getDataTypes(), 7);
+    int count = 0;
+    while (dataSet.nextBlock(block) > 0) {
+      for (int row = 0; row < block.getSize(); row++) {
+        RowRecord record = records.get(count++);
+        assertEquals(record.getTimestamp(), block.getTimestamps()[row]);
+        for (int column = 0; column < block.getColumnNum(); column++) {
+          Field field = record.getFields().get(column);
+          if (field.isNull()) {
+            Assert.assertTrue(block.getIsNull(column)[row]);
+          } else {
+            Assert.assertFalse(block.getIsNull(column)[row]);
+            assertEquals(field.getStringValue(), getValueInBlock(block, column, row));
+          }
+        }
+      }
+    }
+    assertEquals(records.size(), count);
+  }
+
+  private String getValueInBlock(ColumnBlock block, int column, int row) {
+    switch (block.getDataType(column)) {
+      case BOOLEAN:
+        return String.valueOf(block.getBooleans(column)[row]);
+      case INT32:
+        return String.valueOf(block.getInts(column)[row]);
+      case INT64:
+        return String.valueOf(block.getLongs(column)[row]);
+      case FLOAT:
+        return String.valueOf(block.getFloats(column)[row]);
+      case DOUBLE:
+        return String.valueOf(block.getDoubles(column)[row]);
+      default:
+        return block.getBinaries(column)[row].getStringValue();
+    }
+  }
 }
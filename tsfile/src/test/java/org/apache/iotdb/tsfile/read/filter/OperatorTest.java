@@ -154,6 +154,32 @@ public class OperatorTest {
     }
   }
 
+  @Test
+  public void testTimeBounds() {
+    Assert.assertEquals(Long.MIN_VALUE, TimeFilter.getLowerBound(null));
+    Assert.assertEquals(Long.MAX_VALUE, TimeFilter.getUpperBound(null));
+
+    Filter filter = FilterFactory.and(TimeFilter.gt(100L), TimeFilter.ltEq(200L));
+    Assert.assertEquals(101, TimeFilter.getLowerBound(filter));
+    Assert.assertEquals(200, TimeFilter.getUpperBound(filter));
+
+    filter = FilterFactory.or(filter, TimeFilter.eq(1000L));
+    Assert.assertEquals(101, TimeFilter.getLowerBound(filter));
+    Assert.assertEquals(1000, TimeFilter.getUpperBound(filter));
+
+    // value filters do not bound the time
+    filter = FilterFactory.and(TimeFilter.gtEq(100L), ValueFilter.lt(50));
+    Assert.assertEquals(100, TimeFilter.getLowerBound(filter));
+    Assert.assertEquals(Long.MAX_VALUE, TimeFilter.getUpperBound(filter));
+    filter = FilterFactory.or(TimeFilter.lt(100L), ValueFilter.lt(50));
+    Assert.assertEquals(Long.MIN_VALUE, TimeFilter.getLowerBound(filter));
+    Assert.assertEquals(Long.MAX_VALUE, TimeFilter.getUpperBound(filter));
+
+    filter = TimeFilter.not(TimeFilter.gt(100L));
+    Assert.assertEquals(Long.MIN_VALUE, TimeFilter.getLowerBound(filter));
+    Assert.assertEquals(Long.MAX_VALUE, TimeFilter.getUpperBound(filter));
+  }
+
   @Test
   public void efficiencyTest() {
     Filter andFilter = FilterFactory.and(TimeFilter.gt(100L), ValueFilter.lt(50.9));
@@ -0,0 +1,142 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.read.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.read.ReadOnlyTsFile;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.expression.QueryExpression;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.apache.iotdb.tsfile.utils.FileGenerator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MmapTsFileInputTest {
+
+  private static final String FILE_NAME = "target/perTestOutputData.tsfile";
+
+  @Before
+  public void before() throws IOException, InterruptedException, WriteProcessException {
+    FileGenerator.generateFile(1000, 100);
+  }
+
+  @After
+  public void after() {
+    FileGenerator.after();
+  }
+
+  @Test
+  public void testReadSameAsDefaultInput() throws IOException {
+    TsFileInput expected = new DefaultTsFileInput(Paths.get(FILE_NAME));
+    TsFileInput actual = new MmapTsFileInput(Paths.get(FILE_NAME));
+    try {
+      assertEquals(expected.size(), actual.size());
+      int size = (int) expected.size();
+      int[] lengths = {1, 7, 64, 1000};
+      for (long position = 0; position < size; position += 97) {
+        for (int length : lengths) {
+          int readLength = (int) Math.min(length, size - position);
+          ByteBuffer expectedBuffer = ByteBuffer.allocate(readLength);
+          expected.read(expectedBuffer, position);
+          expectedBuffer.flip();
+          ByteBuffer actualBuffer = actual.readData(position, readLength);
+          assertEquals(readLength, actualBuffer.remaining());
+          assertEquals(expectedBuffer, actualBuffer);
+        }
+      }
+
+      // sequential reads advance the position of the input
+      ByteBuffer tail = ByteBuffer.allocate(Integer.BYTES);
+      expected.read(tail, size - Integer.BYTES);
+      tail.flip();
+      actual.position(size - Integer.BYTES);
+      assertEquals(tail.getInt(), actual.readInt());
+      assertEquals(size, actual.position());
+
+      byte[] expectedBytes = new byte[128];
+      byte[] actualBytes = new byte[128];
+      expected.position(0);
+      actual.position(0);
+      expected.wrapAsInputStream().read(expectedBytes);
+      actual.wrapAsInputStream().read(actualBytes);
+      assertTrue(Arrays.equals(expectedBytes, actualBytes));
+    } finally {
+      expected.close();
+      actual.close();
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadDataOutOfRange() throws IOException {
+    TsFileInput input = new MmapTsFileInput(Paths.get(FILE_NAME));
+    try {
+      input.readData(input.size() - 1, 2);
+    } finally {
+      input.close();
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadAfterClose() throws IOException {
+    TsFileInput input = new MmapTsFileInput(Paths.get(FILE_NAME));
+    input.close();
+    // the segments are unmapped, so the input refuses to read instead of touching them
+    input.readData(0, 1);
+  }
+
+  @Test
+  public void testQueryThroughMmapInput() throws IOException {
+    List<Path> pathList = new ArrayList<>();
+    pathList.add(new Path("d1.s1"));
+    pathList.add(new Path("d1.s4"));
+    List<String> expected = query(new TsFileSequenceReader(FILE_NAME), pathList);
+    List<String> actual = query(
+        new TsFileSequenceReader(FILE_NAME, new MmapTsFileInput(Paths.get(FILE_NAME))), pathList);
+    assertTrue(!expected.isEmpty());
+    assertEquals(expected, actual);
+  }
+
+  private List<String> query(TsFileSequenceReader reader, List<Path> pathList)
+      throws IOException {
+    List<String> records = new ArrayList<>();
+    ReadOnlyTsFile tsFile = new ReadOnlyTsFile(reader);
+    try {
+      QueryDataSet dataSet = tsFile.query(QueryExpression.create(pathList, null));
+      while (dataSet.hasNext()) {
+        RowRecord record = dataSet.next();
+        records.add(record.toString());
+      }
+    } finally {
+      tsFile.close();
+    }
+    return records;
+  }
+}
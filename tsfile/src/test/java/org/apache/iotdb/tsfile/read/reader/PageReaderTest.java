@@ -37,6 +37,9 @@ import org.apache.iotdb.tsfile.encoding.encoder.PlainEncoder;
 import org.apache.iotdb.tsfile.encoding.encoder.SinglePrecisionEncoder;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.ValueFilter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
 import org.apache.iotdb.tsfile.read.reader.page.PageReader;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.write.page.PageWriter;
@@ -142,6 +145,102 @@ public class PageReaderTest {
     test.test();
   }
 
+  @Test
+  public void testDeletionAndFilter() throws IOException {
+    int count = 10000;
+    PageWriter pageWriter = new PageWriter();
+    pageWriter.setTimeEncoder(new DeltaBinaryEncoder.LongDeltaEncoder());
+    pageWriter.setValueEncoder(new DeltaBinaryEncoder.IntDeltaEncoder());
+    for (int i = 0; i < count; i++) {
+      pageWriter.write(i, i);
+    }
+    ByteBuffer page = ByteBuffer.wrap(pageWriter.getUncompressedBytes().array());
+
+    // the deletion falls into the middle of a decoded batch
+    PageReader pageReader = new PageReader(page.duplicate(), TSDataType.INT32,
+        new DeltaBinaryDecoder.IntDeltaDecoder(), new DeltaBinaryDecoder.LongDeltaDecoder());
+    pageReader.setDeletedAt(2500);
+    checkPage(pageReader.nextBatch(), 2501, count);
+
+    pageReader = new PageReader(page.duplicate(), TSDataType.INT32,
+        new DeltaBinaryDecoder.IntDeltaDecoder(), new DeltaBinaryDecoder.LongDeltaDecoder(),
+        FilterFactory.and(TimeFilter.lt(8000), ValueFilter.gtEq(3000)));
+    pageReader.setDeletedAt(2500);
+    checkPage(pageReader.nextBatch(), 3000, 8000);
+
+    pageReader = new PageReader(page.duplicate(), TSDataType.INT32,
+        new DeltaBinaryDecoder.IntDeltaDecoder(), new DeltaBinaryDecoder.LongDeltaDecoder(),
+        ValueFilter.eq(1024));
+    checkPage(pageReader.nextBatch(), 1024, 1025);
+  }
+
+  @Test
+  public void testTimeRange() throws IOException {
+    int count = 10000;
+    PageWriter pageWriter = new PageWriter();
+    pageWriter.setTimeEncoder(new DeltaBinaryEncoder.LongDeltaEncoder());
+    pageWriter.setValueEncoder(new DeltaBinaryEncoder.IntDeltaEncoder());
+    for (int i = 0; i < count; i++) {
+      pageWriter.write(i, i);
+    }
+    ByteBuffer page = ByteBuffer.wrap(pageWriter.getUncompressedBytes().array());
+    Decoder valueDecoder = new DeltaBinaryDecoder.IntDeltaDecoder();
+    Decoder timeDecoder = new DeltaBinaryDecoder.LongDeltaDecoder();
+
+    // the range lies in the middle of a pack, the page is left once the range is passed
+    PageReader pageReader = new PageReader(page.duplicate(), TSDataType.INT32, valueDecoder,
+        timeDecoder, FilterFactory.and(TimeFilter.gtEq(5000), TimeFilter.lt(5010)));
+    checkPage(pageReader.nextBatch(), 5000, 5010);
+    Assert.assertFalse(pageReader.hasNextBatch());
+
+    // the decoders stopped in the middle of a pack can be reused after reset
+    valueDecoder.reset();
+    timeDecoder.reset();
+    pageReader = new PageReader(page.duplicate(), TSDataType.INT32, valueDecoder, timeDecoder,
+        TimeFilter.eq(7777));
+    checkPage(pageReader.nextBatch(), 7777, 7778);
+
+    valueDecoder.reset();
+    timeDecoder.reset();
+    pageReader = new PageReader(page.duplicate(), TSDataType.INT32, valueDecoder, timeDecoder,
+        FilterFactory.and(TimeFilter.gt(1000), ValueFilter.lt(3000)));
+    pageReader.setDeletedAt(2000);
+    checkPage(pageReader.nextBatch(), 2001, 3000);
+
+    valueDecoder.reset();
+    timeDecoder.reset();
+    pageReader = new PageReader(page.duplicate(), TSDataType.INT32, valueDecoder, timeDecoder,
+        TimeFilter.gtEq(count));
+    checkPage(pageReader.nextBatch(), count, count);
+
+    // the values of the skipped points are skipped by the plain decoder without decoding
+    pageWriter = new PageWriter();
+    pageWriter.setTimeEncoder(new PlainEncoder(EndianType.LITTLE_ENDIAN, TSDataType.INT64, 0));
+    pageWriter.setValueEncoder(new PlainEncoder(EndianType.LITTLE_ENDIAN, TSDataType.INT32, 0));
+    for (int i = 0; i < count; i++) {
+      pageWriter.write(i, i);
+    }
+    page = ByteBuffer.wrap(pageWriter.getUncompressedBytes().array());
+    pageReader = new PageReader(page, TSDataType.INT32, new PlainDecoder(EndianType.LITTLE_ENDIAN),
+        new PlainDecoder(EndianType.LITTLE_ENDIAN),
+        FilterFactory.and(TimeFilter.gt(4321), TimeFilter.ltEq(8765)));
+    checkPage(pageReader.nextBatch(), 4322, 8766);
+  }
+
+  /**
+   * check that the points of the batch are (i, i) for i from start (inclusive) to end (exclusive).
+   */
+  private void checkPage(BatchData data, int start, int end) {
+    int expected = start;
+    while (data.hasNext()) {
+      Assert.assertEquals(expected, data.currentTime());
+      Assert.assertEquals(expected, data.getInt());
+      expected++;
+      data.next();
+    }
+    Assert.assertEquals(end, expected);
+  }
+
   private abstract static class LoopWriteReadTest {
 
     private Encoder encoder;
@@ -0,0 +1,199 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.write.chunk;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * The batch writes of ChunkWriterImpl must produce the same pages and statistics as writing the
+ * points one by one.
+ */
+public class ChunkWriterImplTest {
+
+  private static final String POINT_FILE = "target/chunkWriterImplTest-point.tsfile";
+  private static final String BATCH_FILE = "target/chunkWriterImplTest-batch.tsfile";
+  private static final int POINT_NUM = 100000;
+  // small pages so that a chunk has many pages
+  private static final int PAGE_SIZE = 4 * 1024;
+
+  private long[] timestamps = new long[POINT_NUM];
+  private Random random = new Random(2019);
+
+  @After
+  public void tearDown() {
+    new File(POINT_FILE).delete();
+    new File(BATCH_FILE).delete();
+  }
+
+  private void prepareTimestamps() {
+    long time = 0;
+    for (int i = 0; i < POINT_NUM; i++) {
+      time += 1 + random.nextInt(10);
+      timestamps[i] = time;
+    }
+  }
+
+  @Test
+  public void testLong() throws IOException {
+    prepareTimestamps();
+    long[] values = new long[POINT_NUM];
+    for (int i = 0; i < POINT_NUM; i++) {
+      values[i] = random.nextInt(1000);
+    }
+    for (TSEncoding encoding : new TSEncoding[]{TSEncoding.PLAIN, TSEncoding.TS_2DIFF,
+        TSEncoding.RLE}) {
+      check(new MeasurementSchema("s1", TSDataType.INT64, encoding), (writer, start, end) -> {
+        for (int i = start; i < end; i++) {
+          writer.write(timestamps[i], values[i]);
+        }
+      }, (writer, start, end) -> writer.write(timestamps, values, start, end));
+    }
+  }
+
+  @Test
+  public void testInt() throws IOException {
+    prepareTimestamps();
+    int[] values = new int[POINT_NUM];
+    for (int i = 0; i < POINT_NUM; i++) {
+      values[i] = random.nextInt(1000) - 500;
+    }
+    for (TSEncoding encoding : new TSEncoding[]{TSEncoding.PLAIN, TSEncoding.TS_2DIFF,
+        TSEncoding.RLE}) {
+      check(new MeasurementSchema("s1", TSDataType.INT32, encoding), (writer, start, end) -> {
+        for (int i = start; i < end; i++) {
+          writer.write(timestamps[i], values[i]);
+        }
+      }, (writer, start, end) -> writer.write(timestamps, values, start, end));
+    }
+  }
+
+  @Test
+  public void testDouble() throws IOException {
+    prepareTimestamps();
+    double[] values = new double[POINT_NUM];
+    for (int i = 0; i < POINT_NUM; i++) {
+      values[i] = random.nextDouble() * 100;
+    }
+    for (TSEncoding encoding : new TSEncoding[]{TSEncoding.PLAIN, TSEncoding.GORILLA,
+        TSEncoding.RLE}) {
+      check(new MeasurementSchema("s1", TSDataType.DOUBLE, encoding), (writer, start, end) -> {
+        for (int i = start; i < end; i++) {
+          writer.write(timestamps[i], values[i]);
+        }
+      }, (writer, start, end) -> writer.write(timestamps, values, start, end));
+    }
+  }
+
+  @Test
+  public void testFloat() throws IOException {
+    prepareTimestamps();
+    float[] values = new float[POINT_NUM];
+    for (int i = 0; i < POINT_NUM; i++) {
+      values[i] = random.nextFloat() * 100;
+    }
+    for (TSEncoding encoding : new TSEncoding[]{TSEncoding.PLAIN, TSEncoding.GORILLA}) {
+      check(new MeasurementSchema("s1", TSDataType.FLOAT, encoding), (writer, start, end) -> {
+        for (int i = start; i < end; i++) {
+          writer.write(timestamps[i], values[i]);
+        }
+      }, (writer, start, end) -> writer.write(timestamps, values, start, end));
+    }
+  }
+
+  @Test
+  public void testBooleanAndText() throws IOException {
+    prepareTimestamps();
+    boolean[] booleans = new boolean[POINT_NUM];
+    Binary[] binaries = new Binary[POINT_NUM];
+    for (int i = 0; i < POINT_NUM; i++) {
+      booleans[i] = random.nextBoolean();
+      binaries[i] = new Binary(String.valueOf(random.nextInt()));
+    }
+    check(new MeasurementSchema("s1", TSDataType.BOOLEAN, TSEncoding.PLAIN),
+        (writer, start, end) -> {
+          for (int i = start; i < end; i++) {
+            writer.write(timestamps[i], booleans[i]);
+          }
+        }, (writer, start, end) -> writer.write(timestamps, booleans, start, end));
+    check(new MeasurementSchema("s1", TSDataType.TEXT, TSEncoding.PLAIN),
+        (writer, start, end) -> {
+          for (int i = start; i < end; i++) {
+            writer.write(timestamps[i], binaries[i]);
+          }
+        }, (writer, start, end) -> writer.write(timestamps, binaries, start, end));
+  }
+
+  private interface RangeWriter {
+
+    void write(IChunkWriter writer, int start, int end);
+  }
+
+  /**
+   * write the same points by points and by batches of random lengths, then compare the bytes and
+   * the statistics of the chunks.
+   */
+  private void check(MeasurementSchema schema, RangeWriter pointWriter, RangeWriter batchWriter)
+      throws IOException {
+    ChunkMetaData pointMetaData = writeChunk(POINT_FILE, schema, pointWriter);
+    ChunkMetaData batchMetaData = writeChunk(BATCH_FILE, schema, batchWriter);
+
+    String message = schema.getType() + " " + schema.getEncodingType();
+    Assert.assertTrue(message, Arrays.equals(Files.readAllBytes(new File(POINT_FILE).toPath()),
+        Files.readAllBytes(new File(BATCH_FILE).toPath())));
+    Assert.assertEquals(message, pointMetaData.getNumOfPoints(), batchMetaData.getNumOfPoints());
+    Assert.assertEquals(message, pointMetaData.getStartTime(), batchMetaData.getStartTime());
+    Assert.assertEquals(message, pointMetaData.getEndTime(), batchMetaData.getEndTime());
+    Map<String, ByteBuffer> pointStatistics = pointMetaData.getDigest().getStatistics();
+    Map<String, ByteBuffer> batchStatistics = batchMetaData.getDigest().getStatistics();
+    Assert.assertEquals(message, pointStatistics, batchStatistics);
+  }
+
+  private ChunkMetaData writeChunk(String path, MeasurementSchema schema, RangeWriter rangeWriter)
+      throws IOException {
+    TsFileIOWriter fileWriter = new TsFileIOWriter(new File(path));
+    ChunkWriterImpl chunkWriter = new ChunkWriterImpl(schema, new ChunkBuffer(schema), PAGE_SIZE);
+    fileWriter.startChunkGroup("d1");
+    int start = 0;
+    while (start < POINT_NUM) {
+      int end = Math.min(POINT_NUM, start + 1 + random.nextInt(3000));
+      rangeWriter.write(chunkWriter, start, end);
+      start = end;
+    }
+    Assert.assertTrue(chunkWriter.getNumOfPages() > 1);
+    chunkWriter.writeToFileWriter(fileWriter);
+    fileWriter.endChunkGroup(0);
+    fileWriter.close();
+    return fileWriter.getChunkGroupMetaDatas().get(0).getChunkMetaDataList().get(0);
+  }
+}